@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Лайки через HTTP: по одному запросу PUT/DELETE /films/{id}/like/{userId} на операцию
+против пакета POST /films/likes из BATCH операций. Приложение запускается на случайном порту,
+время указано на одну операцию (лайк или его снятие).
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchEndpointBenchmark {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+    private static final int BATCH = 1000;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = SpringApplication.run(FilmorateApplication.class,
+                "--server.port=0", "--logging.level.root=WARN", "--logging.level.ru.yandex.practicum=WARN");
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        BenchmarkData.addUsers(context.getBean(UserStorage.class), USERS);
+        BenchmarkData.addFilms(context.getBean(FilmStorage.class), FILMS);
+        client = HttpClient.newHttpClient();
+        random = new Random(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int singleRequests() throws IOException, InterruptedException {
+        String path = String.format("%s/films/%d/like/%d", baseUrl, 1 + random.nextInt(FILMS), 1 + random.nextInt(USERS));
+        int added = send(HttpRequest.newBuilder(URI.create(path)).PUT(HttpRequest.BodyPublishers.noBody()));
+        int removed = send(HttpRequest.newBuilder(URI.create(path)).DELETE());
+        return added + removed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int batchRequest() throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder(BATCH * 48).append('[');
+        long[] filmIds = new long[BATCH / 2];
+        long[] userIds = new long[BATCH / 2];
+        for (int i = 0; i < BATCH / 2; i++) {
+            filmIds[i] = 1 + random.nextInt(FILMS);
+            userIds[i] = 1 + random.nextInt(USERS);
+            appendOperation(body, "ADD", filmIds[i], userIds[i]);
+        }
+        for (int i = 0; i < BATCH / 2; i++) {
+            appendOperation(body, "REMOVE", filmIds[i], userIds[i]);
+        }
+        body.setCharAt(body.length() - 1, ']');
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/films/likes"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString())));
+    }
+
+    private static void appendOperation(StringBuilder body, String action, long filmId, long userId) {
+        body.append("{\"action\":\"").append(action).append("\",\"filmId\":").append(filmId)
+                .append(",\"userId\":").append(userId).append("},");
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/*
+Наполнение хранилищ тестовыми данными для бенчмарков.
+*/
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Film newFilm(long n) {
+        Film film = new Film();
+        film.setName("Film " + n);
+        film.setDescription("Description of film " + n);
+        film.setReleaseDate(LocalDate.of(1900, 1, 1).plusDays(n % 40_000));
+        film.setDuration(60 + (int) (n % 120));
+        return film;
+    }
+
+    static User newUser(long n) {
+        User user = new User();
+        user.setEmail("user" + n + "@mail.ru");
+        user.setLogin("user" + n);
+        user.setName("User " + n);
+        user.setBirthday(LocalDate.of(1970, 1, 1).plusDays(n % 15_000));
+        return user;
+    }
+
+    static void addUsers(UserStorage storage, int count) throws Exception {
+        for (long n = 1; n <= count; n++) {
+            storage.addUser(newUser(n));
+        }
+    }
+
+    static void addFilms(FilmStorage storage, int count) throws Exception {
+        for (long n = 1; n <= count; n++) {
+            storage.addFilm(newFilm(n));
+        }
+    }
+
+    // Лайки с "тяжелым хвостом": небольшая часть фильмов собирает большую часть лайков
+    static void addLikes(FilmStorage storage, int films, int users, long likes, Random random) throws Exception {
+        for (long i = 0; i < likes; i++) {
+            double skew = random.nextDouble();
+            long filmId = 1 + (long) (films * skew * skew * skew);
+            long userId = 1 + random.nextInt(users);
+            storage.addLike(filmId, userId);
+        }
+    }
+
+    // Пользователи 1..hubs получают по degree случайных друзей из всего каталога
+    static void addHubFriends(UserStorage storage, int users, int hubs, int degree, Random random) throws Exception {
+        for (long userId = 1; userId <= hubs; userId++) {
+            int added = 0;
+            while (added < Math.min(degree, users - 1)) {
+                long friendId = 1 + random.nextInt(users);
+                if (friendId != userId && storage.addFriend(userId, friendId)) {
+                    added++;
+                }
+            }
+        }
+    }
+
+    /*
+    Граф дружбы со степенным распределением степеней (модель предпочтительного присоединения):
+    каждый пользователь с ID больше edgesPerUser дружит с edgesPerUser ранее добавленными, выбранными
+    с вероятностью, пропорциональной их числу друзей. Большинство пользователей получает около edgesPerUser друзей,
+    несколько первых — порядка edgesPerUser * sqrt(users).
+    */
+    static void addPowerLawFriends(UserStorage storage, int users, int edgesPerUser, Random random) throws Exception {
+        // Концы всех добавленных связей: случайный элемент — пользователь с вероятностью, пропорциональной степени
+        long[] ends = new long[2 * users * edgesPerUser];
+        int size = 0;
+        for (long userId = 1; userId <= edgesPerUser; userId++) {
+            ends[size++] = userId;
+        }
+        for (long userId = edgesPerUser + 1; userId <= users; userId++) {
+            long[] friends = new long[edgesPerUser];
+            int count = 0;
+            while (count < edgesPerUser) {
+                long friendId = ends[random.nextInt(size)];
+                boolean duplicate = false;
+                for (int i = 0; i < count; i++) {
+                    duplicate |= friends[i] == friendId;
+                }
+                if (!duplicate) {
+                    friends[count++] = friendId;
+                }
+            }
+            storage.addFriends(userId, friends);
+            for (long friendId : friends) {
+                ends[size++] = friendId;
+                ends[size++] = userId;
+            }
+        }
+    }
+
+}
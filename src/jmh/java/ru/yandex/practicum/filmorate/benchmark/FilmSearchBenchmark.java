@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+Поиск фильмов по индексам InMemoryFilmStorage (FilmSearchIndex) на каталогах разного размера.
+Названия — "Film N", даты релиза повторяются каждые 40 000 дней, продолжительность — 60..179 минут (см. BenchmarkData).
+  - dateRange, durationRange, namePrefix, nameSubstring — одно условие, первые 100 фильмов по ID;
+  - popularInRange — диапазон дат и продолжительности, первые 10 по популярности;
+  - fullScanDateRange — то, что раньше делал клиент: фильтрация полного списка фильмов;
+  - updateFilm — изменение фильма вместе с обновлением индексов.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilmSearchBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    private InMemoryFilmStorage filmStorage;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        filmStorage = new InMemoryFilmStorage();
+        random = new Random(1);
+        BenchmarkData.addFilms(filmStorage, catalogSize);
+        BenchmarkData.addLikes(filmStorage, catalogSize, USERS, catalogSize, random);
+        // Первый поиск строит индексы
+        long start = System.nanoTime();
+        filmStorage.searchFilms(search());
+        System.out.printf("Построение индексов: %d мс%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static FilmSearch search() {
+        FilmSearch search = new FilmSearch();
+        search.setName("film");
+        search.setLimit(100);
+        return search;
+    }
+
+    // Случайный месяц: около catalogSize / 1300 фильмов
+    private FilmSearch month(FilmSearch search) {
+        LocalDate from = LocalDate.of(1900, 1, 1).plusDays(random.nextInt(40_000 - 31));
+        search.setReleasedFrom(from);
+        search.setReleasedTo(from.plusDays(30));
+        return search;
+    }
+
+    @Benchmark
+    public List<Film> dateRange() {
+        FilmSearch search = month(new FilmSearch());
+        search.setLimit(100);
+        return filmStorage.searchFilms(search);
+    }
+
+    // Одно значение продолжительности: catalogSize / 120 фильмов
+    @Benchmark
+    public List<Film> durationRange() {
+        FilmSearch search = new FilmSearch();
+        int duration = 60 + random.nextInt(120);
+        search.setMinDuration(duration);
+        search.setMaxDuration(duration);
+        search.setLimit(100);
+        return filmStorage.searchFilms(search);
+    }
+
+    @Benchmark
+    public List<Film> namePrefix() {
+        FilmSearch search = new FilmSearch();
+        search.setNamePrefix("Film " + (1 + random.nextInt(catalogSize / 10)));
+        search.setLimit(100);
+        return filmStorage.searchFilms(search);
+    }
+
+    @Benchmark
+    public List<Film> nameSubstring() {
+        FilmSearch search = new FilmSearch();
+        search.setName(String.valueOf(1000 + random.nextInt(9000)));
+        search.setLimit(100);
+        return filmStorage.searchFilms(search);
+    }
+
+    @Benchmark
+    public List<Film> popularInRange() {
+        FilmSearch search = month(new FilmSearch());
+        search.setReleasedTo(search.getReleasedFrom().plusYears(1));
+        search.setMinDuration(150);
+        search.setOrder(FilmSearch.Order.POPULARITY);
+        search.setLimit(10);
+        return filmStorage.searchFilms(search);
+    }
+
+    @Benchmark
+    public List<Film> fullScanDateRange() {
+        FilmSearch search = month(new FilmSearch());
+        return filmStorage.getFilmsList().stream()
+                .filter(film -> !film.getReleaseDate().isBefore(search.getReleasedFrom())
+                        && !film.getReleaseDate().isAfter(search.getReleasedTo()))
+                .limit(100)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Film updateFilm() throws Exception {
+        long id = 1 + random.nextInt(catalogSize);
+        Film film = BenchmarkData.newFilm(random.nextInt(catalogSize));
+        film.setId(id);
+        return filmStorage.updateFilm(film);
+    }
+
+}
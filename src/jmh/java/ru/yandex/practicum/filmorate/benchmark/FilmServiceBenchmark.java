@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.film.FilmResponseCache;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.film.PopularityFeed;
+import ru.yandex.practicum.filmorate.service.film.SimilarFilms;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.user.UserMetrics;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Горячие пути FilmService и InMemoryFilmStorage на каталогах разного размера.
+Каталог на 10 млн фильмов требует большой кучи:
+  -Dbenchmark.args="FilmServiceBenchmark -p catalogSize=10000000 -jvmArgsAppend -Xmx16g -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmServiceBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int BATCH = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    private InMemoryFilmStorage filmStorage;
+    private FilmService filmService;
+    private DomainEvents events;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        filmStorage = new InMemoryFilmStorage();
+        TrendingFilms trendingFilms = new TrendingFilms(24);
+        SimilarFilms similarFilms = new SimilarFilms(filmStorage);
+        events = new DomainEvents(List.of(trendingFilms, similarFilms), 65536, DomainEvents.Backpressure.BLOCK, 1000);
+        UserService userService = new UserService(userStorage, new UserMetrics(new SimpleMeterRegistry()),
+                new FriendRecommendations(userStorage, 1000), events);
+        filmService = new FilmService(filmStorage, userService,
+                new FilmResponseCache(new ObjectMapper().findAndRegisterModules(), 16 * 1024 * 1024),
+                new PopularityFeed(500), trendingFilms, similarFilms, events);
+        random = new Random(1);
+
+        BenchmarkData.addUsers(userStorage, USERS);
+        BenchmarkData.addFilms(filmStorage, catalogSize);
+        BenchmarkData.addLikes(filmStorage, catalogSize, USERS, 2L * catalogSize, random);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        events.stop();
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return filmService.getPopular(10);
+    }
+
+    // Готовый JSON списка популярных из кеша ответов (без изменений каталога — всегда попадание в кеш)
+    @Benchmark
+    public byte[] getPopularJson() throws Exception {
+        return filmService.getPopularJson(10);
+    }
+
+    // Пара "поставить лайк — снять лайк", чтобы состояние каталога не менялось между итерациями
+    @Benchmark
+    public boolean addAndDeleteUserLike() throws Exception {
+        long filmId = 1 + random.nextInt(catalogSize);
+        long userId = 1 + random.nextInt(USERS);
+        filmService.addUserLike(filmId, userId, false);
+        filmService.deleteUserLike(filmId, userId, false);
+        return true;
+    }
+
+    // Тот же поток лайков пакетом: BATCH / 2 установок и снятие тех же лайков; время — на одну операцию
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BatchResult> applyLikesBatch() throws Exception {
+        List<LikeOperation> operations = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH / 2; i++) {
+            operations.add(new LikeOperation(BatchAction.ADD, 1L + random.nextInt(catalogSize),
+                    1L + random.nextInt(USERS)));
+        }
+        for (int i = 0; i < BATCH / 2; i++) {
+            LikeOperation added = operations.get(i);
+            operations.add(new LikeOperation(BatchAction.REMOVE, added.getFilmId(), added.getUserId()));
+        }
+        return filmService.applyLikes(operations, false);
+    }
+
+    @Benchmark
+    public List<Film> getFilmsList() {
+        return filmStorage.getFilmsList();
+    }
+
+}
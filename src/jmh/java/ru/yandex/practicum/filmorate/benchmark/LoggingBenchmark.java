@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingInitializationContext;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.film.FilmResponseCache;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.film.PopularityFeed;
+import ru.yandex.practicum.filmorate.service.film.SimilarFilms;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.user.UserMetrics;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+Стоимость записи в лог на запрос: вызовы FilmController -> FilmService -> InMemoryFilmStorage
+с настройками логирования приложения (application.properties и logback-spring.xml).
+  - level=default — уровень ru.yandex.practicum из application.properties, level=debug — с включенным DEBUG,
+    level=off — без лога (нижняя граница);
+  - фильм в PUT /films приходит со списком из LIKES лайков (клиент отправляет обратно полученный фильм);
+  - лог пишется в System.out, который в бенчмарке заменен потоком без вывода: измеряется форматирование
+    сообщений и работа appender'ов, а не скорость терминала.
+Память на запрос — gc.alloc.rate.norm:
+  -Dbenchmark.args="LoggingBenchmark -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+    private static final int LIKES = 1000;
+
+    @Param({"off", "default", "debug"})
+    private String level;
+
+    private LoggingSystem loggingSystem;
+    private FilmController controller;
+    private Film update;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        loggingSystem = LoggingSystem.get(getClass().getClassLoader());
+        loggingSystem.beforeInitialize();
+        // Явно: иначе нашелся бы logback-test.xml бенчмарков
+        loggingSystem.initialize(new LoggingInitializationContext(environment), "classpath:logback-spring.xml", null);
+        String configured = environment.getProperty("logging.level.ru.yandex.practicum");
+        loggingSystem.setLogLevel("ru.yandex.practicum",
+                LogLevel.valueOf(("default".equals(level) ? configured : level).toUpperCase()));
+
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        DomainEvents events = new DomainEvents(List.of(), 1024, DomainEvents.Backpressure.BLOCK, 1000);
+        UserService userService = new UserService(userStorage, new UserMetrics(new SimpleMeterRegistry()),
+                new FriendRecommendations(userStorage, 1000), events);
+        FilmService filmService = new FilmService(filmStorage, userService,
+                new FilmResponseCache(new ObjectMapper().findAndRegisterModules(), 16 * 1024 * 1024),
+                new PopularityFeed(500), new TrendingFilms(24), new SimilarFilms(filmStorage), events);
+        controller = new FilmController(filmService, null);
+        random = new Random(1);
+        BenchmarkData.addUsers(userStorage, USERS);
+        BenchmarkData.addFilms(filmStorage, FILMS);
+
+        update = filmStorage.getFilm(1L);
+        Set<Long> likes = new HashSet<>();
+        for (long userId = 1; userId <= LIKES; userId++) {
+            likes.add(userId);
+        }
+        update.setUserLikes(likes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loggingSystem.cleanUp();
+    }
+
+    @Benchmark
+    public Film updateFilm() throws Exception {
+        return controller.updateFilm(update);
+    }
+
+    // Установка и снятие лайка: время на один запрос
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public long likeAndUnlike() throws Exception {
+        long filmId = 1 + random.nextInt(FILMS);
+        long userId = 1 + random.nextInt(USERS);
+        controller.addLike(filmId, userId, false);
+        controller.deleteLike(filmId, userId, false);
+        return filmId;
+    }
+
+    @Benchmark
+    public byte[] getFilm() throws Exception {
+        return controller.getFilm(1L + random.nextInt(FILMS));
+    }
+
+}
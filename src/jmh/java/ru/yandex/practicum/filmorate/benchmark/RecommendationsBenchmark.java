@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.user.UserMetrics;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Рекомендации друзей (FriendRecommendations) на графе со степенным распределением степеней
+(BenchmarkData.addPowerLawFriends). Режим SampleTime: в выводе JMH — перцентили, в том числе p0.99.
+  - uncachedTypical — расчет для случайных пользователей (кеш не срабатывает: пользователи перебираются
+    по кругу, а кеш рассчитан на 16 записей);
+  - uncachedHub — расчет для HUBS пользователей с наибольшим числом друзей;
+  - cachedEndpoint — UserService.getRecommendations с прогретым кешем (вместе с чтением пользователей);
+  - friendshipChange — добавление и удаление дружбы через UserService вместе со сбросом кеша.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RecommendationsBenchmark {
+
+    private static final int HUBS = 1000;
+    private static final int TYPICAL = 4096;
+    private static final int LIMIT = 10;
+
+    @Param({"100000", "1000000"})
+    private int users;
+
+    @Param({"10"})
+    private int edgesPerUser;
+
+    private FriendRecommendations uncached;
+    private UserService userService;
+    private DomainEvents events;
+    private long[] typical;
+    private long[] hubs;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        Random random = new Random(1);
+        BenchmarkData.addUsers(userStorage, users);
+        BenchmarkData.addPowerLawFriends(userStorage, users, edgesPerUser, random);
+
+        uncached = new FriendRecommendations(userStorage, 16);
+        FriendRecommendations cached = new FriendRecommendations(userStorage, 4 * TYPICAL);
+        events = new DomainEvents(List.of(cached), 65536, DomainEvents.Backpressure.BLOCK, 1000);
+        userService = new UserService(userStorage, new UserMetrics(new SimpleMeterRegistry()), cached, events);
+
+        typical = random.longs(TYPICAL, 1, users + 1).toArray();
+        for (long userId : typical) {
+            cached.recommend(userId, LIMIT);
+        }
+        List<Long> all = new ArrayList<>(users);
+        for (long userId = 1; userId <= users; userId++) {
+            all.add(userId);
+        }
+        Map<Long, long[]> friends = userStorage.getFriendIds(all);
+        hubs = all.stream()
+                .sorted(Comparator.comparingInt((Long id) -> friends.get(id).length).reversed())
+                .limit(HUBS)
+                .mapToLong(Long::longValue)
+                .toArray();
+        System.out.printf("Друзей: у самого популярного %d, у %d-го по популярности %d, в среднем %.1f%n",
+                friends.get(hubs[0]).length, HUBS, friends.get(hubs[HUBS - 1]).length,
+                friends.values().stream().mapToInt(f -> f.length).average().orElse(0));
+        Arrays.sort(hubs);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        events.stop();
+    }
+
+    @Benchmark
+    public long[] uncachedTypical() {
+        return uncached.recommend(typical[next++ % TYPICAL], LIMIT);
+    }
+
+    @Benchmark
+    public long[] uncachedHub() {
+        return uncached.recommend(hubs[next++ % HUBS], LIMIT);
+    }
+
+    @Benchmark
+    public List<User> cachedEndpoint() throws Exception {
+        return userService.getRecommendations(typical[next++ % TYPICAL], LIMIT);
+    }
+
+    @Benchmark
+    public boolean friendshipChange() throws Exception {
+        long userId = typical[next++ % TYPICAL];
+        long friendId = typical[next % TYPICAL];
+        if (userId != friendId) {
+            userService.addFriend(userId, friendId, false);
+            userService.deleteFriend(userId, friendId, false);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.codec.FilmorateJsonModule;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Запись ответа со списком из FILMS фильмов (как GET /films) в разных форматах:
+  - format=reflection — JSON сериализатором Jackson по умолчанию (рефлексия по свойствам Film);
+  - format=json — JSON сериализатором FilmSerializer (FilmorateJsonModule), как в приложении;
+  - format=smile, format=cbor — двоичные форматы на том же ObjectMapper (Accept: application/x-jackson-smile,
+    application/cbor).
+Размер ответа в байтах для каждого формата печатается при подготовке данных.
+У фильмов LIKES лайков в среднем, распределенных с "тяжелым хвостом".
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+    private static final int LIKES = 20;
+
+    @Param({"reflection", "json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private List<Film> films;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        BenchmarkData.addFilms(storage, FILMS);
+        BenchmarkData.addLikes(storage, FILMS, USERS, (long) FILMS * LIKES, new Random(1));
+        films = storage.getFilmsList();
+
+        ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule());
+        if (!"reflection".equals(format)) {
+            json.registerModule(new FilmorateJsonModule());
+        }
+        switch (format) {
+            case "smile":
+                mapper = json.copyWith(new SmileFactory());
+                break;
+            case "cbor":
+                mapper = json.copyWith(new CBORFactory());
+                break;
+            default:
+                mapper = json;
+        }
+        System.out.println(format + ": " + mapper.writeValueAsBytes(films).length + " байт");
+    }
+
+    @Benchmark
+    public byte[] writeFilms() throws Exception {
+        return mapper.writeValueAsBytes(films);
+    }
+
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.ShardedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.ShardedUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+Хранилище в памяти без шардов (shards=0) и с шардами (ShardedFilmStorage, ShardedUserStorage).
+Пропускная способность записи и запроса популярных при нескольких потоках; масштабирование по ядрам —
+запуском с разным числом потоков:
+  -Dbenchmark.args="ShardedStorageBenchmark -t 1" ... "-t 8"
+  - likeChanged, friendshipChanged — лайк и его снятие, дружба и ее удаление для случайных ID;
+  - popular — первые 10 популярных фильмов (у шардов — слияние ленивых обходов индексов шардов).
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ShardedStorageBenchmark {
+
+    private static final int FILMS = 100_000;
+    private static final int USERS = 100_000;
+
+    @Param({"0", "16"})
+    private int shards;
+
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        filmStorage = shards == 0 ? new InMemoryFilmStorage() : new ShardedFilmStorage(shards);
+        userStorage = shards == 0 ? new InMemoryUserStorage() : new ShardedUserStorage(shards);
+        Random random = new Random(1);
+        BenchmarkData.addUsers(userStorage, USERS);
+        BenchmarkData.addFilms(filmStorage, FILMS);
+        BenchmarkData.addLikes(filmStorage, FILMS, USERS, 10L * FILMS, random);
+    }
+
+    @Benchmark
+    public boolean likeChanged() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = 1 + random.nextInt(FILMS);
+        long userId = 1 + random.nextInt(USERS);
+        return filmStorage.addLike(filmId, userId) & filmStorage.deleteLike(filmId, userId);
+    }
+
+    @Benchmark
+    public boolean friendshipChanged() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = 1 + random.nextInt(USERS);
+        long friendId = 1 + random.nextInt(USERS);
+        return userStorage.addFriend(userId, friendId) & userStorage.deleteFriend(userId, friendId);
+    }
+
+    @Benchmark
+    public List<Film> popular() {
+        return filmStorage.getPopular(10);
+    }
+
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.film.SimilarFilms;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Похожие фильмы и рекомендации по совместным лайкам (SimilarFilms). Лайки распределены с "тяжелым хвостом"
+(BenchmarkData.addLikes); время пересчета модели и расход памяти печатаются после заполнения.
+Режим SampleTime: в выводе JMH — перцентили, в том числе p0.99.
+  - likeChanged — лайк и его снятие (обновление счетчиков с фильмами пользователя);
+  - similarPopular, similarRandom — похожие на один из первых 100 фильмов и на случайный фильм;
+  - recommend — рекомендации случайному пользователю.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SimilarFilmsBenchmark {
+
+    private static final int COUNT = 10;
+
+    @Param({"100000"})
+    private int films;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"1000000", "5000000"})
+    private long likes;
+
+    private SimilarFilms similarFilms;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        random = new Random(1);
+        BenchmarkData.addFilms(filmStorage, films);
+        BenchmarkData.addLikes(filmStorage, films, users, likes, random);
+
+        long used = usedMemory();
+        similarFilms = new SimilarFilms(filmStorage);
+        long started = System.nanoTime();
+        similarFilms.rebuild();
+        System.out.printf("Пересчет модели: %d мс, фильмов с лайками %d, памяти %d МБ%n",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), similarFilms.size(),
+                (usedMemory() - used) / (1024 * 1024));
+    }
+
+    @Benchmark
+    public boolean likeChanged() {
+        long filmId = 1 + random.nextInt(films);
+        long userId = 1 + random.nextInt(users);
+        similarFilms.likeChanged(filmId, userId, true);
+        similarFilms.likeChanged(filmId, userId, false);
+        return true;
+    }
+
+    @Benchmark
+    public List<Long> similarPopular() {
+        return similarFilms.similar(1 + random.nextInt(100), COUNT);
+    }
+
+    @Benchmark
+    public List<Long> similarRandom() {
+        return similarFilms.similar(1 + random.nextInt(films), COUNT);
+    }
+
+    @Benchmark
+    public List<Long> recommend() {
+        return similarFilms.recommend(1 + random.nextInt(users), COUNT);
+    }
+
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+}
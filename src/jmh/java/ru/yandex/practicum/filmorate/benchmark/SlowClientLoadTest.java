@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Spring MVC (Tomcat) против WebFlux (Netty, профиль reactive) под тысячами одновременных медленных клиентов:
+каждый клиент запрашивает GET /films (весь каталог) и читает ответ порциями по chunk байт с паузой pauseMs,
+т.е. сервер вынужден ждать, пока клиент освободит сокет.
+  - MVC: поток Tomcat занят запросом, пока клиент не дочитает ответ; запросы сверх пула ждут в очереди;
+  - WebFlux: поток Netty не ждет клиента, список читается из хранилища страницами по мере отправки.
+Выводятся задержка полного получения ответа (p50/p99/max), общее время, пик занятой кучи относительно
+состояния перед тестом и пик числа потоков сверх клиентских. Клиенты работают в том же процессе,
+их расход одинаков в обоих режимах.
+
+Запуск (параметры — число клиентов, число фильмов, порция чтения в байтах, пауза между порциями в мс):
+  mvn -Pbenchmark test-compile exec:exec -Dbenchmark.mainClass=ru.yandex.practicum.filmorate.benchmark.SlowClientLoadTest -Dbenchmark.args="2000 500 4096 20"
+*/
+public class SlowClientLoadTest {
+
+    private static final long CLIENT_STACK_SIZE = 256 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int films = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int chunk = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+        long pauseMs = args.length > 3 ? Long.parseLong(args[3]) : 20;
+
+        System.out.printf("Клиентов %d, фильмов %d, чтение по %d байт с паузой %d мс%n",
+                clients, films, chunk, pauseMs);
+        run("mvc", new String[0], clients, films, chunk, pauseMs);
+        run("webflux", new String[] {"--spring.profiles.active=reactive"}, clients, films, chunk, pauseMs);
+        // Потоки общих планировщиков Reactor/Netty переживают закрытие контекста
+        System.exit(0);
+    }
+
+    private static void run(String mode, String[] profileArgs, int clients, int films, int chunk, long pauseMs)
+            throws Exception {
+        List<String> appArgs = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN",
+                "--logging.level.ru.yandex.practicum=WARN"));
+        appArgs.addAll(Arrays.asList(profileArgs));
+        ConfigurableApplicationContext context = SpringApplication.run(FilmorateApplication.class,
+                appArgs.toArray(new String[0]));
+        try {
+            BenchmarkData.addFilms(context.getBean(FilmStorage.class), films);
+            InetSocketAddress address = new InetSocketAddress("localhost",
+                    ((WebServerApplicationContext) context).getWebServer().getPort());
+            // Прогрев: несколько обычных запросов
+            for (int i = 0; i < 20; i++) {
+                fetch(address, 64 * 1024, 0);
+            }
+
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            System.gc();
+            long baseHeap = memory.getHeapMemoryUsage().getUsed();
+
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(clients);
+            long[] latencies = new long[clients];
+            AtomicInteger completed = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+            AtomicLong bytes = new AtomicLong();
+            for (int i = 0; i < clients; i++) {
+                Thread client = new Thread(null, () -> {
+                    try {
+                        start.await();
+                        long begin = System.nanoTime();
+                        long received = fetch(address, chunk, pauseMs);
+                        latencies[completed.getAndIncrement()] = System.nanoTime() - begin;
+                        bytes.addAndGet(received);
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }, "client-" + i, CLIENT_STACK_SIZE);
+                client.setDaemon(true);
+                client.start();
+            }
+
+            int baseThreads = threads.getThreadCount();
+            threads.resetPeakThreadCount();
+            long peakHeap = 0;
+            long begin = System.nanoTime();
+            start.countDown();
+            while (!done.await(20, TimeUnit.MILLISECONDS)) {
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+            long[] sorted = Arrays.copyOf(latencies, completed.get());
+            Arrays.sort(sorted);
+            System.out.printf("%-8s ответов %d (%d МБ), ошибок %d, время %d мс; задержка p50 %d мс, p99 %d мс, "
+                            + "max %d мс; куча +%d МБ; потоков сервера +%d%n",
+                    mode, sorted.length, bytes.get() >> 20, errors.get(), elapsedMs,
+                    percentileMs(sorted, 0.5), percentileMs(sorted, 0.99), percentileMs(sorted, 1.0),
+                    Math.max(0, peakHeap - baseHeap) >> 20, threads.getPeakThreadCount() - baseThreads);
+        } finally {
+            context.close();
+        }
+    }
+
+    // Запрос GET /films с чтением ответа порциями; возвращает число полученных байт
+    private static long fetch(InetSocketAddress address, int chunk, long pauseMs) throws Exception {
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(chunk);
+            socket.connect(address, 60_000);
+            socket.getOutputStream().write(("GET /films HTTP/1.1\r\nHost: localhost\r\nAccept: application/json\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[chunk];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (total == 0 && !new String(buffer, 0, Math.min(read, 12), StandardCharsets.US_ASCII)
+                        .startsWith("HTTP/1.1 200")) {
+                    throw new IllegalStateException("Ошибка ответа");
+                }
+                total += read;
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            return total;
+        }
+    }
+
+    private static long percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.max(0, Math.ceil(p * sorted.length) - 1));
+        return TimeUnit.NANOSECONDS.toMillis(sorted[index]);
+    }
+
+}
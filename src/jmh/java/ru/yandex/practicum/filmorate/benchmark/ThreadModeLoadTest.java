@@ -0,0 +1,220 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Нагрузочный тест FilmController/UserController: запросы в пуле потоков Tomcat (platform,
+server.tomcat.threads.max потоков) против запросов в виртуальных потоках (virtual, spring.threads.virtual.enabled=true).
+Каждый вызов хранилища задерживается на latencyMs — имитация обращения к БД или файлам.
+Смесь запросов: GET /users/{id}/friends, GET /users/{id}/friends/common/{otherId}, PUT /films/{id}/like/{userId}.
+
+Нагрузка открытая: запросы отправляются с заданной частотой независимо от ответов, задержка считается
+от запланированного момента отправки (ожидание в очереди сервера входит в задержку).
+Частота повышается ступенями RATES; ступень выдержана, если p99 не больше sloMs и нет ошибок
+(при перегрузке очередь запросов растет всю ступень, и p99 выходит за sloMs).
+Для каждого режима выводятся p50/p99 на каждой ступени и наибольшая выдержанная частота.
+
+Запуск (виртуальные потоки — только на JDK 21; параметры — latencyMs, длительность ступени в секундах, sloMs
+и размер пула Tomcat; на машине с малым числом ядер пул уменьшается, чтобы он ограничивал раньше процессора):
+  mvn -Pbenchmark test-compile exec:exec -Dbenchmark.mainClass=ru.yandex.practicum.filmorate.benchmark.ThreadModeLoadTest -Dbenchmark.args="50 5 1000 200"
+*/
+public class ThreadModeLoadTest {
+
+    private static final int USERS = 1000;
+    private static final int FILMS = 1000;
+    private static final int FRIENDS = 20;
+    private static final int[] RATES = {25, 50, 100, 150, 200, 300, 500, 1000, 2000, 4000, 8000};
+
+    public static void main(String[] args) throws Exception {
+        long latencyMs = args.length > 0 ? Long.parseLong(args[0]) : 50;
+        int stepSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long sloMs = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        System.out.printf("Задержка хранилища %d мс, ступень %d с, SLO p99 %d мс, пул Tomcat %d, JDK %s%n",
+                latencyMs, stepSeconds, sloMs, threads, Runtime.version());
+        run("platform", false, latencyMs, stepSeconds, sloMs, threads);
+        if (Runtime.version().feature() >= 21) {
+            run("virtual", true, latencyMs, stepSeconds, sloMs, threads);
+        } else {
+            System.out.println("virtual: пропущено, виртуальные потоки требуют JDK 21");
+        }
+    }
+
+    private static void run(String mode, boolean virtual, long latencyMs, int stepSeconds, long sloMs,
+                            int threads) throws Exception {
+        AtomicLong latencyNanos = new AtomicLong();
+        SpringApplication application = new SpringApplication(FilmorateApplication.class);
+        application.addInitializers(context ->
+                context.getBeanFactory().addBeanPostProcessor(slowStorages(latencyNanos)));
+        ConfigurableApplicationContext context = application.run(
+                "--server.port=0", "--spring.threads.virtual.enabled=" + virtual,
+                "--server.tomcat.threads.max=" + threads,
+                "--logging.level.root=WARN", "--logging.level.ru.yandex.practicum=WARN");
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        try {
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            Random random = new Random(1);
+            BenchmarkData.addUsers(context.getBean(UserStorage.class), USERS);
+            BenchmarkData.addFilms(context.getBean(FilmStorage.class), FILMS);
+            BenchmarkData.addHubFriends(context.getBean(UserStorage.class), USERS, USERS, FRIENDS / 2, random);
+            latencyNanos.set(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+
+            HttpClient client = HttpClient.newBuilder().executor(clientExecutor)
+                    .version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(10)).build();
+            int sustained = 0;
+            for (int rate : RATES) {
+                Step step = new Step(client, baseUrl, rate, stepSeconds, random);
+                step.run();
+                boolean ok = step.errors.get() == 0 && step.percentile(0.99) <= sloMs;
+                System.out.printf("%-8s %5d req/s: получено %7.1f req/s, p50 %7.1f мс, p99 %7.1f мс, ошибок %d%s%n",
+                        mode, rate, step.throughput(), step.percentile(0.5), step.percentile(0.99),
+                        step.errors.get(), ok ? "" : " — не выдержано");
+                if (!ok) {
+                    break;
+                }
+                sustained = rate;
+            }
+            System.out.printf("%-8s наибольшая выдержанная частота: %d req/s%n", mode, sustained);
+        } finally {
+            context.close();
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    // Оборачивает хранилища в прокси, задерживающий каждый вызов на latencyNanos
+    private static BeanPostProcessor slowStorages(AtomicLong latencyNanos) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof FilmStorage) {
+                    return slow(FilmStorage.class, bean, latencyNanos);
+                }
+                if (bean instanceof UserStorage) {
+                    return slow(UserStorage.class, bean, latencyNanos);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static Object slow(Class<?> type, Object target, AtomicLong latencyNanos) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, methodArgs) -> {
+            long delay = latencyNanos.get();
+            if (delay > 0) {
+                Thread.sleep(delay / 1_000_000, (int) (delay % 1_000_000));
+            }
+            try {
+                return method.invoke(target, methodArgs);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    // Ступень нагрузки: rate запросов в секунду в течение seconds секунд
+    private static final class Step {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final int rate;
+        private final int total;
+        private final Random random;
+        private final long[] latencies;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        private final CountDownLatch done;
+        private long startNanos;
+        private volatile long lastNanos;
+
+        private Step(HttpClient client, String baseUrl, int rate, int seconds, Random random) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.rate = rate;
+            this.total = rate * seconds;
+            this.random = random;
+            this.latencies = new long[total];
+            this.done = new CountDownLatch(total);
+        }
+
+        void run() throws InterruptedException {
+            long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+            startNanos = System.nanoTime();
+            for (int i = 0; i < total; i++) {
+                long scheduled = startNanos + i * interval;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                client.sendAsync(request(i), HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            long now = System.nanoTime();
+                            if (error != null || response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            } else {
+                                latencies[completed.getAndIncrement()] = now - scheduled;
+                            }
+                            lastNanos = Math.max(lastNanos, now);
+                            done.countDown();
+                        });
+            }
+            if (!done.await(60, TimeUnit.SECONDS)) {
+                errors.addAndGet((int) done.getCount());
+            }
+        }
+
+        private HttpRequest request(int i) {
+            long userId = 1 + random.nextInt(USERS);
+            switch (i % 3) {
+                case 0:
+                    return HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + userId + "/friends")).GET().build();
+                case 1:
+                    long otherId = 1 + random.nextInt(USERS);
+                    return HttpRequest.newBuilder(URI.create(
+                            baseUrl + "/users/" + userId + "/friends/common/" + otherId)).GET().build();
+                default:
+                    long filmId = 1 + random.nextInt(FILMS);
+                    return HttpRequest.newBuilder(URI.create(baseUrl + "/films/" + filmId + "/like/" + userId))
+                            .PUT(HttpRequest.BodyPublishers.noBody()).build();
+            }
+        }
+
+        double throughput() {
+            long elapsed = Math.max(lastNanos - startNanos, 1);
+            return completed.get() * 1e9 / elapsed;
+        }
+
+        double percentile(double p) {
+            int count = completed.get();
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, Math.ceil(p * count) - 1)] / 1e6;
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Список набирающих популярность фильмов (TrendingFilms) при разном числе фильмов с лайками за неделю.
+Время идет по модельным часам: каждый лайк сдвигает их на likeIntervalMs, поэтому в замер входят и сдвиги окон.
+Перед замером — неделя лайков (по 10 на фильм); расход памяти на фильм печатается после заполнения.
+  - likeChanged — лайк без запросов списка;
+  - topDay, topDecayed — запрос без лайков между запросами;
+  - topDayAfterLikes — LIKES_PER_QUERY лайков и запрос (пересчет положения измененных ими фильмов).
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TrendingBenchmark {
+
+    private static final int LIKES_PER_FILM = 10;
+    private static final int LIKES_PER_QUERY = 1000;
+
+    @Param({"10000", "200000"})
+    private int activeFilms;
+
+    @Param({"10"})
+    private long likeIntervalMs;
+
+    private ModelClock clock;
+    private TrendingFilms trending;
+    private Random random;
+    // Каждый лайк — от нового пользователя
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clock = new ModelClock();
+        random = new Random(1);
+        long used = usedMemory();
+        trending = new TrendingFilms(clock, Duration.ofHours(24));
+        long likes = (long) activeFilms * LIKES_PER_FILM;
+        long step = Duration.ofDays(7).toMillis() / likes;
+        for (long i = 0; i < likes; i++) {
+            clock.millis += step;
+            trending.likeChanged(1 + random.nextInt(activeFilms), ++userId, true);
+        }
+        trending.top(TrendingFilms.Window.DAY, 10);
+        System.out.printf("Фильмов: %d, памяти на фильм: %d байт%n", trending.size(),
+                (usedMemory() - used) / Math.max(1, trending.size()));
+    }
+
+    @Benchmark
+    public boolean likeChanged() {
+        clock.millis += likeIntervalMs;
+        trending.likeChanged(1 + random.nextInt(activeFilms), ++userId, true);
+        return true;
+    }
+
+    @Benchmark
+    public List<Long> topDay() {
+        return trending.top(TrendingFilms.Window.DAY, 10);
+    }
+
+    @Benchmark
+    public List<Long> topDecayed() {
+        return trending.top(TrendingFilms.Window.DECAYED, 10);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIKES_PER_QUERY)
+    public List<Long> topDayAfterLikes() {
+        for (int i = 0; i < LIKES_PER_QUERY; i++) {
+            likeChanged();
+        }
+        return trending.top(TrendingFilms.Window.DAY, 10);
+    }
+
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+    private static final class ModelClock extends Clock {
+        private long millis = 1_700_000_000_000L;
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.user.UserMetrics;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Горячие пути UserService и InMemoryUserStorage: списки друзей разной степени и общие друзья.
+Запросы выполняются для HUBS пользователей, у каждого из которых degree друзей.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int HUBS = 64;
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int degree;
+
+    private InMemoryUserStorage userStorage;
+    private UserService userService;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage, new UserMetrics(new SimpleMeterRegistry()),
+                new FriendRecommendations(userStorage, 1000),
+                new DomainEvents(List.of(), 1024, DomainEvents.Backpressure.BLOCK, 1000));
+        random = new Random(1);
+
+        BenchmarkData.addUsers(userStorage, catalogSize);
+        BenchmarkData.addHubFriends(userStorage, catalogSize, HUBS, degree, random);
+    }
+
+    private long randomHub() {
+        return 1 + random.nextInt(HUBS);
+    }
+
+    @Benchmark
+    public List<User> getFriends() throws Exception {
+        return userService.getFriends(randomHub());
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() throws Exception {
+        return userService.getCommonFriends(randomHub(), randomHub());
+    }
+
+    @Benchmark
+    public List<User> getUsersList() {
+        return userStorage.getUsersList();
+    }
+
+}
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.LongArraySet;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+Время "холодного старта" хранилища фильмов из снимка:
+  - jsonRestore — наивный вариант: JSON-массив фильмов с лайками разбирается в объекты Film,
+    которые затем загружаются в хранилище;
+  - columnarRestore — колоночный снимок: отображение файла и загрузка ID и лайков, поля фильмов читаются лениво;
+  - columnarRestoreAndReadPage — то же плюс первая страница каталога (100 фильмов), т.е. время до первого ответа.
+Каждый замер — один запуск на новом хранилище. Запуск:
+  mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="SnapshotStartupBenchmark -prof gc"
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SnapshotStartupBenchmark {
+
+    private static final int USERS = 100_000;
+
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"10000000"})
+    private long likes;
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private Path dir;
+    private Path json;
+    private Path columnar;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("snapshot-benchmark");
+        json = dir.resolve("films.json");
+        columnar = dir.resolve("snapshot.bin");
+        Random random = new Random(1);
+        int perFilm = (int) (likes / films);
+        try (OutputStream out = Files.newOutputStream(json);
+             JsonGenerator generator = mapper.getFactory().createGenerator(out);
+             ColumnarSnapshot.Writer writer = new ColumnarSnapshot.Writer(dir)) {
+            generator.writeStartArray();
+            for (long id = 1; id <= films; id++) {
+                Film film = newFilm(id);
+                long[] userIds = randomUsers(random, perFilm);
+                film.setUserLikes(LongArraySet.of(userIds));
+                mapper.writeValue(generator, film);
+                writer.film(film, film.getUserLikes());
+            }
+            generator.writeEndArray();
+            generator.flush();
+            writer.writeTo(columnar, 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage jsonRestore() throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        List<Film> restored;
+        try (InputStream in = Files.newInputStream(json)) {
+            restored = mapper.readValue(in, new TypeReference<List<Film>>() {
+            });
+        }
+        for (Film film : restored) {
+            long[] userIds = film.getUserLikes().stream().mapToLong(Long::longValue).sorted().toArray();
+            storage.restoreFilm(film, userIds);
+        }
+        return storage;
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage columnarRestore() throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        restore(storage);
+        return storage;
+    }
+
+    @Benchmark
+    public List<Film> columnarRestoreAndReadPage() throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        restore(storage);
+        List<Film> page = storage.getFilmsPage(0, 100);
+        page.forEach(Film::getName);
+        return page;
+    }
+
+    private void restore(InMemoryFilmStorage storage) throws IOException {
+        JournalManager manager = new JournalManager(storage, new InMemoryUserStorage(), dir.toString(), 10,
+                Long.MAX_VALUE);
+        manager.snapshot(ColumnarSnapshot.open(columnar));
+    }
+
+    private static Film newFilm(long id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Film " + id);
+        film.setDescription("Description of film " + id);
+        film.setReleaseDate(LocalDate.of(1900, 1, 1).plusDays(id % 40_000));
+        film.setDuration(60 + (int) (id % 120));
+        return film;
+    }
+
+    private static long[] randomUsers(Random random, int count) {
+        long[] userIds = random.longs(count, 1, USERS + 1).distinct().toArray();
+        Arrays.sort(userIds);
+        return userIds;
+    }
+
+}
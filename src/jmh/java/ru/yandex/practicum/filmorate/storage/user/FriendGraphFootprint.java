@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/*
+Сравнение памяти, занимаемой графом дружбы:
+  - прежний вариант: у каждого пользователя HashSet<Long> с ID друзей;
+  - FriendGraph: отсортированные массивы long[].
+Запуск (параметры — количество пользователей и средняя степень):
+  mvn -Pbenchmark test-compile exec:exec -Dbenchmark.mainClass=ru.yandex.practicum.filmorate.storage.user.FriendGraphFootprint -Dbenchmark.args="100000 50"
+*/
+public class FriendGraphFootprint {
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        Map<Long, Set<Long>> hashSets = new HashMap<>();
+        FriendGraph graph = new FriendGraph();
+        Random random = new Random(1);
+        long edges = 0;
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < degree / 2; i++) {
+                long friendId = 1 + random.nextInt(users);
+                if (friendId == userId || !graph.add(userId, friendId)) {
+                    continue;
+                }
+                graph.add(friendId, userId);
+                hashSets.computeIfAbsent(userId, id -> new HashSet<>()).add(friendId);
+                hashSets.computeIfAbsent(friendId, id -> new HashSet<>()).add(userId);
+                edges += 2;
+            }
+        }
+
+        report("HashSet<Long>", GraphLayout.parseInstance(hashSets).totalSize(), edges);
+        report("FriendGraph (long[])", GraphLayout.parseInstance(graph).totalSize(), edges);
+    }
+
+    private static void report(String name, long bytes, long edges) {
+        System.out.printf("%-22s %,15d байт, %6.1f байт на ребро (ребер: %,d)%n",
+                name, bytes, (double) bytes / edges, edges);
+    }
+
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+Smile и CBOR для WebFlux (профиль reactive) на общем ObjectMapper (см. BinaryFormats).
+Кодировщики Spring не пишут Flux одним массивом в этих форматах (CBOR не пишет Flux вовсе), поэтому
+элементы Flux собираются в список и кодируются одним значением — как ответ Spring MVC.
+Потоковый Smile (application/stream+x-jackson-smile) пишется по элементу, как в Spring.
+Свои кодеки WebFlux ставит перед стандартными, а при Accept с любым типом выбирает первый подходящий тип,
+поэтому JSON регистрируется первым — он остаётся форматом по умолчанию.
+*/
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class BinaryCodecs implements CodecCustomizer {
+
+    // Типы нужно передать явно: без них кодировщики Jackson в Spring принимают JSON
+    private static final MimeType[] SMILE_TYPES = {
+        BinaryFormats.SMILE, MimeType.valueOf("application/*+x-jackson-smile")};
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void customize(CodecConfigurer configurer) {
+        ObjectMapper smile = objectMapper.copyWith(new SmileFactory());
+        configurer.defaultCodecs().jackson2SmileEncoder(new SmileEncoder(smile));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smile, SMILE_TYPES));
+        configurer.customCodecs().registerWithDefaultConfig(new Jackson2JsonEncoder(objectMapper));
+        configurer.customCodecs().registerWithDefaultConfig(new Jackson2JsonDecoder(objectMapper));
+        ObjectMapper cbor = objectMapper.copyWith(new CBORFactory());
+        configurer.customCodecs().register(new CborEncoder(cbor));
+        configurer.customCodecs().register(new Jackson2CborDecoder(cbor, BinaryFormats.CBOR));
+    }
+
+    private static Flux<DataBuffer> encodeAsList(AbstractJackson2Encoder encoder, Publisher<?> input,
+                                                 DataBufferFactory buffers, ResolvableType elementType,
+                                                 MimeType mimeType, Map<String, Object> hints) {
+        if (input instanceof Mono) {
+            return Mono.from(input)
+                    .map(value -> encoder.encodeValue(value, buffers, elementType, mimeType, hints))
+                    .flux();
+        }
+        ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return Flux.from(input)
+                .collectList()
+                .map(list -> encoder.encodeValue(list, buffers, listType, mimeType, hints))
+                .flux();
+    }
+
+    private static final class SmileEncoder extends Jackson2SmileEncoder {
+        private SmileEncoder(ObjectMapper mapper) {
+            super(mapper, SMILE_TYPES);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> input, DataBufferFactory buffers, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (getStreamingMediaTypeSeparator(mimeType) != null) {
+                return super.encode(input, buffers, elementType, mimeType, hints);
+            }
+            return encodeAsList(this, input, buffers, elementType, mimeType, hints);
+        }
+    }
+
+    private static final class CborEncoder extends Jackson2CborEncoder {
+        private CborEncoder(ObjectMapper mapper) {
+            super(mapper, BinaryFormats.CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> input, DataBufferFactory buffers, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            return encodeAsList(this, input, buffers, elementType, mimeType, hints);
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import org.springframework.http.MediaType;
+
+/*
+Двоичные форматы ответов, выбираются по заголовку Accept (без него — JSON):
+  - Smile (application/x-jackson-smile) — двоичный JSON: повторяющиеся имена полей и короткие строки
+    передаются ссылками на уже переданные;
+  - CBOR (application/cbor, RFC 8949) — стандартный двоичный формат с библиотеками для большинства языков.
+Оба пишутся тем же ObjectMapper, что и JSON (ObjectMapper.copyWith): те же модули, в том числе FilmorateJsonModule,
+и настройки spring.jackson.*, поэтому структура ответа во всех форматах одна. Запросы в этих форматах тоже читаются.
+Конвертеры: SmileHttpMessageConverter, CborHttpMessageConverter (Spring MVC), BinaryCodecs (WebFlux).
+*/
+public final class BinaryFormats {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+
+    private BinaryFormats() {
+    }
+
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+// CBOR для Spring MVC на общем ObjectMapper (см. BinaryFormats)
+@Component
+@Profile("!reactive")
+public class CborHttpMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+    public CborHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper.copyWith(new CBORFactory()));
+    }
+
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.IOException;
+
+/*
+Сериализатор Film без рефлексии: геттеры вызываются напрямую, имена полей закодированы заранее.
+Результат совпадает с сериализатором Jackson по умолчанию (порядок полей — как в классе, см. JsonFields),
+поэтому клиенты разницы не видят. Подходит для любого формата на JsonGenerator: JSON, Smile, CBOR.
+Новое поле Film нужно добавить и сюда — это проверяет CodecTest.
+*/
+public class FilmSerializer extends StdSerializer<Film> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString RELEASE_DATE = new SerializedString("releaseDate");
+    private static final SerializedString DURATION = new SerializedString("duration");
+    private static final SerializedString USER_LIKES = new SerializedString("userLikes");
+
+    public FilmSerializer() {
+        super(Film.class);
+    }
+
+    @Override
+    public void serialize(Film film, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(film);
+        JsonFields.writeLong(generator, ID, film.getId());
+        JsonFields.writeString(generator, NAME, film.getName());
+        JsonFields.writeString(generator, DESCRIPTION, film.getDescription());
+        JsonFields.writeDate(generator, provider, RELEASE_DATE, film.getReleaseDate());
+        JsonFields.writeInt(generator, DURATION, film.getDuration());
+        JsonFields.writeIds(generator, USER_LIKES, film.getUserLikes());
+        generator.writeEndObject();
+    }
+
+}
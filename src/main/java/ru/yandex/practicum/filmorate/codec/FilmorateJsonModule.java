@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/*
+Модуль Jackson с сериализаторами Film и User. Spring Boot регистрирует бины Module в общем ObjectMapper,
+поэтому сериализаторы используются везде, где он пишет ответы: контроллеры, кеш готовых JSON-ответов,
+потоковая выгрузка и двоичные форматы (см. BinaryFormats). Чтение запросов — сериализаторами по умолчанию.
+*/
+@Component
+public class FilmorateJsonModule extends SimpleModule {
+
+    public FilmorateJsonModule() {
+        super("filmorate");
+        addSerializer(Film.class, new FilmSerializer());
+        addSerializer(User.class, new UserSerializer());
+    }
+
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import ru.yandex.practicum.filmorate.storage.LongArraySet;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Set;
+
+/*
+Запись полей сериализаторами FilmSerializer и UserSerializer — в том же виде, что и у сериализаторов Jackson
+по умолчанию: null пишется как null, дата — строкой ISO (2000-01-31) или массивом [год, месяц, день],
+если включен WRITE_DATES_AS_TIMESTAMPS, множество ID — массивом чисел в порядке обхода.
+*/
+final class JsonFields {
+
+    private JsonFields() {
+    }
+
+    static void writeLong(JsonGenerator generator, SerializableString name, Long value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+
+    static void writeInt(JsonGenerator generator, SerializableString name, Integer value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.intValue());
+        }
+    }
+
+    static void writeString(JsonGenerator generator, SerializableString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    static void writeDate(JsonGenerator generator, SerializerProvider provider, SerializableString name,
+                          LocalDate value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            generator.writeStartArray();
+            generator.writeNumber(value.getYear());
+            generator.writeNumber(value.getMonthValue());
+            generator.writeNumber(value.getDayOfMonth());
+            generator.writeEndArray();
+        } else if (value.getYear() >= 0 && value.getYear() <= 9999) {
+            // Без DateTimeFormatter: yyyy-MM-dd напрямую в массив символов
+            char[] text = new char[10];
+            digits(text, 0, value.getYear(), 4);
+            text[4] = '-';
+            digits(text, 5, value.getMonthValue(), 2);
+            text[7] = '-';
+            digits(text, 8, value.getDayOfMonth(), 2);
+            generator.writeString(text, 0, text.length);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    static void writeIds(JsonGenerator generator, SerializableString name, Set<Long> ids) throws IOException {
+        generator.writeFieldName(name);
+        if (ids == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray(ids, ids.size());
+        if (ids instanceof LongArraySet) {
+            LongArraySet set = (LongArraySet) ids;
+            for (int i = 0; i < set.size(); i++) {
+                generator.writeNumber(set.get(i));
+            }
+        } else {
+            for (Long id : ids) {
+                if (id == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(id.longValue());
+                }
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private static void digits(char[] text, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+}
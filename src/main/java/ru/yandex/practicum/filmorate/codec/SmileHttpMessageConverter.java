@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+// Smile для Spring MVC на общем ObjectMapper (см. BinaryFormats)
+@Component
+@Profile("!reactive")
+public class SmileHttpMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+    public SmileHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper.copyWith(new SmileFactory()));
+    }
+
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+
+// Сериализатор User без рефлексии (см. FilmSerializer)
+public class UserSerializer extends StdSerializer<User> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString LOGIN = new SerializedString("login");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString BIRTHDAY = new SerializedString("birthday");
+    private static final SerializedString FRIENDS = new SerializedString("friends");
+
+    public UserSerializer() {
+        super(User.class);
+    }
+
+    @Override
+    public void serialize(User user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(user);
+        JsonFields.writeLong(generator, ID, user.getId());
+        JsonFields.writeString(generator, EMAIL, user.getEmail());
+        JsonFields.writeString(generator, LOGIN, user.getLogin());
+        JsonFields.writeString(generator, NAME, user.getName());
+        JsonFields.writeDate(generator, provider, BIRTHDAY, user.getBirthday());
+        JsonFields.writeIds(generator, FRIENDS, user.getFriends());
+        generator.writeEndObject();
+    }
+
+}
@@ -1,22 +1,30 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.UnavailableException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 
 import java.util.Map;
 
 @RestControllerAdvice
 @Slf4j
+@RequiredArgsConstructor
 public class ErrorHandler {
 
+    // Счетчик ошибок запросов по типу: filmorate.errors{type=validation|not_found|unavailable}
+    private final MeterRegistry meterRegistry;
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleBadRequest(final ValidationException e) {
+        meterRegistry.counter("filmorate.errors", "type", "validation").increment();
         log.error(e.getMessage());
         return Map.of("error", e.getMessage());
     }
@@ -24,6 +32,16 @@ public class ErrorHandler {
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public Map<String, String> handleNotFound(final NotFoundException e) {
+        meterRegistry.counter("filmorate.errors", "type", "not_found").increment();
+        log.error(e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
+    // Изменение сохранено, но не обработано подписчиками событий за отведенное время (sync=true)
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleUnavailable(final UnavailableException e) {
+        meterRegistry.counter("filmorate.errors", "type", "unavailable").increment();
         log.error(e.getMessage());
         return Map.of("error", e.getMessage());
     }
@@ -1,30 +1,42 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.codec.BinaryFormats;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.UnavailableException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/films")
-@Slf4j
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class FilmController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     @Autowired
     private final FilmService filmService;
 
+    @Autowired
+    private final StreamingExport streamingExport;
+
     // Добавление нового фильма
     // POST /films
     @PostMapping
     public Film addFilm(@RequestBody Film film) throws ValidationException {
-        log.debug("Запрос на добавление нового фильма: {}", film);
         return filmService.addFilm(film);
     }
 
@@ -32,49 +44,121 @@ public class FilmController {
     // PUT /films
     @PutMapping
     public Film updateFilm(@RequestBody Film film) throws ValidationException, NotFoundException {
-        log.debug("Запрос на изменение фильма: {}", film);
         return filmService.updateFilm(film);
     }
 
     // Получение информации о фильме
     // GET /films/{id}
-    @GetMapping("/{id}")
-    public Film getFilm(@PathVariable Long id) throws NotFoundException {
-        log.debug("Запрос на получение информации о фильме (ID: {})", id);
-        return filmService.getFilm(id);
+    // Ответ берется из кеша готовых JSON-ответов
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getFilm(@PathVariable Long id) throws NotFoundException {
+        return filmService.getFilmJson(id);
+    }
+
+    // То же в двоичном формате (Accept: application/x-jackson-smile или application/cbor, см. BinaryFormats)
+    // GET /films/{id}
+    @GetMapping(value = "/{id}", produces = {BinaryFormats.SMILE_VALUE, BinaryFormats.CBOR_VALUE})
+    public Film getFilmBinary(@PathVariable Long id) throws NotFoundException {
+        return filmService.getFilmForResponse(id);
     }
 
     // Получение списка всех фильмов
     // GET /films
+    // Постраничное получение списка (страница — не более limit записей с ID больше afterId)
+    // GET /films?afterId={afterId}&limit={limit}
     @GetMapping
-    public List<Film> getFilms() {
-        log.debug("Запрос на получение списка фильмов");
-        return filmService.getFilms();
+    public List<Film> getFilms(@RequestParam(required = false) Long afterId,
+                             @RequestParam(required = false) Integer limit) throws ValidationException {
+        if (afterId == null && limit == null) {
+            return filmService.getFilms();
+        }
+        return filmService.getFilmsPage(afterId == null ? 0L : afterId, limit == null ? DEFAULT_PAGE_SIZE : limit);
+    }
+
+    // Поиск фильмов; все параметры необязательны, даты — в формате ISO (2000-01-31)
+    // GET /films/search?name={подстрока}&namePrefix={начало}&releasedFrom={дата}&releasedTo={дата}
+    //     &minDuration={мин}&maxDuration={мин}&order={ID|POPULARITY}&offset={offset}&limit={limit}
+    @GetMapping("/search")
+    public List<Film> searchFilms(FilmSearch search) throws ValidationException {
+        return filmService.searchFilms(search);
+    }
+
+    // Потоковая выгрузка всех фильмов без построения полного списка в памяти
+    // GET /films/export?format={json|ndjson}
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFilms(@RequestParam(defaultValue = "json") String format)
+            throws ValidationException {
+        return streamingExport.export(format, filmService.exportFilms(format)::apply, Film::getId);
     }
 
     // Пользователь ставит лайк фильму
-    // PUT /films/{id}/like/{userId}
+    // sync=true — ответ после обновления похожих и набирающих популярность фильмов (чтение своих записей);
+    // 503, если изменение сохранено, но не обработано за filmorate.events.await-timeout-ms или событие отброшено
+    // PUT /films/{id}/like/{userId}?sync={sync}
     @PutMapping("/{id}/like/{userId}")
-    public void addLike(@PathVariable Long id, @PathVariable Long userId) throws NotFoundException, ValidationException {
-        log.debug("Запрос на установку лайка фильму: filmId={}, userId={}", id, userId);
-        filmService.addUserLike(id, userId);
+    public void addLike(@PathVariable Long id, @PathVariable Long userId,
+                        @RequestParam(defaultValue = "false") boolean sync)
+            throws NotFoundException, UnavailableException {
+        filmService.addUserLike(id, userId, sync);
     }
 
     // Пользователь удаляет лайк
-    // DELETE /films/{id}/like/{userId}
+    // DELETE /films/{id}/like/{userId}?sync={sync}
     @DeleteMapping("/{id}/like/{userId}")
-    public void deleteLike(@PathVariable Long id, @PathVariable Long userId) throws NotFoundException, ValidationException {
-        log.debug("Запрос на снятие лайка фильму: filmId={}, userId={}", id, userId);
-        filmService.deleteUserLike(id, userId);
+    public void deleteLike(@PathVariable Long id, @PathVariable Long userId,
+                           @RequestParam(defaultValue = "false") boolean sync)
+            throws NotFoundException, UnavailableException {
+        filmService.deleteUserLike(id, userId, sync);
+    }
+
+    // Пакетная установка и снятие лайков; результаты возвращаются в порядке операций
+    // POST /films/likes?sync={sync}  [{"action": "ADD|REMOVE", "filmId": 1, "userId": 2}, ...]
+    @PostMapping("/likes")
+    public List<BatchResult> applyLikes(@RequestBody List<LikeOperation> operations,
+                                        @RequestParam(defaultValue = "false") boolean sync)
+            throws ValidationException, UnavailableException {
+        return filmService.applyLikes(operations, sync);
+    }
+
+    // Набирающие популярность фильмы: первые count по лайкам за последний час, сутки или неделю
+    // или по счету с затуханием (window=DECAYED)
+    // GET /films/trending?window={HOUR|DAY|WEEK|DECAYED}&count={count}
+    @GetMapping("/trending")
+    public List<Film> getTrending(@RequestParam(defaultValue = "DAY") String window,
+                                  @RequestParam(defaultValue = "10") Integer count) throws ValidationException {
+        return filmService.getTrending(window, count);
+    }
+
+    // Похожие фильмы: лайкнутые теми же пользователями (не более count)
+    // GET /films/{id}/similar?count={count}
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilar(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer count)
+            throws ValidationException, NotFoundException {
+        return filmService.getSimilar(id, count);
+    }
+
+    // Рекомендации фильмов пользователю по похожести на лайкнутые им фильмы (не более count)
+    // GET /films/recommendations?userId={userId}&count={count}
+    @GetMapping("/recommendations")
+    public List<Film> getRecommended(@RequestParam Long userId, @RequestParam(defaultValue = "10") Integer count)
+            throws ValidationException, NotFoundException {
+        return filmService.getRecommended(userId, count);
     }
 
     // Возвращает список из первых count фильмов по количеству лайков
     // Если значение параметра count не задано, верните первые 10
     // GET /films/popular?count={count}
-    @GetMapping("/popular")
-    public List<Film> getPopular(@RequestParam(defaultValue = "10") Integer count) {
-        log.debug("Запрос на получение списка популярных фильмов: count={}", count);
-        return filmService.getPopular(count);
+    // Ответ берется из кеша готовых JSON-ответов
+    @GetMapping(value = "/popular", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getPopular(@RequestParam(defaultValue = "10") Integer count) throws ValidationException {
+        return filmService.getPopularJson(count);
+    }
+
+    // То же в двоичном формате (Smile или CBOR)
+    // GET /films/popular?count={count}
+    @GetMapping(value = "/popular", produces = {BinaryFormats.SMILE_VALUE, BinaryFormats.CBOR_VALUE})
+    public List<Film> getPopularBinary(@RequestParam(defaultValue = "10") Integer count) throws ValidationException {
+        return filmService.getPopularList(count);
     }
 
 }
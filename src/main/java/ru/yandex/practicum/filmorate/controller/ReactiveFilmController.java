@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.codec.BinaryFormats;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.storage.reactive.BlockingCalls;
+
+import java.util.List;
+
+/*
+Вариант FilmController для WebFlux (профиль reactive): те же пути и ответы, но
+  - список фильмов передается потоком: страницы читаются из хранилища по мере чтения клиентом
+    (см. BlockingCalls.pages);
+  - изменения выполняются через FilmService, как в FilmController;
+  - GET /films/popular/stream — лента изменений списка популярных (server-sent events).
+*/
+@RestController
+@RequestMapping("/films")
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveFilmController {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    @Autowired
+    private final FilmService filmService;
+
+    @Autowired
+    private final BlockingCalls calls;
+
+    @Autowired
+    private final JsonArrayStream jsonArrays;
+
+    // Добавление нового фильма
+    // POST /films
+    @PostMapping
+    public Mono<Film> addFilm(@RequestBody Film film) {
+        return calls.mono(() -> filmService.addFilm(film));
+    }
+
+    // Обновление существующего фильма
+    // PUT /films
+    @PutMapping
+    public Mono<Film> updateFilm(@RequestBody Film film) {
+        return calls.mono(() -> filmService.updateFilm(film));
+    }
+
+    // Получение информации о фильме
+    // GET /films/{id}
+    // Ответ берется из кеша готовых JSON-ответов
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<byte[]> getFilm(@PathVariable Long id) {
+        return calls.mono(() -> filmService.getFilmJson(id));
+    }
+
+    // То же в двоичном формате (Accept: application/x-jackson-smile или application/cbor, см. BinaryFormats)
+    // GET /films/{id}
+    @GetMapping(value = "/{id}", produces = {BinaryFormats.SMILE_VALUE, BinaryFormats.CBOR_VALUE})
+    public Mono<Film> getFilmBinary(@PathVariable Long id) {
+        return calls.mono(() -> filmService.getFilmForResponse(id));
+    }
+
+    // Получение списка всех фильмов (потоком, страницы читаются по мере передачи клиенту)
+    // GET /films
+    // Постраничное получение списка (страница — не более limit записей с ID больше afterId)
+    // GET /films?afterId={afterId}&limit={limit}
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> getFilms(@RequestParam(required = false) Long afterId,
+                                     @RequestParam(required = false) Integer limit) {
+        return jsonArrays.encode(films(afterId, limit), DEFAULT_PAGE_SIZE);
+    }
+
+    // То же в двоичном формате (Smile или CBOR): список передается одним значением, не потоком
+    // GET /films?afterId={afterId}&limit={limit}
+    @GetMapping(produces = {BinaryFormats.SMILE_VALUE, BinaryFormats.CBOR_VALUE})
+    public Mono<List<Film>> getFilmsBinary(@RequestParam(required = false) Long afterId,
+                                           @RequestParam(required = false) Integer limit) {
+        return films(afterId, limit).collectList();
+    }
+
+    // Поиск фильмов; все параметры необязательны, даты — в формате ISO (2000-01-31)
+    // GET /films/search?name={подстрока}&namePrefix={начало}&releasedFrom={дата}&releasedTo={дата}
+    //     &minDuration={мин}&maxDuration={мин}&order={ID|POPULARITY}&offset={offset}&limit={limit}
+    @GetMapping("/search")
+    public Mono<List<Film>> searchFilms(FilmSearch search) {
+        return calls.mono(() -> filmService.searchFilms(search));
+    }
+
+    // Пользователь ставит лайк фильму
+    // sync=true — ответ после обновления похожих и набирающих популярность фильмов (чтение своих записей);
+    // 503, если изменение сохранено, но не обработано за filmorate.events.await-timeout-ms или событие отброшено
+    // PUT /films/{id}/like/{userId}?sync={sync}
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<Void> addLike(@PathVariable Long id, @PathVariable Long userId,
+                              @RequestParam(defaultValue = "false") boolean sync) {
+        return calls.waiting(() -> {
+            filmService.addUserLike(id, userId, sync);
+            return null;
+        }).then();
+    }
+
+    // Пользователь удаляет лайк
+    // DELETE /films/{id}/like/{userId}?sync={sync}
+    @DeleteMapping("/{id}/like/{userId}")
+    public Mono<Void> deleteLike(@PathVariable Long id, @PathVariable Long userId,
+                                 @RequestParam(defaultValue = "false") boolean sync) {
+        return calls.waiting(() -> {
+            filmService.deleteUserLike(id, userId, sync);
+            return null;
+        }).then();
+    }
+
+    // Пакетная установка и снятие лайков; результаты возвращаются в порядке операций
+    // POST /films/likes?sync={sync}  [{"action": "ADD|REMOVE", "filmId": 1, "userId": 2}, ...]
+    @PostMapping("/likes")
+    public Mono<List<BatchResult>> applyLikes(@RequestBody List<LikeOperation> operations,
+                                              @RequestParam(defaultValue = "false") boolean sync) {
+        return calls.waiting(() -> filmService.applyLikes(operations, sync));
+    }
+
+    // Возвращает список из первых count фильмов по количеству лайков
+    // Если значение параметра count не задано, верните первые 10
+    // GET /films/popular?count={count}
+    // Ответ берется из кеша готовых JSON-ответов
+    @GetMapping(value = "/popular", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<byte[]> getPopular(@RequestParam(defaultValue = "10") Integer count) {
+        return calls.mono(() -> filmService.getPopularJson(count));
+    }
+
+    // То же в двоичном формате (Smile или CBOR)
+    // GET /films/popular?count={count}
+    @GetMapping(value = "/popular", produces = {BinaryFormats.SMILE_VALUE, BinaryFormats.CBOR_VALUE})
+    public Mono<List<Film>> getPopularBinary(@RequestParam(defaultValue = "10") Integer count) {
+        return calls.mono(() -> filmService.getPopularList(count));
+    }
+
+    // Набирающие популярность фильмы: первые count по лайкам за последний час, сутки или неделю
+    // или по счету с затуханием (window=DECAYED)
+    // GET /films/trending?window={HOUR|DAY|WEEK|DECAYED}&count={count}
+    @GetMapping("/trending")
+    public Mono<List<Film>> getTrending(@RequestParam(defaultValue = "DAY") String window,
+                                        @RequestParam(defaultValue = "10") Integer count) {
+        return calls.mono(() -> filmService.getTrending(window, count));
+    }
+
+    // Похожие фильмы: лайкнутые теми же пользователями (не более count)
+    // GET /films/{id}/similar?count={count}
+    @GetMapping("/{id}/similar")
+    public Mono<List<Film>> getSimilar(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer count) {
+        return calls.mono(() -> filmService.getSimilar(id, count));
+    }
+
+    // Рекомендации фильмов пользователю по похожести на лайкнутые им фильмы (не более count)
+    // GET /films/recommendations?userId={userId}&count={count}
+    @GetMapping("/recommendations")
+    public Mono<List<Film>> getRecommended(@RequestParam Long userId,
+                                           @RequestParam(defaultValue = "10") Integer count) {
+        return calls.mono(() -> filmService.getRecommended(userId, count));
+    }
+
+    // Лента списка популярных: текущий список сразу, затем новый список при каждом его изменении
+    // GET /films/popular/stream?count={count}  (text/event-stream)
+    @GetMapping(value = "/popular/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<List<Film>> getPopularFeed(@RequestParam(defaultValue = "10") Integer count) {
+        return Mono.fromCallable(() -> filmService.getPopularFeed(count)).flatMapMany(feed -> feed);
+    }
+
+    // Весь каталог (потоком из хранилища) или страница после afterId
+    private Flux<Film> films(Long afterId, Integer limit) {
+        if (afterId == null && limit == null) {
+            return calls.pages(filmService.streamFilms()::apply, Film::getId, DEFAULT_PAGE_SIZE);
+        }
+        return calls.flux(() -> filmService.getFilmsPage(afterId == null ? 0L : afterId,
+                limit == null ? DEFAULT_PAGE_SIZE : limit));
+    }
+
+}
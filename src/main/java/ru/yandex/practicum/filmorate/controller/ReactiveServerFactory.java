@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/*
+Сервер Netty для профиля reactive.
+Рядом в classpath лежит Tomcat (для Spring MVC), и без этой фабрики реактивное приложение запускается на Tomcat:
+запись ответа медленному клиенту тогда занимает поток из пула Tomcat. Netty обслуживает все соединения
+несколькими потоками ввода-вывода. Настройки server.* применяются к фабрике как обычно.
+*/
+@Component
+@Profile("reactive")
+public class ReactiveServerFactory extends NettyReactiveWebServerFactory {
+}
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.codec.BinaryFormats;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.FriendOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.reactive.BlockingCalls;
+
+import java.util.List;
+
+/*
+Вариант UserController для WebFlux (профиль reactive): те же пути и ответы, но
+  - списки пользователей и друзей передаются потоком; весь список читается из хранилища страницами
+    по мере чтения клиентом (см. BlockingCalls.pages);
+  - изменения выполняются через UserService, как в UserController.
+*/
+@RestController
+@RequestMapping("/users")
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserController {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    @Autowired
+    private final UserService userService;
+
+    @Autowired
+    private final BlockingCalls calls;
+
+    @Autowired
+    private final JsonArrayStream jsonArrays;
+
+    // Создание нового пользователя
+    // POST /users
+    @PostMapping
+    public Mono<User> addUser(@RequestBody User user) {
+        return calls.mono(() -> userService.addUser(user));
+    }
+
+    // Обновление существующего пользователя
+    // PUT /users
+    @PutMapping
+    public Mono<User> updateUser(@RequestBody User user) {
+        return calls.mono(() -> userService.updateUser(user));
+    }
+
+    // Получение информации о пользователе
+    // GET /users/{id}
+    @GetMapping("/{id}")
+    public Mono<User> getUser(@PathVariable Long id) {
+        return calls.mono(() -> userService.getUser(id));
+    }
+
+    // Получение списка всех пользователей (потоком, страницы читаются по мере передачи клиенту)
+    // GET /users
+    // Постраничное получение списка (страница — не более limit записей с ID больше afterId)
+    // GET /users?afterId={afterId}&limit={limit}
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> getUsers(@RequestParam(required = false) Long afterId,
+                                     @RequestParam(required = false) Integer limit) {
+        return jsonArrays.encode(users(afterId, limit), DEFAULT_PAGE_SIZE);
+    }
+
+    // То же в двоичном формате (Accept: application/x-jackson-smile или application/cbor, см. BinaryFormats):
+    // список передается одним значением, не потоком
+    // GET /users?afterId={afterId}&limit={limit}
+    @GetMapping(produces = {BinaryFormats.SMILE_VALUE, BinaryFormats.CBOR_VALUE})
+    public Mono<List<User>> getUsersBinary(@RequestParam(required = false) Long afterId,
+                                           @RequestParam(required = false) Integer limit) {
+        return users(afterId, limit).collectList();
+    }
+
+    // Добавление в друзья
+    // sync=true — ответ после обновления рекомендаций друзей (чтение своих записей);
+    // 503, если изменение сохранено, но не обработано за filmorate.events.await-timeout-ms или событие отброшено
+    // PUT /users/{id}/friends/{friendId}?sync={sync}
+    @PutMapping("/{id}/friends/{friendId}")
+    public Mono<Void> addFriend(@PathVariable Long id, @PathVariable Long friendId,
+                                @RequestParam(defaultValue = "false") boolean sync) {
+        return calls.waiting(() -> {
+            userService.addFriend(id, friendId, sync);
+            return null;
+        }).then();
+    }
+
+    // Удаление из друзей
+    // DELETE /users/{id}/friends/{friendId}?sync={sync}
+    @DeleteMapping("/{id}/friends/{friendId}")
+    public Mono<Void> deleteFriend(@PathVariable Long id, @PathVariable Long friendId,
+                                   @RequestParam(defaultValue = "false") boolean sync) {
+        return calls.waiting(() -> {
+            userService.deleteFriend(id, friendId, sync);
+            return null;
+        }).then();
+    }
+
+    // Пакетное добавление и удаление друзей; результаты возвращаются в порядке операций
+    // POST /users/friends?sync={sync}  [{"action": "ADD|REMOVE", "userId": 1, "friendId": 2}, ...]
+    @PostMapping("/friends")
+    public Mono<List<BatchResult>> applyFriendships(@RequestBody List<FriendOperation> operations,
+                                                    @RequestParam(defaultValue = "false") boolean sync) {
+        return calls.waiting(() -> userService.applyFriendships(operations, sync));
+    }
+
+    // Возвращаем список пользователей, являющихся его друзьями
+    // GET /users/{id}/friends
+    @GetMapping("/{id}/friends")
+    public Flux<User> getUserFriends(@PathVariable Long id) {
+        return calls.flux(() -> userService.getFriends(id));
+    }
+
+    // Список друзей, общих с другим пользователем
+    // GET /users/{id}/friends/common/{otherId}
+    @GetMapping("/{id}/friends/common/{otherId}")
+    public Flux<User> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
+        return calls.flux(() -> userService.getCommonFriends(id, otherId));
+    }
+
+    // Рекомендации друзей: друзья друзей, не более limit, по количеству общих друзей
+    // GET /users/{id}/recommendations?limit={limit}
+    @GetMapping("/{id}/recommendations")
+    public Mono<List<User>> getRecommendations(@PathVariable Long id,
+                                               @RequestParam(defaultValue = "10") Integer limit) {
+        return calls.mono(() -> userService.getRecommendations(id, limit));
+    }
+
+    // Все пользователи (потоком из хранилища) или страница после afterId
+    private Flux<User> users(Long afterId, Integer limit) {
+        if (afterId == null && limit == null) {
+            return calls.pages(userService.streamUsers()::apply, User::getId, DEFAULT_PAGE_SIZE);
+        }
+        return calls.flux(() -> userService.getUsersPage(afterId == null ? 0L : afterId,
+                limit == null ? DEFAULT_PAGE_SIZE : limit));
+    }
+
+}
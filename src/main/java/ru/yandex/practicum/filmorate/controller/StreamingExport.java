@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/*
+Потоковая выгрузка всего списка сущностей:
+  - данные читаются страницами по ID (keyset), каждая страница сразу пишется в ответ,
+    поэтому расход памяти не зависит от размера каталога;
+  - форматы: json (один массив) и ndjson (по объекту на строку).
+*/
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class StreamingExport {
+
+    static final int PAGE_SIZE = 500;
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ObjectMapper objectMapper;
+
+    public interface PageSource<T> {
+        List<T> page(long afterId, int limit) throws ValidationException;
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> export(String format, PageSource<T> source, ToLongFunction<T> idOf)
+            throws ValidationException {
+        boolean ndjson;
+        if ("json".equalsIgnoreCase(format)) {
+            ndjson = false;
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            ndjson = true;
+        } else {
+            throw new ValidationException(String.format("Неизвестный формат выгрузки: %s", format));
+        }
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                long afterId = 0;
+                List<T> page;
+                do {
+                    page = source.page(afterId, PAGE_SIZE);
+                    for (T item : page) {
+                        generator.writeObject(item);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    }
+                    if (!page.isEmpty()) {
+                        afterId = idOf.applyAsLong(page.get(page.size() - 1));
+                    }
+                    generator.flush();
+                } while (page.size() == PAGE_SIZE);
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            } catch (ValidationException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+}
@@ -1,30 +1,39 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.UnavailableException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.FriendOperation;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/users")
-@Slf4j
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     @Autowired
     private final UserService userService;
 
+    @Autowired
+    private final StreamingExport streamingExport;
+
     // Создание нового пользователя
     // POST /users
     @PostMapping
     public User addUser(@RequestBody User user) throws ValidationException {
-        log.debug("Запрос на создание нового пользователя: {}", user);
         return userService.addUser(user);
     }
 
@@ -32,7 +41,6 @@ public class UserController {
     // PUT /users
     @PutMapping
     public User updateUser(@RequestBody User user) throws ValidationException, NotFoundException {
-        log.debug("Запрос на изменение пользователя: {}", user);
         return userService.updateUser(user);
     }
 
@@ -40,39 +48,63 @@ public class UserController {
     // GET /users/{id}
     @GetMapping("/{id}")
     public User getUser(@PathVariable Long id) throws NotFoundException {
-        log.debug("Запрос на получение информации о пользователе (ID: {}) ", id);
         return userService.getUser(id);
     }
 
     // Получение списка всех пользователей
     // GET /users
+    // Постраничное получение списка (страница — не более limit записей с ID больше afterId)
+    // GET /users?afterId={afterId}&limit={limit}
     @GetMapping
-    public List<User> getUsers() {
-        log.debug("Запрос на получение списка пользователей");
-        return userService.getUsers();
+    public List<User> getUsers(@RequestParam(required = false) Long afterId,
+                             @RequestParam(required = false) Integer limit) throws ValidationException {
+        if (afterId == null && limit == null) {
+            return userService.getUsers();
+        }
+        return userService.getUsersPage(afterId == null ? 0L : afterId, limit == null ? DEFAULT_PAGE_SIZE : limit);
+    }
+
+    // Потоковая выгрузка всех пользователей без построения полного списка в памяти
+    // GET /users/export?format={json|ndjson}
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "json") String format)
+            throws ValidationException {
+        return streamingExport.export(format, userService.exportUsers(format)::apply, User::getId);
     }
 
     // Добавление в друзья
-    // PUT /users/{id}/friends/{friendId}
+    // sync=true — ответ после обновления рекомендаций друзей (чтение своих записей);
+    // 503, если изменение сохранено, но не обработано за filmorate.events.await-timeout-ms или событие отброшено
+    // PUT /users/{id}/friends/{friendId}?sync={sync}
     @PutMapping("/{id}/friends/{friendId}")
-    public void addFriend(@PathVariable Long id, @PathVariable Long friendId) throws NotFoundException {
-        log.debug("Запрос на добавление в друзья: userId={}, friendId={}", id, friendId);
-        userService.addFriend(id, friendId);
+    public void addFriend(@PathVariable Long id, @PathVariable Long friendId,
+                          @RequestParam(defaultValue = "false") boolean sync)
+            throws NotFoundException, UnavailableException {
+        userService.addFriend(id, friendId, sync);
     }
 
     // Удаление из друзей
-    // DELETE /users/{id}/friends/{friendId}
+    // DELETE /users/{id}/friends/{friendId}?sync={sync}
     @DeleteMapping("/{id}/friends/{friendId}")
-    public void deleteFriend(@PathVariable Long id, @PathVariable Long friendId) throws NotFoundException {
-        log.debug("Запрос на удаление из друзей: userId={}, friendId={}", id, friendId);
-        userService.deleteFriend(id, friendId);
+    public void deleteFriend(@PathVariable Long id, @PathVariable Long friendId,
+                             @RequestParam(defaultValue = "false") boolean sync)
+            throws NotFoundException, UnavailableException {
+        userService.deleteFriend(id, friendId, sync);
+    }
+
+    // Пакетное добавление и удаление друзей; результаты возвращаются в порядке операций
+    // POST /users/friends?sync={sync}  [{"action": "ADD|REMOVE", "userId": 1, "friendId": 2}, ...]
+    @PostMapping("/friends")
+    public List<BatchResult> applyFriendships(@RequestBody List<FriendOperation> operations,
+                                              @RequestParam(defaultValue = "false") boolean sync)
+            throws ValidationException, UnavailableException {
+        return userService.applyFriendships(operations, sync);
     }
 
     // Возвращаем список пользователей, являющихся его друзьями
     // GET /users/{id}/friends
     @GetMapping("/{id}/friends")
     public List<User> getUserFriends(@PathVariable Long id) throws NotFoundException {
-        log.debug("Запрос на получение списка друзей пользователя: userId={}", id);
         return userService.getFriends(id);
     }
 
@@ -80,8 +112,15 @@ public class UserController {
     // GET /users/{id}/friends/common/{otherId}
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) throws NotFoundException {
-        log.debug("Запрос на получение списка общих друзей: userId={}, otherId={}", id, otherId);
         return userService.getCommonFriends(id, otherId);
     }
 
+    // Рекомендации друзей: друзья друзей, не более limit, по количеству общих друзей
+    // GET /users/{id}/recommendations?limit={limit}
+    @GetMapping("/{id}/recommendations")
+    public List<User> getRecommendations(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer limit)
+            throws ValidationException, NotFoundException {
+        return userService.getRecommendations(id, limit);
+    }
+
 }
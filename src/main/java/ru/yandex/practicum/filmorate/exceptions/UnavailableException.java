@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.exceptions;
+
+public class UnavailableException extends Exception {
+
+    public UnavailableException(final String message) {
+        super(message);
+    }
+
+}
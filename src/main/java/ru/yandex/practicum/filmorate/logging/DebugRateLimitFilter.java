@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Ограничение числа сообщений DEBUG и TRACE: не больше maxPerSecond в секунду на все приложение.
+  - фильтр вызывается до форматирования сообщения: лишние сообщения отбрасываются, не создавая строк и событий;
+  - сообщения INFO и выше, а также сообщения отключенных логгеров фильтр не считает и не отбрасывает;
+  - число отброшенных сообщений пишется в лог (INFO) в начале следующей секунды, в которой есть сообщения DEBUG.
+Подключается в logback-spring.xml.
+*/
+public class DebugRateLimitFilter extends TurboFilter {
+
+    private int maxPerSecond = 100;
+
+    private final AtomicLong second = new AtomicLong();
+    private final AtomicInteger passed = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    public int getMaxPerSecond() {
+        return maxPerSecond;
+    }
+
+    @Override
+    public void start() {
+        if (maxPerSecond <= 0) {
+            addError("maxPerSecond должен быть положительным: " + maxPerSecond);
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        // format == null — это проверка isDebugEnabled(), а не сообщение
+        if (format == null || level.levelInt >= Level.INFO_INT
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        long current = second.get();
+        if (now != current && second.compareAndSet(current, now)) {
+            passed.set(0);
+            reportDropped();
+        }
+        if (passed.incrementAndGet() <= maxPerSecond) {
+            return FilterReply.NEUTRAL;
+        }
+        dropped.increment();
+        return FilterReply.DENY;
+    }
+
+    private void reportDropped() {
+        long count = dropped.sumThenReset();
+        if (count > 0) {
+            ((LoggerContext) getContext()).getLogger(DebugRateLimitFilter.class)
+                    .info("Пропущено сообщений DEBUG (ограничение {} в секунду): {}", maxPerSecond, count);
+        }
+    }
+
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Действие в пакетной операции над связями (лайки, дружба)
+public enum BatchAction {
+    ADD,
+    REMOVE
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Результат одной операции пакета; результаты возвращаются в порядке операций запроса
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+
+    public enum Status {
+        // Связь добавлена или удалена
+        CHANGED,
+        // Связь уже была в нужном состоянии
+        UNCHANGED,
+        NOT_FOUND,
+        INVALID
+    }
+
+    private Status status;
+    private String error;
+
+    public static BatchResult of(boolean changed) {
+        return new BatchResult(changed ? Status.CHANGED : Status.UNCHANGED, null);
+    }
+
+    public static BatchResult notFound(String error) {
+        return new BatchResult(Status.NOT_FOUND, error);
+    }
+
+    public static BatchResult invalid(String error) {
+        return new BatchResult(Status.INVALID, error);
+    }
+}
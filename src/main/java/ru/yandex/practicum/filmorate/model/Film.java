@@ -1,9 +1,9 @@
 package ru.yandex.practicum.filmorate.model;
 
 import lombok.Data;
+import lombok.ToString;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 @Data
@@ -13,5 +13,19 @@ public class Film {
     private String description;
     private LocalDate releaseDate;
     private Integer duration;
-    private Set<Long> userLikes = new HashSet<>();
+    // Неизменяемый снимок лайков; сами лайки хранит и изменяет FilmStorage; в toString и логи не попадает
+    @ToString.Exclude
+    private Set<Long> userLikes = Set.of();
+
+    // Копия с теми же значениями полей (хранилища в памяти отдают копии, а не хранимые экземпляры)
+    public Film copy() {
+        Film film = new Film();
+        film.setId(getId());
+        film.setName(getName());
+        film.setDescription(getDescription());
+        film.setReleaseDate(getReleaseDate());
+        film.setDuration(getDuration());
+        film.setUserLikes(getUserLikes());
+        return film;
+    }
 }
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Условия поиска фильмов; незаданные условия не ограничивают выборку, границы диапазонов включаются
+@Data
+public class FilmSearch {
+
+    public enum Order {
+        // По возрастанию ID
+        ID,
+        // По количеству лайков (по убыванию), при равенстве — по ID
+        POPULARITY
+    }
+
+    // Подстрока названия, без учета регистра
+    private String name;
+    // Начало названия, без учета регистра
+    private String namePrefix;
+    private LocalDate releasedFrom;
+    private LocalDate releasedTo;
+    private Integer minDuration;
+    private Integer maxDuration;
+    private Order order = Order.ID;
+    // Сколько найденных фильмов пропустить и сколько вернуть
+    private int offset;
+    private int limit = 100;
+
+    public boolean hasConditions() {
+        return name != null || namePrefix != null || releasedFrom != null || releasedTo != null
+                || minDuration != null || maxDuration != null;
+    }
+
+}
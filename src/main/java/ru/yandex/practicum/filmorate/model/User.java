@@ -1,9 +1,9 @@
 package ru.yandex.practicum.filmorate.model;
 
 import lombok.Data;
+import lombok.ToString;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 @Data
@@ -13,5 +13,19 @@ public class User {
     private String login;
     private String name;
     private LocalDate birthday;
-    private Set<Long> friends = new HashSet<>();
+    // Неизменяемый снимок друзей; саму дружбу хранит и изменяет UserStorage; в toString и логи не попадает
+    @ToString.Exclude
+    private Set<Long> friends = Set.of();
+
+    // Копия с теми же значениями полей (хранилища в памяти отдают копии, а не хранимые экземпляры)
+    public User copy() {
+        User user = new User();
+        user.setId(getId());
+        user.setEmail(getEmail());
+        user.setLogin(getLogin());
+        user.setName(getName());
+        user.setBirthday(getBirthday());
+        user.setFriends(getFriends());
+        return user;
+    }
 }
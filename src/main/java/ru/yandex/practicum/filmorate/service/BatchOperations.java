@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.storage.StripedLock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/*
+Выполнение пакета операций над связями "сущность -> ID" (лайки фильма, друзья пользователя):
+  - операции группируются по ID сущности, порядок операций внутри группы сохраняется
+    (порядок операций разных групп не сохраняется, поэтому все операции над одной связью должны
+    попадать в одну группу — для симметричной дружбы вызывающий код передает пару как (меньший, больший));
+  - идущие подряд операции с одинаковым действием выполняются одним вызовом хранилища
+    (addLikes/deleteLikes, addFriends/deleteFriends), т.е. под одной блокировкой сущности;
+  - вызов хранилища и обработка изменившихся операций (changed — публикация событий) выполняются
+    под блокировкой ID сущности в locks: события одной сущности публикуются в порядке изменений в хранилище;
+  - результат каждой операции записывается на ее место в пакете.
+*/
+public final class BatchOperations {
+
+    public static final int MAX_SIZE = 10_000;
+
+    @FunctionalInterface
+    public interface BulkCall {
+        boolean[] apply(Long id, long[] related) throws NotFoundException;
+    }
+
+    private BatchOperations() {
+    }
+
+    public static void checkSize(List<?> operations) throws ValidationException {
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_SIZE) {
+            throw new ValidationException(String.format("Пакет должен содержать от 1 до %d операций", MAX_SIZE));
+        }
+    }
+
+    // Выполняет операции, для которых results[i] == null (остальные отклонены при проверке пакета)
+    public static List<BatchResult> apply(long[] ids, long[] related, BatchAction[] actions, BatchResult[] results,
+                                          BulkCall add, BulkCall remove, StripedLock locks, IntConsumer changed) {
+        Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                groups.computeIfAbsent(ids[i], id -> new ArrayList<>()).add(i);
+            }
+        }
+        for (Map.Entry<Long, List<Integer>> group : groups.entrySet()) {
+            List<Integer> indexes = group.getValue();
+            int start = 0;
+            while (start < indexes.size()) {
+                BatchAction action = actions[indexes.get(start)];
+                int end = start + 1;
+                while (end < indexes.size() && actions[indexes.get(end)] == action) {
+                    end++;
+                }
+                applyRun(group.getKey(), indexes.subList(start, end), related, results,
+                        action == BatchAction.ADD ? add : remove, locks, changed);
+                start = end;
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static void applyRun(Long id, List<Integer> indexes, long[] related, BatchResult[] results, BulkCall call,
+                                 StripedLock locks, IntConsumer changed) {
+        long[] relatedIds = new long[indexes.size()];
+        for (int i = 0; i < relatedIds.length; i++) {
+            relatedIds[i] = related[indexes.get(i)];
+        }
+        locks.lock(id);
+        try {
+            boolean[] applied = call.apply(id, relatedIds);
+            for (int i = 0; i < applied.length; i++) {
+                results[indexes.get(i)] = BatchResult.of(applied[i]);
+                if (applied[i]) {
+                    changed.accept(indexes.get(i));
+                }
+            }
+        } catch (NotFoundException e) {
+            // Сущность удалена после проверки пакета
+            for (int index : indexes) {
+                results[index] = BatchResult.notFound(e.getMessage());
+            }
+        } finally {
+            locks.unlock(id);
+        }
+    }
+
+}
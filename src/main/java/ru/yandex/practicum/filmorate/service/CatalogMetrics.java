@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.film.FilmResponseCache;
+import ru.yandex.practicum.filmorate.service.film.SimilarFilms;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.function.Function;
+
+/*
+Метрики каталога (GET /actuator/prometheus). Значения вычисляются при чтении метрик, а не при обработке запросов:
+  - количество фильмов, пользователей, лайков и пар друзей (в БД — запрос COUNT(*) на каждое чтение);
+  - количество фильмов, учитываемых в списке набирающих популярность (TrendingFilms);
+  - количество фильмов в модели похожих фильмов (SimilarFilms);
+  - конвейер доменных событий (DomainEvents): опубликованные и отброшенные события, отставание каждого подписчика;
+  - статистика кешей: готовых JSON-ответов (FilmResponseCache), рекомендаций друзей (FriendRecommendations)
+    и сущностей перед БД (CachingFilmStorage, CachingUserStorage, если кеш включен).
+Время выполнения методов сервисов — таймеры filmorate.service (@Timed на FilmService и UserService),
+размер списков друзей — см. UserMetrics, ошибки запросов — см. ErrorHandler.
+*/
+@Component
+@RequiredArgsConstructor
+public class CatalogMetrics implements MeterBinder {
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmResponseCache responseCache;
+    private final TrendingFilms trendingFilms;
+    private final SimilarFilms similarFilms;
+    private final FriendRecommendations recommendations;
+    private final DomainEvents events;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.films", filmStorage, FilmStorage::getFilmsCount)
+                .description("Количество фильмов")
+                .register(registry);
+        Gauge.builder("filmorate.likes", filmStorage, FilmStorage::getLikesCount)
+                .description("Количество лайков")
+                .register(registry);
+        Gauge.builder("filmorate.users", userStorage, UserStorage::getUsersCount)
+                .description("Количество пользователей")
+                .register(registry);
+        Gauge.builder("filmorate.friendships", userStorage, UserStorage::getFriendshipsCount)
+                .description("Количество пар друзей")
+                .register(registry);
+        Gauge.builder("filmorate.trending.films", trendingFilms, TrendingFilms::size)
+                .description("Количество фильмов с лайками за последнюю неделю")
+                .register(registry);
+        Gauge.builder("filmorate.similar.films", similarFilms, SimilarFilms::size)
+                .description("Количество фильмов в модели похожих фильмов")
+                .register(registry);
+
+        FunctionCounter.builder("filmorate.events.published", events, DomainEvents::published)
+                .description("Опубликованные доменные события")
+                .register(registry);
+        FunctionCounter.builder("filmorate.events.dropped", events, DomainEvents::dropped)
+                .description("События, отброшенные при полном буфере (filmorate.events.backpressure=DROP)")
+                .register(registry);
+        for (String listener : events.listeners()) {
+            Gauge.builder("filmorate.events.lag", events, e -> e.lag(listener))
+                    .tag("listener", listener)
+                    .description("Опубликованные, но еще не обработанные подписчиком события")
+                    .register(registry);
+        }
+
+        FunctionCounter.builder("cache.gets", responseCache, cache -> cache.stats().getHits())
+                .tags("cache", "film-json", "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", responseCache, cache -> cache.stats().getMisses())
+                .tags("cache", "film-json", "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", responseCache, cache -> cache.stats().getEvictions())
+                .tag("cache", "film-json")
+                .register(registry);
+        FunctionCounter.builder("cache.invalidations", responseCache, cache -> cache.stats().getInvalidations())
+                .tag("cache", "film-json")
+                .register(registry);
+        Gauge.builder("cache.bytes", responseCache, cache -> cache.stats().getBytes())
+                .tag("cache", "film-json")
+                .register(registry);
+
+        bindCache(registry, "recommendations", recommendations, FriendRecommendations::stats);
+        if (filmStorage instanceof CachingFilmStorage) {
+            bindCache(registry, "films", (CachingFilmStorage) filmStorage, CachingFilmStorage::stats);
+        }
+        if (userStorage instanceof CachingUserStorage) {
+            bindCache(registry, "users", (CachingUserStorage) userStorage, CachingUserStorage::stats);
+        }
+    }
+
+    // Метрики читают источник по слабой ссылке, поэтому источником передается сам бин хранилища
+    private static <T> void bindCache(MeterRegistry registry, String cache, T source, Function<T, CacheStats> stats) {
+        FunctionCounter.builder("cache.gets", source, s -> stats.apply(s).getHits())
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", source, s -> stats.apply(s).getMisses())
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", source, s -> stats.apply(s).getEvictions())
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("cache.size", source, s -> stats.apply(s).getEntries())
+                .tag("cache", cache)
+                .register(registry);
+        Gauge.builder("cache.bytes", source, s -> stats.apply(s).getBytes())
+                .tag("cache", cache)
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.service;
+
+/*
+Счетчик по ID на примитивах (общие друзья кандидата в рекомендации, совместные лайки фильмов):
+хеш-таблица с открытой адресацией (параллельные массивы long[] ключей и int[] значений) вместо
+HashMap<Long, Integer> — без упаковки ID и объекта на каждую запись. ID положительны, 0 — пустая ячейка.
+Не потокобезопасен: каждый поток считает в свой счетчик, затем счетчики объединяются (addAll).
+*/
+public class IdCounter {
+
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    public IdCounter(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    public void increment(long id) {
+        add(id, 1);
+    }
+
+    public void addAll(IdCounter other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Значение по ID (0, если его нет или он исключен)
+    public int count(long id) {
+        int i = slot(id);
+        return keys[i] == id ? counts[i] : 0;
+    }
+
+    // Исключает ID из результата top (например, самого пользователя и его друзей)
+    public void exclude(long id) {
+        int i = slot(id);
+        if (keys[i] == id) {
+            counts[i] = 0;
+        }
+    }
+
+    /*
+    Не более limit ID с наибольшими значениями (при равенстве — с меньшим ID), по убыванию.
+    Исключенные ID (см. exclude) пропускаются. Отбор — куча из limit худших среди лучших, O(n log limit).
+    */
+    public long[] top(int limit) {
+        long[] heapIds = new long[limit];
+        int[] heapCounts = new int[limit];
+        int heapSize = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long id = keys[i];
+            int count = counts[i];
+            if (id == EMPTY || count == 0) {
+                continue;
+            }
+            if (heapSize < limit) {
+                heapIds[heapSize] = id;
+                heapCounts[heapSize] = count;
+                siftUp(heapIds, heapCounts, heapSize++);
+            } else if (limit > 0 && better(count, id, heapCounts[0], heapIds[0])) {
+                heapIds[0] = id;
+                heapCounts[0] = count;
+                siftDown(heapIds, heapCounts, heapSize);
+            }
+        }
+        // Извлечение из кучи дает кандидатов от худшего к лучшему
+        long[] result = new long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heapIds[0];
+            heapIds[0] = heapIds[i];
+            heapCounts[0] = heapCounts[i];
+            siftDown(heapIds, heapCounts, i);
+        }
+        return result;
+    }
+
+    private void add(long id, int delta) {
+        int i = slot(id);
+        if (keys[i] == EMPTY) {
+            keys[i] = id;
+            if (++size * 2 > keys.length) {
+                counts[i] = delta;
+                grow();
+                return;
+            }
+        }
+        counts[i] += delta;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldCounts[i]);
+            }
+        }
+    }
+
+    // Ячейка с ключом id или пустая ячейка, в которую его следует записать
+    private int slot(long id) {
+        int mask = keys.length - 1;
+        int i = hash(id) & mask;
+        while (keys[i] != EMPTY && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Кандидат (count1, id1) лучше (count2, id2)
+    private static boolean better(int count1, long id1, int count2, long id2) {
+        return count1 != count2 ? count1 > count2 : id1 < id2;
+    }
+
+    // Куча с худшим кандидатом в корне
+    private static void siftUp(long[] ids, int[] counts, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(counts[parent], ids[parent], counts[i], ids[i])) {
+                return;
+            }
+            swap(ids, counts, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] ids, int[] counts, int size) {
+        int i = 0;
+        while (true) {
+            int worst = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                if (better(counts[worst], ids[worst], counts[child], ids[child])) {
+                    worst = child;
+                }
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(ids, counts, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(long[] ids, int[] counts, int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        int count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+    }
+
+}
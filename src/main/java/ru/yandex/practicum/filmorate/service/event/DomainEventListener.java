@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.service.event;
+
+/*
+Подписчик на изменения лайков и дружбы (см. DomainEvents). Методы вызываются в потоке подписчика,
+по порядку публикации событий; событие приходит только при фактическом изменении в хранилище.
+События одного фильма и одной пары пользователей приходят в порядке изменений в хранилище. При
+filmorate.events.backpressure=DROP часть событий может не прийти.
+*/
+public interface DomainEventListener {
+
+    // Имя подписчика: тег метрик и имя потока
+    String name();
+
+    default void likeChanged(long filmId, long userId, boolean added) {
+    }
+
+    // То же с временем изменения (мс, время публикации события)
+    default void likeChanged(long filmId, long userId, boolean added, long time) {
+        likeChanged(filmId, userId, added);
+    }
+
+    default void friendshipChanged(long userId, long friendId, boolean added) {
+    }
+
+    // Вызывается после каждой пачки событий: подписчик может применять изменения пачкой
+    default void endOfBatch() {
+    }
+
+}
@@ -0,0 +1,293 @@
+package ru.yandex.practicum.filmorate.service.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Конвейер доменных событий: изменения лайков и дружбы публикуются в кольцевой буфер, а производные представления
+(подписчики DomainEventListener: набирающие популярность, похожие фильмы, рекомендации друзей) обновляются
+из него в своих потоках, а не в потоке запроса.
+  - буфер ограничен (capacity, степень двойки). Событие — тип, два ID и время публикации в параллельных
+    массивах примитивов, публикация не создает объектов. Запросы публикуют одновременно: номер события
+    выдается CAS по общему счетчику, ячейка считается записанной, когда в available появляется номер события;
+  - у каждого подписчика свой поток и свой номер следующего события: подписчик получает все события по порядку
+    номеров, и его структуры изменяет только этот поток. События читаются пачками до MAX_BATCH,
+    после пачки вызывается endOfBatch;
+  - буфер полон, если самый медленный подписчик отстал на capacity событий. Тогда по filmorate.events.backpressure:
+    BLOCK — публикующий поток ждет, пока ячейка освободится; DROP — событие отбрасывается (счетчик dropped),
+    и производные представления расходятся с хранилищем до их пересчета;
+  - отставание подписчика (lag) — опубликованные, но еще не обработанные им события (метрики — CatalogMetrics);
+  - чтение своих записей: методы публикации возвращают номер события, awaitProcessed(номер) ждет,
+    пока его обработают все подписчики (не дольше filmorate.events.await-timeout-ms). События нескольких
+    изменений одного запроса собираются в Published;
+  - порядок событий — порядок публикации. События одного фильма (лайки) и одной пары пользователей (дружба)
+    сервисы публикуют под блокировкой этого фильма или пары вместе с изменением в хранилище, поэтому
+    подписчики получают их в порядке изменений в хранилище.
+Подписчик без событий засыпает (LockSupport.park) не дольше IDLE_PARK_NANOS. Публикующий поток будит его,
+только если накопилась пачка (MAX_BATCH событий), — иначе каждая публикация стоила бы системного вызова
+и переключения потоков; ожидающие потоки (awaitProcessed, BLOCK) будят подписчиков сразу.
+*/
+@Component
+@Slf4j
+public class DomainEvents {
+
+    public enum Backpressure {
+        BLOCK,
+        DROP
+    }
+
+    static final int MAX_BATCH = 1024;
+    // Сколько спит подписчик без событий, если его не разбудили: наибольшая задержка обработки события
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // Шаг ожидания свободной ячейки (BLOCK) и обработки события (awaitProcessed)
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    private static final byte LIKE_REMOVED = 0;
+    private static final byte LIKE_ADDED = 1;
+    private static final byte FRIENDSHIP_REMOVED = 2;
+    private static final byte FRIENDSHIP_ADDED = 3;
+
+    private final int capacity;
+    private final byte[] kinds;
+    private final long[] firstIds;
+    private final long[] secondIds;
+    // Время публикации события (мс): время изменения для подписчиков, которым оно нужно (см. TrendingFilms)
+    private final long[] times;
+    // Номер события, записанного в ячейку (-1 — ячейка еще не записывалась)
+    private final AtomicLongArray available;
+    // Номер следующего публикуемого события
+    private final AtomicLong next = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Backpressure backpressure;
+    private final long awaitTimeoutNanos;
+    private final List<Consumer> consumers = new ArrayList<>();
+    // Наименьший номер необработанного события по подписчикам на момент последней проверки (не больше текущего)
+    private volatile long gate;
+    private volatile boolean running = true;
+
+    @Autowired
+    public DomainEvents(List<DomainEventListener> listeners,
+                        @Value("${filmorate.events.capacity:65536}") int capacity,
+                        @Value("${filmorate.events.backpressure:BLOCK}") Backpressure backpressure,
+                        @Value("${filmorate.events.await-timeout-ms:1000}") long awaitTimeoutMs) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.kinds = new byte[this.capacity];
+        this.firstIds = new long[this.capacity];
+        this.secondIds = new long[this.capacity];
+        this.times = new long[this.capacity];
+        this.available = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            available.set(i, -1);
+        }
+        this.backpressure = backpressure;
+        this.awaitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(awaitTimeoutMs);
+        for (DomainEventListener listener : listeners) {
+            consumers.add(new Consumer(listener));
+        }
+        for (Consumer consumer : consumers) {
+            consumer.thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+        }
+    }
+
+    // Номер события или -1, если событие отброшено (Backpressure.DROP)
+    public long likeChanged(long filmId, long userId, boolean added) {
+        return publish(added ? LIKE_ADDED : LIKE_REMOVED, filmId, userId);
+    }
+
+    public long friendshipChanged(long userId, long friendId, boolean added) {
+        return publish(added ? FRIENDSHIP_ADDED : FRIENDSHIP_REMOVED, userId, friendId);
+    }
+
+    // Ждет, пока все подписчики обработают события до sequence включительно; false — если не дождался
+    public boolean awaitProcessed(long sequence) {
+        long deadline = System.nanoTime() + awaitTimeoutNanos;
+        while (minProcessed() <= sequence) {
+            wakeUp(0);
+            if (System.nanoTime() - deadline > 0 || !running) {
+                log.warn("Подписчики не обработали событие {} за {} мс", sequence,
+                        TimeUnit.NANOSECONDS.toMillis(awaitTimeoutNanos));
+                return false;
+            }
+            LockSupport.parkNanos(this, WAIT_PARK_NANOS);
+        }
+        return true;
+    }
+
+    // Ждет обработки всех событий published; false — если не дождался или какое-то из событий отброшено
+    public boolean awaitProcessed(Published published) {
+        return !published.dropped && (published.last < 0 || awaitProcessed(published.last));
+    }
+
+    public List<String> listeners() {
+        List<String> names = new ArrayList<>(consumers.size());
+        for (Consumer consumer : consumers) {
+            names.add(consumer.listener.name());
+        }
+        return names;
+    }
+
+    // Опубликованные, но еще не обработанные подписчиком события
+    public long lag(String listener) {
+        for (Consumer consumer : consumers) {
+            if (consumer.listener.name().equals(listener)) {
+                return Math.max(0, next.get() - consumer.sequence);
+            }
+        }
+        return 0;
+    }
+
+    public long published() {
+        return next.get();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private long publish(byte kind, long firstId, long secondId) {
+        long sequence = claim();
+        if (sequence < 0) {
+            dropped.increment();
+            return -1;
+        }
+        int slot = (int) sequence & (capacity - 1);
+        kinds[slot] = kind;
+        firstIds[slot] = firstId;
+        secondIds[slot] = secondId;
+        times[slot] = System.currentTimeMillis();
+        available.set(slot, sequence);
+        wakeUp(MAX_BATCH);
+        return sequence;
+    }
+
+    // Будит спящих подписчиков, отставших не меньше чем на lag событий
+    private void wakeUp(long lag) {
+        long published = next.get();
+        for (Consumer consumer : consumers) {
+            if (consumer.sleeping && published - consumer.sequence >= lag) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    // Номер для нового события: ячейка свободна, если ее прошлое событие (sequence - capacity) обработано всеми
+    private long claim() {
+        while (true) {
+            long sequence = next.get();
+            if (sequence - capacity >= gate) {
+                gate = minProcessed();
+                if (sequence - capacity >= gate) {
+                    if (backpressure == Backpressure.DROP || !running) {
+                        return -1;
+                    }
+                    wakeUp(0);
+                    LockSupport.parkNanos(this, WAIT_PARK_NANOS);
+                    continue;
+                }
+            }
+            if (next.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    private long minProcessed() {
+        long min = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            min = Math.min(min, consumer.sequence);
+        }
+        return min;
+    }
+
+    // События, опубликованные одним запросом: номер последнего и были ли отброшенные; используется одним потоком
+    public static final class Published {
+        private long last = -1;
+        private boolean dropped;
+
+        public void add(long sequence) {
+            if (sequence < 0) {
+                dropped = true;
+            } else {
+                last = Math.max(last, sequence);
+            }
+        }
+    }
+
+    private final class Consumer implements Runnable {
+        private final DomainEventListener listener;
+        private final Thread thread;
+        // Номер следующего события для обработки: все события с меньшими номерами обработаны
+        private volatile long sequence;
+        private volatile boolean sleeping;
+
+        private Consumer(DomainEventListener listener) {
+            this.listener = listener;
+            this.thread = new Thread(this, "events-" + listener.name());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long current = sequence;
+            while (running) {
+                int processed = 0;
+                while (processed < MAX_BATCH && available.get(slot(current + processed)) == current + processed) {
+                    dispatch(slot(current + processed));
+                    processed++;
+                }
+                if (processed > 0) {
+                    try {
+                        listener.endOfBatch();
+                    } catch (RuntimeException e) {
+                        log.error("Ошибка обработки пачки событий подписчиком {}", listener.name(), e);
+                    }
+                    current += processed;
+                    sequence = current;
+                    continue;
+                }
+                sleeping = true;
+                if (available.get(slot(current)) != current && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+
+        private void dispatch(int slot) {
+            try {
+                byte kind = kinds[slot];
+                if (kind == LIKE_ADDED || kind == LIKE_REMOVED) {
+                    listener.likeChanged(firstIds[slot], secondIds[slot], kind == LIKE_ADDED, times[slot]);
+                } else {
+                    listener.friendshipChanged(firstIds[slot], secondIds[slot], kind == FRIENDSHIP_ADDED);
+                }
+            } catch (RuntimeException e) {
+                log.error("Ошибка обработки события подписчиком {}", listener.name(), e);
+            }
+        }
+
+        private int slot(long sequence) {
+            return (int) sequence & (capacity - 1);
+        }
+    }
+
+}
@@ -0,0 +1,279 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/*
+Кеш готовых JSON-ответов GET /films/{id} и GET /films/popular?count={count}:
+  - чтение из кеша не берет блокировок (ConcurrentHashMap), блокировка lock нужна только для изменения кеша:
+    сохранения ответа, инвалидации и вытеснения;
+  - ответы фильмов вытесняются при превышении maxBytes по алгоритму "второго шанса" (приближение LRU без
+    перестановки записей при каждом чтении): прочитанный ответ помечается и при вытеснении пропускается один раз;
+    списков популярных хранится не больше MAX_POPULAR_ENTRIES (кешируются только count до MAX_CACHED_COUNT);
+  - инвалидация точная: изменение фильма удаляет его ответ и списки, в которые он входит;
+    изменение лайков удаляет еще и списки, в которые фильм может войти с новым количеством лайков;
+    новый фильм (0 лайков, наибольший ID) может попасть только в неполный список;
+  - каждая инвалидация увеличивает generation: ответ, построенный до инвалидации, в кеш не попадает,
+    поэтому устаревший ответ не будет отдан после завершения изменения.
+FilmService вызывает методы инвалидации после записи в хранилище.
+*/
+@Component
+public class FilmResponseCache {
+
+    static final int MAX_CACHED_COUNT = 100;
+    private static final int MAX_POPULAR_ENTRIES = 64;
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws NotFoundException;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final long bytes;
+    }
+
+    private final ObjectMapper mapper;
+    private final long maxBytes;
+    private final Object lock = new Object();
+    private final Map<Long, Cached> films = new ConcurrentHashMap<>();
+    private final Map<Integer, Popular> popular = new ConcurrentHashMap<>();
+    // Ответы фильмов в порядке сохранения (кандидаты на вытеснение), изменяется под lock
+    private final Deque<Cached> clock = new ArrayDeque<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long generation;
+    private long bytes;
+    private long evictions;
+    private long invalidations;
+
+    public FilmResponseCache(ObjectMapper mapper,
+                             @Value("${filmorate.response-cache.max-bytes:16777216}") long maxBytes) {
+        this.mapper = mapper;
+        this.maxBytes = maxBytes;
+    }
+
+    public byte[] film(long id, Loader<Film> loader) throws NotFoundException {
+        Cached cached = films.get(id);
+        if (cached != null) {
+            hits.increment();
+            cached.touch();
+            return cached.json;
+        }
+        misses.increment();
+        long stamp = generation;
+        byte[] json = encode(loader.load());
+        synchronized (lock) {
+            if (stamp == generation && json.length <= maxBytes) {
+                Cached entry = new Cached(id, json);
+                Cached old = films.put(id, entry);
+                bytes += json.length - (old == null ? 0 : old.json.length);
+                clock.addLast(entry);
+                evict();
+            }
+        }
+        return json;
+    }
+
+    public byte[] popular(int count, Supplier<List<Film>> loader) {
+        if (count <= 0 || count > MAX_CACHED_COUNT) {
+            return encode(loader.get());
+        }
+        Popular cached = popular.get(count);
+        if (cached != null) {
+            hits.increment();
+            cached.touch();
+            return cached.json;
+        }
+        misses.increment();
+        long stamp = generation;
+        List<Film> list = loader.get();
+        Popular entry = new Popular(count, list, encode(list));
+        synchronized (lock) {
+            if (stamp == generation) {
+                popular.put(count, entry);
+                if (popular.size() > MAX_POPULAR_ENTRIES) {
+                    evictPopular();
+                }
+            }
+        }
+        return entry.json;
+    }
+
+    public void filmAdded() {
+        synchronized (lock) {
+            invalidated();
+            popular.values().removeIf(entry -> entry.ids.length < entry.count);
+        }
+    }
+
+    public void filmUpdated(long id) {
+        synchronized (lock) {
+            invalidated();
+            removeFilm(id);
+            popular.values().removeIf(entry -> entry.contains(id));
+        }
+    }
+
+    /*
+    Количество лайков likes читается из хранилища вне блокировки кеша и только если остались списки,
+    в которые фильм не входит: ответы, построенные до изменения, к этому моменту уже не попадут в кеш.
+    */
+    public void likesChanged(long id, IntSupplier likes) {
+        synchronized (lock) {
+            invalidated();
+            removeFilm(id);
+            popular.values().removeIf(entry -> entry.contains(id) || entry.ids.length < entry.count);
+            if (popular.isEmpty()) {
+                return;
+            }
+        }
+        int current = likes.getAsInt();
+        synchronized (lock) {
+            popular.values().removeIf(entry -> entry.admits(id, current));
+        }
+    }
+
+    public Stats stats() {
+        synchronized (lock) {
+            return new Stats(hits.sum(), misses.sum(), evictions, invalidations, bytes);
+        }
+    }
+
+    private void invalidated() {
+        generation++;
+        invalidations++;
+    }
+
+    private void removeFilm(long id) {
+        Cached old = films.remove(id);
+        if (old != null) {
+            bytes -= old.json.length;
+            // Удаленные записи остаются в очереди и пропускаются при вытеснении; очередь чистится, когда их много
+            if (clock.size() > 2 * films.size() + 16) {
+                clock.removeIf(entry -> films.get(entry.id) != entry);
+            }
+        }
+    }
+
+    private void evict() {
+        while (bytes > maxBytes && !clock.isEmpty()) {
+            Cached eldest = clock.pollFirst();
+            if (films.get(eldest.id) != eldest) {
+                continue;
+            }
+            if (eldest.referenced) {
+                eldest.referenced = false;
+                clock.addLast(eldest);
+                continue;
+            }
+            films.remove(eldest.id);
+            bytes -= eldest.json.length;
+            evictions++;
+        }
+    }
+
+    // Вытесняется первый список без чтений после прошлого вытеснения (или первый, если читались все)
+    private void evictPopular() {
+        Popular victim = null;
+        for (Popular entry : popular.values()) {
+            if (!entry.referenced) {
+                victim = entry;
+                break;
+            }
+            entry.referenced = false;
+        }
+        if (victim == null) {
+            victim = popular.values().iterator().next();
+        }
+        popular.remove(victim.count, victim);
+        evictions++;
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Ошибка сериализации ответа: " + e.getMessage(), e);
+        }
+    }
+
+    // Закешированный ответ фильма; referenced — был ли ответ прочитан с последнего прохода вытеснения
+    private static final class Cached {
+        private final long id;
+        private final byte[] json;
+        private volatile boolean referenced;
+
+        private Cached(long id, byte[] json) {
+            this.id = id;
+            this.json = json;
+        }
+
+        // Запись только при смене значения: читатели популярного ответа не пишут в общую строку кеша
+        void touch() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+
+    // Закешированный список популярных: ID фильмов и количество лайков последнего из них
+    private static final class Popular {
+        private final int count;
+        private final long[] ids;
+        private final int lastLikes;
+        private final byte[] json;
+        private volatile boolean referenced;
+
+        private Popular(int count, List<Film> films, byte[] json) {
+            this.count = count;
+            this.ids = films.stream().mapToLong(Film::getId).toArray();
+            this.lastLikes = films.isEmpty() ? 0 : films.get(films.size() - 1).getUserLikes().size();
+            this.json = json;
+        }
+
+        void touch() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+
+        boolean contains(long id) {
+            for (long listed : ids) {
+                if (listed == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Войдет ли фильм не из списка в список при таком количестве лайков (порядок — как в PopularityIndex)
+        boolean admits(long id, int likes) {
+            if (ids.length < count) {
+                return true;
+            }
+            return likes > lastLikes || (likes == lastLikes && id < ids[ids.length - 1]);
+        }
+    }
+
+}
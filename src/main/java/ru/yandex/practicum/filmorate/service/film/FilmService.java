@@ -1,38 +1,91 @@
 package ru.yandex.practicum.filmorate.service.film;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.UnavailableException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.service.BatchOperations;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
 import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.StripedLock;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiFunction;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
+@Timed(value = "filmorate.service", histogram = true)
 public class FilmService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_FEED_COUNT = 100;
+    public static final int MAX_SEARCH_OFFSET = 10_000;
+
     @Autowired
     private final FilmStorage filmStorage;
 
     @Autowired
     private final UserService userService;
 
+    @Autowired
+    private final FilmResponseCache responseCache;
+
+    @Autowired
+    private final PopularityFeed popularityFeed;
+
+    @Autowired
+    private final TrendingFilms trendingFilms;
+
+    @Autowired
+    private final SimilarFilms similarFilms;
+
+    @Autowired
+    private final DomainEvents events;
+
+    // Изменение лайков фильма и публикация события выполняются под блокировкой фильма
+    private final StripedLock likeLocks = new StripedLock(64);
+
     /*
     Список операций:
       - добавление нового фильма;
       - обновление существующего фильма;
-      - получение списка всех фильмов;
-      - добавление и удаление лайка;
-      - вывод 10 наиболее популярных фильмов по количеству лайков.
+      - получение списка всех фильмов (целиком или постранично);
+      - поиск по названию, дате релиза и продолжительности (по ID или по популярности, постранично);
+      - добавление и удаление лайка (по одному или пакетом);
+      - вывод 10 наиболее популярных фильмов по количеству лайков;
+      - вывод набирающих популярность фильмов: по лайкам за час, сутки, неделю или по счету с затуханием
+        (см. TrendingFilms);
+      - похожие фильмы и рекомендации фильмов пользователю по совместным лайкам (см. SimilarFilms);
+      - готовые JSON-ответы для фильма и списка популярных (см. FilmResponseCache);
+      - лента изменений списка популярных (см. PopularityFeed).
+    Изменения лайков публикуются событиями (см. DomainEvents): набирающие популярность и похожие фильмы
+    обновляются в своих потоках, а не в потоке запроса. Событие публикуется под блокировкой фильма вместе
+    с изменением в хранилище, поэтому события одного фильма приходят подписчикам в порядке изменений.
+    С sync = true запрос ждет, пока подписчики обработают изменение (чтение своих записей); если событие
+    отброшено или не обработано за filmorate.events.await-timeout-ms — UnavailableException (503),
+    изменение при этом сохранено. Кеш JSON-ответов и лента популярных обновляются сразу.
+    Время выполнения каждого метода — таймер filmorate.service (теги class, method, exception).
+    Каждый запрос пишется в лог (DEBUG) один раз — в методе, который вызывает контроллер;
+    getFilm и getPopular используются и внутри сервиса, поэтому в лог не пишут; для ответов в двоичном формате
+    контроллер вызывает getFilmForResponse и getPopularList.
     Примечание:
       - Пусть пока каждый пользователь может поставить лайк фильму только один раз.
     */
@@ -40,17 +93,22 @@ public class FilmService {
     public Film addFilm(Film film) throws ValidationException {
         log.debug("Запрос на добавление нового фильма: {}", film);
         validate(film);
-        return filmStorage.addFilm(film);
+        Film added = filmStorage.addFilm(film);
+        responseCache.filmAdded();
+        popularityFeed.changed();
+        return added;
     }
 
     public Film updateFilm(Film film) throws ValidationException, NotFoundException {
         log.debug("Запрос на изменение фильма: {}", film);
         validate(film);
-        return filmStorage.updateFilm(film);
+        Film updated = filmStorage.updateFilm(film);
+        responseCache.filmUpdated(updated.getId());
+        popularityFeed.changed();
+        return updated;
     }
 
     public Film getFilm(Long id) throws NotFoundException {
-        log.debug("Запрос на получение информации о фильме (ID: {})", id);
         Film film = filmStorage.getFilm(id);
         if (film == null) {
             throw new NotFoundException(String.format("Фильм с указанным ID (%d) не найден", id));
@@ -58,31 +116,226 @@ public class FilmService {
         return film;
     }
 
+    public byte[] getFilmJson(Long id) throws NotFoundException {
+        log.debug("Запрос на получение информации о фильме (ID: {})", id);
+        return responseCache.film(id, () -> getFilm(id));
+    }
+
+    public Film getFilmForResponse(Long id) throws NotFoundException {
+        log.debug("Запрос на получение информации о фильме (ID: {})", id);
+        return getFilm(id);
+    }
+
     public List<Film> getFilms() {
+        log.debug("Запрос на получение списка фильмов");
         return filmStorage.getFilmsList();
     }
 
-    public void addUserLike(Long filmId, Long userId) throws NotFoundException, ValidationException {
+    /*
+    Весь каталог страницами по ID (afterId, limit) для потоковой передачи: выгрузка GET /films/export
+    и поток GET /films в профиле reactive. Запрос пишется в лог здесь один раз, страницы читаются
+    из хранилища без лога и без проверки параметров (их выбирает вызывающий код).
+    */
+    public BiFunction<Long, Integer, List<Film>> exportFilms(String format) {
+        log.debug("Запрос на выгрузку списка фильмов: format={}", format);
+        return filmStorage::getFilmsPage;
+    }
+
+    public BiFunction<Long, Integer, List<Film>> streamFilms() {
+        log.debug("Запрос на получение списка фильмов");
+        return filmStorage::getFilmsPage;
+    }
+
+    public List<Film> getFilmsPage(Long afterId, Integer limit) throws ValidationException {
+        log.debug("Запрос на получение страницы фильмов: afterId={}, limit={}", afterId, limit);
+        if (afterId == null || afterId < 0) {
+            throw new ValidationException("Некорректное значение afterId");
+        }
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("Размер страницы должен быть от 1 до %d", MAX_PAGE_SIZE));
+        }
+        return filmStorage.getFilmsPage(afterId, limit);
+    }
+
+    public List<Film> searchFilms(FilmSearch search) throws ValidationException {
+        log.debug("Запрос на поиск фильмов: {}", search);
+        if (search.getLimit() <= 0 || search.getLimit() > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("Размер страницы должен быть от 1 до %d", MAX_PAGE_SIZE));
+        }
+        if (search.getOffset() < 0 || search.getOffset() > MAX_SEARCH_OFFSET) {
+            throw new ValidationException(String.format("Смещение должно быть от 0 до %d", MAX_SEARCH_OFFSET));
+        }
+        if ((search.getName() != null && search.getName().isBlank())
+                || (search.getNamePrefix() != null && search.getNamePrefix().isBlank())) {
+            throw new ValidationException("Пустая строка поиска по названию");
+        }
+        if (search.getReleasedFrom() != null && search.getReleasedTo() != null
+                && search.getReleasedFrom().isAfter(search.getReleasedTo())) {
+            throw new ValidationException("Некорректный диапазон дат релиза");
+        }
+        if (search.getMinDuration() != null && search.getMaxDuration() != null
+                && search.getMinDuration() > search.getMaxDuration()) {
+            throw new ValidationException("Некорректный диапазон продолжительности");
+        }
+        if (search.getOrder() == null) {
+            search.setOrder(FilmSearch.Order.ID);
+        }
+        return filmStorage.searchFilms(search);
+    }
+
+    public void addUserLike(Long filmId, Long userId, boolean sync) throws NotFoundException, UnavailableException {
         log.debug("Запрос на установку лайка фильму: filmId={}, userId={}", filmId, userId);
-        Film film = getFilm(filmId);
-        film.getUserLikes().add(userService.getUser(userId).getId());
-        filmStorage.updateFilm(film);
+        userService.checkUserExists(userId);
+        changeLike(filmId, userId, true, sync);
     }
 
-    public void deleteUserLike(Long filmId, Long userId) throws NotFoundException, ValidationException {
+    public void deleteUserLike(Long filmId, Long userId, boolean sync)
+            throws NotFoundException, UnavailableException {
         log.debug("Запрос на снятие лайка фильму: filmId={}, userId={}", filmId, userId);
-        Film film = getFilm(filmId);
-        film.getUserLikes().remove(userService.getUser(userId).getId());
-        filmStorage.updateFilm(film);
+        userService.checkUserExists(userId);
+        changeLike(filmId, userId, false, sync);
+    }
+
+    // Наличие фильма проверяет хранилище: addLike/deleteLike бросают NotFoundException
+    private void changeLike(long filmId, long userId, boolean added, boolean sync)
+            throws NotFoundException, UnavailableException {
+        DomainEvents.Published published = new DomainEvents.Published();
+        likeLocks.lock(filmId);
+        try {
+            if (!(added ? filmStorage.addLike(filmId, userId) : filmStorage.deleteLike(filmId, userId))) {
+                return;
+            }
+            published.add(events.likeChanged(filmId, userId, added));
+        } finally {
+            likeLocks.unlock(filmId);
+        }
+        likesChanged(filmId);
+        await(published, sync);
+    }
+
+    /*
+    Пакетное изменение лайков: фильмы и пользователи пакета проверяются двумя обращениями к хранилищам
+    (getFilms, getUsers), операции одного фильма выполняются вместе (см. BatchOperations).
+    Ошибка в отдельной операции не прерывает пакет, а возвращается в ее результате.
+    */
+    public List<BatchResult> applyLikes(List<LikeOperation> operations, boolean sync)
+            throws ValidationException, UnavailableException {
+        BatchOperations.checkSize(operations);
+        log.debug("Запрос на пакетное изменение лайков: {} операций", operations.size());
+        int size = operations.size();
+        long[] filmIds = new long[size];
+        long[] userIds = new long[size];
+        BatchAction[] actions = new BatchAction[size];
+        BatchResult[] results = new BatchResult[size];
+        Set<Long> filmIdSet = new LinkedHashSet<>();
+        Set<Long> userIdSet = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            LikeOperation operation = operations.get(i);
+            if (operation == null || operation.getAction() == null
+                    || operation.getFilmId() == null || operation.getUserId() == null) {
+                results[i] = BatchResult.invalid("Не заполнены action, filmId или userId");
+            } else {
+                filmIdSet.add(operation.getFilmId());
+                userIdSet.add(operation.getUserId());
+            }
+        }
+        Set<Long> missingFilms = new HashSet<>(filmStorage.getFilms(filmIdSet).getMissing());
+        Set<Long> missingUsers = userService.missingUsers(userIdSet);
+        for (int i = 0; i < size; i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            LikeOperation operation = operations.get(i);
+            if (missingFilms.contains(operation.getFilmId())) {
+                results[i] = BatchResult.notFound(
+                        String.format("Фильм с указанным ID (%d) не найден", operation.getFilmId()));
+            } else if (missingUsers.contains(operation.getUserId())) {
+                results[i] = BatchResult.notFound(
+                        String.format("Пользователь с указанным ID (%d) не найден", operation.getUserId()));
+            } else {
+                filmIds[i] = operation.getFilmId();
+                userIds[i] = operation.getUserId();
+                actions[i] = operation.getAction();
+            }
+        }
+        DomainEvents.Published published = new DomainEvents.Published();
+        List<BatchResult> applied = BatchOperations.apply(filmIds, userIds, actions, results, filmStorage::addLikes,
+                filmStorage::deleteLikes, likeLocks,
+                i -> published.add(events.likeChanged(filmIds[i], userIds[i], actions[i] == BatchAction.ADD)));
+        Set<Long> changed = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            if (applied.get(i).getStatus() == BatchResult.Status.CHANGED && changed.add(filmIds[i])) {
+                likesChanged(filmIds[i]);
+            }
+        }
+        await(published, sync);
+        return applied;
     }
 
     public List<Film> getPopular(Integer count) {
+        return filmStorage.getPopular(count);
+    }
+
+    public byte[] getPopularJson(Integer count) throws ValidationException {
         log.debug("Запрос на получение списка популярных фильмов: count={}", count);
-        return
-                filmStorage.getFilmsList().stream()
-                        .sorted((f1, f2) -> Integer.compare(f2.getUserLikes().size(), f1.getUserLikes().size()))
-                        .limit(count)
-                        .collect(Collectors.toList());
+        checkListCount(count);
+        return responseCache.popular(count, () -> getPopular(count));
+    }
+
+    public List<Film> getPopularList(Integer count) throws ValidationException {
+        log.debug("Запрос на получение списка популярных фильмов: count={}", count);
+        checkListCount(count);
+        return getPopular(count);
+    }
+
+    public List<Film> getTrending(String window, Integer count) throws ValidationException {
+        log.debug("Запрос на получение списка набирающих популярность фильмов: window={}, count={}", window, count);
+        checkListCount(count);
+        TrendingFilms.Window trendWindow;
+        try {
+            trendWindow = TrendingFilms.Window.valueOf(window.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(String.format("Некорректное окно: %s (HOUR, DAY, WEEK или DECAYED)", window));
+        }
+        return filmStorage.getFilms(trendingFilms.top(trendWindow, count)).getFound();
+    }
+
+    public List<Film> getSimilar(Long filmId, Integer count) throws ValidationException, NotFoundException {
+        log.debug("Запрос на получение похожих фильмов: filmId={}, count={}", filmId, count);
+        checkSimilarCount(count);
+        getFilm(filmId);
+        return filmStorage.getFilms(similarFilms.similar(filmId, count)).getFound();
+    }
+
+    public List<Film> getRecommended(Long userId, Integer count) throws ValidationException, NotFoundException {
+        log.debug("Запрос на получение рекомендаций фильмов: userId={}, count={}", userId, count);
+        checkSimilarCount(count);
+        userService.checkUserExists(userId);
+        return filmStorage.getFilms(similarFilms.recommend(userId, count)).getFound();
+    }
+
+    // Список популярных при каждом его изменении; первым элементом — текущий список
+    public Flux<List<Film>> getPopularFeed(Integer count) throws ValidationException {
+        log.debug("Запрос на подписку на список популярных фильмов: count={}", count);
+        if (count == null || count <= 0 || count > MAX_FEED_COUNT) {
+            throw new ValidationException(String.format("Размер списка должен быть от 1 до %d", MAX_FEED_COUNT));
+        }
+        return popularityFeed.feed(count, this::getPopular);
+    }
+
+    private void likesChanged(long filmId) {
+        responseCache.likesChanged(filmId, () -> {
+            Film film = filmStorage.getFilm(filmId);
+            return film == null ? 0 : film.getUserLikes().size();
+        });
+        popularityFeed.changed();
+    }
+
+    // Чтение своих записей: ждет, пока подписчики обработают опубликованные события
+    private void await(DomainEvents.Published published, boolean sync) throws UnavailableException {
+        if (sync && !events.awaitProcessed(published)) {
+            throw new UnavailableException("Изменение сохранено, но не обработано подписчиками событий");
+        }
     }
 
     /*
@@ -93,7 +346,6 @@ public class FilmService {
     - продолжительность фильма должна быть положительной.
     */
     private void validate(Film film) throws ValidationException {
-        log.debug("Ошибка валидации фильма: {}", film);
         if (film.getName() == null || film.getName().isBlank()) {
             throw new ValidationException("Не заполнено название фильма");
         }
@@ -108,4 +360,19 @@ public class FilmService {
         }
     }
 
+    // Размер списка популярных и набирающих популярность фильмов
+    private static void checkListCount(Integer count) throws ValidationException {
+        if (count == null || count <= 0 || count > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("Размер списка должен быть от 1 до %d", MAX_PAGE_SIZE));
+        }
+    }
+
+    // Размер списка похожих фильмов и рекомендаций: не больше числа соседей, которое хранит SimilarFilms
+    private static void checkSimilarCount(Integer count) throws ValidationException {
+        if (count == null || count <= 0 || count > SimilarFilms.MAX_NEIGHBOURS) {
+            throw new ValidationException(String.format("Размер списка должен быть от 1 до %d",
+                    SimilarFilms.MAX_NEIGHBOURS));
+        }
+    }
+
 }
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+Лента изменений списка популярных фильмов (server-sent events вместо опроса GET /films/popular):
+  - FilmService сообщает о каждом изменении, которое может изменить список (changed());
+  - изменения объединяются: список пересчитывается не чаще раза в interval;
+  - для каждого count одна общая лента: список строится один раз и рассылается всем подписчикам,
+    новый подписчик сразу получает последний список;
+  - событие отправляется, только если изменились фильмы списка или их количество лайков.
+*/
+@Component
+public class PopularityFeed {
+
+    private final Sinks.Many<Boolean> changes = Sinks.many().multicast().directBestEffort();
+    private final Map<Integer, Flux<List<Film>>> feeds = new ConcurrentHashMap<>();
+    private final Duration interval;
+
+    public PopularityFeed(@Value("${filmorate.popular-feed.interval-ms:500}") long intervalMs) {
+        this.interval = Duration.ofMillis(intervalMs);
+    }
+
+    /*
+    Отказ FAIL_NON_SERIALIZED (сигнал в этот момент отправляет другой поток) не теряет изменение:
+    список будет пересчитан по сигналу другого потока, уже после этого изменения.
+    */
+    public void changed() {
+        changes.tryEmitNext(Boolean.TRUE);
+    }
+
+    public Flux<List<Film>> feed(int count, IntFunction<List<Film>> popular) {
+        return feeds.computeIfAbsent(count, c -> changes.asFlux()
+                .sample(interval)
+                .startWith(Boolean.TRUE)
+                .publishOn(Schedulers.boundedElastic())
+                .map(change -> popular.apply(c))
+                .distinctUntilChanged(PopularityFeed::signature)
+                .replay(1)
+                .refCount());
+    }
+
+    // ID фильмов списка и количество их лайков
+    private static List<Long> signature(List<Film> films) {
+        return films.stream()
+                .flatMap(film -> Stream.of(film.getId(), (long) film.getUserLikes().size()))
+                .collect(Collectors.toList());
+    }
+
+}
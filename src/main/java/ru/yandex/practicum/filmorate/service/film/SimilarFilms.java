@@ -0,0 +1,353 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.IdCounter;
+import ru.yandex.practicum.filmorate.service.event.DomainEventListener;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+Похожие фильмы ("те, кому понравился этот фильм, также лайкали") и рекомендации фильмов пользователю
+по совместным лайкам:
+  - для каждого фильма хранятся счетчики совместных лайков (сколько пользователей лайкнули оба фильма)
+    не более чем с MAX_NEIGHBOURS другими фильмами. Когда мест нет, новый фильм вытесняет фильм с наименьшим
+    счетчиком и получает его счетчик + 1 (алгоритм Space-Saving): фильм, совместных лайков с которым больше
+    доли 1 / MAX_NEIGHBOURS, из списка не вытесняется. Память — не больше MAX_NEIGHBOURS записей на фильм
+    и ID на каждый лайк (списки фильмов пользователей);
+  - лайк обновляет счетчики фильма с не более чем MAX_FILMS_PER_USER другими фильмами пользователя
+    (у пользователей с большим числом лайков — равномерная выборка); повторный лайк и снятие
+    отсутствующего лайка ничего не меняют;
+  - похожесть фильмов — косинусная мера: совместные лайки / sqrt(лайки первого * лайки второго); похожие
+    на фильм — лучшие из его MAX_NEIGHBOURS записей, рекомендации пользователю — сумма похожести
+    фильмов-соседей по MAX_FILMS_PER_USER его фильмам, без уже лайкнутых. Запрос не читает лайки;
+  - модель целиком пересчитывается (rebuild) при запуске приложения и по вызову: фильмы с лайками читаются
+    из хранилища страницами, счетчики фильмов считаются параллельно в общем ForkJoinPool.
+    Лайки во время пересчета применяются и к текущей, и (после пересчета) к новой модели.
+До окончания первого пересчета списки строятся только по лайкам, поставленным после запуска.
+*/
+@Component
+@Slf4j
+public class SimilarFilms implements DomainEventListener {
+
+    public static final int MAX_NEIGHBOURS = 64;
+    static final int MAX_FILMS_PER_USER = 500;
+    // При пересчете: сколько пользователей фильма учитывать (равномерная выборка)
+    static final int MAX_USERS_PER_FILM = 2000;
+    private static final int PAGE_SIZE = 1000;
+
+    private final FilmStorage filmStorage;
+    private volatile Model model = new Model();
+    // Изменения лайков во время пересчета (null, если пересчета нет)
+    private List<long[]> pending;
+
+    @Autowired
+    public SimilarFilms(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @Override
+    public String name() {
+        return "similar-films";
+    }
+
+    @Override
+    public void likeChanged(long filmId, long userId, boolean added) {
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(new long[] {filmId, userId, added ? 1 : 0});
+            }
+        }
+        model.likeChanged(filmId, userId, added);
+    }
+
+    // Не более count ID фильмов, похожих на filmId, лучшие первыми (при равенстве — по ID)
+    public List<Long> similar(long filmId, int count) {
+        Model current = model;
+        Neighbours neighbours = current.films.get(filmId);
+        if (neighbours == null) {
+            return List.of();
+        }
+        long[] ids;
+        int[] counts;
+        int likes;
+        synchronized (neighbours) {
+            ids = Arrays.copyOf(neighbours.ids, neighbours.size);
+            counts = Arrays.copyOf(neighbours.counts, neighbours.size);
+            likes = neighbours.likes;
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            scores.put(ids[i], current.similarity(counts[i], likes, ids[i]));
+        }
+        return best(scores, count);
+    }
+
+    // Не более count ID фильмов для пользователя по похожести на его фильмы, без уже лайкнутых
+    public List<Long> recommend(long userId, int count) {
+        Model current = model;
+        long[] liked = current.userFilms.getOrDefault(userId, new long[0]);
+        Map<Long, Double> scores = new HashMap<>();
+        for (long filmId : sample(liked, MAX_FILMS_PER_USER)) {
+            Neighbours neighbours = current.films.get(filmId);
+            if (neighbours == null) {
+                continue;
+            }
+            synchronized (neighbours) {
+                for (int i = 0; i < neighbours.size; i++) {
+                    long id = neighbours.ids[i];
+                    if (Arrays.binarySearch(liked, id) < 0) {
+                        double similarity = current.similarity(neighbours.counts[i], neighbours.likes, id);
+                        scores.merge(id, similarity, Double::sum);
+                    }
+                }
+            }
+        }
+        return best(scores, count);
+    }
+
+    // Полный пересчет модели по лайкам из хранилища
+    public void rebuild() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        Model rebuilt;
+        try {
+            rebuilt = Model.build(filmStorage);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (long[] change : pending) {
+                rebuilt.likeChanged(change[0], change[1], change[2] == 1);
+            }
+            pending = null;
+            model = rebuilt;
+        }
+        log.info("Модель похожих фильмов пересчитана за {} мс: фильмов {}, пользователей {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), rebuilt.films.size(),
+                rebuilt.userFilms.size());
+    }
+
+    // Первый пересчет — в отдельном потоке после запуска, когда хранилище уже восстановлено
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread thread = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Ошибка пересчета модели похожих фильмов: {}", e.getMessage());
+            }
+        }, "similar-films-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Количество фильмов с лайками в модели
+    public int size() {
+        return model.films.size();
+    }
+
+    private static List<Long> best(Map<Long, Double> scores, int count) {
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(count)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    // Не более max элементов отсортированного массива, равномерно по всему массиву
+    private static long[] sample(long[] ids, int max) {
+        if (ids.length <= max) {
+            return ids;
+        }
+        long[] sampled = new long[max];
+        for (int i = 0; i < max; i++) {
+            sampled[i] = ids[(int) ((long) i * ids.length / max)];
+        }
+        return sampled;
+    }
+
+    private static final class Model {
+        // Фильм -> счетчики совместных лайков; пользователь -> отсортированные ID лайкнутых фильмов
+        private final Map<Long, Neighbours> films = new ConcurrentHashMap<>();
+        private final Map<Long, long[]> userFilms = new ConcurrentHashMap<>();
+
+        private static Model build(FilmStorage filmStorage) {
+            Map<Long, long[]> filmUsers = new HashMap<>();
+            Map<Long, Integer> userLikes = new HashMap<>();
+            long afterId = 0;
+            List<Film> page;
+            do {
+                page = filmStorage.getFilmsPage(afterId, PAGE_SIZE);
+                for (Film film : page) {
+                    afterId = film.getId();
+                    if (!film.getUserLikes().isEmpty()) {
+                        long[] users = film.getUserLikes().stream().mapToLong(Long::longValue).sorted().toArray();
+                        filmUsers.put(film.getId(), users);
+                        for (long userId : users) {
+                            userLikes.merge(userId, 1, Integer::sum);
+                        }
+                    }
+                }
+            } while (page.size() == PAGE_SIZE);
+
+            Model model = new Model();
+            Map<Long, int[]> filled = new HashMap<>();
+            userLikes.forEach((userId, count) -> {
+                model.userFilms.put(userId, new long[count]);
+                filled.put(userId, new int[1]);
+            });
+            // Фильмы перебираются по возрастанию ID, поэтому списки фильмов пользователей получаются отсортированными
+            long[] filmIds = filmUsers.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            for (long filmId : filmIds) {
+                for (long userId : filmUsers.get(filmId)) {
+                    model.userFilms.get(userId)[filled.get(userId)[0]++] = filmId;
+                }
+            }
+            IntStream.range(0, filmIds.length).parallel().forEach(i -> {
+                long filmId = filmIds[i];
+                long[] users = filmUsers.get(filmId);
+                long[] sampledUsers = sample(users, MAX_USERS_PER_FILM);
+                long[][] lists = new long[sampledUsers.length][];
+                long work = 0;
+                for (int u = 0; u < sampledUsers.length; u++) {
+                    lists[u] = sample(model.userFilms.get(sampledUsers[u]), MAX_FILMS_PER_USER);
+                    work += lists[u].length;
+                }
+                // Счетчик сразу нужного размера: без перестроений таблицы по ходу подсчета
+                IdCounter counter = new IdCounter((int) Math.min(work, filmIds.length));
+                for (long[] list : lists) {
+                    for (long otherId : list) {
+                        if (otherId != filmId) {
+                            counter.increment(otherId);
+                        }
+                    }
+                }
+                Neighbours neighbours = new Neighbours();
+                neighbours.likes = users.length;
+                for (long otherId : counter.top(MAX_NEIGHBOURS)) {
+                    neighbours.add(otherId, counter.count(otherId));
+                }
+                model.films.put(filmId, neighbours);
+            });
+            return model;
+        }
+
+        private void likeChanged(long filmId, long userId, boolean added) {
+            long[][] others = new long[1][];
+            userFilms.compute(userId, (id, liked) -> {
+                long[] current = liked == null ? new long[0] : liked;
+                int index = Arrays.binarySearch(current, filmId);
+                if (added == index >= 0) {
+                    // Лайк уже в нужном состоянии
+                    return liked;
+                }
+                long[] updated = added ? insert(current, -index - 1, filmId) : remove(current, index);
+                others[0] = sample(added ? current : updated, MAX_FILMS_PER_USER);
+                return updated.length == 0 ? null : updated;
+            });
+            if (others[0] == null) {
+                return;
+            }
+            int delta = added ? 1 : -1;
+            Neighbours neighbours = films.computeIfAbsent(filmId, id -> new Neighbours());
+            synchronized (neighbours) {
+                neighbours.likes += delta;
+                for (long otherId : others[0]) {
+                    neighbours.add(otherId, delta);
+                }
+            }
+            for (long otherId : others[0]) {
+                Neighbours other = films.computeIfAbsent(otherId, id -> new Neighbours());
+                synchronized (other) {
+                    other.add(filmId, delta);
+                }
+            }
+        }
+
+        private double similarity(int together, int likes, long otherId) {
+            Neighbours other = films.get(otherId);
+            int otherLikes = other == null ? 0 : other.likes;
+            return likes <= 0 || otherLikes <= 0 ? 0 : together / Math.sqrt((double) likes * otherLikes);
+        }
+
+        private static long[] insert(long[] ids, int index, long id) {
+            long[] result = new long[ids.length + 1];
+            System.arraycopy(ids, 0, result, 0, index);
+            result[index] = id;
+            System.arraycopy(ids, index, result, index + 1, ids.length - index);
+            return result;
+        }
+
+        private static long[] remove(long[] ids, int index) {
+            long[] result = new long[ids.length - 1];
+            System.arraycopy(ids, 0, result, 0, index);
+            System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+            return result;
+        }
+    }
+
+    // Счетчики совместных лайков фильма; изменяются и читаются под блокировкой объекта
+    private static final class Neighbours {
+        private long[] ids = new long[4];
+        private int[] counts = new int[4];
+        private int size;
+        private int likes;
+
+        // Изменяет счетчик с фильмом otherId на delta; при переполнении вытесняет наименьший (Space-Saving)
+        private void add(long otherId, int delta) {
+            int min = 0;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == otherId) {
+                    counts[i] += delta;
+                    if (counts[i] <= 0) {
+                        size--;
+                        ids[i] = ids[size];
+                        counts[i] = counts[size];
+                    }
+                    return;
+                }
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            if (delta <= 0) {
+                return;
+            }
+            if (size < MAX_NEIGHBOURS) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, Math.min(MAX_NEIGHBOURS, size * 2));
+                    counts = Arrays.copyOf(counts, ids.length);
+                }
+                ids[size] = otherId;
+                counts[size++] = delta;
+            } else {
+                ids[min] = otherId;
+                counts[min] += delta;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,367 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.event.DomainEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+Набирающие популярность фильмы: лайки за последний час, сутки или неделю и счет с затуханием.
+  - для каждого окна у фильма кольцевой буфер счетчиков по интервалам (час — 60 по минуте, сутки — 24 по часу,
+    неделя — 28 по 6 часов); окно сдвигается целыми интервалами;
+  - счет с затуханием — сумма 2^(-возраст лайка / halfLife); хранится логарифм суммы 2^((t - start) / halfLife):
+    порядок фильмов по нему со временем не меняется, поэтому лайк меняет положение только своего фильма,
+    а логарифм не переполняется;
+  - для каждого окна — упорядоченное множество (счет по убыванию, ID), список первых count — O(count);
+  - лайк обновляет только счетчики фильма и отмечает его измененным; положение измененных фильмов в списках
+    пересчитывается перед запросом списка, по разу на фильм, сколько бы лайков он ни получил;
+  - когда интервал выходит из окна, измененными отмечаются только фильмы с лайками в этом интервале
+    (они запоминаются по номеру интервала), а не все фильмы.
+Время лайка — время публикации события (DomainEvents), а не его обработки подписчиком.
+Время отдельных лайков не хранится, поэтому снятие лайка учитывается приближенно — как снятие последнего
+лайка фильма: в каждом окне вычитается из последнего непустого интервала, а из счета с затуханием — вес
+начала последнего непустого интервала недельного окна (не больше веса любого лайка этого интервала, поэтому
+счет остается не меньше вклада оставшихся лайков). Если за неделю лайков нет, снятие ничего не меняет:
+в окнах лайка уже нет, а его вклад в счет с затуханием не больше 2^(-неделя / halfLife) от свежего лайка.
+Фильм без лайков за неделю перестает учитываться: память на фильм — буферы (около 1,5 КБ вместе с записями
+в списках) и не зависит от числа лайков, а всего — по числу фильмов с лайками за последнюю неделю.
+Состояние хранится в памяти и после перезапуска набирается заново.
+*/
+@Component
+public class TrendingFilms implements DomainEventListener {
+
+    public enum Window {
+        HOUR(60, Duration.ofMinutes(1)),
+        DAY(24, Duration.ofHours(1)),
+        WEEK(28, Duration.ofHours(6)),
+        // Счет с затуханием, без окна
+        DECAYED(0, Duration.ZERO);
+
+        private final int buckets;
+        private final long bucketMillis;
+
+        Window(int buckets, Duration bucket) {
+            this.buckets = buckets;
+            this.bucketMillis = bucket.toMillis();
+        }
+    }
+
+    // Окна со счетчиками по интервалам (все, кроме DECAYED); интервал каждого кратен минуте
+    private static final Window[] SLIDING = {Window.HOUR, Window.DAY, Window.WEEK};
+    private static final long MINUTE_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final double LN2 = Math.log(2);
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingDouble((Entry e) -> e.score).reversed()
+                    .thenComparingLong(e -> e.filmId);
+
+    private final Clock clock;
+    private final long start;
+    private final double halfLifeMillis;
+    private final Map<Long, Trend> trends = new ConcurrentHashMap<>();
+    private final List<NavigableSet<Entry>> rankings = new ArrayList<>();
+    // Фильмы, положение которых в списках нужно пересчитать (каждый не больше одного раза, см. Trend.queued)
+    private final Queue<Long> changed = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock rankingLock = new ReentrantLock();
+    // Для каждого окна: номер интервала -> фильмы с лайками в этом интервале; номер последнего вышедшего интервала
+    private final List<Map<Long, Set<Long>>> touched = new ArrayList<>();
+    private final long[] expiredBuckets = new long[SLIDING.length];
+    private final ReentrantLock expiring = new ReentrantLock();
+    private volatile long expiredMinute;
+
+    @Autowired
+    public TrendingFilms(@Value("${filmorate.trending.half-life-hours:24}") long halfLifeHours) {
+        this(Clock.systemUTC(), Duration.ofHours(halfLifeHours));
+    }
+
+    public TrendingFilms(Clock clock, Duration halfLife) {
+        this.clock = clock;
+        this.start = clock.millis();
+        this.halfLifeMillis = halfLife.toMillis();
+        this.expiredMinute = start / MINUTE_MILLIS;
+        for (Window window : Window.values()) {
+            rankings.add(new ConcurrentSkipListSet<>(ORDER));
+        }
+        for (Window window : SLIDING) {
+            touched.add(new ConcurrentHashMap<>());
+            expiredBuckets[window.ordinal()] = start / window.bucketMillis - window.buckets;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "trending";
+    }
+
+    @Override
+    public void likeChanged(long filmId, long userId, boolean added) {
+        likeChanged(filmId, userId, added, clock.millis());
+    }
+
+    @Override
+    public void likeChanged(long filmId, long userId, boolean added, long time) {
+        expire(clock.millis());
+        while (true) {
+            Trend trend = added ? trends.computeIfAbsent(filmId, id -> new Trend(time)) : trends.get(filmId);
+            if (trend == null) {
+                // Лайков фильму за неделю нет: снятый лайк старше недели и уже не учитывается
+                return;
+            }
+            synchronized (trend) {
+                if (trend.removed) {
+                    if (added) {
+                        continue;
+                    }
+                    return;
+                }
+                if (added) {
+                    for (Window window : SLIDING) {
+                        long bucket = time / window.bucketMillis;
+                        trend.add(window, bucket, 1);
+                        touched.get(window.ordinal()).computeIfAbsent(bucket, b -> ConcurrentHashMap.newKeySet())
+                                .add(filmId);
+                    }
+                    trend.decay = logAdd(trend.decay, (time - start) / halfLifeMillis);
+                } else {
+                    trend.advance(time);
+                    long weekBucket = trend.latest(Window.WEEK);
+                    if (weekBucket == Long.MIN_VALUE) {
+                        return;
+                    }
+                    for (Window window : SLIDING) {
+                        long bucket = trend.latest(window);
+                        if (bucket != Long.MIN_VALUE) {
+                            trend.add(window, bucket, -1);
+                        }
+                    }
+                    long likedAt = weekBucket * Window.WEEK.bucketMillis;
+                    trend.decay = logSubtract(trend.decay, (likedAt - start) / halfLifeMillis);
+                }
+            }
+            markChanged(filmId, trend);
+            return;
+        }
+    }
+
+    // ID первых count фильмов по количеству лайков в окне (или по счету с затуханием), при равенстве — по ID
+    public List<Long> top(Window window, int count) {
+        long now = clock.millis();
+        expire(now);
+        rankChanged(now);
+        List<Long> ids = new ArrayList<>(count);
+        Iterator<Entry> it = rankings.get(window.ordinal()).iterator();
+        while (ids.size() < count && it.hasNext()) {
+            ids.add(it.next().filmId);
+        }
+        return ids;
+    }
+
+    // Количество учитываемых фильмов (с лайками за последнюю неделю)
+    public int size() {
+        return trends.size();
+    }
+
+    /*
+    Отмечает измененными фильмы из интервалов, вышедших из окон. Выполняется не чаще раза в минуту
+    (интервалы кратны минуте) одним потоком; остальные потоки его не ждут.
+    */
+    private void expire(long now) {
+        long minute = now / MINUTE_MILLIS;
+        if (minute <= expiredMinute || !expiring.tryLock()) {
+            return;
+        }
+        try {
+            for (Window window : SLIDING) {
+                int w = window.ordinal();
+                long last = now / window.bucketMillis - window.buckets;
+                for (long bucket = expiredBuckets[w] + 1; bucket <= last; bucket++) {
+                    Set<Long> films = touched.get(w).remove(bucket);
+                    if (films != null) {
+                        for (Long filmId : films) {
+                            Trend trend = trends.get(filmId);
+                            if (trend != null) {
+                                markChanged(filmId, trend);
+                            }
+                        }
+                    }
+                }
+                expiredBuckets[w] = Math.max(expiredBuckets[w], last);
+            }
+            expiredMinute = minute;
+        } finally {
+            expiring.unlock();
+        }
+    }
+
+    // Пересчет положения измененных фильмов; запросы списка ждут его, чтобы видеть все лайки до запроса
+    private void rankChanged(long now) {
+        rankingLock.lock();
+        try {
+            Long filmId;
+            while ((filmId = changed.poll()) != null) {
+                Trend trend = trends.get(filmId);
+                if (trend != null) {
+                    rank(filmId, trend, now);
+                }
+            }
+        } finally {
+            rankingLock.unlock();
+        }
+    }
+
+    private void markChanged(long filmId, Trend trend) {
+        synchronized (trend) {
+            if (trend.queued || trend.removed) {
+                return;
+            }
+            trend.queued = true;
+        }
+        changed.add(filmId);
+    }
+
+    // Переставляет фильм в списках всех окон; вызывается под блокировкой rankingLock
+    private void rank(long filmId, Trend trend, long now) {
+        synchronized (trend) {
+            trend.queued = false;
+            if (trend.removed) {
+                return;
+            }
+            trend.advance(now);
+            if (trend.isEmpty()) {
+                // Лайков за неделю нет: фильм больше не учитывается
+                trend.removed = true;
+                trends.remove(filmId);
+                trend.decay = Double.NEGATIVE_INFINITY;
+            }
+            for (Window window : Window.values()) {
+                double score = window == Window.DECAYED ? trend.decay : trend.totals[window.ordinal()];
+                Entry old = trend.entries[window.ordinal()];
+                if (old != null && old.score == score) {
+                    continue;
+                }
+                NavigableSet<Entry> ranking = rankings.get(window.ordinal());
+                if (old != null) {
+                    ranking.remove(old);
+                }
+                Entry entry = score > 0 || (window == Window.DECAYED && score != Double.NEGATIVE_INFINITY)
+                        ? new Entry(score, filmId) : null;
+                if (entry != null) {
+                    ranking.add(entry);
+                }
+                trend.entries[window.ordinal()] = entry;
+            }
+        }
+    }
+
+    // log2(2^a + 2^b)
+    private static double logAdd(double a, double b) {
+        if (a == Double.NEGATIVE_INFINITY) {
+            return b;
+        }
+        double max = Math.max(a, b);
+        return max + Math.log1p(Math.pow(2, Math.min(a, b) - max)) / LN2;
+    }
+
+    // log2(2^a - 2^b); если разность не положительна — пустой счет
+    private static double logSubtract(double a, double b) {
+        if (b >= a) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return a + Math.log1p(-Math.pow(2, b - a)) / LN2;
+    }
+
+    private static final class Trend {
+        private final int[][] counts = new int[SLIDING.length][];
+        // Номер последнего интервала в буфере окна
+        private final long[] heads = new long[SLIDING.length];
+        private final int[] totals = new int[SLIDING.length];
+        // Текущие записи фильма в списках окон (null — фильма в списке нет)
+        private final Entry[] entries = new Entry[Window.values().length];
+        private double decay = Double.NEGATIVE_INFINITY;
+        private boolean removed;
+        // Фильм уже в очереди на пересчет
+        private boolean queued;
+
+        private Trend(long now) {
+            for (Window window : SLIDING) {
+                counts[window.ordinal()] = new int[window.buckets];
+                heads[window.ordinal()] = now / window.bucketMillis;
+            }
+        }
+
+        // Номер последнего интервала окна с лайками; Long.MIN_VALUE — в окне лайков нет
+        private long latest(Window window) {
+            int w = window.ordinal();
+            int[] ring = counts[w];
+            for (long bucket = heads[w]; bucket > heads[w] - ring.length; bucket--) {
+                if (ring[(int) (bucket % ring.length)] > 0) {
+                    return bucket;
+                }
+            }
+            return Long.MIN_VALUE;
+        }
+
+        /*
+        Сдвигает окно до интервала bucket (обнуляя вышедшие интервалы) и добавляет delta к интервалу bucket,
+        если он еще в окне. Интервал раньше последнего — лайк, событие которого обработано позже более нового.
+        */
+        private void add(Window window, long bucket, int delta) {
+            int w = window.ordinal();
+            int[] ring = counts[w];
+            for (long b = heads[w] + 1; b <= bucket && b <= heads[w] + ring.length; b++) {
+                int slot = (int) (b % ring.length);
+                totals[w] -= ring[slot];
+                ring[slot] = 0;
+            }
+            heads[w] = Math.max(heads[w], bucket);
+            if (bucket > heads[w] - ring.length) {
+                ring[(int) (bucket % ring.length)] += delta;
+                totals[w] += delta;
+            }
+        }
+
+        // Сдвигает все окна до текущего интервала
+        private void advance(long now) {
+            for (Window window : SLIDING) {
+                add(window, now / window.bucketMillis, 0);
+            }
+        }
+
+        // Во всех окнах нет ни лайков, ни снятий
+        private boolean isEmpty() {
+            for (Window window : SLIDING) {
+                for (int count : counts[window.ordinal()]) {
+                    if (count != 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Entry {
+        private final double score;
+        private final long filmId;
+
+        private Entry(double score, long filmId) {
+            this.score = score;
+            this.filmId = filmId;
+        }
+    }
+
+}
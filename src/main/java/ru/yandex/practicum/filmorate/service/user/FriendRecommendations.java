@@ -0,0 +1,182 @@
+package ru.yandex.practicum.filmorate.service.user;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.IdCounter;
+import ru.yandex.practicum.filmorate.service.event.DomainEventListener;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+import ru.yandex.practicum.filmorate.storage.cache.SegmentedLruCache;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+Рекомендации друзей: друзья друзей пользователя, упорядоченные по количеству общих друзей (при равенстве — по ID).
+  - обход в два шага: друзья пользователя, затем их друзья — два обращения к хранилищу (getFriendIds);
+  - обход ограничен: просматривается не больше MAX_FRIENDS друзей пользователя и MAX_FRIENDS_OF_FRIEND друзей
+    каждого из них (равномерная выборка по отсортированному списку), поэтому у пользователей и друзей с очень
+    большим числом связей количество общих друзей оценивается по выборке;
+  - подсчет — на примитивах (IdCounter); если связей для просмотра больше PARALLEL_THRESHOLD,
+    списки делятся между потоками общего ForkJoinPool, каждый считает в свой счетчик, счетчики объединяются;
+  - первые MAX_LIMIT рекомендаций кешируются по пользователю (SegmentedLruCache); изменение дружбы (a, b)
+    сбрасывает рекомендации a, b и их друзей — только у них могли измениться пути длины два через a или b.
+    Изменения приходят событиями (DomainEvents) и сбрасываются в конце пачки: друзья всех изменившихся
+    пользователей читаются одним обращением к хранилищу.
+    Запись в кеш — через stamp/putIfFresh: результат, посчитанный до изменения дружбы, в кеш не попадет.
+*/
+@Component
+public class FriendRecommendations implements DomainEventListener {
+
+    public static final int MAX_LIMIT = 100;
+    static final int MAX_FRIENDS = 1000;
+    static final int MAX_FRIENDS_OF_FRIEND = 5000;
+    static final int PARALLEL_THRESHOLD = 50_000;
+    // Сколько связей считает одна задача ForkJoinPool
+    private static final int TASK_SIZE = 10_000;
+
+    private final UserStorage userStorage;
+    private final SegmentedLruCache<long[]> cache;
+    // Пользователи, дружба которых изменилась в текущей пачке событий (только в потоке подписчика)
+    private final Set<Long> changed = new HashSet<>();
+
+    @Autowired
+    public FriendRecommendations(UserStorage userStorage,
+                                 @Value("${filmorate.recommendations.cache-entries:100000}") long maxEntries) {
+        this.userStorage = userStorage;
+        this.cache = new SegmentedLruCache<>(maxEntries, maxEntries * (16 + 8L * MAX_LIMIT),
+                ids -> 16 + 8L * ids.length);
+    }
+
+    // Не более limit (limit <= MAX_LIMIT) рекомендованных ID, лучшие первыми
+    public long[] recommend(long userId, int limit) {
+        long[] ids = cache.get(userId);
+        if (ids == null) {
+            long stamp = cache.stamp(userId);
+            ids = compute(userId);
+            cache.putIfFresh(userId, ids, stamp);
+        }
+        return ids.length <= limit ? ids : Arrays.copyOf(ids, limit);
+    }
+
+    @Override
+    public String name() {
+        return "recommendations";
+    }
+
+    @Override
+    public void friendshipChanged(long userId, long friendId, boolean added) {
+        changed.add(userId);
+        changed.add(friendId);
+    }
+
+    @Override
+    public void endOfBatch() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Set<Long> affected = new HashSet<>(changed);
+        for (long[] friends : userStorage.getFriendIds(changed).values()) {
+            for (long id : friends) {
+                affected.add(id);
+            }
+        }
+        for (Long id : affected) {
+            cache.invalidate(id);
+        }
+        changed.clear();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private long[] compute(long userId) {
+        long[] friends = userStorage.getFriendIds(List.of(userId)).getOrDefault(userId, new long[0]);
+        if (friends.length == 0) {
+            return friends;
+        }
+        long[] sampled = sample(friends, MAX_FRIENDS);
+        List<Long> friendIds = new ArrayList<>(sampled.length);
+        for (long id : sampled) {
+            friendIds.add(id);
+        }
+        Map<Long, long[]> friendsOfFriends = userStorage.getFriendIds(friendIds);
+        long[][] lists = new long[friendsOfFriends.size()][];
+        int size = 0;
+        long work = 0;
+        for (long[] list : friendsOfFriends.values()) {
+            lists[size++] = sample(list, MAX_FRIENDS_OF_FRIEND);
+            work += lists[size - 1].length;
+        }
+        CountTask task = new CountTask(lists, 0, size);
+        IdCounter counter = work > PARALLEL_THRESHOLD ? ForkJoinPool.commonPool().invoke(task)
+                : task.compute();
+        counter.exclude(userId);
+        for (long friendId : friends) {
+            counter.exclude(friendId);
+        }
+        return counter.top(MAX_LIMIT);
+    }
+
+    // Не более max элементов отсортированного массива, равномерно по всему массиву
+    static long[] sample(long[] ids, int max) {
+        if (ids.length <= max) {
+            return ids;
+        }
+        long[] sampled = new long[max];
+        for (int i = 0; i < max; i++) {
+            sampled[i] = ids[(int) ((long) i * ids.length / max)];
+        }
+        return sampled;
+    }
+
+    // Подсчет по спискам lists[from, to): пополам, пока в части больше TASK_SIZE связей
+    private static final class CountTask extends RecursiveTask<IdCounter> {
+        private final long[][] lists;
+        private final int from;
+        private final int to;
+
+        private CountTask(long[][] lists, int from, int to) {
+            this.lists = lists;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected IdCounter compute() {
+            long work = 0;
+            for (int i = from; i < to; i++) {
+                work += lists[i].length;
+            }
+            if (work <= TASK_SIZE || to - from == 1) {
+                IdCounter counter = new IdCounter((int) Math.min(work, Integer.MAX_VALUE / 4));
+                for (int i = from; i < to; i++) {
+                    for (long id : lists[i]) {
+                        counter.increment(id);
+                    }
+                }
+                return counter;
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(lists, from, middle);
+            left.fork();
+            IdCounter right = new CountTask(lists, middle, to).compute();
+            IdCounter result = left.join();
+            if (result.size() < right.size()) {
+                right.addAll(result);
+                return right;
+            }
+            result.addAll(right);
+            return result;
+        }
+    }
+
+}
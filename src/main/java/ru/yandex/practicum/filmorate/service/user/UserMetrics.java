@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.service.user;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+// Распределение размеров списков друзей, которые отдает UserService.getFriends (с гистограммой для перцентилей)
+@Component
+public class UserMetrics {
+
+    private final DistributionSummary friendsSize;
+
+    public UserMetrics(MeterRegistry registry) {
+        friendsSize = DistributionSummary.builder("filmorate.user.friends")
+                .description("Размер списка друзей пользователя")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000.0)
+                .register(registry);
+    }
+
+    public void friendsListed(int count) {
+        friendsSize.record(count);
+    }
+
+}
@@ -1,35 +1,70 @@
 package ru.yandex.practicum.filmorate.service.user;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.UnavailableException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.FriendOperation;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BatchOperations;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.storage.StripedLock;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiFunction;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
+@Timed(value = "filmorate.service", histogram = true)
 public class UserService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private final UserStorage userStorage;
 
+    @Autowired
+    private final UserMetrics metrics;
+
+    @Autowired
+    private final FriendRecommendations recommendations;
+
+    @Autowired
+    private final DomainEvents events;
+
+    // Изменение дружбы и публикация события выполняются под блокировкой меньшего ID пары
+    private final StripedLock friendshipLocks = new StripedLock(64);
+
     /*
     Список операций:
       - создание пользователя;
       - обновление пользователя;
-      - получение списка всех пользователей.
+      - получение списка всех пользователей (целиком или постранично);
       - добавление в друзья;
       - удаление из друзей;
-      - вывод списка общих друзей.
+      - пакетное добавление и удаление друзей;
+      - вывод списка общих друзей;
+      - рекомендации друзей (друзья друзей по количеству общих друзей, см. FriendRecommendations).
+    Время выполнения каждого метода — таймер filmorate.service (теги class, method, exception).
+    Изменения дружбы публикуются событиями (см. DomainEvents), кеш рекомендаций сбрасывается в потоке подписчика.
+    Событие публикуется под блокировкой пары вместе с изменением в хранилище, поэтому события одной пары
+    приходят подписчикам в порядке изменений. С sync = true запрос ждет, пока подписчики обработают изменение
+    (чтение своих записей); если событие отброшено или не обработано за filmorate.events.await-timeout-ms —
+    UnavailableException (503), изменение при этом сохранено.
     Примечание:
       - Пока пользователям не надо одобрять заявки в друзья — добавляем сразу.
         То есть если Лена стала другом Саши, то это значит, что Саша теперь друг Лены.
@@ -48,7 +83,12 @@ public class UserService {
     }
 
     public User getUser(Long id) throws NotFoundException {
-        log.debug("Запрос на получение информации о пользователе (ID: {}) ", id);
+        log.debug("Запрос на получение информации о пользователе (ID: {})", id);
+        return existingUser(id);
+    }
+
+    // Пользователь по ID без записи в лог — для проверок внутри других операций
+    public User existingUser(Long id) throws NotFoundException {
         User user = userStorage.getUser(id);
         if (user == null) {
             throw  new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
@@ -56,57 +96,160 @@ public class UserService {
         return user;
     }
 
+    // Проверка наличия пользователя без копии пользователя и его друзей
+    public void checkUserExists(Long id) throws NotFoundException {
+        if (!userStorage.containsUser(id)) {
+            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
+        }
+    }
+
+    // ID из ids, которых нет в хранилище; проверяются одним обращением к хранилищу
+    public Set<Long> missingUsers(Collection<Long> ids) {
+        return new HashSet<>(userStorage.getUsers(ids).getMissing());
+    }
+
     public List<User> getUsers() {
+        log.debug("Запрос на получение списка пользователей");
         return userStorage.getUsersList();
     }
 
-    public void addFriend(Long userId, Long friendId) throws NotFoundException {
+    // Все пользователи страницами по ID для потоковой передачи (см. FilmService.exportFilms)
+    public BiFunction<Long, Integer, List<User>> exportUsers(String format) {
+        log.debug("Запрос на выгрузку списка пользователей: format={}", format);
+        return userStorage::getUsersPage;
+    }
+
+    public BiFunction<Long, Integer, List<User>> streamUsers() {
+        log.debug("Запрос на получение списка пользователей");
+        return userStorage::getUsersPage;
+    }
+
+    public List<User> getUsersPage(Long afterId, Integer limit) throws ValidationException {
+        log.debug("Запрос на получение страницы пользователей: afterId={}, limit={}", afterId, limit);
+        if (afterId == null || afterId < 0) {
+            throw new ValidationException("Некорректное значение afterId");
+        }
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("Размер страницы должен быть от 1 до %d", MAX_PAGE_SIZE));
+        }
+        return userStorage.getUsersPage(afterId, limit);
+    }
+
+    public void addFriend(Long userId, Long friendId, boolean sync) throws NotFoundException, UnavailableException {
         log.debug("Запрос на добавление в друзья: userId={}, friendId={}", userId, friendId);
-        User user = getUser(userId);
-        User friend = getUser(friendId);
-        user.getFriends().add(friendId);
-        friend.getFriends().add(userId);
+        changeFriendship(userId, friendId, true, sync);
     }
 
-    public void deleteFriend(Long userId, Long friendId) throws NotFoundException {
+    public void deleteFriend(Long userId, Long friendId, boolean sync)
+            throws NotFoundException, UnavailableException {
         log.debug("Запрос на удаление из друзей: userId={}, friendId={}", userId, friendId);
-        User user = getUser(userId);
-        User friend = getUser(friendId);
-        user.getFriends().remove(friendId);
-        friend.getFriends().remove(userId);
+        changeFriendship(userId, friendId, false, sync);
     }
 
-    public List<User> getFriends(Long userId) throws NotFoundException {
-        log.debug("Запрос на получение списка друзей пользователя: userId={}", userId);
-        User user = getUser(userId);
-        List<User> users = new ArrayList<>();
-        for (Long id : user.getFriends()) {
-            try {
-                users.add(getUser(id));
-            } catch (NotFoundException ignored) {
+    private void changeFriendship(Long userId, Long friendId, boolean added, boolean sync)
+            throws NotFoundException, UnavailableException {
+        DomainEvents.Published published = new DomainEvents.Published();
+        long lock = Math.min(userId, friendId);
+        friendshipLocks.lock(lock);
+        try {
+            if (!(added ? userStorage.addFriend(userId, friendId) : userStorage.deleteFriend(userId, friendId))) {
+                return;
             }
+            published.add(events.friendshipChanged(userId, friendId, added));
+        } finally {
+            friendshipLocks.unlock(lock);
         }
-        return users;
+        await(published, sync);
     }
 
-    public List<User> getCommonFriends(Long userId, Long otherId) throws NotFoundException {
-        log.debug("Запрос на получение списка общих друзей: userId={}, otherId={}", userId, otherId);
-        Set<Long> friends1 = getUser(userId).getFriends();
-        Set<Long> friends2 = getUser(otherId).getFriends();
-        List<User> list = new ArrayList<>();
-        for (Long id : friends1) {
-            if (friends2.contains(id)) {
-                try {
-                    list.add(getUser(id));
-                } catch (NotFoundException ignored) {
+    /*
+    Пакетное изменение дружбы: все пользователи пакета проверяются одним обращением к хранилищу,
+    операции одной пары пользователей выполняются вместе и в порядке пакета (см. BatchOperations).
+    Дружба симметрична, поэтому операции группируются по паре (меньший ID, больший ID): ADD(1, 2) и REMOVE(2, 1)
+    попадают в одну группу и не меняются местами.
+    */
+    public List<BatchResult> applyFriendships(List<FriendOperation> operations, boolean sync)
+            throws ValidationException, UnavailableException {
+        BatchOperations.checkSize(operations);
+        log.debug("Запрос на пакетное изменение дружбы: {} операций", operations.size());
+        int size = operations.size();
+        long[] userIds = new long[size];
+        long[] friendIds = new long[size];
+        long[] lowerIds = new long[size];
+        long[] upperIds = new long[size];
+        BatchAction[] actions = new BatchAction[size];
+        BatchResult[] results = new BatchResult[size];
+        Set<Long> ids = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            FriendOperation operation = operations.get(i);
+            if (operation == null || operation.getAction() == null
+                    || operation.getUserId() == null || operation.getFriendId() == null) {
+                results[i] = BatchResult.invalid("Не заполнены action, userId или friendId");
+            } else {
+                ids.add(operation.getUserId());
+                ids.add(operation.getFriendId());
+            }
+        }
+        Set<Long> missing = missingUsers(ids);
+        for (int i = 0; i < size; i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            FriendOperation operation = operations.get(i);
+            for (Long id : List.of(operation.getUserId(), operation.getFriendId())) {
+                if (results[i] == null && missing.contains(id)) {
+                    results[i] = BatchResult.notFound(String.format("Пользователь с указанным ID (%d) не найден", id));
                 }
             }
+            userIds[i] = operation.getUserId();
+            friendIds[i] = operation.getFriendId();
+            lowerIds[i] = Math.min(userIds[i], friendIds[i]);
+            upperIds[i] = Math.max(userIds[i], friendIds[i]);
+            actions[i] = operation.getAction();
+        }
+        DomainEvents.Published published = new DomainEvents.Published();
+        List<BatchResult> applied = BatchOperations.apply(lowerIds, upperIds, actions, results,
+                userStorage::addFriends, userStorage::deleteFriends, friendshipLocks,
+                i -> published.add(events.friendshipChanged(userIds[i], friendIds[i], actions[i] == BatchAction.ADD)));
+        await(published, sync);
+        return applied;
+    }
+
+    public List<User> getFriends(Long userId) throws NotFoundException {
+        log.debug("Запрос на получение списка друзей пользователя: userId={}", userId);
+        List<User> friends = userStorage.getFriends(userId);
+        metrics.friendsListed(friends.size());
+        return friends;
+    }
+
+    public List<User> getCommonFriends(Long userId, Long otherId) throws NotFoundException {
+        log.debug("Запрос на получение списка общих друзей: userId={}, otherId={}", userId, otherId);
+        return userStorage.getCommonFriends(userId, otherId);
+    }
+
+    public List<User> getRecommendations(Long userId, Integer limit) throws ValidationException, NotFoundException {
+        log.debug("Запрос на получение рекомендаций друзей: userId={}, limit={}", userId, limit);
+        if (limit == null || limit <= 0 || limit > FriendRecommendations.MAX_LIMIT) {
+            throw new ValidationException(String.format("Количество рекомендаций должно быть от 1 до %d",
+                    FriendRecommendations.MAX_LIMIT));
+        }
+        checkUserExists(userId);
+        long[] ids = recommendations.recommend(userId, limit);
+        List<Long> recommended = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            recommended.add(id);
+        }
+        return userStorage.getUsers(recommended).getFound();
+    }
+
+    // Чтение своих записей: ждет, пока подписчики обработают опубликованные события
+    private void await(DomainEvents.Published published, boolean sync) throws UnavailableException {
+        if (sync && !events.awaitProcessed(published)) {
+            throw new UnavailableException("Изменение сохранено, но не обработано подписчиками событий");
         }
-        return list;
     }
 
     private void validate(User user) throws ValidationException {
-        log.debug("Ошибка валидации пользователя: {}", user);
         if (user.getEmail() == null || user.getEmail().isBlank() || !user.getEmail().contains("@")) {
             throw new ValidationException("Некорректный адрес электронной почты");
         }
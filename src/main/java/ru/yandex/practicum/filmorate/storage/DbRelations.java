@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/*
+Загрузка связей (лайков, друзей) из БД в виде отсортированных массивов ID по каждой сущности.
+Запрос должен возвращать пары (owner_id, related_id), упорядоченные по обоим столбцам;
+в запросе по списку сущностей их ID передаются параметром :ids.
+Сущности вместе со связями загружаются одним запросом через LEFT JOIN (см. loadWithRelations).
+*/
+public final class DbRelations implements RowCallbackHandler {
+
+    private final Map<Long, long[]> result = new HashMap<>();
+    private long owner = Long.MIN_VALUE;
+    private long[] buffer = new long[16];
+    private int size;
+
+    private DbRelations() {
+    }
+
+    public static Map<Long, long[]> load(NamedParameterJdbcTemplate jdbc, String sql) {
+        DbRelations handler = new DbRelations();
+        jdbc.query(sql, handler);
+        return handler.finish();
+    }
+
+    public static Map<Long, long[]> load(NamedParameterJdbcTemplate jdbc, String sql, Collection<Long> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return Map.of();
+        }
+        DbRelations handler = new DbRelations();
+        jdbc.query(sql, Map.of("ids", ownerIds), handler);
+        return handler.finish();
+    }
+
+    /*
+    Сущности с ID из ownerIds вместе с их связями одним запросом. Запрос возвращает строки сущностей,
+    соединенные со связями через LEFT JOIN и упорядоченные по ID сущности и связанному ID:
+    первый столбец — ID сущности, второй — связанный ID (NULL, если связей нет), остальные читает mapper.
+    */
+    public static <T> Map<Long, T> loadWithRelations(NamedParameterJdbcTemplate jdbc, String sql,
+                                                     Collection<Long> ownerIds, RowMapper<T> mapper,
+                                                     BiConsumer<T, long[]> setRelations) {
+        if (ownerIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, T> entities = new LinkedHashMap<>();
+        DbRelations relations = new DbRelations();
+        jdbc.query(sql, Map.of("ids", ownerIds), (RowCallbackHandler) rs -> {
+            long ownerId = rs.getLong(1);
+            if (!entities.containsKey(ownerId)) {
+                entities.put(ownerId, mapper.mapRow(rs, entities.size()));
+            }
+            rs.getLong(2);
+            if (!rs.wasNull()) {
+                relations.processRow(rs);
+            }
+        });
+        Map<Long, long[]> related = relations.finish();
+        entities.forEach((id, entity) -> setRelations.accept(entity, related.get(id)));
+        return entities;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        long ownerId = rs.getLong(1);
+        if (ownerId != owner) {
+            flush();
+            owner = ownerId;
+        }
+        if (size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, size * 2);
+        }
+        buffer[size++] = rs.getLong(2);
+    }
+
+    private Map<Long, long[]> finish() {
+        flush();
+        return result;
+    }
+
+    private void flush() {
+        if (size > 0) {
+            result.put(owner, Arrays.copyOf(buffer, size));
+            size = 0;
+        }
+    }
+
+}
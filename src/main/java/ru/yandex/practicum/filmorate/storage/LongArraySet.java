@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+Неизменяемое множество ID поверх отсортированного массива long[].
+Массив не копируется, поэтому вызывающая сторона не должна изменять его после передачи.
+*/
+public final class LongArraySet extends AbstractSet<Long> {
+
+    private static final LongArraySet EMPTY = new LongArraySet(new long[0]);
+
+    private final long[] ids;
+
+    private LongArraySet(long[] ids) {
+        this.ids = ids;
+    }
+
+    public static LongArraySet of(long[] sortedIds) {
+        return sortedIds == null || sortedIds.length == 0 ? EMPTY : new LongArraySet(sortedIds);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && Arrays.binarySearch(ids, (Long) o) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    // ID по индексу в порядке возрастания: обход без упаковки в Long
+    public long get(int index) {
+        return ids[index];
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < ids.length;
+            }
+
+            @Override
+            public Long next() {
+                if (index >= ids.length) {
+                    throw new NoSuchElementException();
+                }
+                return ids[index++];
+            }
+        };
+    }
+
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+Результат пакетного получения сущностей по списку ID (getUsers, getFilms):
+  - found — найденные сущности в порядке запрошенных ID;
+  - missing — ID, которых нет в хранилище, в порядке запроса.
+Отсутствие сущности — обычный результат, а не исключение.
+*/
+@Getter
+@RequiredArgsConstructor
+public class Lookup<T> {
+    private final List<T> found;
+    private final List<Long> missing;
+
+    public boolean isComplete() {
+        return missing.isEmpty();
+    }
+
+    // Раскладывает ids на найденные и отсутствующие; find возвращает null для отсутствующего ID
+    public static <T> Lookup<T> of(Collection<Long> ids, Function<Long, T> find) {
+        List<T> found = new ArrayList<>(ids.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            T entity = find.apply(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new Lookup<>(found, missing);
+    }
+
+    public static <T> Lookup<T> empty() {
+        return new Lookup<>(new ArrayList<>(), new ArrayList<>());
+    }
+}
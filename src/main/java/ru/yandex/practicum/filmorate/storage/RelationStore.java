@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Хранилище связей "сущность -> множество ID" (лайки фильмов, друзья пользователей):
+  - добавление и удаление связи атомарны и сообщают, изменилось ли что-нибудь;
+  - для чтения выдается неизменяемый снимок, который кешируется до следующего изменения,
+    поэтому повторные чтения (в т.ч. сериализация ответа) не копируют множество и не видят его в процессе изменения;
+  - связи, загруженные из снимка журнала (load), хранятся отсортированным массивом long[] и переводятся
+    в HashSet только при первом изменении.
+*/
+public class RelationStore {
+
+    private final Map<Long, Relation> relations = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    public boolean add(long id, long related) {
+        if (!relations.computeIfAbsent(id, k -> new Relation()).add(related)) {
+            return false;
+        }
+        total.increment();
+        return true;
+    }
+
+    // Загрузка связей сущности из снимка. Массив должен быть отсортирован и не должен изменяться после передачи
+    public void load(long id, long[] sortedRelated) {
+        if (sortedRelated.length > 0) {
+            Relation previous = relations.put(id, new Relation(sortedRelated));
+            total.add(sortedRelated.length - (previous == null ? 0 : previous.size()));
+        }
+    }
+
+    public boolean remove(long id, long related) {
+        Relation relation = relations.get(id);
+        if (relation == null || !relation.remove(related)) {
+            return false;
+        }
+        total.decrement();
+        return true;
+    }
+
+    public boolean contains(long id, long related) {
+        Relation relation = relations.get(id);
+        return relation != null && relation.contains(related);
+    }
+
+    public int count(long id) {
+        Relation relation = relations.get(id);
+        return relation == null ? 0 : relation.size();
+    }
+
+    // Общее количество связей всех сущностей
+    public long total() {
+        return total.sum();
+    }
+
+    public Set<Long> snapshot(long id) {
+        Relation relation = relations.get(id);
+        return relation == null ? Set.of() : relation.snapshot();
+    }
+
+    private static final class Relation {
+        private Set<Long> members;
+        private long[] loaded;
+        private volatile Set<Long> snapshot = Set.of();
+        private volatile int size;
+
+        Relation() {
+            members = new HashSet<>();
+        }
+
+        Relation(long[] sortedRelated) {
+            loaded = sortedRelated;
+            snapshot = LongArraySet.of(sortedRelated);
+            size = sortedRelated.length;
+        }
+
+        synchronized boolean add(long related) {
+            if (!members().add(related)) {
+                return false;
+            }
+            changed();
+            return true;
+        }
+
+        synchronized boolean remove(long related) {
+            if (!members().remove(related)) {
+                return false;
+            }
+            changed();
+            return true;
+        }
+
+        synchronized boolean contains(long related) {
+            return members == null ? Arrays.binarySearch(loaded, related) >= 0 : members.contains(related);
+        }
+
+        int size() {
+            return size;
+        }
+
+        Set<Long> snapshot() {
+            Set<Long> current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = Set.copyOf(members);
+                }
+                return snapshot;
+            }
+        }
+
+        // Вызывается под блокировкой: связи из снимка переводятся в изменяемое множество
+        private Set<Long> members() {
+            if (members == null) {
+                members = new HashSet<>(loaded.length * 2);
+                for (long related : loaded) {
+                    members.add(related);
+                }
+                loaded = null;
+            }
+            return members;
+        }
+
+        // Вызывается под блокировкой: снимок будет пересобран при следующем чтении
+        private void changed() {
+            size = members.size();
+            snapshot = null;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/*
+Слияние упорядоченных результатов шардов (k-way merge): куча из текущих элементов k источников,
+O(n log k) для n выданных элементов. Источники читаются лениво — не дальше offset + limit элементов в сумме.
+*/
+public final class ShardMerge {
+
+    private ShardMerge() {
+    }
+
+    // Элементы после первых offset, не более limit; источники упорядочены по order
+    public static <T> List<T> merge(List<? extends Iterator<T>> sources, Comparator<? super T> order,
+                                    long offset, int limit) {
+        return merge(sources, order, offset, limit, Function.identity());
+    }
+
+    // То же, но к выдаваемым элементам применяется map (пропущенные offset не преобразуются)
+    public static <T, R> List<R> merge(List<? extends Iterator<T>> sources, Comparator<? super T> order,
+                                       long offset, int limit, Function<T, R> map) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> order.compare(a.value, b.value));
+        for (Iterator<T> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head<>(source.next(), source));
+            }
+        }
+        List<R> result = new ArrayList<>();
+        for (long skipped = 0; result.size() < limit && !heads.isEmpty(); ) {
+            Head<T> head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(map.apply(head.value));
+            }
+            if (head.source.hasNext()) {
+                head.value = head.source.next();
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    private static final class Head<T> {
+        private T value;
+        private final Iterator<T> source;
+
+        private Head(T value, Iterator<T> source) {
+            this.value = value;
+            this.source = source;
+        }
+    }
+
+}
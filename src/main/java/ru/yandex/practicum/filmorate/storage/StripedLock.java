@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+Набор блокировок, распределенных по ID сущности.
+Используется для операций "прочитать-изменить-записать" над одной или двумя сущностями:
+  - операции над разными сущностями, как правило, не блокируют друг друга;
+  - при блокировке пары сущностей блокировки берутся в порядке номера полосы, чтобы исключить взаимную блокировку.
+*/
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(int concurrency) {
+        int size = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public void lock(long id) {
+        stripes[index(id)].lock();
+    }
+
+    public void unlock(long id) {
+        stripes[index(id)].unlock();
+    }
+
+    public void lock(long id1, long id2) {
+        int first = index(id1);
+        int second = index(id2);
+        if (first == second) {
+            stripes[first].lock();
+        } else {
+            stripes[Math.min(first, second)].lock();
+            stripes[Math.max(first, second)].lock();
+        }
+    }
+
+    public void unlock(long id1, long id2) {
+        int first = index(id1);
+        int second = index(id2);
+        stripes[first].unlock();
+        if (first != second) {
+            stripes[second].unlock();
+        }
+    }
+
+    private int index(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (stripes.length - 1);
+    }
+
+}
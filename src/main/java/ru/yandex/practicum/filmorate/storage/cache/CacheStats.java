@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long entries;
+    // Оценка памяти, занимаемой закешированными значениями
+    private final long bytes;
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LongArraySet;
+
+import java.util.Set;
+
+/*
+Оценка памяти, занимаемой сущностью в куче (64-битная JVM со сжатыми указателями):
+заголовок объекта и поля, строки (Latin-1 — байт на символ), даты и множество связей.
+Оценка приблизительная и нужна только для ограничения объема кеша.
+*/
+public final class EntitySize {
+
+    private static final long OBJECT = 16;
+    private static final long BOXED_LONG = 16;
+    private static final long LOCAL_DATE = 24;
+    private static final long STRING = 40;
+    // Элемент HashSet/Set.of: упакованный Long и узел или ячейка таблицы
+    private static final long SET_ELEMENT = 40;
+    private static final long ARRAY = 16;
+
+    private EntitySize() {
+    }
+
+    public static long of(Film film) {
+        return OBJECT + 6 * 4 + BOXED_LONG + string(film.getName()) + string(film.getDescription())
+                + (film.getReleaseDate() == null ? 0 : LOCAL_DATE) + BOXED_LONG + relations(film.getUserLikes());
+    }
+
+    public static long of(User user) {
+        return OBJECT + 6 * 4 + BOXED_LONG + string(user.getEmail()) + string(user.getLogin())
+                + string(user.getName()) + (user.getBirthday() == null ? 0 : LOCAL_DATE)
+                + relations(user.getFriends());
+    }
+
+    private static long string(String value) {
+        return value == null ? 0 : STRING + ARRAY + value.length();
+    }
+
+    private static long relations(Set<Long> ids) {
+        if (ids == null) {
+            return 0;
+        }
+        if (ids instanceof LongArraySet) {
+            return OBJECT + ARRAY + 8L * ids.size();
+        }
+        return OBJECT + ARRAY + SET_ELEMENT * ids.size();
+    }
+
+}
@@ -0,0 +1,288 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import ru.yandex.practicum.filmorate.storage.Lookup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/*
+Кеш сущностей по ID с вытеснением по схеме Segmented LRU:
+  - новая запись попадает в испытательный сегмент (probation), при повторном обращении — в защищенный (protected);
+  - при переполнении защищенного сегмента его самая старая запись возвращается в испытательный,
+    вытесняются записи испытательного сегмента (однократно прочитанные записи не вымывают "горячие");
+  - размер ограничен и количеством записей, и оценкой занимаемой памяти (weigher);
+  - кеш разбит на SHARDS независимых частей со своей блокировкой, ограничения делятся между частями поровну.
+Для чтения через кеш используется пара stamp/putIfFresh: запись, прочитанная из хранилища до изменения
+(put или invalidate той же части кеша), в кеш не попадет и не перезапишет более свежее значение.
+Изменяемые значения хранятся и отдаются копиями (copy), чтобы вызывающий код не менял закешированный экземпляр.
+Для записи через кеш (write-through) версия снимается до записи в хранилище (stamp/stamps), см. put(key, value, stamp).
+*/
+public class SegmentedLruCache<V> {
+
+    private static final int SHARDS = 16;
+    // Доля защищенного сегмента в ограничениях части кеша
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final Shard<V>[] shards;
+    private final ToLongFunction<V> weigher;
+    private final UnaryOperator<V> copy;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SegmentedLruCache(long maxEntries, long maxBytes, ToLongFunction<V> weigher) {
+        this(maxEntries, maxBytes, weigher, UnaryOperator.identity());
+    }
+
+    public SegmentedLruCache(long maxEntries, long maxBytes, ToLongFunction<V> weigher, UnaryOperator<V> copy) {
+        this.weigher = weigher;
+        this.copy = copy;
+        @SuppressWarnings("unchecked")
+        Shard<V>[] array = (Shard<V>[]) new Shard<?>[SHARDS];
+        this.shards = array;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard<>(Math.max(1, maxEntries / SHARDS), Math.max(1, maxBytes / SHARDS));
+        }
+    }
+
+    public V get(long key) {
+        Shard<V> shard = shard(key);
+        V value;
+        synchronized (shard) {
+            value = shard.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy.apply(value);
+    }
+
+    // Версия части кеша, в которую попадает key; снимается до чтения из хранилища
+    public long stamp(long key) {
+        Shard<V> shard = shard(key);
+        synchronized (shard) {
+            return shard.version;
+        }
+    }
+
+    // Запись прочитанного из хранилища значения, если с момента stamp часть кеша не изменялась и ключа в ней нет
+    public void putIfFresh(long key, V value, long stamp) {
+        Shard<V> shard = shard(key);
+        synchronized (shard) {
+            if (shard.version == stamp && !shard.contains(key)) {
+                evictions.add(shard.put(key, copy.apply(value), weigher.applyAsLong(value)));
+            }
+        }
+    }
+
+    /*
+    Пакетное чтение через кеш: отсутствующие в кеше ключи загружаются одним вызовом load,
+    загруженные значения записываются через stamp/putIfFresh. key возвращает ключ значения.
+    */
+    public Lookup<V> getAll(Collection<Long> keys, Function<List<Long>, Lookup<V>> load, ToLongFunction<V> key) {
+        Map<Long, V> found = new HashMap<>();
+        Map<Long, Long> stamps = new LinkedHashMap<>();
+        for (Long id : keys) {
+            V value = get(id);
+            if (value != null) {
+                found.put(id, value);
+            } else {
+                stamps.putIfAbsent(id, stamp(id));
+            }
+        }
+        if (!stamps.isEmpty()) {
+            for (V value : load.apply(new ArrayList<>(stamps.keySet())).getFound()) {
+                long id = key.applyAsLong(value);
+                found.put(id, value);
+                putIfFresh(id, value, stamps.get(id));
+            }
+        }
+        return Lookup.of(keys, found::get);
+    }
+
+    // Версии всех частей кеша: снимаются до записи в хранилище новой сущности, ключ которой еще не известен
+    public long[] stamps() {
+        long[] stamps = new long[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            synchronized (shards[i]) {
+                stamps[i] = shards[i].version;
+            }
+        }
+        return stamps;
+    }
+
+    /*
+    Запись значения, сохраненного в хранилище (write-through); stamp снят до записи в хранилище.
+    Если часть кеша с тех пор изменялась (другая запись или сброс), порядок изменений в хранилище неизвестен,
+    поэтому ключ сбрасывается и значение загрузится при следующем чтении.
+    */
+    public void put(long key, V value, long stamp) {
+        Shard<V> shard = shard(key);
+        synchronized (shard) {
+            boolean fresh = shard.version == stamp;
+            shard.version++;
+            shard.remove(key);
+            if (fresh) {
+                evictions.add(shard.put(key, copy.apply(value), weigher.applyAsLong(value)));
+            }
+        }
+    }
+
+    public void put(long key, V value, long[] stamps) {
+        put(key, value, stamps[index(key)]);
+    }
+
+    // Запись значения без проверки версии: вызывающий код сам упорядочивает изменения ключа
+    public void put(long key, V value) {
+        Shard<V> shard = shard(key);
+        synchronized (shard) {
+            shard.version++;
+            shard.remove(key);
+            evictions.add(shard.put(key, copy.apply(value), weigher.applyAsLong(value)));
+        }
+    }
+
+    public void invalidate(long key) {
+        Shard<V> shard = shard(key);
+        synchronized (shard) {
+            shard.version++;
+            shard.remove(key);
+        }
+    }
+
+    public CacheStats stats() {
+        long entries = 0;
+        long bytes = 0;
+        for (Shard<V> shard : shards) {
+            synchronized (shard) {
+                entries += shard.probation.size() + shard.protectedEntries.size();
+                bytes += shard.probationBytes + shard.protectedBytes;
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries, bytes);
+    }
+
+    private Shard<V> shard(long key) {
+        return shards[index(key)];
+    }
+
+    private static int index(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 60) & (SHARDS - 1);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    // Часть кеша; все методы вызываются под блокировкой части
+    private static final class Shard<V> {
+        private final long maxEntries;
+        private final long maxBytes;
+        private final long maxProtectedEntries;
+        private final long maxProtectedBytes;
+        // Порядок обхода LinkedHashMap — от самой старой записи к самой новой
+        private final LinkedHashMap<Long, Entry<V>> probation = new LinkedHashMap<>();
+        private final LinkedHashMap<Long, Entry<V>> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+        private long probationBytes;
+        private long protectedBytes;
+        private long version;
+
+        private Shard(long maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            this.maxProtectedEntries = Math.max(1, (long) (maxEntries * PROTECTED_SHARE));
+            this.maxProtectedBytes = Math.max(1, (long) (maxBytes * PROTECTED_SHARE));
+        }
+
+        V get(long key) {
+            Entry<V> entry = protectedEntries.get(key);
+            if (entry != null) {
+                return entry.value;
+            }
+            entry = probation.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            probationBytes -= entry.weight;
+            protectedEntries.put(key, entry);
+            protectedBytes += entry.weight;
+            demote();
+            return entry.value;
+        }
+
+        boolean contains(long key) {
+            return probation.containsKey(key) || protectedEntries.containsKey(key);
+        }
+
+        // Возвращает количество вытесненных записей
+        long put(long key, V value, long weight) {
+            if (weight > maxBytes) {
+                return 0;
+            }
+            probation.put(key, new Entry<>(value, weight));
+            probationBytes += weight;
+            return evict();
+        }
+
+        void remove(long key) {
+            Entry<V> entry = probation.remove(key);
+            if (entry != null) {
+                probationBytes -= entry.weight;
+            }
+            entry = protectedEntries.remove(key);
+            if (entry != null) {
+                protectedBytes -= entry.weight;
+            }
+        }
+
+        // Самые старые записи защищенного сегмента сверх его доли возвращаются в испытательный
+        private void demote() {
+            Iterator<Map.Entry<Long, Entry<V>>> it = protectedEntries.entrySet().iterator();
+            while ((protectedEntries.size() > maxProtectedEntries || protectedBytes > maxProtectedBytes)
+                    && it.hasNext()) {
+                Map.Entry<Long, Entry<V>> eldest = it.next();
+                it.remove();
+                protectedBytes -= eldest.getValue().weight;
+                probation.put(eldest.getKey(), eldest.getValue());
+                probationBytes += eldest.getValue().weight;
+            }
+        }
+
+        private long evict() {
+            long evicted = 0;
+            while (probation.size() + protectedEntries.size() > maxEntries
+                    || probationBytes + protectedBytes > maxBytes) {
+                Map<Long, Entry<V>> segment = probation.isEmpty() ? protectedEntries : probation;
+                Iterator<Entry<V>> it = segment.values().iterator();
+                Entry<V> eldest = it.next();
+                it.remove();
+                if (segment == probation) {
+                    probationBytes -= eldest.weight;
+                } else {
+                    protectedBytes -= eldest.weight;
+                }
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+}
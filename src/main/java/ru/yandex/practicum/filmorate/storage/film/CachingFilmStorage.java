@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.storage.Lookup;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+import ru.yandex.practicum.filmorate.storage.cache.EntitySize;
+import ru.yandex.practicum.filmorate.storage.cache.SegmentedLruCache;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+Кеш фильмов перед хранилищем в БД (filmorate.cache.enabled=true):
+  - getFilm/getFilms читают через кеш (отсутствующие в кеше фильмы загружаются одним вызовом getFilms);
+  - addFilm/updateFilm записывают результат в кеш (write-through);
+  - изменение лайков сбрасывает фильм из кеша, т.к. у него изменился список лайков;
+  - кеш хранит и отдает копии; запись через кеш, совпавшая с другим изменением, сбрасывает ключ
+    (см. SegmentedLruCache.put).
+Постраничные выборки, поиск и список популярных идут напрямую в хранилище.
+*/
+@Component
+@Primary
+@Profile("db")
+@ConditionalOnProperty(name = "filmorate.cache.enabled", havingValue = "true")
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmStorage storage;
+    private final SegmentedLruCache<Film> cache;
+
+    @Autowired
+    public CachingFilmStorage(FilmDbStorage storage,
+                              @Value("${filmorate.cache.max-entries:100000}") long maxEntries,
+                              @Value("${filmorate.cache.max-bytes:67108864}") long maxBytes) {
+        this((FilmStorage) storage, maxEntries, maxBytes);
+    }
+
+    public CachingFilmStorage(FilmStorage storage, long maxEntries, long maxBytes) {
+        this.storage = storage;
+        this.cache = new SegmentedLruCache<>(maxEntries, maxBytes, EntitySize::of, Film::copy);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public List<Film> getFilmsList() {
+        return storage.getFilmsList();
+    }
+
+    @Override
+    public List<Film> getFilmsPage(long afterId, int limit) {
+        return storage.getFilmsPage(afterId, limit);
+    }
+
+    @Override
+    public Film addFilm(Film film) throws ValidationException {
+        long[] stamps = cache.stamps();
+        Film added = storage.addFilm(film);
+        cache.put(added.getId(), added, stamps);
+        return added;
+    }
+
+    @Override
+    public Film updateFilm(Film film) throws NotFoundException, ValidationException {
+        long stamp = film.getId() == null ? 0 : cache.stamp(film.getId());
+        Film updated = storage.updateFilm(film);
+        cache.put(updated.getId(), updated, stamp);
+        return updated;
+    }
+
+    @Override
+    public Film getFilm(Long id) {
+        Film film = cache.get(id);
+        if (film != null) {
+            return film;
+        }
+        long stamp = cache.stamp(id);
+        film = storage.getFilm(id);
+        if (film != null) {
+            cache.putIfFresh(id, film, stamp);
+        }
+        return film;
+    }
+
+    @Override
+    public Lookup<Film> getFilms(Collection<Long> ids) {
+        return cache.getAll(ids, storage::getFilms, Film::getId);
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) throws NotFoundException {
+        return likesChanged(filmId, storage.addLike(filmId, userId));
+    }
+
+    @Override
+    public boolean deleteLike(Long filmId, Long userId) throws NotFoundException {
+        return likesChanged(filmId, storage.deleteLike(filmId, userId));
+    }
+
+    @Override
+    public boolean[] addLikes(Long filmId, long[] userIds) throws NotFoundException {
+        boolean[] changed = storage.addLikes(filmId, userIds);
+        likesChanged(filmId, anyChanged(changed));
+        return changed;
+    }
+
+    @Override
+    public boolean[] deleteLikes(Long filmId, long[] userIds) throws NotFoundException {
+        boolean[] changed = storage.deleteLikes(filmId, userIds);
+        likesChanged(filmId, anyChanged(changed));
+        return changed;
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        return storage.getPopular(count);
+    }
+
+    @Override
+    public List<Film> searchFilms(FilmSearch search) {
+        return storage.searchFilms(search);
+    }
+
+    @Override
+    public long getFilmsCount() {
+        return storage.getFilmsCount();
+    }
+
+    @Override
+    public long getLikesCount() {
+        return storage.getLikesCount();
+    }
+
+    private boolean likesChanged(long filmId, boolean changed) {
+        if (changed) {
+            cache.invalidate(filmId);
+        }
+        return changed;
+    }
+
+    private static boolean anyChanged(boolean[] changed) {
+        for (boolean value : changed) {
+            if (value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,250 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.storage.DbRelations;
+import ru.yandex.practicum.filmorate.storage.LongArraySet;
+import ru.yandex.practicum.filmorate.storage.Lookup;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Component
+@Profile("db")
+public class FilmDbStorage implements FilmStorage {
+
+    private static final String SELECT_FILM = "SELECT id, name, description, release_date, duration FROM film ";
+    private static final String SELECT_FILMS_WITH_LIKES =
+            "SELECT f.id, l.user_id, f.name, f.description, f.release_date, f.duration FROM film AS f "
+                    + "LEFT JOIN user_film AS l ON l.film_id = f.id WHERE f.id IN (:ids) ORDER BY f.id, l.user_id";
+    private static final String INSERT_LIKE =
+            "INSERT INTO user_film (film_id, user_id) SELECT ?, ? FROM DUAL "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM user_film WHERE film_id = ? AND user_id = ?)";
+    private static final String DELETE_LIKE = "DELETE FROM user_film WHERE film_id = ? AND user_id = ?";
+    private static final String UPDATE_LIKES_COUNT = "UPDATE film SET likes_count = likes_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final SimpleJdbcInsert filmInsert;
+
+    public FilmDbStorage(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.filmInsert = new SimpleJdbcInsert(jdbc)
+                .withTableName("film")
+                .usingColumns("name", "description", "release_date", "duration")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    @Override
+    public List<Film> getFilmsList() {
+        List<Film> films = jdbc.query(SELECT_FILM + "ORDER BY id", this::mapFilm);
+        Map<Long, long[]> likes = DbRelations.load(namedJdbc,
+                "SELECT film_id, user_id FROM user_film ORDER BY film_id, user_id");
+        films.forEach(film -> film.setUserLikes(LongArraySet.of(likes.get(film.getId()))));
+        return films;
+    }
+
+    @Override
+    public List<Film> getFilmsPage(long afterId, int limit) {
+        return withLikes(jdbc.query(SELECT_FILM + "WHERE id > ? ORDER BY id LIMIT ?", this::mapFilm, afterId, limit));
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", film.getName());
+        values.put("description", film.getDescription());
+        values.put("release_date", Date.valueOf(film.getReleaseDate()));
+        values.put("duration", film.getDuration());
+        Number id = filmInsert.executeAndReturnKey(values);
+        film.setId(id.longValue());
+        film.setUserLikes(LongArraySet.of(null));
+        return film;
+    }
+
+    @Override
+    public Film updateFilm(Film film) throws NotFoundException {
+        int updated = jdbc.update(
+                "UPDATE film SET name = ?, description = ?, release_date = ?, duration = ? WHERE id = ?",
+                film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()), film.getDuration(),
+                film.getId());
+        if (updated == 0) {
+            throw new NotFoundException(String.format("Фильм с указанным ID (%d) не найден", film.getId()));
+        }
+        return getFilm(film.getId());
+    }
+
+    @Override
+    public Film getFilm(Long id) {
+        List<Film> films = withLikes(jdbc.query(SELECT_FILM + "WHERE id = ?", this::mapFilm, id));
+        return films.isEmpty() ? null : films.get(0);
+    }
+
+    @Override
+    public Lookup<Film> getFilms(Collection<Long> ids) {
+        Map<Long, Film> found = DbRelations.loadWithRelations(namedJdbc, SELECT_FILMS_WITH_LIKES, ids,
+                this::mapFilm, (film, likes) -> film.setUserLikes(LongArraySet.of(likes)));
+        return Lookup.of(ids, found::get);
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(Long filmId, Long userId) throws NotFoundException {
+        return addLikes(filmId, new long[] {userId})[0];
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteLike(Long filmId, Long userId) throws NotFoundException {
+        return deleteLikes(filmId, new long[] {userId})[0];
+    }
+
+    @Override
+    @Transactional
+    public boolean[] addLikes(Long filmId, long[] userIds) throws NotFoundException {
+        lockFilm(filmId);
+        List<Object[]> args = new ArrayList<>(userIds.length);
+        for (long userId : userIds) {
+            args.add(new Object[] {filmId, userId, filmId, userId});
+        }
+        return applyLikesDelta(filmId, jdbc.batchUpdate(INSERT_LIKE, args), 1);
+    }
+
+    @Override
+    @Transactional
+    public boolean[] deleteLikes(Long filmId, long[] userIds) throws NotFoundException {
+        lockFilm(filmId);
+        List<Object[]> args = new ArrayList<>(userIds.length);
+        for (long userId : userIds) {
+            args.add(new Object[] {filmId, userId});
+        }
+        return applyLikesDelta(filmId, jdbc.batchUpdate(DELETE_LIKE, args), -1);
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        return withLikes(jdbc.query(SELECT_FILM + "ORDER BY likes_count DESC, id LIMIT ?", this::mapFilm, count));
+    }
+
+    /*
+    Поиск одним запросом: диапазоны дат и продолжительности и начало названия читаются по индексам
+    (film_release_date_idx, film_duration_idx, film_name_idx), подстрока названия проверяется через LIKE.
+    */
+    @Override
+    public List<Film> searchFilms(FilmSearch search) {
+        StringBuilder sql = new StringBuilder(SELECT_FILM).append("WHERE TRUE");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (search.getReleasedFrom() != null) {
+            sql.append(" AND release_date >= :releasedFrom");
+            params.addValue("releasedFrom", Date.valueOf(search.getReleasedFrom()));
+        }
+        if (search.getReleasedTo() != null) {
+            sql.append(" AND release_date <= :releasedTo");
+            params.addValue("releasedTo", Date.valueOf(search.getReleasedTo()));
+        }
+        if (search.getMinDuration() != null) {
+            sql.append(" AND duration >= :minDuration");
+            params.addValue("minDuration", search.getMinDuration());
+        }
+        if (search.getMaxDuration() != null) {
+            sql.append(" AND duration <= :maxDuration");
+            params.addValue("maxDuration", search.getMaxDuration());
+        }
+        if (search.getNamePrefix() != null) {
+            String prefix = search.getNamePrefix().toLowerCase(Locale.ROOT);
+            sql.append(" AND name_lower >= :prefixFrom AND name_lower < :prefixTo");
+            params.addValue("prefixFrom", prefix);
+            params.addValue("prefixTo", prefix + Character.MAX_VALUE);
+        }
+        if (search.getName() != null) {
+            sql.append(" AND name_lower LIKE :name ESCAPE '\\'");
+            params.addValue("name", "%" + escapeLike(search.getName().toLowerCase(Locale.ROOT)) + "%");
+        }
+        sql.append(search.getOrder() == FilmSearch.Order.POPULARITY
+                ? " ORDER BY likes_count DESC, id" : " ORDER BY id");
+        sql.append(" LIMIT :limit OFFSET :offset");
+        params.addValue("limit", search.getLimit());
+        params.addValue("offset", search.getOffset());
+        return withLikes(namedJdbc.query(sql.toString(), params, this::mapFilm));
+    }
+
+    @Override
+    public long getFilmsCount() {
+        return count("SELECT COUNT(*) FROM film");
+    }
+
+    @Override
+    public long getLikesCount() {
+        return count("SELECT COUNT(*) FROM user_film");
+    }
+
+    private long count(String sql) {
+        Long count = jdbc.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private boolean[] applyLikesDelta(long filmId, int[] counts, int sign) {
+        boolean[] changed = new boolean[counts.length];
+        int delta = 0;
+        for (int i = 0; i < counts.length; i++) {
+            changed[i] = counts[i] > 0;
+            if (changed[i]) {
+                delta += sign;
+            }
+        }
+        if (delta != 0) {
+            jdbc.update(UPDATE_LIKES_COUNT, delta, filmId);
+        }
+        return changed;
+    }
+
+    // Проверяет наличие фильма и блокирует его строку до конца транзакции,
+    // чтобы изменения лайков одного фильма выполнялись последовательно
+    private void lockFilm(Long id) throws NotFoundException {
+        if (jdbc.queryForList("SELECT id FROM film WHERE id = ? FOR UPDATE", Long.class, id).isEmpty()) {
+            throw new NotFoundException(String.format("Фильм с указанным ID (%d) не найден", id));
+        }
+    }
+
+    // Подставляет в фильмы снимки лайков, загруженные одним запросом
+    private List<Film> withLikes(List<Film> films) {
+        Map<Long, long[]> likes = DbRelations.load(namedJdbc,
+                "SELECT film_id, user_id FROM user_film WHERE film_id IN (:ids) ORDER BY film_id, user_id",
+                films.stream().map(Film::getId).collect(Collectors.toList()));
+        films.forEach(film -> film.setUserLikes(LongArraySet.of(likes.get(film.getId()))));
+        return films;
+    }
+
+    private Film mapFilm(ResultSet rs, int rowNum) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        Date releaseDate = rs.getDate("release_date");
+        film.setReleaseDate(releaseDate == null ? null : releaseDate.toLocalDate());
+        film.setDuration(rs.getInt("duration"));
+        return film;
+    }
+
+}
@@ -0,0 +1,334 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+/*
+Вторичные индексы фильмов для поиска (FilmStorage.searchFilms):
+  - дата релиза и продолжительность — упорядоченные множества пар (значение, ID фильма): фильмы из диапазона
+    читаются без обхода каталога;
+  - название в нижнем регистре — упорядоченное множество пар (название, ID) для поиска по началу названия;
+  - триграммы названия — для каждых трех подряд идущих символов множество ID фильмов, в названии которых они есть;
+    поиск по подстроке из трех и более символов берет самое короткое из множеств ее триграмм.
+    Множество триграммы, которая встречается больше чем в MAX_POSTING фильмах, удаляется навсегда: для поиска
+    оно бесполезно (просмотр каталога дешевле), а памяти занимает больше всего.
+Индекс дает кандидатов по одному (самому избирательному) условию, остальные условия проверяет matcher.
+Изменения одного фильма должны выполняться под блокировкой этого фильма (см. StripedLock), чтение — без блокировок.
+*/
+class FilmSearchIndex {
+
+    private static final int GRAM = 3;
+    static final int MAX_POSTING = 50_000;
+    // Метка слишком частой триграммы вместо множества ее фильмов
+    private static final Set<Long> COMMON = Set.of();
+
+    private final NavigableSet<Key> releaseDates = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Key> durations = new ConcurrentSkipListSet<>();
+    private final NavigableSet<NameKey> names = new ConcurrentSkipListSet<>();
+    private final Map<Long, Set<Long>> trigrams = new ConcurrentHashMap<>();
+    // Проиндексированные значения каждого фильма: нужны, чтобы убрать старые записи при изменении фильма
+    private final Map<Long, Indexed> indexed = new ConcurrentHashMap<>();
+
+    public void put(Film film) {
+        long id = film.getId();
+        Indexed current = new Indexed(film);
+        Indexed old = indexed.put(id, current);
+        if (current.equals(old)) {
+            return;
+        }
+        if (old != null) {
+            remove(id, old);
+        }
+        if (current.releaseDay != null) {
+            releaseDates.add(new Key(current.releaseDay, id));
+        }
+        if (current.duration != null) {
+            durations.add(new Key(current.duration, id));
+        }
+        if (current.name != null) {
+            names.add(new NameKey(current.name, id));
+            for (long gram : trigrams(current.name)) {
+                // Добавление внутри compute: иначе множество могло бы быть удалено из индекса как пустое
+                trigrams.compute(gram, (k, ids) -> {
+                    if (ids == COMMON) {
+                        return COMMON;
+                    }
+                    Set<Long> result = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                    result.add(id);
+                    return result.size() > MAX_POSTING ? COMMON : result;
+                });
+            }
+        }
+    }
+
+    /*
+    ID фильмов, среди которых нужно искать: фильмы из самого короткого диапазона (или множества триграммы)
+    по заданным условиям. Диапазоны просматриваются одновременно, по одному ID из каждого, пока не закончится
+    самый короткий, поэтому длинные диапазоны не читаются целиком.
+    Возвращает null, если просмотреть каталог по порядку дешевле:
+      - по индексам ограничить выборку нельзя (условий нет, подстрока короче трех символов или из частых триграмм);
+      - кандидатов больше sqrt((offset + limit) * catalogSize): при k подходящих фильмах просмотр по порядку
+        проверяет около (offset + limit) * catalogSize / k фильмов, а кандидаты требуют прочитать и упорядочить k.
+    */
+    public long[] candidates(FilmSearch search, long catalogSize) {
+        List<Iterator<Long>> sources = new ArrayList<>();
+        if (search.getReleasedFrom() != null || search.getReleasedTo() != null) {
+            sources.add(range(releaseDates,
+                    search.getReleasedFrom() == null ? Long.MIN_VALUE : search.getReleasedFrom().toEpochDay(),
+                    search.getReleasedTo() == null ? Long.MAX_VALUE : search.getReleasedTo().toEpochDay()));
+        }
+        if (search.getMinDuration() != null || search.getMaxDuration() != null) {
+            sources.add(range(durations,
+                    search.getMinDuration() == null ? Long.MIN_VALUE : search.getMinDuration(),
+                    search.getMaxDuration() == null ? Long.MAX_VALUE : search.getMaxDuration()));
+        }
+        if (search.getNamePrefix() != null) {
+            String prefix = normalize(search.getNamePrefix());
+            sources.add(new IdIterator(names.subSet(new NameKey(prefix, Long.MIN_VALUE), true,
+                    new NameKey(prefix + Character.MAX_VALUE, Long.MAX_VALUE), true).iterator()));
+        }
+        if (search.getName() != null && search.getName().length() >= GRAM) {
+            Set<Long> shortest = null;
+            for (long gram : trigrams(normalize(search.getName()))) {
+                Set<Long> ids = trigrams.get(gram);
+                if (ids == null) {
+                    // Триграммы нет ни в одном названии
+                    return new long[0];
+                }
+                if (ids != COMMON && (shortest == null || ids.size() < shortest.size())) {
+                    shortest = ids;
+                }
+            }
+            if (shortest != null) {
+                sources.add(shortest.iterator());
+            }
+        }
+        long budget = (long) Math.sqrt((double) (search.getOffset() + search.getLimit()) * catalogSize);
+        return sources.isEmpty() ? null : shortest(sources, budget);
+    }
+
+    /*
+    Проверка условий поиска по проиндексированным значениям фильма, без чтения самого фильма из каталога:
+    фильмы лежат в памяти вразброс, и чтение каждого кандидата стоит дороже самой проверки.
+    */
+    public LongPredicate matcher(FilmSearch search) {
+        long from = search.getReleasedFrom() == null ? Long.MIN_VALUE : search.getReleasedFrom().toEpochDay();
+        long to = search.getReleasedTo() == null ? Long.MAX_VALUE : search.getReleasedTo().toEpochDay();
+        boolean byDate = search.getReleasedFrom() != null || search.getReleasedTo() != null;
+        long minDuration = search.getMinDuration() == null ? Long.MIN_VALUE : search.getMinDuration();
+        long maxDuration = search.getMaxDuration() == null ? Long.MAX_VALUE : search.getMaxDuration();
+        boolean byDuration = search.getMinDuration() != null || search.getMaxDuration() != null;
+        String name = search.getName() == null ? null : normalize(search.getName());
+        String prefix = search.getNamePrefix() == null ? null : normalize(search.getNamePrefix());
+        return id -> {
+            Indexed film = indexed.get(id);
+            if (film == null) {
+                return false;
+            }
+            if (byDate && (film.releaseDay == null || film.releaseDay < from || film.releaseDay > to)) {
+                return false;
+            }
+            if (byDuration && (film.duration == null || film.duration < minDuration || film.duration > maxDuration)) {
+                return false;
+            }
+            String filmName = film.name == null ? "" : film.name;
+            return (name == null || filmName.contains(name)) && (prefix == null || filmName.startsWith(prefix));
+        };
+    }
+
+    // Фильм удовлетворяет всем условиям поиска
+    public static boolean matches(Film film, FilmSearch search) {
+        LocalDate releaseDate = film.getReleaseDate();
+        if (search.getReleasedFrom() != null
+                && (releaseDate == null || releaseDate.isBefore(search.getReleasedFrom()))) {
+            return false;
+        }
+        if (search.getReleasedTo() != null && (releaseDate == null || releaseDate.isAfter(search.getReleasedTo()))) {
+            return false;
+        }
+        Integer duration = film.getDuration();
+        if (search.getMinDuration() != null && (duration == null || duration < search.getMinDuration())) {
+            return false;
+        }
+        if (search.getMaxDuration() != null && (duration == null || duration > search.getMaxDuration())) {
+            return false;
+        }
+        if (search.getName() == null && search.getNamePrefix() == null) {
+            return true;
+        }
+        String name = film.getName() == null ? "" : normalize(film.getName());
+        return (search.getName() == null || name.contains(normalize(search.getName())))
+                && (search.getNamePrefix() == null || name.startsWith(normalize(search.getNamePrefix())));
+    }
+
+    private void remove(long id, Indexed old) {
+        if (old.releaseDay != null) {
+            releaseDates.remove(new Key(old.releaseDay, id));
+        }
+        if (old.duration != null) {
+            durations.remove(new Key(old.duration, id));
+        }
+        if (old.name != null) {
+            names.remove(new NameKey(old.name, id));
+            for (long gram : trigrams(old.name)) {
+                trigrams.computeIfPresent(gram, (k, ids) -> {
+                    if (ids == COMMON) {
+                        return COMMON;
+                    }
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    private static Iterator<Long> range(NavigableSet<Key> index, long from, long to) {
+        if (from > to) {
+            return List.<Long>of().iterator();
+        }
+        return new IdIterator(index.subSet(new Key(from, Long.MIN_VALUE), true, new Key(to, Long.MAX_VALUE), true)
+                .iterator());
+    }
+
+    // ID из источника, который закончился первым, или null, если все источники длиннее budget
+    private static long[] shortest(List<Iterator<Long>> sources, long budget) {
+        long[][] read = new long[sources.size()][16];
+        int count = 0;
+        while (count <= budget) {
+            for (int i = 0; i < sources.size(); i++) {
+                Iterator<Long> source = sources.get(i);
+                if (!source.hasNext()) {
+                    return Arrays.copyOf(read[i], count);
+                }
+                if (count == read[i].length) {
+                    read[i] = Arrays.copyOf(read[i], count * 2);
+                }
+                read[i][count] = source.next();
+            }
+            count++;
+        }
+        return null;
+    }
+
+    /*
+    Различные триграммы строки: три символа по 16 бит, умноженные на нечетную константу.
+    Умножение взаимно однозначно, но перемешивает биты: Long.hashCode от самих символов дает для латиницы и цифр
+    около сотни различных значений, и корзины ConcurrentHashMap вырождаются в деревья.
+    */
+    static long[] trigrams(String text) {
+        if (text.length() < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2))
+                    * 0x9E3779B97F4A7C15L;
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (long gram : grams) {
+            if (distinct == 0 || grams[distinct - 1] != gram) {
+                grams[distinct++] = gram;
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Indexed {
+        private final Long releaseDay;
+        private final Integer duration;
+        private final String name;
+
+        private Indexed(Film film) {
+            this.releaseDay = film.getReleaseDate() == null ? null : film.getReleaseDate().toEpochDay();
+            this.duration = film.getDuration();
+            this.name = film.getName() == null ? null : normalize(film.getName());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Indexed)) {
+                return false;
+            }
+            Indexed other = (Indexed) o;
+            return Objects.equals(releaseDay, other.releaseDay) && Objects.equals(duration, other.duration)
+                    && Objects.equals(name, other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(releaseDay, duration, name);
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final long value;
+        private final long filmId;
+
+        private Key(long value, long filmId) {
+            this.value = value;
+            this.filmId = filmId;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Long.compare(value, other.value);
+            return result != 0 ? result : Long.compare(filmId, other.filmId);
+        }
+    }
+
+    private static final class NameKey implements Comparable<NameKey> {
+        private final String name;
+        private final long filmId;
+
+        private NameKey(String name, long filmId) {
+            this.name = name;
+            this.filmId = filmId;
+        }
+
+        @Override
+        public int compareTo(NameKey other) {
+            int result = name.compareTo(other.name);
+            return result != 0 ? result : Long.compare(filmId, other.filmId);
+        }
+    }
+
+    // ID фильмов из записей индекса
+    private static final class IdIterator implements Iterator<Long> {
+        private final Iterator<?> entries;
+
+        private IdIterator(Iterator<?> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public Long next() {
+            Object entry = entries.next();
+            return entry instanceof Key ? ((Key) entry).filmId : ((NameKey) entry).filmId;
+        }
+    }
+
+}
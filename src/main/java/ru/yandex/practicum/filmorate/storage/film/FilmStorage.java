@@ -3,17 +3,48 @@ package ru.yandex.practicum.filmorate.storage.film;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.storage.Lookup;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface FilmStorage {
 
     List<Film> getFilmsList();
 
+    // Не более limit фильмов с ID больше afterId, по возрастанию ID
+    List<Film> getFilmsPage(long afterId, int limit);
+
     Film addFilm(Film film) throws ValidationException;
 
     Film updateFilm(Film film) throws NotFoundException, ValidationException;
 
     Film getFilm(Long id);
 
+    // Фильмы с указанными ID за одно обращение к хранилищу: найденные и отсутствующие ID (см. Lookup)
+    Lookup<Film> getFilms(Collection<Long> ids);
+
+    // Возвращает true, если лайк был добавлен (ранее его не было)
+    boolean addLike(Long filmId, Long userId) throws NotFoundException;
+
+    // Возвращает true, если лайк был удален (ранее он был)
+    boolean deleteLike(Long filmId, Long userId) throws NotFoundException;
+
+    // Пакетные варианты addLike/deleteLike для одного фильма: для каждого пользователя — изменился ли лайк
+    boolean[] addLikes(Long filmId, long[] userIds) throws NotFoundException;
+
+    boolean[] deleteLikes(Long filmId, long[] userIds) throws NotFoundException;
+
+    // Первые count фильмов по количеству лайков
+    List<Film> getPopular(int count);
+
+    // Фильмы, удовлетворяющие условиям поиска, в порядке search.order: не более limit после первых offset
+    List<Film> searchFilms(FilmSearch search);
+
+    // Количество фильмов и лайков (для метрик)
+    long getFilmsCount();
+
+    long getLikesCount();
+
 }
@@ -1,50 +1,433 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.storage.Lookup;
+import ru.yandex.practicum.filmorate.storage.RelationStore;
+import ru.yandex.practicum.filmorate.storage.StripedLock;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
 
 @Component
-public class InMemoryFilmStorage implements FilmStorage {
+@Profile("!db")
+@ConditionalOnProperty(name = "filmorate.storage.sharded", havingValue = "false", matchIfMissing = true)
+public class InMemoryFilmStorage implements JournaledFilmStorage {
 
-    private Long lastId;
-    private final Map<Long, Film> filmsList;
+    private final AtomicLong lastId;
+    // Шаг между ID фильмов хранилища: больше 1, если хранилище — шард ShardedFilmStorage
+    private final int idStep;
+    private final NavigableMap<Long, Film> filmsList;
+    // Количество фильмов: size() у ConcurrentSkipListMap — O(n), а счетчик читают метрики при каждом опросе
+    private final LongAdder filmsCount = new LongAdder();
+    private final RelationStore likes;
+    private final PopularityIndex popularity;
+    private final StripedLock locks;
+    private volatile StorageJournal journal = StorageJournal.NONE;
+    // Индексы поиска строятся при первом поиске (см. searchIndex); до этого null и не обновляются
+    private volatile FilmSearchIndex searchIndex;
+    private volatile boolean searchIndexReady;
 
     public InMemoryFilmStorage() {
-        lastId = 0L;
-        filmsList = new HashMap<>();
+        this(1);
+    }
+
+    InMemoryFilmStorage(int idStep) {
+        this.idStep = idStep;
+        lastId = new AtomicLong();
+        filmsList = new ConcurrentSkipListMap<>();
+        likes = new RelationStore();
+        popularity = new PopularityIndex();
+        locks = new StripedLock(64);
+    }
+
+    @Override
+    public void setJournal(StorageJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void restoreFilm(Film film) {
+        long id = film.getId();
+        lastId.accumulateAndGet(id, Math::max);
+        locks.lock(id);
+        try {
+            if (filmsList.put(id, film) == null) {
+                filmsCount.increment();
+            }
+            popularity.update(id, likes.count(id));
+            indexForSearch(film);
+        } finally {
+            locks.unlock(id);
+        }
+    }
+
+    @Override
+    public void restoreFilm(Film film, long[] userIds) {
+        long id = film.getId();
+        lastId.accumulateAndGet(id, Math::max);
+        locks.lock(id);
+        try {
+            if (filmsList.put(id, film) == null) {
+                filmsCount.increment();
+            }
+            likes.load(id, userIds);
+            popularity.update(id, userIds.length);
+            indexForSearch(film);
+        } finally {
+            locks.unlock(id);
+        }
     }
 
     @Override
     public List<Film> getFilmsList() {
-        return new ArrayList<>(filmsList.values());
+        List<Film> films = new ArrayList<>();
+        for (Film film : filmsList.values()) {
+            films.add(withLikes(film));
+        }
+        return films;
+    }
+
+    @Override
+    public List<Film> getFilmsPage(long afterId, int limit) {
+        List<Film> films = new ArrayList<>(limit);
+        for (Film film : filmsList.tailMap(afterId, false).values()) {
+            if (films.size() >= limit) {
+                break;
+            }
+            films.add(withLikes(film));
+        }
+        return films;
     }
 
     @Override
     public Film addFilm(Film film) {
-        film.setId(++lastId);
-        filmsList.put(film.getId(), film);
+        return addFilm(film, lastId.incrementAndGet());
+    }
+
+    // Добавление фильма с ID, выданным ShardedFilmStorage
+    Film addFilm(Film film, long id) {
+        lastId.accumulateAndGet(id, Math::max);
+        film.setId(id);
+        film.setUserLikes(Set.of());
+        Film stored = film.copy();
+        locks.lock(id);
+        try {
+            if (filmsList.put(id, stored) == null) {
+                filmsCount.increment();
+            }
+            popularity.update(id, 0);
+            indexForSearch(stored);
+            journal.filmSaved(stored);
+        } finally {
+            locks.unlock(id);
+        }
         return film;
     }
 
     @Override
     public Film updateFilm(Film film) throws NotFoundException {
-        if (!filmsList.containsKey(film.getId())) {
-            throw new NotFoundException(String.format("Фильм с указанным ID (%d) не найден", film.getId()));
+        Long id = film.getId();
+        if (id == null) {
+            throw new NotFoundException(String.format("Фильм с указанным ID (%d) не найден", id));
         }
-
-        filmsList.put(film.getId(), film);
-        return film;
+        Film stored = film.copy();
+        locks.lock(id);
+        try {
+            if (filmsList.replace(id, stored) == null) {
+                throw new NotFoundException(String.format("Фильм с указанным ID (%d) не найден", id));
+            }
+            indexForSearch(stored);
+            journal.filmSaved(stored);
+        } finally {
+            locks.unlock(id);
+        }
+        return withLikes(stored);
     }
 
     @Override
     public Film getFilm(Long id) {
-        return filmsList.get(id);
+        Film film = filmsList.get(id);
+        return film == null ? null : withLikes(film);
+    }
+
+    @Override
+    public Lookup<Film> getFilms(Collection<Long> ids) {
+        return Lookup.of(ids, this::getFilm);
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) throws NotFoundException {
+        locks.lock(filmId);
+        try {
+            checkFilmExists(filmId);
+            if (!likes.add(filmId, userId)) {
+                return false;
+            }
+            popularity.update(filmId, likes.count(filmId));
+            journal.likeChanged(filmId, userId, true);
+            return true;
+        } finally {
+            locks.unlock(filmId);
+        }
+    }
+
+    @Override
+    public boolean deleteLike(Long filmId, Long userId) throws NotFoundException {
+        locks.lock(filmId);
+        try {
+            checkFilmExists(filmId);
+            if (!likes.remove(filmId, userId)) {
+                return false;
+            }
+            popularity.update(filmId, likes.count(filmId));
+            journal.likeChanged(filmId, userId, false);
+            return true;
+        } finally {
+            locks.unlock(filmId);
+        }
+    }
+
+    @Override
+    public boolean[] addLikes(Long filmId, long[] userIds) throws NotFoundException {
+        boolean[] changed = new boolean[userIds.length];
+        locks.lock(filmId);
+        try {
+            checkFilmExists(filmId);
+            for (int i = 0; i < userIds.length; i++) {
+                changed[i] = likes.add(filmId, userIds[i]);
+                if (changed[i]) {
+                    journal.likeChanged(filmId, userIds[i], true);
+                }
+            }
+            popularity.update(filmId, likes.count(filmId));
+        } finally {
+            locks.unlock(filmId);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean[] deleteLikes(Long filmId, long[] userIds) throws NotFoundException {
+        boolean[] changed = new boolean[userIds.length];
+        locks.lock(filmId);
+        try {
+            checkFilmExists(filmId);
+            for (int i = 0; i < userIds.length; i++) {
+                changed[i] = likes.remove(filmId, userIds[i]);
+                if (changed[i]) {
+                    journal.likeChanged(filmId, userIds[i], false);
+                }
+            }
+            popularity.update(filmId, likes.count(filmId));
+        } finally {
+            locks.unlock(filmId);
+        }
+        return changed;
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        List<Film> films = new ArrayList<>();
+        for (Long id : popularity.top(count)) {
+            Film film = filmsList.get(id);
+            if (film != null) {
+                films.add(withLikes(film));
+            }
+        }
+        return films;
+    }
+
+    /*
+    Поиск:
+      - если условия достаточно избирательны, кандидаты берутся из индексов (FilmSearchIndex), проверяются
+        и сортируются;
+      - иначе ID просматриваются в нужном порядке (по ID или по индексу популярности)
+        до первых offset + limit подходящих.
+    Условия проверяются по значениям из индекса; из каталога читаются только фильмы возвращаемой страницы
+    (и проверяются еще раз: фильм мог измениться после проверки по индексу).
+    */
+    @Override
+    public List<Film> searchFilms(FilmSearch search) {
+        if (!search.hasConditions()) {
+            return page(search.getOrder() == FilmSearch.Order.POPULARITY
+                    ? popularity.iterator() : filmsList.keySet().iterator(), search);
+        }
+        FilmSearchIndex index = searchIndex();
+        LongPredicate matcher = index.matcher(search);
+        // lastId / idStep — оценка размера каталога сверху (фильмы не удаляются), size() у ConcurrentSkipListMap — O(n)
+        long[] candidates = index.candidates(search, lastId.get() / idStep);
+        if (candidates != null) {
+            return page(sortCandidates(candidates, matcher, search.getOrder()), search);
+        }
+        Iterator<Long> ids = search.getOrder() == FilmSearch.Order.POPULARITY
+                ? popularity.iterator() : filmsList.keySet().iterator();
+        return page(new Iterator<>() {
+            private Long next = advance();
+
+            private Long advance() {
+                while (ids.hasNext()) {
+                    Long id = ids.next();
+                    if (matcher.test(id)) {
+                        return id;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Long next() {
+                Long id = next;
+                next = advance();
+                return id;
+            }
+        }, search);
+    }
+
+    @Override
+    public long getFilmsCount() {
+        return filmsCount.sum();
+    }
+
+    @Override
+    public long getLikesCount() {
+        return likes.total();
+    }
+
+    private void checkFilmExists(Long id) throws NotFoundException {
+        if (!filmsList.containsKey(id)) {
+            throw new NotFoundException(String.format("Фильм с указанным ID (%d) не найден", id));
+        }
+    }
+
+    // Подходящие кандидаты в порядке выдачи
+    private Iterator<Long> sortCandidates(long[] candidates, LongPredicate matcher, FilmSearch.Order order) {
+        int size = 0;
+        for (long id : candidates) {
+            if (matcher.test(id)) {
+                candidates[size++] = id;
+            }
+        }
+        long[] ids = Arrays.copyOf(candidates, size);
+        Arrays.sort(ids);
+        if (order == FilmSearch.Order.POPULARITY) {
+            // Количество лайков читается один раз: во время сортировки оно может измениться
+            int[] counts = new int[size];
+            Integer[] positions = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                counts[i] = likes.count(ids[i]);
+                positions[i] = i;
+            }
+            Arrays.sort(positions, (a, b) -> PopularityIndex.compare(ids[a], counts[a], ids[b], counts[b]));
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = ids[positions[i]];
+            }
+            return Arrays.stream(sorted).iterator();
+        }
+        return Arrays.stream(ids).iterator();
+    }
+
+    // Страница поиска: ID уже проверены по индексу, первые offset пропускаются без чтения фильмов
+    private List<Film> page(Iterator<Long> ids, FilmSearch search) {
+        for (int i = 0; i < search.getOffset() && ids.hasNext(); i++) {
+            ids.next();
+        }
+        List<Film> films = new ArrayList<>();
+        while (films.size() < search.getLimit() && ids.hasNext()) {
+            Film film = filmsList.get(ids.next());
+            if (film != null && FilmSearchIndex.matches(film, search)) {
+                films.add(withLikes(film));
+            }
+        }
+        return films;
+    }
+
+    /*
+    Индексы поиска строятся при первом поиске, а не при загрузке: фильмы из снимка журнала читают поля
+    из файла при первом обращении, и без поиска их загружать не нужно.
+    Индекс становится доступен изменениям (searchIndex) до обхода каталога, а поиску (searchIndexReady) — после:
+    каждый фильм индексируется под своей блокировкой, поэтому изменения во время построения не теряются.
+    */
+    private FilmSearchIndex searchIndex() {
+        if (!searchIndexReady) {
+            synchronized (this) {
+                if (!searchIndexReady) {
+                    FilmSearchIndex index = new FilmSearchIndex();
+                    searchIndex = index;
+                    for (Long id : filmsList.keySet()) {
+                        locks.lock(id);
+                        try {
+                            Film film = filmsList.get(id);
+                            if (film != null) {
+                                index.put(film);
+                            }
+                        } finally {
+                            locks.unlock(id);
+                        }
+                    }
+                    searchIndexReady = true;
+                }
+            }
+        }
+        return searchIndex;
+    }
+
+    // Вызывается под блокировкой фильма
+    private void indexForSearch(Film film) {
+        FilmSearchIndex index = searchIndex;
+        if (index != null) {
+            index.put(film);
+        }
+    }
+
+    // Первые count фильмов по популярности — пары {ID, количество лайков}, без чтения фильмов (для ShardedFilmStorage)
+    List<long[]> popularIds(int count) {
+        List<long[]> top = new ArrayList<>();
+        Iterator<long[]> it = popularity.entries();
+        while (top.size() < count && it.hasNext()) {
+            top.add(it.next());
+        }
+        return top;
+    }
+
+    // Ленивый обход индекса популярности парами {ID, количество лайков} (для ShardedFilmStorage)
+    Iterator<long[]> popularEntries() {
+        return popularity.entries();
+    }
+
+    // Фильмы с ID больше afterId по возрастанию ID, без лайков (для слияния шардов в ShardedFilmStorage)
+    Collection<Film> filmsAfter(long afterId) {
+        return filmsList.tailMap(afterId, false).values();
+    }
+
+    /*
+    Копия хранимого фильма с актуальным снимком лайков. Хранимый экземпляр наружу не отдается:
+    его читают параллельные запросы, а изменения фильма возможны только через хранилище.
+    */
+    Film withLikes(Film film) {
+        Film copy = film.copy();
+        copy.setUserLikes(likes.snapshot(film.getId()));
+        return copy;
     }
 
 }
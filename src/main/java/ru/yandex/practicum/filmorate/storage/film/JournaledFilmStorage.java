@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+
+// Хранилище фильмов в памяти, изменения которого пишутся в журнал и восстанавливаются из него (см. JournalManager)
+public interface JournaledFilmStorage extends FilmStorage {
+
+    void setJournal(StorageJournal journal);
+
+    // Восстановление фильма с сохраненным ID (из журнала), без записи в журнал
+    void restoreFilm(Film film);
+
+    // Восстановление фильма вместе с лайками (из снимка журнала); массив должен быть отсортирован
+    void restoreFilm(Film film, long[] userIds);
+
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/*
+Индекс популярности фильмов:
+  - упорядочен по количеству лайков (по убыванию), при равенстве — по ID фильма (по возрастанию);
+  - обновление при изменении количества лайков — O(log F);
+  - выборка первых count фильмов — O(count), без обхода всего каталога.
+Обновления одного фильма должны выполняться под блокировкой этого фильма (см. StripedLock),
+чтение допускается без блокировок.
+*/
+class PopularityIndex {
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingInt((Entry e) -> e.likes).reversed()
+                    .thenComparingLong(e -> e.filmId);
+
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public void update(long filmId, int likes) {
+        Entry old = entries.get(filmId);
+        if (old != null) {
+            if (old.likes == likes) {
+                return;
+            }
+            ranking.remove(old);
+        }
+        Entry entry = new Entry(filmId, likes);
+        entries.put(filmId, entry);
+        ranking.add(entry);
+    }
+
+    public void remove(long filmId) {
+        Entry old = entries.remove(filmId);
+        if (old != null) {
+            ranking.remove(old);
+        }
+    }
+
+    public List<Long> top(int count) {
+        List<Long> ids = new ArrayList<>(Math.min(count, entries.size()));
+        Iterator<Long> it = iterator();
+        while (ids.size() < count && it.hasNext()) {
+            ids.add(it.next());
+        }
+        return ids;
+    }
+
+    // ID всех фильмов в порядке популярности; обход не блокирует обновления и может их не увидеть
+    public Iterator<Long> iterator() {
+        Iterator<Entry> it = ranking.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Long next() {
+                return it.next().filmId;
+            }
+        };
+    }
+
+    // Пары {ID, количество лайков} в порядке популярности; количество — то, по которому фильм стоит в индексе
+    public Iterator<long[]> entries() {
+        Iterator<Entry> it = ranking.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public long[] next() {
+                Entry entry = it.next();
+                return new long[] {entry.filmId, entry.likes};
+            }
+        };
+    }
+
+    // Порядок популярности для произвольного набора фильмов
+    public static int compare(long filmId1, int likes1, long filmId2, int likes2) {
+        int result = Integer.compare(likes2, likes1);
+        return result != 0 ? result : Long.compare(filmId1, filmId2);
+    }
+
+    private static final class Entry {
+        private final long filmId;
+        private final int likes;
+
+        private Entry(long filmId, int likes) {
+            this.filmId = filmId;
+            this.likes = likes;
+        }
+    }
+
+}
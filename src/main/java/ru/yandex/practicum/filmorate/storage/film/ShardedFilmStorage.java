@@ -0,0 +1,208 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
+import ru.yandex.practicum.filmorate.storage.Lookup;
+import ru.yandex.practicum.filmorate.storage.ShardMerge;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+Хранилище фильмов в памяти, разделенное на шарды по ID (filmorate.storage.sharded=true):
+  - фильм с ID id хранится в шарде (id - 1) % shards. Шард — InMemoryFilmStorage со своими каталогом, лайками,
+    индексами популярности и поиска и блокировками, поэтому изменения фильмов разных шардов не обращаются
+    к общим структурам. Общий только счетчик ID: ID по-прежнему выдаются подряд, а подряд добавленные фильмы
+    попадают в разные шарды;
+  - популярные фильмы, поиск и полный список запрашиваются у всех шардов параллельно (общий ForkJoinPool):
+    каждый шард возвращает свои первые offset + limit фильмов в нужном порядке, результаты сливаются (ShardMerge).
+    Популярные сливаются по парам {ID, количество лайков}, и читаются (с лайками) только фильмы результата.
+    Небольшие списки (count * shards < PARALLEL_THRESHOLD) сливаются из ленивых обходов индексов шардов
+    в вызывающем потоке: всего читается не больше count + shards пар, а не count у каждого шарда,
+    и нет затрат на передачу задач потокам. Слияние все равно дороже, чем у хранилища без шардов:
+    запрос затрагивает индекс каждого шарда (см. README);
+  - страница по ID (getFilmsPage) сливается из обходов каталогов шардов без параллельного запроса:
+    лайки подставляются только в фильмы страницы.
+*/
+@Component
+@Profile("!db")
+@ConditionalOnProperty(name = "filmorate.storage.sharded", havingValue = "true")
+public class ShardedFilmStorage implements JournaledFilmStorage {
+
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    private static final Comparator<Film> BY_ID = Comparator.comparingLong(Film::getId);
+    private static final Comparator<long[]> BY_LIKES = (a, b) -> PopularityIndex.compare(
+            a[0], (int) a[1], b[0], (int) b[1]);
+    private static final Comparator<Film> BY_POPULARITY = (a, b) -> PopularityIndex.compare(
+            a.getId(), a.getUserLikes().size(), b.getId(), b.getUserLikes().size());
+
+    private final AtomicLong lastId = new AtomicLong();
+    private final InMemoryFilmStorage[] shards;
+
+    public ShardedFilmStorage(@Value("${filmorate.storage.shards:16}") int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Количество шардов должно быть положительным: " + shards);
+        }
+        this.shards = new InMemoryFilmStorage[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new InMemoryFilmStorage(shards);
+        }
+    }
+
+    @Override
+    public void setJournal(StorageJournal journal) {
+        for (InMemoryFilmStorage shard : shards) {
+            shard.setJournal(journal);
+        }
+    }
+
+    @Override
+    public void restoreFilm(Film film) {
+        lastId.accumulateAndGet(film.getId(), Math::max);
+        shard(film.getId()).restoreFilm(film);
+    }
+
+    @Override
+    public void restoreFilm(Film film, long[] userIds) {
+        lastId.accumulateAndGet(film.getId(), Math::max);
+        shard(film.getId()).restoreFilm(film, userIds);
+    }
+
+    @Override
+    public List<Film> getFilmsList() {
+        return ShardMerge.merge(iterators(scatter(InMemoryFilmStorage::getFilmsList, true)), BY_ID,
+                0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Film> getFilmsPage(long afterId, int limit) {
+        List<Iterator<Film>> sources = new ArrayList<>(shards.length);
+        for (InMemoryFilmStorage shard : shards) {
+            sources.add(shard.filmsAfter(afterId).iterator());
+        }
+        return ShardMerge.merge(sources, BY_ID, 0, limit, film -> shard(film.getId()).withLikes(film));
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        long id = lastId.incrementAndGet();
+        return shard(id).addFilm(film, id);
+    }
+
+    @Override
+    public Film updateFilm(Film film) throws NotFoundException {
+        Long id = film.getId();
+        if (id == null) {
+            throw new NotFoundException(String.format("Фильм с указанным ID (%d) не найден", id));
+        }
+        return shard(id).updateFilm(film);
+    }
+
+    @Override
+    public Film getFilm(Long id) {
+        return shard(id).getFilm(id);
+    }
+
+    @Override
+    public Lookup<Film> getFilms(Collection<Long> ids) {
+        return Lookup.of(ids, this::getFilm);
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) throws NotFoundException {
+        return shard(filmId).addLike(filmId, userId);
+    }
+
+    @Override
+    public boolean deleteLike(Long filmId, Long userId) throws NotFoundException {
+        return shard(filmId).deleteLike(filmId, userId);
+    }
+
+    @Override
+    public boolean[] addLikes(Long filmId, long[] userIds) throws NotFoundException {
+        return shard(filmId).addLikes(filmId, userIds);
+    }
+
+    @Override
+    public boolean[] deleteLikes(Long filmId, long[] userIds) throws NotFoundException {
+        return shard(filmId).deleteLikes(filmId, userIds);
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        List<Iterator<long[]>> sources;
+        if ((long) count * shards.length >= PARALLEL_THRESHOLD) {
+            sources = iterators(scatter(shard -> shard.popularIds(count), true));
+        } else {
+            sources = new ArrayList<>(shards.length);
+            for (InMemoryFilmStorage shard : shards) {
+                sources.add(shard.popularEntries());
+            }
+        }
+        return ShardMerge.merge(sources, BY_LIKES, 0, count, top -> getFilm(top[0]));
+    }
+
+    @Override
+    public List<Film> searchFilms(FilmSearch search) {
+        FilmSearch shardSearch = new FilmSearch();
+        shardSearch.setName(search.getName());
+        shardSearch.setNamePrefix(search.getNamePrefix());
+        shardSearch.setReleasedFrom(search.getReleasedFrom());
+        shardSearch.setReleasedTo(search.getReleasedTo());
+        shardSearch.setMinDuration(search.getMinDuration());
+        shardSearch.setMaxDuration(search.getMaxDuration());
+        shardSearch.setOrder(search.getOrder());
+        shardSearch.setLimit((int) Math.min(Integer.MAX_VALUE, (long) search.getOffset() + search.getLimit()));
+        return ShardMerge.merge(iterators(scatter(shard -> shard.searchFilms(shardSearch), true)),
+                search.getOrder() == FilmSearch.Order.POPULARITY ? BY_POPULARITY : BY_ID,
+                search.getOffset(), search.getLimit());
+    }
+
+    @Override
+    public long getFilmsCount() {
+        long count = 0;
+        for (InMemoryFilmStorage shard : shards) {
+            count += shard.getFilmsCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getLikesCount() {
+        long count = 0;
+        for (InMemoryFilmStorage shard : shards) {
+            count += shard.getLikesCount();
+        }
+        return count;
+    }
+
+    private InMemoryFilmStorage shard(long id) {
+        return shards[(int) Math.floorMod(id - 1, (long) shards.length)];
+    }
+
+    // Запрос ко всем шардам (параллельно или по очереди); результаты — в порядке шардов
+    private <R> List<R> scatter(Function<InMemoryFilmStorage, R> query, boolean parallel) {
+        Stream<InMemoryFilmStorage> stream = Arrays.stream(shards);
+        return (parallel ? stream.parallel() : stream).map(query).collect(Collectors.toList());
+    }
+
+    private static <T> List<Iterator<T>> iterators(List<List<T>> lists) {
+        return lists.stream().map(List::iterator).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,382 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+
+/*
+Колоночный снимок состояния хранилищ. Файл читается через MappedByteBuffer, без разбора записей:
+  - заголовок: MAGIC, версия, количество фильмов/пользователей/лайков/ребер дружбы, размеры областей строк
+    и номер сегмента журнала, с которого продолжается восстановление;
+  - колонки фильмов: ID, дата выхода (эпоха-день), продолжительность, смещение строк в области строк фильмов;
+  - лайки в формате CSR: для фильма i ID пользователей лежат в likeUsers[likeStart[i], likeStart[i + 1]);
+  - колонки пользователей: ID, день рождения, смещение строк; друзья — также в формате CSR;
+  - области строк: для каждой строки [int длина в байтах UTF-8 или -1 для null][байты].
+Все колонки выровнены по 8 байт. Объекты Film/User создаются лениво (SnapshotFilm, SnapshotUser):
+при загрузке в хранилище копируются только ID и связи, а строки и даты читаются при первом обращении.
+Каждая колонка отображается отдельно, поэтому ограничение в 2 ГБ действует на колонку, а не на весь файл.
+*/
+public final class ColumnarSnapshot {
+
+    private static final long MAGIC = 0x46494c4d434f4c53L;
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_INT = Integer.MIN_VALUE;
+
+    private final long fromSegment;
+    private final int filmCount;
+    private final int userCount;
+    private final LongBuffer filmIds;
+    private final LongBuffer filmReleaseDates;
+    private final IntBuffer filmDurations;
+    private final LongBuffer filmText;
+    private final LongBuffer likeStart;
+    private final LongBuffer likeUsers;
+    private final LongBuffer userIds;
+    private final LongBuffer userBirthdays;
+    private final LongBuffer userText;
+    private final LongBuffer friendStart;
+    private final LongBuffer friendIds;
+    private final ByteBuffer filmStrings;
+    private final ByteBuffer userStrings;
+
+    private ColumnarSnapshot(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            continue;
+        }
+        header.flip();
+        if (header.remaining() < HEADER || header.getLong() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException(String.format("Поврежден снимок журнала: %s", file));
+        }
+        filmCount = header.getInt();
+        userCount = header.getInt();
+        header.getInt();
+        fromSegment = header.getLong();
+        long likeCount = header.getLong();
+        long friendCount = header.getLong();
+        long filmStringsSize = header.getLong();
+        long userStringsSize = header.getLong();
+
+        Mapper mapper = new Mapper(channel);
+        filmIds = mapper.longs(filmCount);
+        filmReleaseDates = mapper.longs(filmCount);
+        filmDurations = mapper.ints(filmCount);
+        filmText = mapper.longs(filmCount);
+        likeStart = mapper.longs(filmCount + 1L);
+        likeUsers = mapper.longs(likeCount);
+        userIds = mapper.longs(userCount);
+        userBirthdays = mapper.longs(userCount);
+        userText = mapper.longs(userCount);
+        friendStart = mapper.longs(userCount + 1L);
+        friendIds = mapper.longs(friendCount);
+        filmStrings = mapper.bytes(filmStringsSize);
+        userStrings = mapper.bytes(userStringsSize);
+        if (mapper.position != channel.size()) {
+            throw new IOException(String.format("Поврежден снимок журнала: %s", file));
+        }
+    }
+
+    // Отображает файл снимка в память; после возврата канал закрыт, отображение остается действительным
+    public static ColumnarSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ColumnarSnapshot(channel, file);
+        }
+    }
+
+    public long fromSegment() {
+        return fromSegment;
+    }
+
+    public int filmCount() {
+        return filmCount;
+    }
+
+    public long filmId(int row) {
+        return filmIds.get(row);
+    }
+
+    // Фильм, поля которого будут прочитаны из снимка при первом обращении
+    public Film film(int row) {
+        return new SnapshotFilm(this, row, filmIds.get(row));
+    }
+
+    // Отсортированные ID пользователей, лайкнувших фильм
+    public long[] likes(int row) {
+        return slice(likeUsers, likeStart.get(row), likeStart.get(row + 1));
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    public long userId(int row) {
+        return userIds.get(row);
+    }
+
+    public User user(int row) {
+        return new SnapshotUser(this, row, userIds.get(row));
+    }
+
+    // Отсортированные ID друзей пользователя
+    public long[] friends(int row) {
+        return slice(friendIds, friendStart.get(row), friendStart.get(row + 1));
+    }
+
+    String[] filmText(int row) {
+        return strings(filmStrings, filmText.get(row), 2);
+    }
+
+    LocalDate filmReleaseDate(int row) {
+        return date(filmReleaseDates.get(row));
+    }
+
+    Integer filmDuration(int row) {
+        int duration = filmDurations.get(row);
+        return duration == NO_INT ? null : duration;
+    }
+
+    String[] userText(int row) {
+        return strings(userStrings, userText.get(row), 3);
+    }
+
+    LocalDate userBirthday(int row) {
+        return date(userBirthdays.get(row));
+    }
+
+    private static long[] slice(LongBuffer column, long from, long to) {
+        long[] ids = new long[(int) (to - from)];
+        column.duplicate().position((int) from).get(ids);
+        return ids;
+    }
+
+    private static String[] strings(ByteBuffer area, long offset, int count) {
+        ByteBuffer buffer = area.duplicate();
+        buffer.position((int) offset);
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+
+    private static LocalDate date(long epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static long aligned(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // Отображает колонки файла по порядку, каждую — отдельным MappedByteBuffer
+    private static final class Mapper {
+        private final FileChannel channel;
+        private long position = HEADER;
+
+        private Mapper(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        LongBuffer longs(long count) throws IOException {
+            return bytes(count * Long.BYTES).asLongBuffer();
+        }
+
+        IntBuffer ints(long count) throws IOException {
+            return bytes(count * Integer.BYTES).asIntBuffer();
+        }
+
+        ByteBuffer bytes(long size) throws IOException {
+            if (size > Integer.MAX_VALUE || position + size > channel.size()) {
+                throw new IOException("Поврежден снимок журнала: колонка выходит за пределы файла");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            position += aligned(size);
+            return buffer;
+        }
+    }
+
+    /*
+    Запись снимка. Колонки пишутся во временные файлы по мере поступления фильмов и пользователей,
+    поэтому объем памяти не зависит от размера каталога; в конце колонки склеиваются в один файл.
+    Порядок вызовов film/user произвольный, но все пользователи и фильмы передаются ровно один раз.
+    */
+    public static final class Writer implements Closeable {
+        private final Path dir;
+        private final Column filmIds;
+        private final Column filmReleaseDates;
+        private final Column filmDurations;
+        private final Column filmText;
+        private final Column likeStart;
+        private final Column likeUsers;
+        private final Column userIds;
+        private final Column userBirthdays;
+        private final Column userText;
+        private final Column friendStart;
+        private final Column friendIds;
+        private final Column filmStrings;
+        private final Column userStrings;
+        private final Column[] columns;
+        private int filmCount;
+        private int userCount;
+        private long likeCount;
+        private long friendCount;
+
+        Writer(Path dir) throws IOException {
+            this.dir = Files.createTempDirectory(dir, "snapshot");
+            filmIds = new Column("film-id");
+            filmReleaseDates = new Column("film-release");
+            filmDurations = new Column("film-duration");
+            filmText = new Column("film-text");
+            likeStart = new Column("like-start");
+            likeUsers = new Column("like-user");
+            userIds = new Column("user-id");
+            userBirthdays = new Column("user-birthday");
+            userText = new Column("user-text");
+            friendStart = new Column("friend-start");
+            friendIds = new Column("friend-id");
+            filmStrings = new Column("film-strings");
+            userStrings = new Column("user-strings");
+            columns = new Column[]{filmIds, filmReleaseDates, filmDurations, filmText, likeStart, likeUsers,
+                    userIds, userBirthdays, userText, friendStart, friendIds, filmStrings, userStrings};
+            likeStart.out.writeLong(0);
+            friendStart.out.writeLong(0);
+        }
+
+        public void film(Film film, Collection<Long> likedBy) {
+            try {
+                filmIds.out.writeLong(film.getId());
+                filmReleaseDates.out.writeLong(film.getReleaseDate() == null
+                        ? NO_DATE : film.getReleaseDate().toEpochDay());
+                filmDurations.out.writeInt(film.getDuration() == null ? NO_INT : film.getDuration());
+                filmText.out.writeLong(filmStrings.out.size());
+                string(filmStrings, film.getName());
+                string(filmStrings, film.getDescription());
+                likeCount += ids(likeUsers, likedBy);
+                likeStart.out.writeLong(likeCount);
+                filmCount++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void user(User user, Collection<Long> friends) {
+            try {
+                userIds.out.writeLong(user.getId());
+                userBirthdays.out.writeLong(user.getBirthday() == null ? NO_DATE : user.getBirthday().toEpochDay());
+                userText.out.writeLong(userStrings.out.size());
+                string(userStrings, user.getEmail());
+                string(userStrings, user.getLogin());
+                string(userStrings, user.getName());
+                friendCount += ids(friendIds, friends);
+                friendStart.out.writeLong(friendCount);
+                userCount++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Склеивает колонки в файл file; колонки выравниваются по 8 байт
+        void writeTo(Path file, long fromSegment) throws IOException {
+            for (Column column : columns) {
+                column.out.close();
+            }
+            try (FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                header.putLong(MAGIC).putInt(VERSION).putInt(filmCount).putInt(userCount).putInt(0)
+                        .putLong(fromSegment).putLong(likeCount).putLong(friendCount)
+                        .putLong(filmStrings.size()).putLong(userStrings.size());
+                header.position(HEADER).flip();
+                writeFully(target, header);
+                for (Column column : columns) {
+                    try (FileChannel source = FileChannel.open(column.path, StandardOpenOption.READ)) {
+                        long size = source.size();
+                        long copied = 0;
+                        while (copied < size) {
+                            copied += source.transferTo(copied, size - copied, target);
+                        }
+                        writeFully(target, ByteBuffer.allocate((int) (aligned(size) - size)));
+                    }
+                }
+                target.force(true);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Column column : columns) {
+                column.out.close();
+                Files.deleteIfExists(column.path);
+            }
+            Files.deleteIfExists(dir);
+        }
+
+        private static void string(Column column, String value) throws IOException {
+            if (value == null) {
+                column.out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            column.out.writeInt(bytes.length);
+            column.out.write(bytes);
+        }
+
+        // Пишет ID по возрастанию (как их хранят RelationStore и FriendGraph) и возвращает их количество
+        private static int ids(Column column, Collection<Long> ids) throws IOException {
+            long[] sorted = new long[ids.size()];
+            int i = 0;
+            for (Long id : ids) {
+                sorted[i++] = id;
+            }
+            Arrays.sort(sorted);
+            for (long id : sorted) {
+                column.out.writeLong(id);
+            }
+            return sorted.length;
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private final class Column {
+            private final Path path;
+            private final DataOutputStream out;
+
+            private Column(String name) throws IOException {
+                path = dir.resolve(name + ".col");
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+            }
+
+            long size() {
+                return out.size();
+            }
+        }
+    }
+
+}
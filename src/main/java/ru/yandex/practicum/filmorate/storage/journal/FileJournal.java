@@ -0,0 +1,367 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+Журнал изменений в файлах каталога dir:
+  - journal-NNNNNNNNNN.log — сегменты журнала (только дозапись);
+  - snapshot.bin — колоночный снимок состояния (см. ColumnarSnapshot); в заголовке — номер сегмента,
+    с которого продолжается журнал.
+Запись — отложенная: изменения копируются в буфер памяти, а фоновый поток раз в flushInterval
+пишет накопленный буфер в FileChannel одним вызовом и выполняет force (групповая фиксация).
+Запросы дописывают изменения под ReentrantLock, а не synchronized: ожидание блокировки или места в буфере
+не занимает поток-носитель, если запросы выполняются в виртуальных потоках.
+Ошибка записи не теряет изменения: сегмент обрезается до начала пакета, пакет остается в буфере и пишется
+повторно. Пока запись не удается, запросы получают ошибку, как только буфер заполнен. Если сегмент обрезать
+не удалось, его содержимое неизвестно — журнал переходит в состояние ошибки, и все изменения получают ошибку.
+*/
+@Slf4j
+public class FileJournal implements StorageJournal, Closeable {
+
+    static final String SNAPSHOT = "snapshot.bin";
+    // При таком объеме незаписанных данных запросы ждут фонового потока
+    private static final int MAX_PENDING = 32 * 1024 * 1024;
+    private static final SegmentOpener APPEND = path -> FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+    // Открытие сегмента для дозаписи; в тестах подменяется, чтобы имитировать ошибки записи
+    interface SegmentOpener {
+        FileChannel open(Path path) throws IOException;
+    }
+
+    private final Path dir;
+    private final long flushIntervalMs;
+    private final SegmentOpener opener;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition spaceAvailable = appendLock.newCondition();
+    private final Object writeLock = new Object();
+    private final Thread writer;
+
+    private RecordBuffer pending = new RecordBuffer();
+    private RecordBuffer spare = new RecordBuffer();
+    private FileChannel channel;
+    private long segment;
+    private long recordsInSegment;
+    private volatile boolean closed;
+    // Последняя ошибка записи; null после успешной записи
+    private volatile IOException writeError;
+    // Ошибка, после которой журнал не принимает изменения
+    private volatile IOException failure;
+
+    private FileJournal(Path dir, long flushIntervalMs, SegmentOpener opener, long segment, FileChannel channel) {
+        this.dir = dir;
+        this.flushIntervalMs = flushIntervalMs;
+        this.opener = opener;
+        this.segment = segment;
+        this.channel = channel;
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /*
+    Восстанавливает состояние: загружает снимок и применяет сегменты журнала после него.
+    Неполная запись в конце последнего сегмента отбрасывается, файл обрезается по последней целой записи.
+    В остальных сегментах после последней записи ничего не пишется, поэтому поврежденная запись в них —
+    ошибка восстановления, а не "хвост": обрезка потеряла бы все последующие сегменты.
+    */
+    public static FileJournal open(Path dir, long flushIntervalMs, JournalReader.Handler handler) throws IOException {
+        return open(dir, flushIntervalMs, handler, APPEND);
+    }
+
+    static FileJournal open(Path dir, long flushIntervalMs, JournalReader.Handler handler, SegmentOpener opener)
+            throws IOException {
+        Files.createDirectories(dir);
+        long firstSegment = 1;
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            ColumnarSnapshot columns = ColumnarSnapshot.open(snapshot);
+            firstSegment = columns.fromSegment();
+            handler.snapshot(columns);
+        }
+
+        List<Long> segments = listSegments(dir);
+        long lastListed = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        long last = firstSegment;
+        for (long number : segments) {
+            if (number < firstSegment) {
+                // Сегмент уже вошел в снимок, но не был удален до остановки
+                Files.deleteIfExists(segmentPath(dir, number));
+                continue;
+            }
+            try (FileChannel ch = FileChannel.open(segmentPath(dir, number),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long end = new JournalReader(ch, 0).readAll(handler);
+                if (end < ch.size()) {
+                    if (number != lastListed) {
+                        throw new IOException(String.format("Журнал %d поврежден: запись на позиции %d из %d байт "
+                                + "не читается", number, end, ch.size()));
+                    }
+                    log.warn("Журнал {}: отброшено {} байт неполной записи", number, ch.size() - end);
+                    ch.truncate(end);
+                    ch.force(true);
+                }
+            }
+            last = number;
+        }
+
+        return new FileJournal(dir, flushIntervalMs, opener, last, opener.open(segmentPath(dir, last)));
+    }
+
+    @Override
+    public void filmSaved(Film film) {
+        appendLock.lock();
+        try {
+            awaitSpace();
+            pending.film(film);
+            recordsInSegment++;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void userSaved(User user) {
+        appendLock.lock();
+        try {
+            awaitSpace();
+            pending.user(user);
+            recordsInSegment++;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void likeChanged(long filmId, long userId, boolean added) {
+        appendLock.lock();
+        try {
+            awaitSpace();
+            pending.pair(added ? RecordBuffer.LIKE_ADDED : RecordBuffer.LIKE_REMOVED, filmId, userId);
+            recordsInSegment++;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void friendChanged(long userId, long friendId, boolean added) {
+        appendLock.lock();
+        try {
+            awaitSpace();
+            pending.pair(added ? RecordBuffer.FRIEND_ADDED : RecordBuffer.FRIEND_REMOVED, userId, friendId);
+            recordsInSegment++;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long recordsInSegment() {
+        appendLock.lock();
+        try {
+            return recordsInSegment;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Записывает на диск все накопленные изменения; при ошибке они остаются в буфере для повторной записи
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            checkUsable();
+            RecordBuffer batch;
+            appendLock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                spaceAvailable.signalAll();
+            } finally {
+                appendLock.unlock();
+            }
+            try {
+                write(batch);
+                writeError = null;
+            } catch (IOException e) {
+                writeError = e;
+                appendLock.lock();
+                try {
+                    // Пакет возвращается в начало буфера: записанные после него изменения не должны его опередить
+                    batch.append(pending);
+                    pending.clear();
+                    spare = pending;
+                    pending = batch;
+                    // Ожидающие места в буфере получают ошибку, а не ждут следующей попытки
+                    spaceAvailable.signalAll();
+                } finally {
+                    appendLock.unlock();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /*
+    Снимок состояния. Перед снимком начинается новый сегмент: изменения, сделанные во время записи снимка,
+    попадают в новый сегмент и при восстановлении применяются поверх снимка (записи журнала идемпотентны).
+    После записи снимка старые сегменты удаляются.
+    */
+    public synchronized void snapshot(Consumer<ColumnarSnapshot.Writer> dumper) throws IOException {
+        long from = rotate();
+        Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+        try (ColumnarSnapshot.Writer writer = new ColumnarSnapshot.Writer(dir)) {
+            try {
+                dumper.accept(writer);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.writeTo(tmp, from);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (long number : listSegments(dir)) {
+            if (number < from) {
+                Files.deleteIfExists(segmentPath(dir, number));
+            }
+        }
+        log.info("Записан снимок журнала, журнал продолжается с сегмента {}", from);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        // Не interrupt: прерывание потока во время записи закрывает FileChannel
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Закрывает текущий сегмент и начинает новый; возвращает номер нового сегмента
+    private long rotate() throws IOException {
+        synchronized (writeLock) {
+            appendLock.lock();
+            try {
+                checkUsable();
+                write(pending);
+                channel.close();
+                segment++;
+                channel = opener.open(segmentPath(dir, segment));
+                recordsInSegment = 0;
+                spaceAvailable.signalAll();
+                return segment;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+    }
+
+    /*
+    Дописывает пакет в конец сегмента. При ошибке сегмент обрезается до начала пакета: иначе часть пакета
+    осталась бы в журнале неполной записью, а следующие записи — после нее. Если обрезать не удалось,
+    журнал переходит в состояние ошибки.
+    */
+    private void write(RecordBuffer batch) throws IOException {
+        long start = channel.size();
+        try {
+            batch.writeTo(channel);
+            channel.force(false);
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+                failure = e;
+            }
+            throw e;
+        }
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Журнал недоступен после ошибки записи: " + failure.getMessage(), failure);
+        }
+    }
+
+    // Вызывается под appendLock перед добавлением изменения
+    private void awaitSpace() {
+        if (failure != null) {
+            throw new UncheckedIOException("Журнал недоступен после ошибки записи", failure);
+        }
+        while (pending.size() > MAX_PENDING && !closed) {
+            IOException error = writeError;
+            if (error != null) {
+                throw new UncheckedIOException("Изменения не записываются в журнал", error);
+            }
+            try {
+                spaceAvailable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+            // Ошибка пишется в лог один раз, а не на каждую повторную попытку
+            boolean failing = writeError != null || failure != null;
+            try {
+                flush();
+                if (failing) {
+                    log.info("Запись журнала восстановлена");
+                }
+            } catch (IOException e) {
+                if (!failing) {
+                    log.error("Ошибка записи журнала: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static Path segmentPath(Path dir, long number) {
+        return dir.resolve(String.format("journal-%010d.log", number));
+    }
+
+    private static List<Long> listSegments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.matches("journal-\\d{10}\\.log"))
+                    .map(name -> Long.parseLong(name.substring(8, 18)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+}
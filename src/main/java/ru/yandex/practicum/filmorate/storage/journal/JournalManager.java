@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.JournaledFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JournaledUserStorage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Сохранность данных хранилищ в памяти (filmorate.journal.enabled=true):
+  - при запуске состояние восстанавливается из снимка и журнала, после чего журнал подключается к хранилищам;
+  - снимок записывается, когда в текущем сегменте журнала накопилось snapshot-threshold записей;
+  - при остановке накопленные изменения записываются на диск.
+*/
+@Component
+@Profile("!db")
+@ConditionalOnProperty(name = "filmorate.journal.enabled", havingValue = "true")
+@Slf4j
+public class JournalManager implements JournalReader.Handler {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final JournaledFilmStorage filmStorage;
+    private final JournaledUserStorage userStorage;
+    private final Path dir;
+    private final long flushIntervalMs;
+    private final long snapshotThreshold;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "journal-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private FileJournal journal;
+
+    public JournalManager(JournaledFilmStorage filmStorage, JournaledUserStorage userStorage,
+                          @Value("${filmorate.journal.dir:./journal}") String dir,
+                          @Value("${filmorate.journal.flush-interval-ms:10}") long flushIntervalMs,
+                          @Value("${filmorate.journal.snapshot-threshold:1000000}") long snapshotThreshold) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.dir = Path.of(dir);
+        this.flushIntervalMs = flushIntervalMs;
+        this.snapshotThreshold = snapshotThreshold;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        long started = System.nanoTime();
+        journal = FileJournal.open(dir, flushIntervalMs, this);
+        log.info("Состояние восстановлено из журнала {} за {} мс", dir.toAbsolutePath(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        filmStorage.setJournal(journal);
+        userStorage.setJournal(journal);
+        scheduler.scheduleWithFixedDelay(this::snapshotIfNeeded, 10, 10, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        scheduler.shutdownNow();
+        filmStorage.setJournal(StorageJournal.NONE);
+        userStorage.setJournal(StorageJournal.NONE);
+        journal.close();
+    }
+
+    public void snapshot() throws IOException {
+        journal.snapshot(this::dump);
+    }
+
+    private void snapshotIfNeeded() {
+        try {
+            if (journal.recordsInSegment() >= snapshotThreshold) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            log.error("Ошибка записи снимка журнала: {}", e.getMessage());
+        }
+    }
+
+    // Выгрузка текущего состояния хранилищ в снимок: пользователи с друзьями, фильмы с лайками
+    private void dump(ColumnarSnapshot.Writer writer) {
+        long afterId = 0;
+        List<User> users;
+        do {
+            users = userStorage.getUsersPage(afterId, PAGE_SIZE);
+            for (User user : users) {
+                writer.user(user, user.getFriends());
+                afterId = user.getId();
+            }
+        } while (users.size() == PAGE_SIZE);
+
+        afterId = 0;
+        List<Film> films;
+        do {
+            films = filmStorage.getFilmsPage(afterId, PAGE_SIZE);
+            for (Film film : films) {
+                writer.film(film, film.getUserLikes());
+                afterId = film.getId();
+            }
+        } while (films.size() == PAGE_SIZE);
+    }
+
+    // Из снимка копируются только ID и связи; остальные поля фильмов и пользователей читаются при обращении
+    @Override
+    public void snapshot(ColumnarSnapshot snapshot) {
+        for (int row = 0; row < snapshot.userCount(); row++) {
+            userStorage.restoreUser(snapshot.user(row), snapshot.friends(row));
+        }
+        for (int row = 0; row < snapshot.filmCount(); row++) {
+            filmStorage.restoreFilm(snapshot.film(row), snapshot.likes(row));
+        }
+        log.info("Загружен снимок журнала: {} пользователей, {} фильмов", snapshot.userCount(), snapshot.filmCount());
+    }
+
+    @Override
+    public void film(Film film) {
+        filmStorage.restoreFilm(film);
+    }
+
+    @Override
+    public void user(User user) {
+        userStorage.restoreUser(user);
+    }
+
+    @Override
+    public void like(long filmId, long userId, boolean added) {
+        try {
+            if (added) {
+                filmStorage.addLike(filmId, userId);
+            } else {
+                filmStorage.deleteLike(filmId, userId);
+            }
+        } catch (NotFoundException e) {
+            log.warn("Журнал: пропущен лайк несуществующему фильму: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void friend(long userId, long friendId, boolean added) {
+        try {
+            if (added) {
+                userStorage.addFriend(userId, friendId);
+            } else {
+                userStorage.deleteFriend(userId, friendId);
+            }
+        } catch (NotFoundException e) {
+            log.warn("Журнал: пропущена дружба с несуществующим пользователем: {}", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/*
+Последовательное чтение записей журнала (см. RecordBuffer).
+Чтение останавливается на первой неполной или поврежденной записи — это "хвост" после аварийного завершения.
+*/
+class JournalReader {
+
+    // Длина тела записи, превышающая этот предел, считается повреждением
+    private static final int MAX_RECORD = 16 * 1024 * 1024;
+
+    interface Handler {
+        // Загрузка колоночного снимка; вызывается до применения сегментов журнала
+        void snapshot(ColumnarSnapshot snapshot);
+
+        void film(Film film);
+
+        void user(User user);
+
+        void like(long filmId, long userId, boolean added);
+
+        void friend(long userId, long friendId, boolean added);
+    }
+
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+    private long bufferStart;
+
+    JournalReader(FileChannel channel, long position) {
+        this.channel = channel;
+        this.bufferStart = position;
+        buffer.limit(0);
+    }
+
+    // Применяет все целые записи и возвращает позицию сразу после последней из них
+    long readAll(Handler handler) throws IOException {
+        while (true) {
+            long recordPosition = bufferStart + buffer.position();
+            if (!fill(5)) {
+                return recordPosition;
+            }
+            int bodyLength = buffer.getInt(buffer.position());
+            if (bodyLength < 0 || bodyLength > MAX_RECORD || !fill(5 + bodyLength + 4)) {
+                return recordPosition;
+            }
+            int start = buffer.position();
+            crc.reset();
+            crc.update(buffer.array(), start + 4, bodyLength + 1);
+            if ((int) crc.getValue() != buffer.getInt(start + 5 + bodyLength)) {
+                return recordPosition;
+            }
+            buffer.position(start + 4);
+            byte type = buffer.get();
+            apply(type, handler);
+            buffer.position(start + 5 + bodyLength + 4);
+        }
+    }
+
+    private void apply(byte type, Handler handler) throws IOException {
+        switch (type) {
+            case RecordBuffer.FILM:
+                Film film = new Film();
+                film.setId(buffer.getLong());
+                film.setName(getString());
+                film.setDescription(getString());
+                film.setReleaseDate(getDate());
+                int duration = buffer.getInt();
+                film.setDuration(duration == RecordBuffer.NO_INT ? null : duration);
+                handler.film(film);
+                break;
+            case RecordBuffer.USER:
+                User user = new User();
+                user.setId(buffer.getLong());
+                user.setEmail(getString());
+                user.setLogin(getString());
+                user.setName(getString());
+                user.setBirthday(getDate());
+                handler.user(user);
+                break;
+            case RecordBuffer.LIKE_ADDED:
+            case RecordBuffer.LIKE_REMOVED:
+                handler.like(buffer.getLong(), buffer.getLong(), type == RecordBuffer.LIKE_ADDED);
+                break;
+            case RecordBuffer.FRIEND_ADDED:
+            case RecordBuffer.FRIEND_REMOVED:
+                handler.friend(buffer.getLong(), buffer.getLong(), type == RecordBuffer.FRIEND_ADDED);
+                break;
+            default:
+                throw new IOException(String.format("Неизвестный тип записи журнала: %d", type));
+        }
+    }
+
+    private String getString() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private LocalDate getDate() {
+        long epochDay = buffer.getLong();
+        return epochDay == RecordBuffer.NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    // Дочитывает файл так, чтобы в буфере было не меньше bytes непрочитанных байт
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        bufferStart += buffer.position();
+        buffer.compact();
+        if (buffer.capacity() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(bytes);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer, bufferStart + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+}
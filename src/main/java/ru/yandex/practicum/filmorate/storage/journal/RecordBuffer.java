@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/*
+Буфер для кодирования записей журнала.
+Формат записи: [int длина тела][byte тип][тело][int CRC32 типа и тела].
+*/
+class RecordBuffer {
+
+    static final byte FILM = 1;
+    static final byte USER = 2;
+    static final byte LIKE_ADDED = 3;
+    static final byte LIKE_REMOVED = 4;
+    static final byte FRIEND_ADDED = 5;
+    static final byte FRIEND_REMOVED = 6;
+
+    // Отсутствующие значения полей
+    static final long NO_DATE = Long.MIN_VALUE;
+    static final int NO_INT = Integer.MIN_VALUE;
+
+    private ByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private int recordStart;
+
+    RecordBuffer() {
+        this(64 * 1024);
+    }
+
+    RecordBuffer(int capacity) {
+        buffer = ByteBuffer.allocate(capacity);
+    }
+
+    void film(Film film) {
+        begin(FILM);
+        putLong(film.getId());
+        putString(film.getName());
+        putString(film.getDescription());
+        putDate(film.getReleaseDate());
+        putInt(film.getDuration() == null ? NO_INT : film.getDuration());
+        end();
+    }
+
+    void user(User user) {
+        begin(USER);
+        putLong(user.getId());
+        putString(user.getEmail());
+        putString(user.getLogin());
+        putString(user.getName());
+        putDate(user.getBirthday());
+        end();
+    }
+
+    void pair(byte type, long first, long second) {
+        begin(type);
+        putLong(first);
+        putLong(second);
+        end();
+    }
+
+    int size() {
+        return buffer.position();
+    }
+
+    boolean isEmpty() {
+        return buffer.position() == 0;
+    }
+
+    void clear() {
+        buffer.clear();
+    }
+
+    // Буфер очищается только после записи всех байт: при ошибке записи его содержимое сохраняется
+    void writeTo(FileChannel channel) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(buffer.array(), 0, buffer.position());
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        buffer.clear();
+    }
+
+    // Дописывает в конец записи из другого буфера
+    void append(RecordBuffer other) {
+        ensure(other.size());
+        buffer.put(other.buffer.array(), 0, other.size());
+    }
+
+    private void begin(byte type) {
+        recordStart = buffer.position();
+        ensure(5);
+        buffer.putInt(0);
+        buffer.put(type);
+    }
+
+    private void end() {
+        int bodyLength = buffer.position() - recordStart - 5;
+        buffer.putInt(recordStart, bodyLength);
+        crc.reset();
+        crc.update(buffer.array(), recordStart + 4, bodyLength + 1);
+        ensure(4);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private void putLong(long value) {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    private void putInt(int value) {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    private void putDate(LocalDate date) {
+        putLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+/*
+Фильм из колоночного снимка: при создании известен только ID, остальные поля читаются
+из отображенного файла при первом обращении к любому из них. После чтения ссылка на снимок освобождается.
+equals/hashCode/toString (Lombok) обращаются к полям через геттеры, поэтому тоже видят прочитанные значения.
+*/
+final class SnapshotFilm extends Film {
+
+    private ColumnarSnapshot snapshot;
+    private final int row;
+    private volatile boolean loaded;
+
+    SnapshotFilm(ColumnarSnapshot snapshot, int row, long id) {
+        this.snapshot = snapshot;
+        this.row = row;
+        setId(id);
+    }
+
+    @Override
+    public String getName() {
+        load();
+        return super.getName();
+    }
+
+    @Override
+    public String getDescription() {
+        load();
+        return super.getDescription();
+    }
+
+    @Override
+    public LocalDate getReleaseDate() {
+        load();
+        return super.getReleaseDate();
+    }
+
+    @Override
+    public Integer getDuration() {
+        load();
+        return super.getDuration();
+    }
+
+    @Override
+    public void setName(String name) {
+        load();
+        super.setName(name);
+    }
+
+    @Override
+    public void setDescription(String description) {
+        load();
+        super.setDescription(description);
+    }
+
+    @Override
+    public void setReleaseDate(LocalDate releaseDate) {
+        load();
+        super.setReleaseDate(releaseDate);
+    }
+
+    @Override
+    public void setDuration(Integer duration) {
+        load();
+        super.setDuration(duration);
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            String[] text = snapshot.filmText(row);
+            super.setName(text[0]);
+            super.setDescription(text[1]);
+            super.setReleaseDate(snapshot.filmReleaseDate(row));
+            super.setDuration(snapshot.filmDuration(row));
+            snapshot = null;
+            loaded = true;
+        }
+    }
+
+}
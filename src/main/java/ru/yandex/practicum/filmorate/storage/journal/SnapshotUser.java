@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+/*
+Пользователь из колоночного снимка: поля, кроме ID, читаются из отображенного файла при первом обращении
+(см. SnapshotFilm).
+*/
+final class SnapshotUser extends User {
+
+    private ColumnarSnapshot snapshot;
+    private final int row;
+    private volatile boolean loaded;
+
+    SnapshotUser(ColumnarSnapshot snapshot, int row, long id) {
+        this.snapshot = snapshot;
+        this.row = row;
+        setId(id);
+    }
+
+    @Override
+    public String getEmail() {
+        load();
+        return super.getEmail();
+    }
+
+    @Override
+    public String getLogin() {
+        load();
+        return super.getLogin();
+    }
+
+    @Override
+    public String getName() {
+        load();
+        return super.getName();
+    }
+
+    @Override
+    public LocalDate getBirthday() {
+        load();
+        return super.getBirthday();
+    }
+
+    @Override
+    public void setEmail(String email) {
+        load();
+        super.setEmail(email);
+    }
+
+    @Override
+    public void setLogin(String login) {
+        load();
+        super.setLogin(login);
+    }
+
+    @Override
+    public void setName(String name) {
+        load();
+        super.setName(name);
+    }
+
+    @Override
+    public void setBirthday(LocalDate birthday) {
+        load();
+        super.setBirthday(birthday);
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            String[] text = snapshot.userText(row);
+            super.setEmail(text[0]);
+            super.setLogin(text[1]);
+            super.setName(text[2]);
+            super.setBirthday(snapshot.userBirthday(row));
+            snapshot = null;
+            loaded = true;
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/*
+Журнал изменений хранилищ в памяти.
+Методы вызываются хранилищем под блокировкой изменяемой сущности, поэтому порядок записей
+по каждой сущности совпадает с порядком применения изменений. Реализация не должна ждать записи на диск.
+*/
+public interface StorageJournal {
+
+    StorageJournal NONE = new StorageJournal() {
+    };
+
+    default void filmSaved(Film film) {
+    }
+
+    default void userSaved(User user) {
+    }
+
+    default void likeChanged(long filmId, long userId, boolean added) {
+    }
+
+    default void friendChanged(long userId, long friendId, boolean added) {
+    }
+
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.storage.reactive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.ToLongFunction;
+
+/*
+Вызовы блокирующих хранилищ и сервисов в реактивном режиме (профиль reactive):
+  - хранилище в памяти не блокирует поток, вызовы выполняются в потоке подписчика (поток Netty);
+  - хранилище в БД блокирует поток на время запроса (filmorate.reactive.offload-storage=true),
+    вызовы переносятся на Schedulers.boundedElastic(), чтобы не занимать потоки Netty;
+  - изменения лайков и дружбы могут ждать подписчиков событий (sync=true, DomainEvents.awaitProcessed)
+    или место в буфере событий (Backpressure.BLOCK) при любом хранилище, поэтому waiting() всегда
+    выполняет вызов на Schedulers.boundedElastic().
+*/
+@Component
+@Profile("reactive")
+public class BlockingCalls {
+
+    @FunctionalInterface
+    public interface PageSource<T> {
+        List<T> page(long afterId, int limit) throws Exception;
+    }
+
+    private final Scheduler scheduler;
+
+    public BlockingCalls(@Value("${filmorate.reactive.offload-storage:false}") boolean offload) {
+        this.scheduler = offload ? Schedulers.boundedElastic() : Schedulers.immediate();
+    }
+
+    // Результат вызова; null — пустой Mono
+    public <T> Mono<T> mono(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    // Как mono(), но вызов, который может ждать (park), всегда переносится с потока Netty
+    public <T> Mono<T> waiting(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public <T> Flux<T> flux(Callable<? extends Iterable<T>> call) {
+        return Mono.fromCallable(call).flatMapIterable(items -> items).subscribeOn(scheduler);
+    }
+
+    /*
+    Весь список страницами по ID (keyset): следующая страница читается из хранилища, только когда подписчик
+    запросил элементы сверх уже прочитанных, поэтому медленный клиент не накапливает список в памяти.
+    */
+    public <T> Flux<T> pages(PageSource<T> source, ToLongFunction<T> idOf, int pageSize) {
+        return Flux.<List<T>, Long>generate(() -> 0L, (afterId, sink) -> {
+                    List<T> page;
+                    try {
+                        page = source.page(afterId, pageSize);
+                    } catch (Exception e) {
+                        sink.error(e);
+                        return afterId;
+                    }
+                    if (!page.isEmpty()) {
+                        sink.next(page);
+                    }
+                    if (page.size() < pageSize) {
+                        sink.complete();
+                    }
+                    return page.isEmpty() ? afterId : idOf.applyAsLong(page.get(page.size() - 1));
+                })
+                .flatMapIterable(page -> page, 1)
+                .subscribeOn(scheduler);
+    }
+
+}
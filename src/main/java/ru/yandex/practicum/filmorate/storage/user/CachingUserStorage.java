@@ -0,0 +1,206 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.Lookup;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+import ru.yandex.practicum.filmorate.storage.cache.EntitySize;
+import ru.yandex.practicum.filmorate.storage.cache.SegmentedLruCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+Кеш пользователей перед хранилищем в БД (filmorate.cache.enabled=true):
+  - getUser/getUsers читают через кеш, отсутствующие в кеше пользователи загружаются одним вызовом getUsers;
+  - addUser/updateUser записывают результат в кеш (write-through);
+  - изменение дружбы сбрасывает из кеша обоих пользователей, т.к. у них изменился список друзей;
+  - кеш хранит и отдает копии; запись через кеш, совпавшая с другим изменением, сбрасывает ключ
+    (см. SegmentedLruCache.put);
+  - списки друзей строятся по закешированным спискам ID друзей.
+Постраничные и полные выборки и списки ID друзей (getFriendIds) идут напрямую в хранилище.
+*/
+@Component
+@Primary
+@Profile("db")
+@ConditionalOnProperty(name = "filmorate.cache.enabled", havingValue = "true")
+public class CachingUserStorage implements UserStorage {
+
+    private final UserStorage storage;
+    private final SegmentedLruCache<User> cache;
+
+    @Autowired
+    public CachingUserStorage(UserDbStorage storage,
+                              @Value("${filmorate.cache.max-entries:100000}") long maxEntries,
+                              @Value("${filmorate.cache.max-bytes:67108864}") long maxBytes) {
+        this((UserStorage) storage, maxEntries, maxBytes);
+    }
+
+    public CachingUserStorage(UserStorage storage, long maxEntries, long maxBytes) {
+        this.storage = storage;
+        this.cache = new SegmentedLruCache<>(maxEntries, maxBytes, EntitySize::of, User::copy);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public List<User> getUsersList() {
+        return storage.getUsersList();
+    }
+
+    @Override
+    public List<User> getUsersPage(long afterId, int limit) {
+        return storage.getUsersPage(afterId, limit);
+    }
+
+    @Override
+    public User addUser(User user) throws ValidationException {
+        long[] stamps = cache.stamps();
+        User added = storage.addUser(user);
+        cache.put(added.getId(), added, stamps);
+        return added;
+    }
+
+    @Override
+    public User updateUser(User user) throws NotFoundException, ValidationException {
+        long stamp = user.getId() == null ? 0 : cache.stamp(user.getId());
+        User updated = storage.updateUser(user);
+        cache.put(updated.getId(), updated, stamp);
+        return updated;
+    }
+
+    @Override
+    public User getUser(Long id) {
+        User user = cache.get(id);
+        if (user != null) {
+            return user;
+        }
+        long stamp = cache.stamp(id);
+        user = storage.getUser(id);
+        if (user != null) {
+            cache.putIfFresh(id, user, stamp);
+        }
+        return user;
+    }
+
+    @Override
+    public boolean containsUser(Long id) {
+        return cache.get(id) != null || storage.containsUser(id);
+    }
+
+    @Override
+    public Lookup<User> getUsers(Collection<Long> ids) {
+        return cache.getAll(ids, storage::getUsers, User::getId);
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) throws NotFoundException {
+        boolean added = storage.addFriend(userId, friendId);
+        if (added) {
+            friendshipChanged(userId, friendId);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean deleteFriend(Long userId, Long friendId) throws NotFoundException {
+        boolean removed = storage.deleteFriend(userId, friendId);
+        if (removed) {
+            friendshipChanged(userId, friendId);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean[] addFriends(Long userId, long[] friendIds) throws NotFoundException {
+        boolean[] changed = storage.addFriends(userId, friendIds);
+        friendshipsChanged(userId, friendIds, changed);
+        return changed;
+    }
+
+    @Override
+    public boolean[] deleteFriends(Long userId, long[] friendIds) throws NotFoundException {
+        boolean[] changed = storage.deleteFriends(userId, friendIds);
+        friendshipsChanged(userId, friendIds, changed);
+        return changed;
+    }
+
+    @Override
+    public List<User> getFriends(Long userId) throws NotFoundException {
+        return getUsers(existingUser(userId).getFriends()).getFound();
+    }
+
+    // Общие друзья по возрастанию ID, как в хранилище
+    @Override
+    public List<User> getCommonFriends(Long userId, Long otherId) throws NotFoundException {
+        Set<Long> friends = existingUser(userId).getFriends();
+        Set<Long> otherFriends = existingUser(otherId).getFriends();
+        if (friends.size() > otherFriends.size()) {
+            Set<Long> swap = friends;
+            friends = otherFriends;
+            otherFriends = swap;
+        }
+        List<Long> common = new ArrayList<>();
+        for (Long id : friends) {
+            if (otherFriends.contains(id)) {
+                common.add(id);
+            }
+        }
+        common.sort(null);
+        return getUsers(common).getFound();
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIds(Collection<Long> userIds) {
+        return storage.getFriendIds(userIds);
+    }
+
+    @Override
+    public long getUsersCount() {
+        return storage.getUsersCount();
+    }
+
+    @Override
+    public long getFriendshipsCount() {
+        return storage.getFriendshipsCount();
+    }
+
+    private User existingUser(Long id) throws NotFoundException {
+        User user = getUser(id);
+        if (user == null) {
+            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
+        }
+        return user;
+    }
+
+    private void friendshipChanged(long userId, long friendId) {
+        cache.invalidate(userId);
+        cache.invalidate(friendId);
+    }
+
+    private void friendshipsChanged(long userId, long[] friendIds, boolean[] changed) {
+        boolean any = false;
+        for (int i = 0; i < friendIds.length; i++) {
+            if (changed[i]) {
+                cache.invalidate(friendIds[i]);
+                any = true;
+            }
+        }
+        if (any) {
+            cache.invalidate(userId);
+        }
+    }
+
+}
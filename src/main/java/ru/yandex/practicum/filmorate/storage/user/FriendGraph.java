@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Граф дружбы в виде списков смежности на примитивах:
+  - для каждого пользователя хранится отсортированный массив long[] с ID друзей (8 байт на ребро
+    вместо ~50 байт на упакованный Long в HashSet);
+  - прочитанный массив не изменяется — это согласованный снимок, который можно отдавать без копирования;
+  - новые друзья сначала попадают в небольшой отсортированный буфер и сливаются с массивом при чтении
+    или при заполнении буфера (размер буфера растет со степенью), поэтому добавление не копирует весь массив;
+  - изменение списка одного пользователя атомарно; согласованность пары (взаимная дружба) обеспечивает вызывающий код.
+*/
+public class FriendGraph {
+
+    private static final long[] NONE = new long[0];
+
+    private final Map<Long, Adjacency> adjacency = new ConcurrentHashMap<>();
+    private final LongAdder edges = new LongAdder();
+
+    public boolean add(long userId, long friendId) {
+        if (!adjacency.computeIfAbsent(userId, id -> new Adjacency(NONE)).add(friendId)) {
+            return false;
+        }
+        edges.increment();
+        return true;
+    }
+
+    // Загрузка списка друзей из снимка. Массив должен быть отсортирован и не должен изменяться после передачи
+    public void load(long userId, long[] sortedFriends) {
+        if (sortedFriends.length > 0) {
+            Adjacency previous = adjacency.put(userId, new Adjacency(sortedFriends));
+            edges.add(sortedFriends.length - (previous == null ? 0 : previous.size()));
+        }
+    }
+
+    public boolean remove(long userId, long friendId) {
+        Adjacency friends = adjacency.get(userId);
+        if (friends == null || !friends.remove(friendId)) {
+            return false;
+        }
+        edges.decrement();
+        return true;
+    }
+
+    // Отсортированный по возрастанию массив ID друзей. Массив изменять нельзя
+    public long[] friends(long userId) {
+        Adjacency friends = adjacency.get(userId);
+        return friends == null ? NONE : friends.snapshot();
+    }
+
+    public int degree(long userId) {
+        Adjacency friends = adjacency.get(userId);
+        return friends == null ? 0 : friends.size();
+    }
+
+    // Общее количество связей (дружба хранится в обе стороны — по связи у каждого из друзей)
+    public long edges() {
+        return edges.sum();
+    }
+
+    /*
+    Друзья одного пользователя: опубликованный отсортированный массив merged и отсортированный буфер pending
+    с добавленными после него ID (их нет в merged). Снимок для чтения — merged, если буфер пуст,
+    иначе буфер сливается с ним. Пустой список остается в графе: удаление записи из карты гонялось бы
+    с добавлением друга в этот же список.
+    */
+    private static final class Adjacency {
+        private static final int MIN_PENDING = 16;
+        private static final int MAX_PENDING = 1024;
+
+        private long[] merged;
+        private long[] pending = NONE;
+        private int pendingCount;
+        // merged, если буфер пуст, иначе null (снимок собирается при чтении)
+        private volatile long[] snapshot;
+        private volatile int size;
+
+        Adjacency(long[] sortedFriends) {
+            merged = sortedFriends;
+            snapshot = sortedFriends;
+            size = sortedFriends.length;
+        }
+
+        synchronized boolean add(long friendId) {
+            if (Arrays.binarySearch(merged, friendId) >= 0) {
+                return false;
+            }
+            int pos = Arrays.binarySearch(pending, 0, pendingCount, friendId);
+            if (pos >= 0) {
+                return false;
+            }
+            if (pendingCount == pending.length) {
+                if (pendingCount >= Math.min(MAX_PENDING, Math.max(MIN_PENDING, merged.length / 8))) {
+                    merge();
+                    pos = -1;
+                }
+                if (pendingCount == pending.length) {
+                    pending = Arrays.copyOf(pending, Math.max(MIN_PENDING / 4, pending.length * 2));
+                }
+            }
+            int insertAt = -pos - 1;
+            System.arraycopy(pending, insertAt, pending, insertAt + 1, pendingCount - insertAt);
+            pending[insertAt] = friendId;
+            pendingCount++;
+            size++;
+            snapshot = null;
+            return true;
+        }
+
+        synchronized boolean remove(long friendId) {
+            int pos = Arrays.binarySearch(pending, 0, pendingCount, friendId);
+            if (pos >= 0) {
+                System.arraycopy(pending, pos + 1, pending, pos, pendingCount - pos - 1);
+                pendingCount--;
+                size--;
+                snapshot = pendingCount == 0 ? merged : null;
+                return true;
+            }
+            pos = Arrays.binarySearch(merged, friendId);
+            if (pos < 0) {
+                return false;
+            }
+            long[] updated = new long[merged.length - 1];
+            System.arraycopy(merged, 0, updated, 0, pos);
+            System.arraycopy(merged, pos + 1, updated, pos, merged.length - pos - 1);
+            merged = updated;
+            size--;
+            if (pendingCount == 0) {
+                snapshot = merged;
+            }
+            return true;
+        }
+
+        long[] snapshot() {
+            long[] current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (pendingCount > 0) {
+                    merge();
+                }
+                return merged;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        // Вызывается под блокировкой: слияние буфера с массивом за один проход, буфер освобождается
+        private void merge() {
+            long[] result = new long[merged.length + pendingCount];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < merged.length && j < pendingCount) {
+                result[k++] = merged[i] < pending[j] ? merged[i++] : pending[j++];
+            }
+            System.arraycopy(merged, i, result, k, merged.length - i);
+            System.arraycopy(pending, j, result, k + merged.length - i, pendingCount - j);
+            merged = result;
+            pending = NONE;
+            pendingCount = 0;
+            snapshot = merged;
+        }
+    }
+
+}
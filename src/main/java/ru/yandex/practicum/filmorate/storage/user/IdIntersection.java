@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import java.util.Arrays;
+
+/*
+Пересечение отсортированных массивов ID (общие друзья):
+  - списки сопоставимого размера — линейное слияние, O(n + m);
+  - если один список намного больше другого — "галопирующий" поиск элементов меньшего списка в большем,
+    O(n * log(m / n)), без просмотра всего большого списка.
+*/
+public final class IdIntersection {
+
+    // Во сколько раз больший список должен превосходить меньший, чтобы выгоднее был галопирующий поиск
+    static final int GALLOP_RATIO = 16;
+
+    private IdIntersection() {
+    }
+
+    public static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            return intersect(b, a);
+        }
+        if (a.length == 0) {
+            return a;
+        }
+        return (long) a.length * GALLOP_RATIO < b.length ? gallop(a, b) : merge(a, b);
+    }
+
+    static long[] merge(long[] small, long[] large) {
+        long[] result = new long[small.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < small.length && j < large.length) {
+            long x = small[i];
+            long y = large[j];
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                result[count++] = x;
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    static long[] gallop(long[] small, long[] large) {
+        long[] result = new long[small.length];
+        int count = 0;
+        int from = 0;
+        for (long x : small) {
+            // Экспоненциально расширяем окно, пока не перешагнем x, затем ищем в нем двоичным поиском
+            int step = 1;
+            int to = from;
+            while (to < large.length && large[to] < x) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int pos = Arrays.binarySearch(large, from, Math.min(to + 1, large.length), x);
+            if (pos >= 0) {
+                result[count++] = x;
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+}
@@ -1,50 +1,277 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LongArraySet;
+import ru.yandex.practicum.filmorate.storage.Lookup;
+import ru.yandex.practicum.filmorate.storage.StripedLock;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
-public class InMemoryUserStorage implements UserStorage {
+@Profile("!db")
+@ConditionalOnProperty(name = "filmorate.storage.sharded", havingValue = "false", matchIfMissing = true)
+public class InMemoryUserStorage implements JournaledUserStorage {
 
-    private Long lastId;
-    final Map<Long, User> usersList;
+    private final AtomicLong lastId;
+    final NavigableMap<Long, User> usersList;
+    // Количество пользователей: size() у ConcurrentSkipListMap — O(n), а счетчик читают метрики при каждом опросе
+    private final LongAdder usersCount = new LongAdder();
+    private final FriendGraph friends;
+    private final StripedLock locks;
+    private volatile StorageJournal journal = StorageJournal.NONE;
 
     public InMemoryUserStorage() {
-        lastId = 0L;
-        usersList = new HashMap<>();
+        lastId = new AtomicLong();
+        usersList = new ConcurrentSkipListMap<>();
+        friends = new FriendGraph();
+        locks = new StripedLock(64);
+    }
+
+    @Override
+    public void setJournal(StorageJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public void restoreUser(User user) {
+        lastId.accumulateAndGet(user.getId(), Math::max);
+        if (usersList.put(user.getId(), user) == null) {
+            usersCount.increment();
+        }
+    }
+
+    @Override
+    public void restoreUser(User user, long[] friendIds) {
+        restoreUser(user);
+        friends.load(user.getId(), friendIds);
     }
 
     @Override
     public List<User> getUsersList() {
-        return new ArrayList<>(usersList.values());
+        List<User> users = new ArrayList<>();
+        for (User user : usersList.values()) {
+            users.add(withFriends(user));
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> getUsersPage(long afterId, int limit) {
+        List<User> users = new ArrayList<>(limit);
+        for (User user : usersList.tailMap(afterId, false).values()) {
+            if (users.size() >= limit) {
+                break;
+            }
+            users.add(withFriends(user));
+        }
+        return users;
     }
 
     @Override
     public User addUser(User user) {
-        user.setId(++lastId);
-        usersList.put(user.getId(), user);
+        return addUser(user, lastId.incrementAndGet());
+    }
+
+    // Добавление пользователя с ID, выданным ShardedUserStorage
+    User addUser(User user, long id) {
+        user.setId(id);
+        user.setFriends(Set.of());
+        User stored = user.copy();
+        locks.lock(id);
+        try {
+            if (usersList.put(id, stored) == null) {
+                usersCount.increment();
+            }
+            journal.userSaved(stored);
+        } finally {
+            locks.unlock(id);
+        }
         return user;
     }
 
     @Override
     public User updateUser(User user) throws NotFoundException {
-        if (!usersList.containsKey(user.getId())) {
-            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", user.getId()));
+        Long id = user.getId();
+        if (id == null) {
+            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
         }
-
-        usersList.put(user.getId(), user);
-        return user;
+        User stored = user.copy();
+        locks.lock(id);
+        try {
+            if (usersList.replace(id, stored) == null) {
+                throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
+            }
+            journal.userSaved(stored);
+        } finally {
+            locks.unlock(id);
+        }
+        return withFriends(stored);
     }
 
     @Override
     public User getUser(Long id) {
-        return usersList.get(id);
+        User user = usersList.get(id);
+        return user == null ? null : withFriends(user);
+    }
+
+    @Override
+    public boolean containsUser(Long id) {
+        return usersList.containsKey(id);
+    }
+
+    @Override
+    public Lookup<User> getUsers(Collection<Long> ids) {
+        return Lookup.of(ids, this::getUser);
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) throws NotFoundException {
+        locks.lock(userId, friendId);
+        try {
+            checkUserExists(userId);
+            checkUserExists(friendId);
+            boolean added = friends.add(userId, friendId);
+            added |= friends.add(friendId, userId);
+            if (added) {
+                journal.friendChanged(userId, friendId, true);
+            }
+            return added;
+        } finally {
+            locks.unlock(userId, friendId);
+        }
+    }
+
+    @Override
+    public boolean deleteFriend(Long userId, Long friendId) throws NotFoundException {
+        locks.lock(userId, friendId);
+        try {
+            checkUserExists(userId);
+            checkUserExists(friendId);
+            boolean removed = friends.remove(userId, friendId);
+            removed |= friends.remove(friendId, userId);
+            if (removed) {
+                journal.friendChanged(userId, friendId, false);
+            }
+            return removed;
+        } finally {
+            locks.unlock(userId, friendId);
+        }
+    }
+
+    @Override
+    public boolean[] addFriends(Long userId, long[] friendIds) throws NotFoundException {
+        checkUserExists(userId);
+        for (long friendId : friendIds) {
+            checkUserExists(friendId);
+        }
+        boolean[] changed = new boolean[friendIds.length];
+        for (int i = 0; i < friendIds.length; i++) {
+            changed[i] = addFriend(userId, friendIds[i]);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean[] deleteFriends(Long userId, long[] friendIds) throws NotFoundException {
+        checkUserExists(userId);
+        for (long friendId : friendIds) {
+            checkUserExists(friendId);
+        }
+        boolean[] changed = new boolean[friendIds.length];
+        for (int i = 0; i < friendIds.length; i++) {
+            changed[i] = deleteFriend(userId, friendIds[i]);
+        }
+        return changed;
+    }
+
+    @Override
+    public List<User> getFriends(Long userId) throws NotFoundException {
+        checkUserExists(userId);
+        return getUsers(friends.friends(userId));
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long userId, Long otherId) throws NotFoundException {
+        checkUserExists(userId);
+        checkUserExists(otherId);
+        return getUsers(IdIntersection.intersect(friends.friends(userId), friends.friends(otherId)));
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIds(Collection<Long> userIds) {
+        Map<Long, long[]> result = new HashMap<>();
+        for (Long userId : userIds) {
+            long[] ids = friends.friends(userId);
+            if (ids.length > 0) {
+                result.put(userId, ids);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getUsersCount() {
+        return usersCount.sum();
+    }
+
+    @Override
+    public long getFriendshipsCount() {
+        return friends.edges() / 2;
+    }
+
+    // Пользователи с указанными ID за один проход; отсутствующие ID пропускаются
+    private List<User> getUsers(long[] ids) {
+        List<User> users = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            User user = usersList.get(id);
+            if (user != null) {
+                users.add(withFriends(user));
+            }
+        }
+        return users;
+    }
+
+    /*
+    Для ShardedUserStorage: друзья пользователей разных шардов хранятся в шарде каждого из них,
+    поэтому связь меняется по одной стороне; согласованность пары и запись в журнал — на вызывающем коде.
+    */
+    boolean changeFriend(long userId, long friendId, boolean added) {
+        return added ? friends.add(userId, friendId) : friends.remove(userId, friendId);
+    }
+
+    long[] friendIds(long userId) {
+        return friends.friends(userId);
+    }
+
+    long friendEdges() {
+        return friends.edges();
+    }
+
+    private void checkUserExists(Long id) throws NotFoundException {
+        if (!usersList.containsKey(id)) {
+            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
+        }
+    }
+
+    // Копия хранимого пользователя с актуальным снимком друзей (см. InMemoryFilmStorage.withLikes)
+    User withFriends(User user) {
+        User copy = user.copy();
+        copy.setFriends(LongArraySet.of(friends.friends(user.getId())));
+        return copy;
     }
 
 }
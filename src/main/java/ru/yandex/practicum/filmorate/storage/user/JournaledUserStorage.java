@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+
+// Хранилище пользователей в памяти, изменения которого пишутся в журнал и восстанавливаются из него
+// (см. JournalManager)
+public interface JournaledUserStorage extends UserStorage {
+
+    void setJournal(StorageJournal journal);
+
+    // Восстановление пользователя с сохраненным ID (из журнала), без записи в журнал
+    void restoreUser(User user);
+
+    // Восстановление пользователя вместе со списком друзей (из снимка журнала); массив должен быть отсортирован
+    void restoreUser(User user, long[] friendIds);
+
+}
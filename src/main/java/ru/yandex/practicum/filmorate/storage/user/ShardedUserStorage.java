@@ -0,0 +1,238 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.Lookup;
+import ru.yandex.practicum.filmorate.storage.ShardMerge;
+import ru.yandex.practicum.filmorate.storage.StripedLock;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/*
+Хранилище пользователей в памяти, разделенное на шарды по ID (filmorate.storage.sharded=true):
+  - пользователь с ID id и его список друзей хранятся в шарде (id - 1) % shards (InMemoryUserStorage).
+    Общий только счетчик ID: ID выдаются подряд, подряд добавленные пользователи попадают в разные шарды;
+  - дружба пользователей разных шардов записывается в шард каждого из них. Пара меняется под блокировками
+    обоих пользователей (StripedLock по ID, как в InMemoryUserStorage), поэтому стороны дружбы согласованы;
+  - полный список запрашивается у шардов параллельно (общий ForkJoinPool) и сливается по ID (ShardMerge),
+    страница по ID — слиянием обходов каталогов шардов, друзья подставляются только в пользователей страницы.
+*/
+@Component
+@Profile("!db")
+@ConditionalOnProperty(name = "filmorate.storage.sharded", havingValue = "true")
+public class ShardedUserStorage implements JournaledUserStorage {
+
+    private static final Comparator<User> BY_ID = Comparator.comparingLong(User::getId);
+
+    private final AtomicLong lastId = new AtomicLong();
+    private final InMemoryUserStorage[] shards;
+    private final StripedLock locks;
+    private volatile StorageJournal journal = StorageJournal.NONE;
+
+    public ShardedUserStorage(@Value("${filmorate.storage.shards:16}") int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Количество шардов должно быть положительным: " + shards);
+        }
+        this.shards = new InMemoryUserStorage[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new InMemoryUserStorage();
+        }
+        locks = new StripedLock(64 * shards);
+    }
+
+    // Пользователей пишут в журнал шарды, дружбу — это хранилище (шарды меняют только одну ее сторону)
+    @Override
+    public void setJournal(StorageJournal journal) {
+        this.journal = journal;
+        for (InMemoryUserStorage shard : shards) {
+            shard.setJournal(journal);
+        }
+    }
+
+    @Override
+    public void restoreUser(User user) {
+        lastId.accumulateAndGet(user.getId(), Math::max);
+        shard(user.getId()).restoreUser(user);
+    }
+
+    @Override
+    public void restoreUser(User user, long[] friendIds) {
+        lastId.accumulateAndGet(user.getId(), Math::max);
+        shard(user.getId()).restoreUser(user, friendIds);
+    }
+
+    @Override
+    public List<User> getUsersList() {
+        List<Iterator<User>> sources = Arrays.stream(shards).parallel()
+                .map(shard -> shard.getUsersList().iterator())
+                .collect(Collectors.toList());
+        return ShardMerge.merge(sources, BY_ID, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> getUsersPage(long afterId, int limit) {
+        List<Iterator<User>> sources = new ArrayList<>(shards.length);
+        for (InMemoryUserStorage shard : shards) {
+            sources.add(shard.usersList.tailMap(afterId, false).values().iterator());
+        }
+        return ShardMerge.merge(sources, BY_ID, 0, limit, user -> shard(user.getId()).withFriends(user));
+    }
+
+    @Override
+    public User addUser(User user) {
+        long id = lastId.incrementAndGet();
+        return shard(id).addUser(user, id);
+    }
+
+    @Override
+    public User updateUser(User user) throws NotFoundException {
+        Long id = user.getId();
+        if (id == null) {
+            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
+        }
+        return shard(id).updateUser(user);
+    }
+
+    @Override
+    public User getUser(Long id) {
+        return shard(id).getUser(id);
+    }
+
+    @Override
+    public boolean containsUser(Long id) {
+        return shard(id).containsUser(id);
+    }
+
+    @Override
+    public Lookup<User> getUsers(Collection<Long> ids) {
+        return Lookup.of(ids, this::getUser);
+    }
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) throws NotFoundException {
+        return changeFriend(userId, friendId, true);
+    }
+
+    @Override
+    public boolean deleteFriend(Long userId, Long friendId) throws NotFoundException {
+        return changeFriend(userId, friendId, false);
+    }
+
+    @Override
+    public boolean[] addFriends(Long userId, long[] friendIds) throws NotFoundException {
+        return changeFriends(userId, friendIds, true);
+    }
+
+    @Override
+    public boolean[] deleteFriends(Long userId, long[] friendIds) throws NotFoundException {
+        return changeFriends(userId, friendIds, false);
+    }
+
+    @Override
+    public List<User> getFriends(Long userId) throws NotFoundException {
+        checkUserExists(userId);
+        return getUsers(shard(userId).friendIds(userId));
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long userId, Long otherId) throws NotFoundException {
+        checkUserExists(userId);
+        checkUserExists(otherId);
+        return getUsers(IdIntersection.intersect(shard(userId).friendIds(userId), shard(otherId).friendIds(otherId)));
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIds(Collection<Long> userIds) {
+        Map<Long, long[]> result = new HashMap<>();
+        for (Long userId : userIds) {
+            long[] ids = shard(userId).friendIds(userId);
+            if (ids.length > 0) {
+                result.put(userId, ids);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getUsersCount() {
+        long count = 0;
+        for (InMemoryUserStorage shard : shards) {
+            count += shard.getUsersCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getFriendshipsCount() {
+        long edges = 0;
+        for (InMemoryUserStorage shard : shards) {
+            edges += shard.friendEdges();
+        }
+        return edges / 2;
+    }
+
+    private boolean changeFriend(long userId, long friendId, boolean added) throws NotFoundException {
+        locks.lock(userId, friendId);
+        try {
+            checkUserExists(userId);
+            checkUserExists(friendId);
+            boolean changed = shard(userId).changeFriend(userId, friendId, added);
+            changed |= shard(friendId).changeFriend(friendId, userId, added);
+            if (changed) {
+                journal.friendChanged(userId, friendId, added);
+            }
+            return changed;
+        } finally {
+            locks.unlock(userId, friendId);
+        }
+    }
+
+    private boolean[] changeFriends(long userId, long[] friendIds, boolean added) throws NotFoundException {
+        checkUserExists(userId);
+        for (long friendId : friendIds) {
+            checkUserExists(friendId);
+        }
+        boolean[] changed = new boolean[friendIds.length];
+        for (int i = 0; i < friendIds.length; i++) {
+            changed[i] = changeFriend(userId, friendIds[i], added);
+        }
+        return changed;
+    }
+
+    // Пользователи с указанными ID, каждый из своего шарда; отсутствующие ID пропускаются
+    private List<User> getUsers(long[] ids) {
+        List<User> users = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            User user = getUser(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private void checkUserExists(Long id) throws NotFoundException {
+        if (!containsUser(id)) {
+            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
+        }
+    }
+
+    private InMemoryUserStorage shard(long id) {
+        return shards[(int) Math.floorMod(id - 1, (long) shards.length)];
+    }
+
+}
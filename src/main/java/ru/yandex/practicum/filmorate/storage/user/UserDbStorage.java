@@ -0,0 +1,239 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.DbRelations;
+import ru.yandex.practicum.filmorate.storage.LongArraySet;
+import ru.yandex.practicum.filmorate.storage.Lookup;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+@Profile("db")
+public class UserDbStorage implements UserStorage {
+
+    private static final String SELECT_USER = "SELECT u.id, u.email, u.login, u.name, u.birthday FROM users AS u ";
+    private static final String SELECT_USERS_WITH_FRIENDS =
+            "SELECT u.id, f.friend_id, u.email, u.login, u.name, u.birthday FROM users AS u "
+                    + "LEFT JOIN friends AS f ON f.user_id = u.id WHERE u.id IN (:ids) ORDER BY u.id, f.friend_id";
+    private static final String INSERT_FRIEND =
+            "INSERT INTO friends (user_id, friend_id) SELECT ?, ? FROM DUAL "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM friends WHERE user_id = ? AND friend_id = ?)";
+    private static final String DELETE_FRIEND = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final SimpleJdbcInsert userInsert;
+
+    public UserDbStorage(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.userInsert = new SimpleJdbcInsert(jdbc)
+                .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    @Override
+    public List<User> getUsersList() {
+        List<User> users = jdbc.query(SELECT_USER + "ORDER BY u.id", this::mapUser);
+        Map<Long, long[]> friends = DbRelations.load(namedJdbc,
+                "SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id");
+        users.forEach(user -> user.setFriends(LongArraySet.of(friends.get(user.getId()))));
+        return users;
+    }
+
+    @Override
+    public List<User> getUsersPage(long afterId, int limit) {
+        return withFriends(jdbc.query(SELECT_USER + "WHERE u.id > ? ORDER BY u.id LIMIT ?",
+                this::mapUser, afterId, limit));
+    }
+
+    @Override
+    public User addUser(User user) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("email", user.getEmail());
+        values.put("login", user.getLogin());
+        values.put("name", user.getName());
+        values.put("birthday", user.getBirthday() == null ? null : Date.valueOf(user.getBirthday()));
+        user.setId(userInsert.executeAndReturnKey(values).longValue());
+        user.setFriends(LongArraySet.of(null));
+        return user;
+    }
+
+    @Override
+    public User updateUser(User user) throws NotFoundException {
+        int updated = jdbc.update("UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?",
+                user.getEmail(), user.getLogin(), user.getName(),
+                user.getBirthday() == null ? null : Date.valueOf(user.getBirthday()), user.getId());
+        if (updated == 0) {
+            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", user.getId()));
+        }
+        return getUser(user.getId());
+    }
+
+    @Override
+    public User getUser(Long id) {
+        List<User> users = withFriends(jdbc.query(SELECT_USER + "WHERE u.id = ?", this::mapUser, id));
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    @Override
+    public boolean containsUser(Long id) {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public Lookup<User> getUsers(Collection<Long> ids) {
+        Map<Long, User> found = DbRelations.loadWithRelations(namedJdbc, SELECT_USERS_WITH_FRIENDS, ids,
+                this::mapUser, (user, friends) -> user.setFriends(LongArraySet.of(friends)));
+        return Lookup.of(ids, found::get);
+    }
+
+    @Override
+    @Transactional
+    public boolean addFriend(Long userId, Long friendId) throws NotFoundException {
+        return addFriends(userId, new long[] {friendId})[0];
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteFriend(Long userId, Long friendId) throws NotFoundException {
+        return deleteFriends(userId, new long[] {friendId})[0];
+    }
+
+    // Дружба взаимная, поэтому на каждого друга в пакет попадают две строки
+    @Override
+    @Transactional
+    public boolean[] addFriends(Long userId, long[] friendIds) throws NotFoundException {
+        lockUsers(userId, friendIds);
+        List<Object[]> args = new ArrayList<>(friendIds.length * 2);
+        for (long friendId : friendIds) {
+            args.add(new Object[] {userId, friendId, userId, friendId});
+            args.add(new Object[] {friendId, userId, friendId, userId});
+        }
+        return pairsChanged(jdbc.batchUpdate(INSERT_FRIEND, args));
+    }
+
+    @Override
+    @Transactional
+    public boolean[] deleteFriends(Long userId, long[] friendIds) throws NotFoundException {
+        lockUsers(userId, friendIds);
+        List<Object[]> args = new ArrayList<>(friendIds.length * 2);
+        for (long friendId : friendIds) {
+            args.add(new Object[] {userId, friendId});
+            args.add(new Object[] {friendId, userId});
+        }
+        return pairsChanged(jdbc.batchUpdate(DELETE_FRIEND, args));
+    }
+
+    @Override
+    public List<User> getFriends(Long userId) throws NotFoundException {
+        checkUserExists(userId);
+        return withFriends(jdbc.query(SELECT_USER
+                        + "JOIN friends AS f ON f.friend_id = u.id WHERE f.user_id = ? ORDER BY u.id",
+                this::mapUser, userId));
+    }
+
+    @Override
+    public List<User> getCommonFriends(Long userId, Long otherId) throws NotFoundException {
+        checkUserExists(userId);
+        checkUserExists(otherId);
+        return withFriends(jdbc.query(SELECT_USER
+                        + "JOIN friends AS f1 ON f1.friend_id = u.id "
+                        + "JOIN friends AS f2 ON f2.friend_id = u.id "
+                        + "WHERE f1.user_id = ? AND f2.user_id = ? ORDER BY u.id",
+                this::mapUser, userId, otherId));
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIds(Collection<Long> userIds) {
+        return DbRelations.load(namedJdbc,
+                "SELECT user_id, friend_id FROM friends WHERE user_id IN (:ids) ORDER BY user_id, friend_id", userIds);
+    }
+
+    @Override
+    public long getUsersCount() {
+        return count("SELECT COUNT(*) FROM users");
+    }
+
+    // Дружба хранится в обе стороны: по строке на каждого из друзей
+    @Override
+    public long getFriendshipsCount() {
+        return count("SELECT COUNT(*) FROM friends") / 2;
+    }
+
+    private long count(String sql) {
+        Long count = jdbc.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private boolean[] pairsChanged(int[] counts) {
+        boolean[] changed = new boolean[counts.length / 2];
+        for (int i = 0; i < changed.length; i++) {
+            changed[i] = counts[2 * i] > 0 || counts[2 * i + 1] > 0;
+        }
+        return changed;
+    }
+
+    private void checkUserExists(Long id) throws NotFoundException {
+        if (!containsUser(id)) {
+            throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
+        }
+    }
+
+    // Проверяет наличие пользователей и блокирует их строки до конца транзакции (в порядке ID,
+    // чтобы встречные запросы не блокировали друг друга)
+    private void lockUsers(Long userId, long[] otherIds) throws NotFoundException {
+        List<Long> ids = new ArrayList<>(otherIds.length + 1);
+        ids.add(userId);
+        for (long id : otherIds) {
+            ids.add(id);
+        }
+        Set<Long> found = new HashSet<>(namedJdbc.queryForList(
+                "SELECT id FROM users WHERE id IN (:ids) ORDER BY id FOR UPDATE", Map.of("ids", ids), Long.class));
+        for (Long id : ids) {
+            if (!found.contains(id)) {
+                throw new NotFoundException(String.format("Пользователь с указанным ID (%d) не найден", id));
+            }
+        }
+    }
+
+    // Подставляет в пользователей снимки друзей, загруженные одним запросом
+    private List<User> withFriends(List<User> users) {
+        Map<Long, long[]> friends = DbRelations.load(namedJdbc,
+                "SELECT user_id, friend_id FROM friends WHERE user_id IN (:ids) ORDER BY user_id, friend_id",
+                users.stream().map(User::getId).collect(Collectors.toList()));
+        users.forEach(user -> user.setFriends(LongArraySet.of(friends.get(user.getId()))));
+        return users;
+    }
+
+    private User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        Date birthday = rs.getDate("birthday");
+        user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+        return user;
+    }
+
+}
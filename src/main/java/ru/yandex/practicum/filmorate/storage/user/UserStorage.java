@@ -3,17 +3,53 @@ package ru.yandex.practicum.filmorate.storage.user;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.Lookup;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface UserStorage {
 
     List<User> getUsersList();
 
+    // Не более limit пользователей с ID больше afterId, по возрастанию ID
+    List<User> getUsersPage(long afterId, int limit);
+
     User addUser(User user) throws ValidationException;
 
     User updateUser(User user) throws NotFoundException, ValidationException;
 
     User getUser(Long id);
 
+    // Есть ли пользователь с указанным ID — без копии пользователя и его друзей
+    boolean containsUser(Long id);
+
+    // Пользователи с указанными ID за одно обращение к хранилищу: найденные и отсутствующие ID (см. Lookup)
+    Lookup<User> getUsers(Collection<Long> ids);
+
+    // Дружба взаимная: связь добавляется (удаляется) у обоих пользователей сразу.
+    // Возвращает true, если связь изменилась
+    boolean addFriend(Long userId, Long friendId) throws NotFoundException;
+
+    boolean deleteFriend(Long userId, Long friendId) throws NotFoundException;
+
+    // Пакетные варианты addFriend/deleteFriend для одного пользователя: для каждого друга — изменилась ли связь
+    boolean[] addFriends(Long userId, long[] friendIds) throws NotFoundException;
+
+    boolean[] deleteFriends(Long userId, long[] friendIds) throws NotFoundException;
+
+    List<User> getFriends(Long userId) throws NotFoundException;
+
+    List<User> getCommonFriends(Long userId, Long otherId) throws NotFoundException;
+
+    // Отсортированные по возрастанию ID друзей указанных пользователей за одно обращение к хранилищу.
+    // Пользователей без друзей и отсутствующих в результате нет; массивы изменять нельзя
+    Map<Long, long[]> getFriendIds(Collection<Long> userIds);
+
+    // Количество пользователей и пар друзей (для метрик)
+    long getUsersCount();
+
+    long getFriendshipsCount();
+
 }
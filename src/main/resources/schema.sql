@@ -0,0 +1,41 @@
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+-- likes_count дублирует количество строк в user_film и поддерживается вместе с ними,
+-- чтобы список популярных фильмов читался по индексу, а не подсчетом по всем лайкам
+CREATE TABLE IF NOT EXISTS film (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE,
+    duration     INTEGER,
+    likes_count  INTEGER NOT NULL DEFAULT 0
+);
+
+-- Столбцы, добавленные после создания таблиц, добавляются отдельно: CREATE TABLE IF NOT EXISTS
+-- не меняет таблицу в уже существующей файловой БД (профиль db)
+
+-- name_lower — название в нижнем регистре для поиска по началу названия по индексу
+ALTER TABLE film ADD COLUMN IF NOT EXISTS name_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(name));
+
+CREATE INDEX IF NOT EXISTS film_popularity_idx ON film (likes_count DESC, id);
+CREATE INDEX IF NOT EXISTS film_release_date_idx ON film (release_date, id);
+CREATE INDEX IF NOT EXISTS film_duration_idx ON film (duration, id);
+CREATE INDEX IF NOT EXISTS film_name_idx ON film (name_lower, id);
+
+CREATE TABLE IF NOT EXISTS user_film (
+    film_id BIGINT NOT NULL REFERENCES film (id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS friends (
+    user_id   BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
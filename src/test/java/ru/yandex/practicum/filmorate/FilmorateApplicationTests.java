@@ -1,13 +1,292 @@
 package ru.yandex.practicum.filmorate;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.codec.BinaryFormats;
+import ru.yandex.practicum.filmorate.codec.CborHttpMessageConverter;
+import ru.yandex.practicum.filmorate.codec.FilmSerializer;
+import ru.yandex.practicum.filmorate.codec.SmileHttpMessageConverter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 class FilmorateApplicationTests {
 
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private HttpMessageConverters converters;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void searchFilms_bindsQueryParameters() throws Exception {
+		mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Search Me\",\"releaseDate\":\"1990-06-15\",\"duration\":95}"))
+				.andExpect(status().isOk());
+
+		mvc.perform(get("/films/search?namePrefix=search&releasedFrom=1990-06-15&releasedTo=1990-06-15"
+						+ "&maxDuration=95&order=POPULARITY&limit=5"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].name").value("Search Me"));
+		mvc.perform(get("/films/search?releasedFrom=1990-06-15&releasedTo=1990-01-01"))
+				.andExpect(status().isBadRequest());
+		mvc.perform(get("/films/search?limit=0")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void getTrending_returnsLikedFilms() throws Exception {
+		String film = mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Trending\",\"releaseDate\":\"2020-01-01\",\"duration\":90}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String user = mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"email\":\"trend@mail.ru\",\"login\":\"trend\",\"birthday\":\"2000-01-01\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		long filmId = JsonPath.<Number>read(film, "$.id").longValue();
+		long userId = JsonPath.<Number>read(user, "$.id").longValue();
+		mvc.perform(put("/films/" + filmId + "/like/" + userId + "?sync=true")).andExpect(status().isOk());
+
+		mvc.perform(get("/films/trending?window=hour&count=1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(filmId));
+		mvc.perform(get("/films/trending?window=decayed"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(filmId));
+		mvc.perform(get("/films/trending?window=month")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void getPopular_rejectsCountOutOfRange() throws Exception {
+		for (String count : List.of("-1", "0", "1001")) {
+			mvc.perform(get("/films/popular?count=" + count)).andExpect(status().isBadRequest());
+			mvc.perform(get("/films/popular?count=" + count).accept(BinaryFormats.SMILE))
+					.andExpect(status().isBadRequest());
+		}
+	}
+
+	@Test
+	void getRecommendations_returnsFriendsOfFriends() throws Exception {
+		long[] ids = new long[3];
+		for (int i = 0; i < ids.length; i++) {
+			String user = mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"email\":\"rec@mail.ru\",\"login\":\"rec\",\"birthday\":\"2000-01-01\"}"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			ids[i] = JsonPath.<Number>read(user, "$.id").longValue();
+		}
+		mvc.perform(put("/users/" + ids[0] + "/friends/" + ids[1] + "?sync=true")).andExpect(status().isOk());
+		mvc.perform(put("/users/" + ids[1] + "/friends/" + ids[2] + "?sync=true")).andExpect(status().isOk());
+
+		mvc.perform(get("/users/" + ids[0] + "/recommendations?limit=5"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(ids[2]));
+		mvc.perform(get("/users/" + ids[0] + "/recommendations?limit=0")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void getSimilar_returnsFilmsLikedBySameUsers() throws Exception {
+		long[] filmIds = new long[2];
+		for (int i = 0; i < filmIds.length; i++) {
+			String film = mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"name\":\"Similar\",\"releaseDate\":\"2020-01-01\",\"duration\":90}"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			filmIds[i] = JsonPath.<Number>read(film, "$.id").longValue();
+		}
+		long[] userIds = new long[2];
+		for (int i = 0; i < userIds.length; i++) {
+			String user = mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"email\":\"sim@mail.ru\",\"login\":\"sim\",\"birthday\":\"2000-01-01\"}"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			userIds[i] = JsonPath.<Number>read(user, "$.id").longValue();
+		}
+		mvc.perform(put("/films/" + filmIds[0] + "/like/" + userIds[0] + "?sync=true")).andExpect(status().isOk());
+		mvc.perform(put("/films/" + filmIds[1] + "/like/" + userIds[0] + "?sync=true")).andExpect(status().isOk());
+		mvc.perform(put("/films/" + filmIds[0] + "/like/" + userIds[1] + "?sync=true")).andExpect(status().isOk());
+
+		mvc.perform(get("/films/" + filmIds[0] + "/similar"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(filmIds[1]));
+		mvc.perform(get("/films/recommendations?userId=" + userIds[1]))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(filmIds[1]));
+		mvc.perform(get("/films/" + filmIds[0] + "/similar?count=0")).andExpect(status().isBadRequest());
+	}
+
+	// Выгрузка пишется страницами по PAGE_SIZE (500): пользователей больше страницы, результат совпадает со списком
+	@Test
+	void exportUsers_streamsAllPages() throws Exception {
+		for (int i = 0; i < 501; i++) {
+			String user = "{\"email\":\"export@mail.ru\",\"login\":\"export" + i + "\",\"birthday\":\"2000-01-01\"}";
+			mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(user))
+					.andExpect(status().isOk());
+		}
+		List<User> users = objectMapper.readValue(mvc.perform(get("/users"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(), new TypeReference<List<User>>() { });
+		assertTrue(users.size() > 500);
+
+		MockHttpServletResponse json = export("/users/export");
+		assertEquals("application/json", json.getContentType());
+		assertEquals(users, objectMapper.readValue(json.getContentAsString(), new TypeReference<List<User>>() { }));
+
+		MockHttpServletResponse ndjson = export("/users/export?format=ndjson");
+		assertEquals("application/x-ndjson", ndjson.getContentType());
+		String[] lines = ndjson.getContentAsString().split("\n");
+		assertEquals(users.size(), lines.length);
+		for (int i = 0; i < lines.length; i++) {
+			assertEquals(users.get(i), objectMapper.readValue(lines[i], User.class));
+		}
+		mvc.perform(get("/users/export?format=xml")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void exportFilms_streamsJsonAndNdjson() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"name\":\"Export " + i + "\",\"releaseDate\":\"2010-01-01\",\"duration\":90}"))
+					.andExpect(status().isOk());
+		}
+		List<Film> films = objectMapper.readValue(mvc.perform(get("/films"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(), new TypeReference<List<Film>>() { });
+
+		assertEquals(films, objectMapper.readValue(export("/films/export").getContentAsString(),
+				new TypeReference<List<Film>>() { }));
+		String[] lines = export("/films/export?format=NDJSON").getContentAsString().split("\n");
+		assertEquals(films.size(), lines.length);
+		assertEquals(films.get(films.size() - 1), objectMapper.readValue(lines[lines.length - 1], Film.class));
+		mvc.perform(get("/films/export?format=csv")).andExpect(status().isBadRequest());
+	}
+
+	// Страница — не более limit пользователей с ID больше afterId
+	@Test
+	void getUsers_pagesByIdBoundaries() throws Exception {
+		long[] ids = new long[3];
+		for (int i = 0; i < ids.length; i++) {
+			String user = mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"email\":\"page@mail.ru\",\"login\":\"page\",\"birthday\":\"2000-01-01\"}"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			ids[i] = JsonPath.<Number>read(user, "$.id").longValue();
+		}
+
+		mvc.perform(get("/users?afterId=" + (ids[0] - 1) + "&limit=2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].id").value(ids[0]))
+				.andExpect(jsonPath("$[1].id").value(ids[1]));
+		mvc.perform(get("/users?afterId=" + ids[1] + "&limit=2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(ids[2]));
+		mvc.perform(get("/users?afterId=" + ids[2]))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+		mvc.perform(get("/users?limit=1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(1));
+		mvc.perform(get("/users?afterId=0&limit=1000")).andExpect(status().isOk());
+		mvc.perform(get("/users?afterId=0&limit=1001")).andExpect(status().isBadRequest());
+		mvc.perform(get("/users?limit=0")).andExpect(status().isBadRequest());
+		mvc.perform(get("/users?afterId=-1")).andExpect(status().isBadRequest());
+	}
+
+	// Формат ответа выбирается по Accept: без него — JSON, Smile и CBOR читаются тем же ObjectMapper
+	@Test
+	void getFilms_negotiatesBinaryFormats() throws Exception {
+		String film = mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Binary\",\"releaseDate\":\"1999-03-31\",\"duration\":136}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		long filmId = JsonPath.<Number>read(film, "$.id").longValue();
+
+		// Ответы пишут конвертеры на общем ObjectMapper (с FilmSerializer), а не конвертеры Spring по умолчанию
+		assertInstanceOf(FilmSerializer.class,
+				objectMapper.getSerializerProviderInstance().findValueSerializer(Film.class));
+		assertInstanceOf(SmileHttpMessageConverter.class, writer(BinaryFormats.SMILE));
+		assertInstanceOf(CborHttpMessageConverter.class, writer(BinaryFormats.CBOR));
+
+		mvc.perform(get("/films/popular?count=1000"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+		mvc.perform(get("/films/" + filmId).accept(MediaType.ALL))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.releaseDate").value("1999-03-31"));
+
+		for (MediaType format : List.of(BinaryFormats.SMILE, BinaryFormats.CBOR)) {
+			ObjectMapper mapper = objectMapper.copyWith(format.equals(BinaryFormats.SMILE)
+					? new SmileFactory() : new CBORFactory());
+			for (String path : List.of("/films", "/films/popular?count=1000", "/films/search?namePrefix=binary")) {
+				byte[] body = mvc.perform(get(path).accept(format))
+						.andExpect(status().isOk())
+						.andExpect(content().contentTypeCompatibleWith(format))
+						.andReturn().getResponse().getContentAsByteArray();
+				List<Film> films = mapper.readValue(body, new TypeReference<List<Film>>() { });
+				Film found = films.stream().filter(f -> f.getId() == filmId).findFirst().orElseThrow();
+				assertEquals("Binary", found.getName(), path);
+				assertEquals(LocalDate.of(1999, 3, 31), found.getReleaseDate(), path);
+			}
+			byte[] body = mvc.perform(get("/films/" + filmId).accept(format))
+					.andExpect(status().isOk())
+					.andExpect(content().contentTypeCompatibleWith(format))
+					.andReturn().getResponse().getContentAsByteArray();
+			assertEquals(136, mapper.readValue(body, Film.class).getDuration());
+		}
+	}
+
+	// Тело StreamingResponseBody пишется асинхронно: ответ готов после asyncDispatch
+	private MockHttpServletResponse export(String uri) throws Exception {
+		MvcResult result = mvc.perform(get(uri))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+	}
+
+	private HttpMessageConverter<?> writer(MediaType format) {
+		return converters.getConverters().stream()
+				.filter(converter -> converter.canWrite(Film.class, format))
+				.findFirst()
+				.orElseThrow();
+	}
+
 }
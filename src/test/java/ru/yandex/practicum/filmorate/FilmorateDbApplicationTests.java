@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:filmorate;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("db")
+class FilmorateDbApplicationTests {
+
+	@Autowired
+	private FilmStorage filmStorage;
+
+	@Autowired
+	private UserStorage userStorage;
+
+	// Сервисы получают хранилища БД через кеш сущностей
+	@Test
+	void contextLoads() {
+		assertTrue(filmStorage instanceof CachingFilmStorage);
+		assertTrue(userStorage instanceof CachingUserStorage);
+	}
+
+}
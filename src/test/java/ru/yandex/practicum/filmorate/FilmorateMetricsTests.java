@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class FilmorateMetricsTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void prometheus_exposesServiceTimersCountsAndErrors() throws Exception {
+		mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"email\":\"metrics@mail.ru\",\"login\":\"metrics\",\"birthday\":\"2001-01-01\"}"))
+				.andExpect(status().isOk());
+		mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Metrics\",\"releaseDate\":\"2001-01-01\",\"duration\":120}"))
+				.andExpect(status().isOk());
+		mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"\",\"releaseDate\":\"2001-01-01\",\"duration\":120}"))
+				.andExpect(status().isBadRequest());
+		mvc.perform(get("/films/{id}", 100_000)).andExpect(status().isNotFound());
+		mvc.perform(get("/films/popular")).andExpect(status().isOk());
+
+		String metrics = mvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertTrue(metrics.contains("filmorate_service_seconds_bucket{"));
+		assertTrue(metrics.contains("method=\"addFilm\""));
+		assertTrue(metrics.contains("method=\"getPopularJson\""));
+		assertTrue(metrics.contains("filmorate_films "));
+		assertTrue(metrics.contains("filmorate_friendships "));
+		assertTrue(metrics.contains("filmorate_errors_total{type=\"validation\"} 1.0"));
+		assertTrue(metrics.contains("filmorate_errors_total{type=\"not_found\"}"));
+		assertTrue(metrics.contains("cache_gets_total{cache=\"film-json\",result=\"miss\"}"));
+	}
+
+}
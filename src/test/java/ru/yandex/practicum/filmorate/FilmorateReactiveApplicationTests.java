@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.codec.BinaryFormats;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.reactive.BlockingCalls;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "filmorate.popular-feed.interval-ms=50")
+@ActiveProfiles("reactive")
+class FilmorateReactiveApplicationTests {
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private BlockingCalls calls;
+
+	private Film addFilm(int n) {
+		Film film = new Film();
+		film.setName("Film " + n);
+		film.setReleaseDate(LocalDate.of(2001, 1, 1));
+		film.setDuration(120);
+		return client.post().uri("/films").bodyValue(film).exchange()
+				.expectStatus().isOk().expectBody(Film.class).returnResult().getResponseBody();
+	}
+
+	private User addUser(int n) {
+		User user = new User();
+		user.setEmail("user" + n + "@mail.ru");
+		user.setLogin("user" + n);
+		user.setBirthday(LocalDate.of(2001, 1, 1));
+		return client.post().uri("/users").bodyValue(user).exchange()
+				.expectStatus().isOk().expectBody(User.class).returnResult().getResponseBody();
+	}
+
+	// Список длиннее страницы хранилища передается целиком и по порядку
+	@Test
+	void getFilms_streamsWholeCatalog() {
+		long first = addFilm(0).getId();
+		for (int i = 1; i < 250; i++) {
+			addFilm(i);
+		}
+
+		List<Long> ids = client.get().uri("/films").exchange()
+				.expectStatus().isOk()
+				.expectBodyList(Film.class).returnResult().getResponseBody()
+				.stream().map(Film::getId).filter(id -> id >= first).collect(Collectors.toList());
+
+		assertEquals(250, ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			assertEquals(first + i, ids.get(i));
+		}
+	}
+
+	@Test
+	void getUser_missingUserIsNotFound() {
+		client.get().uri("/users/{id}", 100_000).exchange().expectStatus().isNotFound();
+		client.get().uri("/users/{id}/friends", 100_000).exchange().expectStatus().isNotFound();
+	}
+
+	// Лента отдает текущий список сразу и новый список после лайка
+	@Test
+	void popularFeed_emitsCurrentListAndChanges() {
+		Film film = addFilm(1000);
+		User user = addUser(1000);
+
+		Flux<List<Film>> feed = client.get().uri("/films/popular/stream?count=1")
+				.accept(MediaType.TEXT_EVENT_STREAM).exchange()
+				.expectStatus().isOk()
+				.returnResult(new ParameterizedTypeReference<List<Film>>() {
+				}).getResponseBody();
+		List<List<Film>> events = feed.index()
+				.concatMap(event -> event.getT1() > 0 ? Mono.just(event.getT2())
+						: like(film.getId(), user.getId()).thenReturn(event.getT2()))
+				.take(2)
+				.collectList()
+				.block(Duration.ofSeconds(10));
+
+		assertNotNull(events);
+		assertEquals(2, events.size());
+		assertEquals(film.getId(), events.get(1).get(0).getId());
+		assertEquals(1, events.get(1).get(0).getUserLikes().size());
+	}
+
+	// Изменение с sync=true ждет подписчиков событий не в потоке Netty, даже без offload-storage
+	@Test
+	void syncLike_waitsOffEventLoop() {
+		Film film = addFilm(1500);
+		User user = addUser(1500);
+
+		client.put().uri("/films/{id}/like/{userId}?sync=true", film.getId(), user.getId()).exchange()
+				.expectStatus().isOk();
+		client.get().uri("/films/{id}", film.getId()).exchange()
+				.expectStatus().isOk()
+				.expectBody(Film.class).value(found -> assertEquals(1, found.getUserLikes().size()));
+		String thread = calls.waiting(() -> Thread.currentThread().getName()).block(Duration.ofSeconds(5));
+		assertNotNull(thread);
+		assertTrue(thread.startsWith("boundedElastic"), thread);
+		assertEquals(Thread.currentThread().getName(),
+				calls.mono(() -> Thread.currentThread().getName()).block(Duration.ofSeconds(5)));
+	}
+
+	@Test
+	void searchFilms_bindsQueryParameters() {
+		Film film = addFilm(2000);
+
+		List<Film> found = client.get()
+				.uri("/films/search?name=film 2000&releasedFrom=2001-01-01&releasedTo=2001-01-01&order=POPULARITY")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(Film.class).returnResult().getResponseBody();
+
+		assertEquals(List.of(film.getId()), found.stream().map(Film::getId).collect(Collectors.toList()));
+		client.get().uri("/films/search?minDuration=200&maxDuration=100").exchange().expectStatus().isBadRequest();
+	}
+
+	// Smile и CBOR по заголовку Accept: списки (в том числе Flux) — одним значением, без Accept — JSON
+	@Test
+	void getFilms_negotiatesBinaryFormats() throws Exception {
+		Film film = addFilm(3000);
+		User user = addUser(3000);
+		User friend = addUser(3001);
+		client.put().uri("/users/{id}/friends/{friendId}", user.getId(), friend.getId()).exchange()
+				.expectStatus().isOk();
+
+		client.get().uri("/films/{id}", film.getId()).exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+		client.get().uri("/films?limit=5").exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+
+		for (MediaType format : List.of(BinaryFormats.SMILE, BinaryFormats.CBOR)) {
+			ObjectMapper mapper = objectMapper.copyWith(format.equals(BinaryFormats.SMILE)
+					? new SmileFactory() : new CBORFactory());
+			TypeReference<List<Film>> films = new TypeReference<>() { };
+			assertTrue(mapper.readValue(binary("/films", format), films).contains(film));
+			assertTrue(mapper.readValue(binary("/films?afterId=" + (film.getId() - 1) + "&limit=1", format), films)
+					.contains(film));
+			assertEquals(1, mapper.readValue(binary("/films/popular?count=1", format), films).size());
+			assertEquals(film, mapper.readValue(binary("/films/" + film.getId(), format), Film.class));
+
+			TypeReference<List<User>> users = new TypeReference<>() { };
+			assertTrue(mapper.readValue(binary("/users", format), users).stream()
+					.anyMatch(u -> u.getId().equals(user.getId()) && u.getFriends().contains(friend.getId())));
+			assertEquals(List.of(friend.getId()),
+					mapper.readValue(binary("/users/" + user.getId() + "/friends", format), users).stream()
+							.map(User::getId).collect(Collectors.toList()));
+		}
+	}
+
+	private byte[] binary(String uri, MediaType format) {
+		return client.get().uri(uri).accept(format).exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(format)
+				.expectBody(byte[].class).returnResult().getResponseBody();
+	}
+
+	private Mono<Void> like(long filmId, long userId) {
+		return Mono.fromRunnable(() -> client.put().uri("/films/{id}/like/{userId}", filmId, userId).exchange()
+				.expectStatus().isOk())
+				.subscribeOn(Schedulers.boundedElastic()).then();
+	}
+
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LongArraySet;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodecTest {
+
+    private static final LocalDate[] DATES = {LocalDate.of(1895, 12, 28), LocalDate.of(2001, 1, 1),
+        LocalDate.of(0, 1, 1), LocalDate.of(9999, 12, 31), LocalDate.of(10000, 1, 1), LocalDate.of(-1, 6, 15)};
+
+    // Сериализаторы пишут то же, что сериализаторы Jackson по умолчанию (настройки — как в Spring Boot)
+    @Test
+    public void serializers_matchDefaultJackson() throws Exception {
+        for (boolean timestamps : new boolean[]{false, true}) {
+            ObjectMapper reflection = mapper(timestamps, false);
+            ObjectMapper handWritten = mapper(timestamps, true);
+            List<Film> films = films(200);
+            List<User> users = users(200);
+            assertEquals(reflection.writeValueAsString(films), handWritten.writeValueAsString(films));
+            assertEquals(reflection.writeValueAsString(users), handWritten.writeValueAsString(users));
+            for (Film film : films) {
+                assertEquals(reflection.writeValueAsString(film), handWritten.writeValueAsString(film));
+            }
+        }
+    }
+
+    // Smile и CBOR: тот же ObjectMapper с другой фабрикой, значения читаются обратно без потерь
+    @Test
+    public void binaryFormats_roundTrip() throws Exception {
+        ObjectMapper json = mapper(false, true);
+        List<Film> films = films(100);
+        List<User> users = users(100);
+        for (ObjectMapper binary : List.of(json.copyWith(new SmileFactory()), json.copyWith(new CBORFactory()))) {
+            byte[] filmBytes = binary.writeValueAsBytes(films);
+            assertEquals(films, binary.readValue(filmBytes, new TypeReference<List<Film>>() { }));
+            assertTrue(filmBytes.length < json.writeValueAsBytes(films).length);
+            byte[] userBytes = binary.writeValueAsBytes(users);
+            assertEquals(users, binary.readValue(userBytes, new TypeReference<List<User>>() { }));
+        }
+    }
+
+    // Как ObjectMapper Spring Boot (Jackson2ObjectMapperBuilder): ObjectMapper, а не JsonMapper, — иначе нет copyWith
+    private static ObjectMapper mapper(boolean timestamps, boolean handWritten) {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, timestamps);
+        if (handWritten) {
+            mapper.registerModule(new FilmorateJsonModule());
+        }
+        return mapper;
+    }
+
+    // Фильмы со всеми вариантами полей: null, строки с экранированием, разные даты и множества лайков
+    private static List<Film> films(int count) {
+        Random random = new Random(7);
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Film film = new Film();
+            film.setId(i % 10 == 9 ? null : (long) i + 1);
+            film.setName(i % 7 == 6 ? null : "Фильм \"" + i + "\"\n\té🎬");
+            film.setDescription(i % 5 == 4 ? null : "Описание " + i);
+            film.setReleaseDate(i % 11 == 10 ? null : DATES[i % DATES.length]);
+            film.setDuration(i % 13 == 12 ? null : random.nextInt(300));
+            film.setUserLikes(ids(random, i));
+            films.add(film);
+        }
+        return films;
+    }
+
+    private static List<User> users(int count) {
+        Random random = new Random(9);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin(i % 3 == 2 ? null : "user" + i);
+            user.setName(i % 4 == 3 ? null : "Пользователь " + i);
+            user.setBirthday(i % 9 == 8 ? null : DATES[i % DATES.length]);
+            user.setFriends(ids(random, i));
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static Set<Long> ids(Random random, int i) {
+        long[] ids = random.longs(random.nextInt(20), 1, Long.MAX_VALUE).sorted().distinct().toArray();
+        if (i % 4 == 0) {
+            return LongArraySet.of(ids);
+        }
+        if (i % 4 == 1) {
+            return Set.of();
+        }
+        Set<Long> set = new LinkedHashSet<>();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+}
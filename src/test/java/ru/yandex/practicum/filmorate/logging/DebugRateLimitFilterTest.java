@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DebugRateLimitFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final Logger logger = context.getLogger("ru.yandex.practicum.filmorate.test");
+
+    @BeforeEach
+    void setUp() {
+        DebugRateLimitFilter filter = new DebugRateLimitFilter();
+        filter.setContext(context);
+        filter.setMaxPerSecond(5);
+        filter.start();
+        context.addTurboFilter(filter);
+        appender.setContext(context);
+        appender.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.addAppender(appender);
+        root.setLevel(Level.DEBUG);
+    }
+
+    @Test
+    void decide_dropsDebugAboveLimitButKeepsInfo() {
+        // Все сообщения укладываются в одну-две секунды: пропускается не больше 5 сообщений DEBUG в секунду
+        for (int i = 0; i < 100; i++) {
+            logger.debug("Сообщение {}", i);
+        }
+        logger.info("Важное сообщение");
+        long debug = appender.list.stream().filter(e -> e.getLevel() == Level.DEBUG).count();
+        assertTrue(debug >= 5 && debug <= 10, "debug=" + debug);
+        assertEquals("Важное сообщение", appender.list.get(appender.list.size() - 1).getFormattedMessage());
+    }
+
+    @Test
+    void decide_ignoresDisabledLoggers() {
+        logger.setLevel(Level.INFO);
+        for (int i = 0; i < 100; i++) {
+            logger.debug("Сообщение {}", i);
+        }
+        logger.setLevel(Level.DEBUG);
+        logger.debug("Первое включенное сообщение");
+        assertEquals(1, appender.list.size());
+    }
+
+}
@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.film.FilmResponseCache;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.film.PopularityFeed;
+import ru.yandex.practicum.filmorate.service.film.SimilarFilms;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.user.UserMetrics;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.model.BatchAction.ADD;
+import static ru.yandex.practicum.filmorate.model.BatchAction.REMOVE;
+import static ru.yandex.practicum.filmorate.model.BatchResult.Status.*;
+
+public class BatchOperationsTest {
+
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final DomainEvents events = new DomainEvents(List.of(), 1024, DomainEvents.Backpressure.BLOCK, 1000);
+    private final UserService userService = new UserService(userStorage, new UserMetrics(new SimpleMeterRegistry()),
+            new FriendRecommendations(userStorage, 1000), events);
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final FilmService filmService = new FilmService(filmStorage, userService,
+            new FilmResponseCache(new ObjectMapper().findAndRegisterModules(), 1024 * 1024), new PopularityFeed(500),
+            new TrendingFilms(24), new SimilarFilms(filmStorage), events);
+
+    private void fill() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(2001, 1, 1));
+            userService.addUser(user);
+
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2001, 1, 1));
+            film.setDuration(120);
+            filmService.addFilm(film);
+        }
+    }
+
+    private static List<BatchResult.Status> statuses(List<BatchResult> results) {
+        return results.stream().map(BatchResult::getStatus).collect(Collectors.toList());
+    }
+
+    @Test
+    public void applyLikes_returnsResultPerOperationInOrder() throws Exception {
+        fill();
+        List<LikeOperation> operations = List.of(
+                new LikeOperation(ADD, 1L, 1L),
+                new LikeOperation(ADD, 2L, 1L),
+                new LikeOperation(ADD, 1L, 1L),
+                new LikeOperation(ADD, 1L, 2L),
+                new LikeOperation(ADD, 9L, 1L),
+                new LikeOperation(ADD, 1L, 9L),
+                new LikeOperation(null, 1L, 3L),
+                new LikeOperation(REMOVE, 1L, 1L),
+                new LikeOperation(ADD, 1L, 3L));
+
+        List<BatchResult> results = filmService.applyLikes(operations, false);
+
+        assertEquals(List.of(CHANGED, CHANGED, UNCHANGED, CHANGED, NOT_FOUND, NOT_FOUND, INVALID, CHANGED, CHANGED),
+                statuses(results));
+        assertEquals(Set.of(2L, 3L), filmService.getFilm(1L).getUserLikes());
+        assertEquals(Set.of(1L), filmService.getFilm(2L).getUserLikes());
+        assertEquals(List.of(1L, 2L, 3L), filmService.getPopular(3).stream()
+                .map(Film::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void applyFriendships_keepsFriendshipMutual() throws Exception {
+        fill();
+        List<FriendOperation> operations = List.of(
+                new FriendOperation(ADD, 1L, 2L),
+                new FriendOperation(ADD, 2L, 1L),
+                new FriendOperation(ADD, 3L, 1L),
+                new FriendOperation(ADD, 1L, 9L),
+                new FriendOperation(REMOVE, 3L, 1L));
+
+        List<BatchResult> results = userService.applyFriendships(operations, false);
+
+        assertEquals(List.of(CHANGED, UNCHANGED, CHANGED, NOT_FOUND, CHANGED), statuses(results));
+        assertEquals(Set.of(2L), userService.getUser(1L).getFriends());
+        assertEquals(Set.of(1L), userService.getUser(2L).getFriends());
+        assertTrue(userService.getUser(3L).getFriends().isEmpty());
+    }
+
+    @Test
+    public void applyFriendships_keepsOrderOfOperationsOnSamePair() throws Exception {
+        fill();
+        List<FriendOperation> operations = List.of(
+                new FriendOperation(ADD, 2L, 3L),
+                new FriendOperation(ADD, 1L, 2L),
+                new FriendOperation(REMOVE, 2L, 1L),
+                new FriendOperation(REMOVE, 3L, 2L),
+                new FriendOperation(ADD, 3L, 2L));
+
+        List<BatchResult> results = userService.applyFriendships(operations, false);
+
+        assertEquals(List.of(CHANGED, CHANGED, CHANGED, CHANGED, CHANGED), statuses(results));
+        assertTrue(userService.getUser(1L).getFriends().isEmpty());
+        assertEquals(Set.of(3L), userService.getUser(2L).getFriends());
+        assertEquals(Set.of(2L), userService.getUser(3L).getFriends());
+    }
+
+    @Test
+    public void applyLikes_rejectsEmptyAndOversizedBatch() throws Exception {
+        fill();
+        assertThrows(ValidationException.class, () -> filmService.applyLikes(List.of(), false));
+        List<LikeOperation> operations = new ArrayList<>(
+                Collections.nCopies(BatchOperations.MAX_SIZE + 1, new LikeOperation(BatchAction.ADD, 1L, 1L)));
+        assertThrows(ValidationException.class, () -> filmService.applyLikes(operations, false));
+    }
+
+}
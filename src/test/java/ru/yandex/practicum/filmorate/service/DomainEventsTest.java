@@ -0,0 +1,323 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.UnavailableException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.event.DomainEventListener;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.film.FilmResponseCache;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.film.PopularityFeed;
+import ru.yandex.practicum.filmorate.service.film.SimilarFilms;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.user.UserMetrics;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomainEventsTest {
+
+    private final List<DomainEvents> started = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        started.forEach(DomainEvents::stop);
+    }
+
+    // Каждый подписчик получает все события; события одного публикующего потока — в порядке публикации
+    @Test
+    public void listeners_receiveAllEventsInPublishOrder() throws Exception {
+        Recorder first = new Recorder("first");
+        Recorder second = new Recorder("second");
+        DomainEvents events = events(List.of(first, second), 64, DomainEvents.Backpressure.BLOCK);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int thread = 1; thread <= 4; thread++) {
+                long filmId = thread;
+                results.add(executor.submit(() -> {
+                    long last = -1;
+                    for (long userId = 1; userId <= 2000; userId++) {
+                        last = userId % 2 == 0 ? events.likeChanged(filmId, userId, true)
+                                : events.friendshipChanged(filmId, userId, false);
+                    }
+                    return last;
+                }));
+            }
+            long last = -1;
+            for (Future<Long> result : results) {
+                last = Math.max(last, result.get(10, TimeUnit.SECONDS));
+            }
+            assertTrue(events.awaitProcessed(last));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(8000, events.published());
+        assertEquals(0, events.dropped());
+        for (Recorder recorder : List.of(first, second)) {
+            assertEquals(8000, recorder.received.size());
+            assertEquals(0, events.lag(recorder.name()));
+            assertTrue(recorder.batches > 0 && recorder.batches <= 8000);
+            Map<Long, Long> lastUser = new HashMap<>();
+            for (long[] event : recorder.received) {
+                long previous = lastUser.getOrDefault(event[1], 0L);
+                assertEquals(previous + 1, event[2], "filmId " + event[1]);
+                assertEquals(event[2] % 2 == 0 ? 1 : 2, event[0]);
+                lastUser.put(event[1], event[2]);
+            }
+        }
+        assertEquals(List.of("first", "second"), events.listeners());
+    }
+
+    // Буфер полон, пока подписчик не обработал события: DROP отбрасывает новые, отставание видно в lag
+    @Test
+    public void drop_discardsEventsWhenBufferIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder blocked = new Recorder("blocked") {
+            @Override
+            public void likeChanged(long filmId, long userId, boolean added) {
+                awaitQuietly(release);
+                super.likeChanged(filmId, userId, added);
+            }
+        };
+        DomainEvents events = events(List.of(blocked), 4, DomainEvents.Backpressure.DROP);
+        for (long userId = 1; userId <= 10; userId++) {
+            long sequence = events.likeChanged(1, userId, true);
+            assertEquals(userId <= 4 ? userId - 1 : -1, sequence);
+        }
+        assertEquals(4, events.published());
+        assertEquals(6, events.dropped());
+        assertEquals(4, events.lag("blocked"));
+        assertFalse(events.awaitProcessed(3));
+
+        release.countDown();
+        assertTrue(events.awaitProcessed(3));
+        assertEquals(0, events.lag("blocked"));
+        assertEquals(4, blocked.received.size());
+        // Отброшенные события не занимают номеров
+        assertEquals(4, events.likeChanged(1, 11, true));
+    }
+
+    // BLOCK: публикующий поток ждет свободную ячейку, события не теряются
+    @Test
+    public void block_waitsForSlowListener() throws Exception {
+        Recorder slow = new Recorder("slow") {
+            @Override
+            public void friendshipChanged(long userId, long friendId, boolean added) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                super.friendshipChanged(userId, friendId, added);
+            }
+        };
+        DomainEvents events = events(List.of(slow), 8, DomainEvents.Backpressure.BLOCK);
+        long last = -1;
+        for (long friendId = 1; friendId <= 200; friendId++) {
+            last = events.friendshipChanged(1, friendId, true);
+        }
+        assertEquals(199, last);
+        assertTrue(events.awaitProcessed(last));
+        assertEquals(200, slow.received.size());
+        assertEquals(0, events.dropped());
+    }
+
+    // Ошибка подписчика не останавливает обработку следующих событий
+    @Test
+    public void listenerError_doesNotStopProcessing() throws Exception {
+        Recorder failing = new Recorder("failing") {
+            @Override
+            public void likeChanged(long filmId, long userId, boolean added) {
+                if (userId == 1) {
+                    throw new IllegalStateException("Ошибка подписчика");
+                }
+                super.likeChanged(filmId, userId, added);
+            }
+        };
+        DomainEvents events = events(List.of(failing), 16, DomainEvents.Backpressure.BLOCK);
+        events.likeChanged(1, 1, true);
+        assertTrue(events.awaitProcessed(events.likeChanged(1, 2, true)));
+        assertEquals(1, failing.received.size());
+    }
+
+    // sync=true: событие не обработано за время ожидания или отброшено — UnavailableException, изменение сохранено
+    @Test
+    public void sync_failsWhenEventIsNotProcessed() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder blocked = new Recorder("blocked") {
+            @Override
+            public void likeChanged(long filmId, long userId, boolean added) {
+                awaitQuietly(release);
+                super.likeChanged(filmId, userId, added);
+            }
+        };
+        DomainEvents events = events(List.of(blocked), 2, DomainEvents.Backpressure.DROP);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        FilmService filmService = filmService(filmStorage, events, 3);
+
+        assertThrows(UnavailableException.class, () -> filmService.addUserLike(1L, 1L, true));
+        assertEquals(Set.of(1L), filmStorage.getFilm(1L).getUserLikes());
+        filmService.addUserLike(1L, 2L, false);
+        // Буфер полон: событие отброшено, ждать нечего
+        assertThrows(UnavailableException.class, () -> filmService.addUserLike(1L, 3L, true));
+        assertThrows(UnavailableException.class, () -> filmService.applyLikes(
+                List.of(new LikeOperation(BatchAction.ADD, 2L, 1L)), true));
+        assertEquals(2, events.dropped());
+        assertEquals(Set.of(1L), filmStorage.getFilm(2L).getUserLikes());
+
+        release.countDown();
+        assertTrue(events.awaitProcessed(1));
+        filmService.deleteUserLike(1L, 1L, true);
+        // Без изменения событий нет, ждать нечего
+        filmService.deleteUserLike(1L, 1L, true);
+        assertEquals(3, blocked.received.size());
+    }
+
+    // Лайк и снятие лайка одной пары из разных потоков: подписчик получает их в порядке изменений в хранилище
+    @Test
+    public void likeEvents_followStorageOrderUnderConcurrentChanges() throws Exception {
+        Set<Long> liked = new HashSet<>();
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        DomainEventListener tracker = new DomainEventListener() {
+            @Override
+            public String name() {
+                return "tracker";
+            }
+
+            @Override
+            public void likeChanged(long filmId, long userId, boolean added) {
+                if (!(added ? liked.add(userId) : liked.remove(userId))) {
+                    outOfOrder.set(true);
+                }
+            }
+        };
+        DomainEvents events = events(List.of(tracker), 1024, DomainEvents.Backpressure.BLOCK);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        FilmService filmService = filmService(filmStorage, events, 3);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                writers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int n = 0; n < 5_000; n++) {
+                        long userId = 1L + random.nextInt(3);
+                        if (random.nextBoolean()) {
+                            filmService.addUserLike(1L, userId, false);
+                        } else if (random.nextBoolean()) {
+                            filmService.deleteUserLike(1L, userId, false);
+                        } else {
+                            filmService.applyLikes(List.of(new LikeOperation(BatchAction.REMOVE, 1L, userId),
+                                    new LikeOperation(BatchAction.ADD, 1L, userId)), false);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(events.awaitProcessed(events.published() - 1));
+        assertEquals(0, events.lag("tracker"));
+        assertFalse(outOfOrder.get());
+        assertEquals(filmStorage.getFilm(1L).getUserLikes(), liked);
+    }
+
+    // Каталог из count фильмов и count пользователей
+    private static FilmService filmService(InMemoryFilmStorage filmStorage, DomainEvents events, int count)
+            throws Exception {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        UserService userService = new UserService(userStorage, new UserMetrics(new SimpleMeterRegistry()),
+                new FriendRecommendations(userStorage, 1000), events);
+        FilmService filmService = new FilmService(filmStorage, userService,
+                new FilmResponseCache(new ObjectMapper().findAndRegisterModules(), 1024 * 1024),
+                new PopularityFeed(500), new TrendingFilms(24), new SimilarFilms(filmStorage), events);
+        for (int i = 1; i <= count; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(2001, 1, 1));
+            userService.addUser(user);
+
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2001, 1, 1));
+            film.setDuration(120);
+            filmService.addFilm(film);
+        }
+        return filmService;
+    }
+
+    private DomainEvents events(List<DomainEventListener> listeners, int capacity,
+                                DomainEvents.Backpressure backpressure) {
+        DomainEvents events = new DomainEvents(listeners, capacity, backpressure, 200);
+        started.add(events);
+        return events;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Запоминает события {тип: 1 — лайк, 2 — дружба; первый ID; второй ID} (только в потоке подписчика)
+    private static class Recorder implements DomainEventListener {
+        private final String name;
+        private final List<long[]> received = new ArrayList<>();
+        private int batches;
+
+        private Recorder(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void likeChanged(long filmId, long userId, boolean added) {
+            received.add(new long[]{1, filmId, userId});
+        }
+
+        @Override
+        public void friendshipChanged(long userId, long friendId, boolean added) {
+            received.add(new long[]{2, userId, friendId});
+        }
+
+        @Override
+        public void endOfBatch() {
+            batches++;
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.film.FilmResponseCache;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.film.PopularityFeed;
+import ru.yandex.practicum.filmorate.service.film.SimilarFilms;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.user.UserMetrics;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmResponseCacheTest {
+
+    private static final int FILMS = 20;
+    private static final int USERS = 20;
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final DomainEvents events = new DomainEvents(List.of(), 1024, DomainEvents.Backpressure.BLOCK, 1000);
+    private final UserService userService = new UserService(userStorage, new UserMetrics(new SimpleMeterRegistry()),
+            new FriendRecommendations(userStorage, 1000), events);
+    private final FilmResponseCache cache = new FilmResponseCache(mapper, 1024 * 1024);
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final FilmService filmService = new FilmService(filmStorage, userService, cache,
+            new PopularityFeed(500), new TrendingFilms(24), new SimilarFilms(filmStorage), events);
+
+    private Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2001, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private void fill() throws Exception {
+        for (int i = 1; i <= USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(2001, 1, 1));
+            userService.addUser(user);
+        }
+        for (int i = 1; i <= FILMS; i++) {
+            filmService.addFilm(newFilm("Film " + i));
+        }
+    }
+
+    // Ответ из кеша должен совпадать с ответом, построенным заново по хранилищу
+    private void assertFresh(int count) throws Exception {
+        assertEquals(mapper.writeValueAsString(filmService.getPopular(count)),
+                new String(filmService.getPopularJson(count), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void getPopularJson_notStaleAfterLike() throws Exception {
+        fill();
+        filmService.addUserLike(1L, 1L, false);
+        filmService.addUserLike(2L, 1L, false);
+        filmService.addUserLike(2L, 2L, false);
+        assertFresh(2);
+        assertFresh(2);
+        assertEquals(1, cache.stats().getHits());
+
+        // Фильм не из списка входит в него
+        filmService.addUserLike(3L, 1L, false);
+        filmService.addUserLike(3L, 2L, false);
+        filmService.addUserLike(3L, 3L, false);
+        assertFresh(2);
+
+        // Фильм из списка теряет лайки и выбывает
+        filmService.deleteUserLike(3L, 1L, false);
+        filmService.deleteUserLike(3L, 2L, false);
+        filmService.deleteUserLike(3L, 3L, false);
+        assertFresh(2);
+
+        // Изменение фильма из списка
+        Film film = newFilm("Film 2 (новое название)");
+        film.setId(2L);
+        filmService.updateFilm(film);
+        assertFresh(2);
+        assertEquals(mapper.writeValueAsString(filmService.getFilm(2L)),
+                new String(filmService.getFilmJson(2L), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void getPopularJson_keepsListNotAffectedByLike() throws Exception {
+        fill();
+        filmService.addUserLike(1L, 1L, false);
+        filmService.addUserLike(1L, 2L, false);
+        filmService.addUserLike(2L, 1L, false);
+        filmService.addUserLike(2L, 2L, false);
+        assertFresh(2);
+
+        // Лайк фильму, который не догоняет список, не сбрасывает его
+        filmService.addUserLike(5L, 1L, false);
+        long hits = cache.stats().getHits();
+        assertFresh(2);
+        assertEquals(hits + 1, cache.stats().getHits());
+    }
+
+    @Test
+    public void getPopularJson_notStaleUnderConcurrentLikes() throws Exception {
+        fill();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            readers.add(executor.submit(() -> {
+                while (!stop.get()) {
+                    filmService.getPopularJson(5);
+                    filmService.getFilmJson(1L + ThreadLocalRandom.current().nextInt(FILMS));
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            writers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int n = 0; n < 5_000; n++) {
+                    long filmId = 1L + random.nextInt(FILMS);
+                    long userId = 1L + random.nextInt(USERS);
+                    if (random.nextBoolean()) {
+                        filmService.addUserLike(filmId, userId, false);
+                    } else {
+                        filmService.deleteUserLike(filmId, userId, false);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        stop.set(true);
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertFresh(5);
+        for (long id = 1; id <= FILMS; id++) {
+            assertEquals(mapper.writeValueAsString(filmService.getFilm(id)),
+                    new String(filmService.getFilmJson(id), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void getFilmJson_evictsLeastRecentlyUsed() throws Exception {
+        FilmResponseCache small = new FilmResponseCache(mapper, 300);
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        FilmService service = new FilmService(storage, userService, small, new PopularityFeed(500),
+                new TrendingFilms(24), new SimilarFilms(storage), events);
+        for (int i = 1; i <= 5; i++) {
+            service.addFilm(newFilm("Film " + i));
+            service.getFilmJson((long) i);
+        }
+        assertTrue(small.stats().getBytes() <= 300);
+        assertTrue(small.stats().getEvictions() > 0);
+        assertEquals(5, small.stats().getMisses());
+    }
+
+    @Test
+    public void getFilmJson_keepsRecentlyReadFilmOnEviction() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        for (int i = 1; i <= 3; i++) {
+            storage.addFilm(newFilm("Film " + i));
+        }
+        int size = mapper.writeValueAsBytes(storage.getFilm(1L)).length;
+        FilmResponseCache small = new FilmResponseCache(mapper, 2L * size + size / 2);
+        FilmService service = new FilmService(storage, userService, small, new PopularityFeed(500),
+                new TrendingFilms(24), new SimilarFilms(storage), events);
+
+        service.getFilmJson(1L);
+        service.getFilmJson(2L);
+        service.getFilmJson(1L);
+        service.getFilmJson(3L);
+        assertEquals(1, small.stats().getEvictions());
+
+        // Вытеснен фильм 2: фильм 1 читали после сохранения
+        service.getFilmJson(1L);
+        assertEquals(2, small.stats().getHits());
+        service.getFilmJson(2L);
+        assertEquals(4, small.stats().getMisses());
+    }
+
+}
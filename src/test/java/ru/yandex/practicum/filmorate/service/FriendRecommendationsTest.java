@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchAction;
+import ru.yandex.practicum.filmorate.model.FriendOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.event.DomainEvents;
+import ru.yandex.practicum.filmorate.service.user.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.user.UserMetrics;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendRecommendationsTest {
+
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final FriendRecommendations recommendations = new FriendRecommendations(userStorage, 1000);
+    private final DomainEvents events = new DomainEvents(List.of(recommendations), 1024,
+            DomainEvents.Backpressure.BLOCK, 5000);
+    private final UserService userService = new UserService(userStorage, new UserMetrics(new SimpleMeterRegistry()),
+            recommendations, events);
+
+    @AfterEach
+    public void tearDown() {
+        events.stop();
+    }
+
+    @Test
+    public void getRecommendations_ranksByMutualFriends() throws Exception {
+        addUsers(6);
+        userService.addFriend(1L, 2L, true);
+        userService.addFriend(1L, 3L, true);
+        userService.addFriend(2L, 4L, true);
+        userService.addFriend(3L, 4L, true);
+        userService.addFriend(3L, 5L, true);
+
+        assertEquals(List.of(4L, 5L), ids(userService.getRecommendations(1L, 10)));
+        assertEquals(List.of(4L), ids(userService.getRecommendations(1L, 1)));
+        assertEquals(List.of(), ids(userService.getRecommendations(6L, 10)));
+        assertThrows(ValidationException.class, () -> userService.getRecommendations(1L, 0));
+        assertThrows(ValidationException.class,
+                () -> userService.getRecommendations(1L, FriendRecommendations.MAX_LIMIT + 1));
+        assertThrows(NotFoundException.class, () -> userService.getRecommendations(100L, 10));
+    }
+
+    // Кеш сбрасывается у обоих пользователей и у их друзей, в том числе при пакетном изменении
+    // (sync = true: запрос ждет, пока подписчик сбросит кеш)
+    @Test
+    public void getRecommendations_followFriendshipChanges() throws Exception {
+        addUsers(5);
+        userService.addFriend(1L, 2L, true);
+        userService.addFriend(2L, 3L, true);
+        assertEquals(List.of(3L), ids(userService.getRecommendations(1L, 10)));
+        assertEquals(List.of(), ids(userService.getRecommendations(2L, 10)));
+
+        // 1 и 3 стали друзьями: у 1 рекомендаций больше нет; у друга 2 — тоже не изменилось
+        userService.addFriend(3L, 1L, true);
+        assertEquals(List.of(), ids(userService.getRecommendations(1L, 10)));
+        // 4 стал другом 3: теперь он рекомендация для друзей 3
+        userService.addFriend(3L, 4L, true);
+        assertEquals(List.of(4L), ids(userService.getRecommendations(1L, 10)));
+        assertEquals(List.of(4L), ids(userService.getRecommendations(2L, 10)));
+
+        userService.applyFriendships(List.of(new FriendOperation(BatchAction.REMOVE, 3L, 4L),
+                new FriendOperation(BatchAction.ADD, 2L, 5L)), true);
+        assertEquals(List.of(5L), ids(userService.getRecommendations(1L, 10)));
+        userService.deleteFriend(1L, 2L, true);
+        assertEquals(List.of(2L), ids(userService.getRecommendations(1L, 10)));
+    }
+
+    // Совпадение с полным перебором: на маленьком графе и на графе, который считается в нескольких потоках
+    @Test
+    public void recommend_matchesBruteForce() throws Exception {
+        Random random = new Random(3);
+        addUsers(300);
+        for (int i = 0; i < 3000; i++) {
+            long userId = 1 + random.nextInt(300);
+            long friendId = 1 + random.nextInt(300);
+            if (userId != friendId) {
+                userService.addFriend(userId, friendId, true);
+            }
+        }
+        for (long userId = 1; userId <= 300; userId += 7) {
+            assertArrayEquals(bruteForce(userId, 100), recommendations.recommend(userId, 100), "userId " + userId);
+            assertArrayEquals(bruteForce(userId, 5), recommendations.recommend(userId, 5), "userId " + userId);
+        }
+    }
+
+    @Test
+    public void recommend_matchesBruteForceForHighDegreeUser() throws Exception {
+        Random random = new Random(5);
+        addUsers(2000);
+        // 100 друзей пользователя 1, у каждого около 600 друзей: больше связей, чем считается в одном потоке
+        for (long friendId = 2; friendId <= 101; friendId++) {
+            userService.addFriend(1L, friendId, true);
+            long[] friends = random.longs(700, 102, 2001).distinct().toArray();
+            userStorage.addFriends(friendId, friends);
+        }
+        assertArrayEquals(bruteForce(1, 100), recommendations.recommend(1, 100));
+    }
+
+    private long[] bruteForce(long userId, int limit) throws NotFoundException {
+        long[] friends = friendIds(userId);
+        Map<Long, Integer> counts = new HashMap<>();
+        for (long friendId : friends) {
+            for (long id : friendIds(friendId)) {
+                if (id != userId && Arrays.binarySearch(friends, id) < 0) {
+                    counts.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+    }
+
+    private long[] friendIds(long userId) throws NotFoundException {
+        return userStorage.getFriends(userId).stream().mapToLong(User::getId).sorted().toArray();
+    }
+
+    private void addUsers(int count) throws ValidationException {
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setEmail("user@mail.ru");
+            user.setLogin("user");
+            user.setBirthday(LocalDate.of(2001, 1, 1));
+            userService.addUser(user);
+        }
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+
+}
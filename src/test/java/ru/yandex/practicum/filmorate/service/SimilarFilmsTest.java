@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.film.SimilarFilms;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimilarFilmsTest {
+
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final SimilarFilms similarFilms = new SimilarFilms(filmStorage);
+
+    @Test
+    public void similar_ranksByCosineSimilarity() throws Exception {
+        addFilms(4);
+        // Фильм 2 лайкнули оба зрителя фильма 1; фильм 3 — один из них и еще двое
+        like(1, 1, 2);
+        like(2, 1, 2, 3);
+        like(3, 3);
+        like(4, 3);
+        like(5, 4);
+
+        assertEquals(List.of(2L, 3L), similarFilms.similar(1, 10));
+        assertEquals(List.of(2L), similarFilms.similar(1, 1));
+        assertEquals(List.of(), similarFilms.similar(4, 10));
+
+        // Рекомендации пользователю 1 (лайкнул 1 и 2): фильм 3 похож на оба, уже лайкнутые не предлагаются
+        assertEquals(List.of(3L), similarFilms.recommend(1, 10));
+        assertEquals(List.of(), similarFilms.recommend(100, 10));
+
+        similarFilms.likeChanged(3, 2, false);
+        assertEquals(List.of(2L), similarFilms.similar(1, 10));
+    }
+
+    // Пока счетчиков не больше MAX_NEIGHBOURS на фильм, модель совпадает с подсчетом по всем лайкам,
+    // и при изменениях по одному лайку, и после пересчета по хранилищу
+    @Test
+    public void similar_matchesCountOverAllLikes() throws Exception {
+        Random random = new Random(11);
+        addFilms(40);
+        Map<Long, Set<Long>> likes = new HashMap<>();
+        for (int step = 0; step < 3000; step++) {
+            long filmId = 1 + random.nextInt(40);
+            long userId = 1 + random.nextInt(60);
+            boolean added = random.nextInt(3) != 0;
+            boolean changed = added ? filmStorage.addLike(filmId, userId) : filmStorage.deleteLike(filmId, userId);
+            if (changed) {
+                similarFilms.likeChanged(filmId, userId, added);
+                if (added) {
+                    likes.computeIfAbsent(filmId, id -> new HashSet<>()).add(userId);
+                } else {
+                    likes.get(filmId).remove(userId);
+                }
+            }
+        }
+        SimilarFilms rebuilt = new SimilarFilms(filmStorage);
+        rebuilt.rebuild();
+        for (long filmId = 1; filmId <= 40; filmId++) {
+            List<Long> expected = bruteForce(likes, filmId);
+            assertEquals(expected, similarFilms.similar(filmId, SimilarFilms.MAX_NEIGHBOURS), "filmId " + filmId);
+            assertEquals(expected, rebuilt.similar(filmId, SimilarFilms.MAX_NEIGHBOURS), "filmId " + filmId);
+        }
+        for (long userId = 1; userId <= 60; userId++) {
+            assertEquals(similarFilms.recommend(userId, 10), rebuilt.recommend(userId, 10), "userId " + userId);
+        }
+    }
+
+    // Счетчиков у фильма не больше MAX_NEIGHBOURS; фильм с частыми совместными лайками не вытесняется
+    @Test
+    public void similar_keepsBoundedNeighbours() throws Exception {
+        addFilms(300);
+        long userId = 1;
+        for (long filmId = 3; filmId <= 300; filmId++) {
+            like(userId++, 1, filmId);
+            if (filmId % 10 == 0) {
+                like(userId++, 1, 2);
+            }
+        }
+        List<Long> similar = similarFilms.similar(1, SimilarFilms.MAX_NEIGHBOURS);
+        assertEquals(SimilarFilms.MAX_NEIGHBOURS, similar.size());
+        assertEquals(2L, similar.get(0));
+    }
+
+    private List<Long> bruteForce(Map<Long, Set<Long>> likes, long filmId) {
+        Set<Long> users = likes.getOrDefault(filmId, Set.of());
+        Map<Long, Double> scores = new HashMap<>();
+        likes.forEach((otherId, otherUsers) -> {
+            long together = otherUsers.stream().filter(users::contains).count();
+            if (otherId != filmId && together > 0) {
+                scores.put(otherId, (int) together / Math.sqrt((double) users.size() * otherUsers.size()));
+            }
+        });
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private void like(long userId, long... filmIds) throws Exception {
+        for (long filmId : filmIds) {
+            if (filmStorage.addLike(filmId, userId)) {
+                similarFilms.likeChanged(filmId, userId, true);
+            }
+        }
+    }
+
+    private void addFilms(int count) {
+        for (int i = 1; i <= count; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2001, 1, 1));
+            film.setDuration(120);
+            filmStorage.addFilm(film);
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendingFilmsTest {
+
+    private final TestClock clock = new TestClock();
+    private final TrendingFilms trending = new TrendingFilms(clock, Duration.ofHours(1));
+
+    @Test
+    public void top_countsLikesInWindow() {
+        trending.likeChanged(1, 1, true);
+        clock.advance(Duration.ofMinutes(30));
+        trending.likeChanged(2, 1, true);
+        trending.likeChanged(2, 2, true);
+        assertEquals(List.of(2L, 1L), trending.top(TrendingFilms.Window.HOUR, 10));
+        assertEquals(List.of(2L), trending.top(TrendingFilms.Window.HOUR, 1));
+
+        // Лайк фильму 1 вышел из часового окна, но остался в суточном
+        clock.advance(Duration.ofMinutes(45));
+        assertEquals(List.of(2L), trending.top(TrendingFilms.Window.HOUR, 10));
+        assertEquals(List.of(2L, 1L), trending.top(TrendingFilms.Window.DAY, 10));
+        assertEquals(List.of(2L, 1L), trending.top(TrendingFilms.Window.WEEK, 10));
+
+        // Через неделю без лайков фильмы перестают учитываться
+        clock.advance(Duration.ofDays(8));
+        assertEquals(List.of(), trending.top(TrendingFilms.Window.WEEK, 10));
+        assertEquals(List.of(), trending.top(TrendingFilms.Window.DECAYED, 10));
+        assertEquals(0, trending.size());
+    }
+
+    @Test
+    public void top_decayedScorePrefersRecentLikes() {
+        trending.likeChanged(1, 1, true);
+        trending.likeChanged(1, 2, true);
+        clock.advance(Duration.ofMinutes(30));
+        assertEquals(List.of(1L), trending.top(TrendingFilms.Window.DECAYED, 10));
+
+        // Два лайка два периода полураспада назад весят 0.5, один свежий — 1
+        clock.advance(Duration.ofMinutes(90));
+        trending.likeChanged(2, 1, true);
+        assertEquals(List.of(2L, 1L), trending.top(TrendingFilms.Window.DECAYED, 10));
+        assertEquals(List.of(1L, 2L), trending.top(TrendingFilms.Window.DAY, 10));
+    }
+
+    @Test
+    public void likeChanged_removedLikeLeavesList() {
+        trending.likeChanged(1, 1, true);
+        trending.likeChanged(2, 1, true);
+        trending.likeChanged(1, 1, false);
+        for (TrendingFilms.Window window : TrendingFilms.Window.values()) {
+            assertEquals(List.of(2L), trending.top(window, 10), window.name());
+        }
+    }
+
+    // Лайк учитывается по времени события, а не по времени его обработки
+    @Test
+    public void likeChanged_countsLikeAtEventTime() {
+        long now = clock.millis();
+        trending.likeChanged(1, 1, true, now - Duration.ofMinutes(90).toMillis());
+        trending.likeChanged(2, 1, true, now);
+
+        assertEquals(List.of(2L), trending.top(TrendingFilms.Window.HOUR, 10));
+        assertEquals(List.of(1L, 2L), trending.top(TrendingFilms.Window.DAY, 10));
+        assertEquals(List.of(2L, 1L), trending.top(TrendingFilms.Window.DECAYED, 10));
+    }
+
+    // Время отдельных лайков не хранится: снятие лайка вычитается как снятие последнего лайка фильма
+    @Test
+    public void likeChanged_removesLatestLikeOfFilm() {
+        trending.likeChanged(1, 1, true);
+        clock.advance(Duration.ofMinutes(90));
+        trending.likeChanged(2, 1, true);
+        clock.advance(Duration.ofMinutes(10));
+        trending.likeChanged(1, 2, true);
+        trending.likeChanged(1, 1, false);
+
+        // Вычтен свежий лайк фильма 1: в часовом окне его больше нет, в суточном остался старый лайк
+        assertEquals(List.of(2L), trending.top(TrendingFilms.Window.HOUR, 10));
+        assertEquals(List.of(1L, 2L), trending.top(TrendingFilms.Window.DAY, 10));
+        // Из счета с затуханием вычтен вес начала недельного интервала — не больше веса снятого лайка
+        assertEquals(List.of(1L, 2L), trending.top(TrendingFilms.Window.DECAYED, 10));
+
+        // Снятие лайка старше недели не делает счет отрицательным
+        trending.likeChanged(3, 1, true);
+        clock.advance(Duration.ofDays(8));
+        trending.top(TrendingFilms.Window.WEEK, 10);
+        trending.likeChanged(3, 1, false);
+        trending.likeChanged(3, 9, false);
+        trending.likeChanged(3, 2, true);
+        for (TrendingFilms.Window window : TrendingFilms.Window.values()) {
+            assertEquals(List.of(3L), trending.top(window, 10), window.name());
+        }
+    }
+
+    /*
+    Списки окон совпадают с подсчетом по текущим лайкам: лайк входит в окно, пока не вышел его интервал.
+    Снимается последний лайк фильма — для такого снятия приближенный учет точен.
+    */
+    @Test
+    public void top_matchesCountOverAllLikes() {
+        Random random = new Random(7);
+        // (фильм, пользователь) -> время лайка
+        Map<List<Long>, Long> likes = new HashMap<>();
+        Map<TrendingFilms.Window, long[]> buckets = Map.of(
+                TrendingFilms.Window.HOUR, new long[] {60, Duration.ofMinutes(1).toMillis()},
+                TrendingFilms.Window.DAY, new long[] {24, Duration.ofHours(1).toMillis()},
+                TrendingFilms.Window.WEEK, new long[] {28, Duration.ofHours(6).toMillis()});
+        for (int step = 0; step < 3000; step++) {
+            clock.advance(Duration.ofSeconds(random.nextInt(random.nextInt(10) == 0 ? 20_000 : 600)));
+            long filmId = 1 + random.nextInt(30);
+            long userId = 1 + random.nextInt(5);
+            boolean added = !likes.containsKey(List.of(filmId, userId));
+            if (added) {
+                likes.put(List.of(filmId, userId), clock.millis());
+            } else {
+                userId = likes.entrySet().stream()
+                        .filter(like -> like.getKey().get(0) == filmId)
+                        .max(Map.Entry.comparingByValue())
+                        .orElseThrow().getKey().get(1);
+                likes.remove(List.of(filmId, userId));
+            }
+            trending.likeChanged(filmId, userId, added);
+
+            for (Map.Entry<TrendingFilms.Window, long[]> window : buckets.entrySet()) {
+                long size = window.getValue()[0];
+                long bucketMillis = window.getValue()[1];
+                long current = clock.millis() / bucketMillis;
+                Map<Long, Long> counts = new HashMap<>();
+                for (Map.Entry<List<Long>, Long> like : likes.entrySet()) {
+                    if (like.getValue() / bucketMillis > current - size) {
+                        counts.merge(like.getKey().get(0), 1L, Long::sum);
+                    }
+                }
+                List<Long> expected = counts.entrySet().stream()
+                        .filter(e -> e.getValue() > 0)
+                        .sorted(Comparator.comparing(Map.Entry<Long, Long>::getValue).reversed()
+                                .thenComparing(Map.Entry::getKey))
+                        .limit(10)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+                assertEquals(expected, trending.top(window.getKey(), 10), window.getKey() + ", шаг " + step);
+            }
+        }
+    }
+
+    private static final class TestClock extends Clock {
+        private long millis = 1_700_000_000_000L;
+
+        private void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+}
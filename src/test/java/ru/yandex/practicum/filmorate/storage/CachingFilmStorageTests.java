@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingFilmStorageTests extends FilmDbStorageTests {
+
+    @Autowired
+    private FilmDbStorage dbStorage;
+
+    private CachingFilmStorage racing;
+
+    @Override
+    protected FilmStorage createStorage() {
+        return new CachingFilmStorage(super.createStorage(), 1000, 1024 * 1024);
+    }
+
+    private Long addFilm() {
+        Film film = new Film();
+        film.setName("Film Name");
+        film.setReleaseDate(LocalDate.of(2001, 1, 1));
+        film.setDuration(120);
+        return dbStorage.addFilm(film).getId();
+    }
+
+    // Хранилище в БД, которое после вызова method (до возврата результата в кеш) выполняет race
+    private FilmStorage racingStorage(String method, Callable<?> race) {
+        return (FilmStorage) Proxy.newProxyInstance(FilmStorage.class.getClassLoader(),
+                new Class<?>[] {FilmStorage.class}, (proxy, invoked, args) -> {
+                    Object result;
+                    try {
+                        result = invoked.invoke(dbStorage, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (invoked.getName().equals(method)) {
+                        race.call();
+                    }
+                    return result;
+                });
+    }
+
+    @Test
+    public void getFilm_cachedFilmNotChangedByReader() throws Exception {
+        Long filmId = addFilm();
+        CachingFilmStorage storage = (CachingFilmStorage) filmStorage;
+        storage.getFilm(filmId).setName("Изменен читателем");
+
+        assertEquals("Film Name", storage.getFilm(filmId).getName());
+        assertEquals("Film Name", storage.getFilms(Set.of(filmId)).getFound().get(0).getName());
+        assertEquals(2, storage.stats().getHits());
+    }
+
+    // Фильм, прочитанный из БД до лайка, не попадает в кеш после сброса по лайку
+    @Test
+    public void getFilm_doesNotCacheFilmReadBeforeLike() throws Exception {
+        createUsers(1);
+        Long filmId = addFilm();
+        racing = new CachingFilmStorage(racingStorage("getFilm", () -> racing.addLike(filmId, 1L)),
+                1000, 1024 * 1024);
+
+        assertEquals(Set.of(), racing.getFilm(filmId).getUserLikes());
+        assertEquals(Set.of(1L), racing.getFilm(filmId).getUserLikes());
+    }
+
+    // Результат updateFilm, прочитанный до параллельного лайка, не записывается в кеш поверх сброса
+    @Test
+    public void updateFilm_racingWithLike_doesNotCacheStaleFilm() throws Exception {
+        createUsers(1);
+        Long filmId = addFilm();
+        racing = new CachingFilmStorage(racingStorage("updateFilm", () -> racing.addLike(filmId, 1L)),
+                1000, 1024 * 1024);
+        racing.getFilm(filmId);
+
+        Film renamed = new Film();
+        renamed.setId(filmId);
+        renamed.setName("New Name");
+        renamed.setReleaseDate(LocalDate.of(2001, 1, 1));
+        renamed.setDuration(120);
+        racing.updateFilm(renamed);
+
+        Film cached = racing.getFilm(filmId);
+        assertEquals("New Name", cached.getName());
+        assertEquals(Set.of(1L), cached.getUserLikes());
+    }
+
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingUserStorageTest extends UserDbStorageTest {
+
+    @Autowired
+    private UserDbStorage dbStorage;
+
+    private CachingUserStorage racing;
+
+    @Override
+    protected UserStorage createStorage() {
+        return new CachingUserStorage(super.createStorage(), 1000, 1024 * 1024);
+    }
+
+    private Long addUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2001, 1, 1));
+        return dbStorage.addUser(user).getId();
+    }
+
+    // Хранилище в БД, которое после вызова method (до возврата результата в кеш) выполняет race
+    private UserStorage racingStorage(String method, Callable<?> race) {
+        return (UserStorage) Proxy.newProxyInstance(UserStorage.class.getClassLoader(),
+                new Class<?>[] {UserStorage.class}, (proxy, invoked, args) -> {
+                    Object result;
+                    try {
+                        result = invoked.invoke(dbStorage, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (invoked.getName().equals(method)) {
+                        race.call();
+                    }
+                    return result;
+                });
+    }
+
+    @Test
+    public void getUser_cachedUserNotChangedByReader() throws Exception {
+        Long userId = addUser("user");
+        CachingUserStorage storage = (CachingUserStorage) userStorage;
+        storage.getUser(userId).setName("Изменен читателем");
+
+        assertEquals("user", storage.getUser(userId).getName());
+        assertEquals("user", storage.getUsers(Set.of(userId)).getFound().get(0).getName());
+        assertEquals(2, storage.stats().getHits());
+    }
+
+    // Пользователь, прочитанный из БД до добавления друга, не попадает в кеш после сброса по дружбе
+    @Test
+    public void getUser_doesNotCacheUserReadBeforeFriendship() throws Exception {
+        Long userId = addUser("user");
+        Long friendId = addUser("friend");
+        racing = new CachingUserStorage(racingStorage("getUser", () -> racing.addFriend(userId, friendId)),
+                1000, 1024 * 1024);
+
+        assertEquals(Set.of(), racing.getUser(userId).getFriends());
+        assertEquals(Set.of(friendId), racing.getUser(userId).getFriends());
+        assertEquals(Set.of(userId), racing.getUser(friendId).getFriends());
+    }
+
+    // Результат updateUser, прочитанный до параллельного добавления друга, не записывается в кеш поверх сброса
+    @Test
+    public void updateUser_racingWithFriendship_doesNotCacheStaleUser() throws Exception {
+        Long userId = addUser("user");
+        Long friendId = addUser("friend");
+        racing = new CachingUserStorage(racingStorage("updateUser", () -> racing.addFriend(userId, friendId)),
+                1000, 1024 * 1024);
+        racing.getUser(userId);
+
+        User renamed = new User();
+        renamed.setId(userId);
+        renamed.setEmail("user@mail.ru");
+        renamed.setLogin("user");
+        renamed.setName("New Name");
+        renamed.setBirthday(LocalDate.of(2001, 1, 1));
+        racing.updateUser(renamed);
+
+        User cached = racing.getUser(userId);
+        assertEquals("New Name", cached.getName());
+        assertEquals(Set.of(friendId), cached.getFriends());
+    }
+
+}
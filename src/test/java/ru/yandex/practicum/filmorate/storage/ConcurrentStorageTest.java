@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentStorageTest {
+
+    private static final int THREADS = 8;
+
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+
+    private Film newDefaultFilm() {
+        Film film = new Film();
+        film.setName("Film Name");
+        film.setReleaseDate(LocalDate.of(2001, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User newDefaultUser() {
+        User user = new User();
+        user.setEmail("user@mail.ru");
+        user.setLogin("user");
+        user.setBirthday(LocalDate.of(2001, 1, 1));
+        return user;
+    }
+
+    // Запускает задачу одновременно в нескольких потоках и дожидается завершения
+    private void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = IntStream.range(0, THREADS)
+                    .mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        return task.call();
+                    }))
+                    .collect(Collectors.toList());
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void addFilm_noIdLost() throws Exception {
+        int perThread = 2000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        runConcurrently(() -> {
+            for (int i = 0; i < perThread; i++) {
+                ids.add(filmStorage.addFilm(newDefaultFilm()).getId());
+                ids.add(userStorage.addUser(newDefaultUser()).getId() + Integer.MAX_VALUE);
+            }
+            return null;
+        });
+
+        assertEquals(2 * THREADS * perThread, ids.size());
+        assertEquals(THREADS * perThread, filmStorage.getFilmsList().size());
+        assertEquals(THREADS * perThread, userStorage.getUsersList().size());
+    }
+
+    @Test
+    public void addLike_noLikeLost() throws Exception {
+        int films = 10;
+        int usersPerThread = 500;
+        for (int i = 0; i < films; i++) {
+            filmStorage.addFilm(newDefaultFilm());
+        }
+        AtomicInteger thread = new AtomicInteger();
+        runConcurrently(() -> {
+            long base = (long) thread.getAndIncrement() * usersPerThread;
+            for (long userId = base; userId < base + usersPerThread; userId++) {
+                for (long filmId = 1; filmId <= films; filmId++) {
+                    filmStorage.addLike(filmId, userId);
+                }
+            }
+            return null;
+        });
+
+        for (long filmId = 1; filmId <= films; filmId++) {
+            assertEquals(THREADS * usersPerThread, filmStorage.getFilm(filmId).getUserLikes().size());
+        }
+        assertEquals(films, filmStorage.getPopular(films).size());
+    }
+
+    @Test
+    public void addFriend_noFriendshipLost() throws Exception {
+        int users = 200;
+        for (int i = 0; i < users; i++) {
+            userStorage.addUser(newDefaultUser());
+        }
+        // Каждый поток связывает каждого пользователя со своим подмножеством остальных
+        AtomicInteger thread = new AtomicInteger();
+        runConcurrently(() -> {
+            int shift = thread.getAndIncrement();
+            for (long userId = 1; userId <= users; userId++) {
+                for (long friendId = 1 + shift; friendId <= users; friendId += THREADS) {
+                    if (friendId != userId) {
+                        userStorage.addFriend(userId, friendId);
+                    }
+                }
+            }
+            return null;
+        });
+
+        for (long userId = 1; userId <= users; userId++) {
+            User user = userStorage.getUser(userId);
+            assertEquals(users - 1, user.getFriends().size());
+            for (Long friendId : user.getFriends()) {
+                assertTrue(userStorage.getUser(friendId).getFriends().contains(userId));
+            }
+        }
+    }
+
+    @Test
+    public void getFilm_returnsImmutableSnapshotOfLikes() throws Exception {
+        Long filmId = filmStorage.addFilm(newDefaultFilm()).getId();
+        filmStorage.addLike(filmId, 1L);
+        Set<Long> snapshot = filmStorage.getFilm(filmId).getUserLikes();
+
+        runConcurrently(() -> {
+            for (long userId = 2; userId < 1000; userId++) {
+                filmStorage.addLike(filmId, userId);
+            }
+            return null;
+        });
+
+        assertEquals(Set.of(1L), snapshot);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(2L));
+        assertEquals(999, filmStorage.getFilm(filmId).getUserLikes().size());
+    }
+
+}
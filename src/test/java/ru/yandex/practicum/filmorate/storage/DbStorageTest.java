@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+Тесты хранилищ БД в контексте Spring: FilmDbStorage и UserDbStorage — бины за прокси транзакций,
+как в приложении (профиль db), на H2 в памяти со схемой приложения. Контекст общий для всех таких тестов.
+Тест выполняется вне транзакции: каждый вызов хранилища фиксирует свою транзакцию, изменения видны
+другим потокам. Перед тестом БД очищается (TestDatabase.clear).
+*/
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@JdbcTest
+@ActiveProfiles("db")
+@Import({FilmDbStorage.class, UserDbStorage.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@interface DbStorageTest {
+}
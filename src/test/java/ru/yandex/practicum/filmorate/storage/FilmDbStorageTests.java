@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DbStorageTest
+public class FilmDbStorageTests extends FilmStorageTests {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private FilmDbStorage dbFilmStorage;
+
+    @Autowired
+    private UserDbStorage dbUserStorage;
+
+    @Override
+    protected FilmStorage createStorage() {
+        TestDatabase.clear(jdbc);
+        return dbFilmStorage;
+    }
+
+    @Override
+    protected void createUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setEmail("user@mail.ru");
+            user.setLogin("user");
+            user.setBirthday(LocalDate.of(2001, 1, 1));
+            dbUserStorage.addUser(user);
+        }
+    }
+
+    // Лайки одного фильма из нескольких потоков: строка фильма блокируется до конца транзакции (FOR UPDATE),
+    // поэтому каждое изменение сообщается одному потоку, а likes_count совпадает с количеством лайков
+    @Test
+    public void changeLikes_concurrently_keepsLikesCount() throws Exception {
+        assertTrue(AopUtils.isAopProxy(dbFilmStorage));
+        int users = 20;
+        createUsers(users);
+        Film film = new Film();
+        film.setName("Film Name");
+        film.setReleaseDate(LocalDate.of(2001, 1, 1));
+        film.setDuration(120);
+        Long filmId = filmStorage.addFilm(film).getId();
+
+        AtomicInteger likes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 200; i++) {
+                        long userId = 1 + random.nextInt(users);
+                        if (random.nextBoolean()) {
+                            likes.addAndGet(filmStorage.addLike(filmId, userId) ? 1 : 0);
+                        } else {
+                            likes.addAndGet(filmStorage.deleteLike(filmId, userId) ? -1 : 0);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Object> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(likes.get(), filmStorage.getFilm(filmId).getUserLikes().size());
+        assertEquals(likes.get(), jdbc.queryForObject("SELECT COUNT(*) FROM user_film WHERE film_id = ?",
+                Integer.class, filmId));
+        assertEquals(likes.get(), jdbc.queryForObject("SELECT likes_count FROM film WHERE id = ?",
+                Integer.class, filmId));
+        assertEquals(likes.get(), filmStorage.getLikesCount());
+    }
+
+}
@@ -2,19 +2,37 @@ package ru.yandex.practicum.filmorate.storage;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
-import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearch;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-public class FilmStorageTests {
+// Общие тесты для всех реализаций FilmStorage
+public abstract class FilmStorageTests {
 
-    private final InMemoryFilmStorage filmStorage;
+    protected FilmStorage filmStorage;
 
-    public FilmStorageTests() {
-        filmStorage = new InMemoryFilmStorage();
+    // Хранилище создается перед каждым тестом, а не в конструкторе: тестам БД бины внедряет Spring после создания
+    @BeforeEach
+    public void setUpStorage() {
+        filmStorage = createStorage();
+    }
+
+    protected abstract FilmStorage createStorage();
+
+    // Пользователи 1..count, на которых ссылаются лайки (нужны хранилищам с внешними ключами)
+    protected void createUsers(int count) {
     }
 
     private Film newDefaultFilm() {
@@ -44,7 +62,7 @@ public class FilmStorageTests {
     }
 
     @Test
-    public void addFilm_addToList() throws NotFoundException {
+    public void addFilm_addToList() throws Exception {
         Film film = newDefaultFilm();
 
         Film newFilm;
@@ -56,7 +74,7 @@ public class FilmStorageTests {
     }
 
     @Test
-    public void updateFilm_updateList() throws NotFoundException {
+    public void updateFilm_updateList() throws Exception {
         Long filmId;
         filmId = filmStorage.addFilm(newDefaultFilm()).getId();
 
@@ -79,4 +97,265 @@ public class FilmStorageTests {
         checkEqualsFilms(film, savedFilm);
     }
 
+    // Хранилище отдает копии: изменение полученного или переданного фильма не меняет хранимый
+    @Test
+    public void getFilm_returnsIndependentCopy() throws Exception {
+        createUsers(1);
+        Film film = newDefaultFilm();
+        Long filmId = filmStorage.addFilm(film).getId();
+        film.setName("Изменен после добавления");
+
+        Film first = getFilm(filmId);
+        first.setName("Изменен читателем");
+        filmStorage.getFilmsList().get(0).setDuration(1);
+        filmStorage.addLike(filmId, 1L);
+
+        Film second = getFilm(filmId);
+        assertNotSame(first, second);
+        checkEqualsFilms(newDefaultFilm(), second);
+        assertEquals(Set.of(), first.getUserLikes());
+        assertEquals(Set.of(1L), second.getUserLikes());
+    }
+
+    @Test
+    public void getPopular_sameOrderAsFullSort() throws Exception {
+        createUsers(50);
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            filmStorage.addFilm(newDefaultFilm());
+        }
+        for (int i = 0; i < 3000; i++) {
+            long filmId = 1 + random.nextInt(200);
+            long userId = 1 + random.nextInt(50);
+            if (random.nextInt(4) == 0) {
+                filmStorage.deleteLike(filmId, userId);
+            } else {
+                filmStorage.addLike(filmId, userId);
+            }
+        }
+
+        for (int count : new int[] {0, 1, 10, 200, 500}) {
+            List<Film> expected = filmStorage.getFilmsList().stream()
+                    .sorted(Comparator.comparing(Film::getId))
+                    .sorted((f1, f2) -> Integer.compare(f2.getUserLikes().size(), f1.getUserLikes().size()))
+                    .limit(count)
+                    .collect(Collectors.toList());
+            assertEquals(expected, filmStorage.getPopular(count));
+        }
+    }
+
+    @Test
+    public void addLike_updatesPopular() throws Exception {
+        createUsers(1);
+        Long first = filmStorage.addFilm(newDefaultFilm()).getId();
+        Long second = filmStorage.addFilm(newDefaultFilm()).getId();
+
+        assertTrue(filmStorage.addLike(second, 1L));
+        assertFalse(filmStorage.addLike(second, 1L));
+        assertEquals(List.of(second, first),
+                filmStorage.getPopular(10).stream().map(Film::getId).collect(Collectors.toList()));
+
+        assertTrue(filmStorage.deleteLike(second, 1L));
+        assertFalse(filmStorage.deleteLike(second, 1L));
+        assertEquals(List.of(first, second),
+                filmStorage.getPopular(10).stream().map(Film::getId).collect(Collectors.toList()));
+        assertThrows(NotFoundException.class, () -> filmStorage.addLike(100L, 1L));
+    }
+
+    @Test
+    public void getFilmsPage_walksCatalogInIdOrder() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            filmStorage.addFilm(newDefaultFilm());
+        }
+
+        List<Long> ids = new ArrayList<>();
+        long afterId = 0;
+        List<Film> page;
+        do {
+            page = filmStorage.getFilmsPage(afterId, 10);
+            page.forEach(film -> ids.add(film.getId()));
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 10);
+
+        assertEquals(filmStorage.getFilmsList().stream().map(Film::getId).collect(Collectors.toList()), ids);
+        assertEquals(25, ids.size());
+        assertTrue(filmStorage.getFilmsPage(25, 10).isEmpty());
+    }
+
+    @Test
+    public void addLikes_reportsEachChange() throws Exception {
+        createUsers(3);
+        Long filmId = filmStorage.addFilm(newDefaultFilm()).getId();
+        filmStorage.addLike(filmId, 2L);
+
+        assertArrayEquals(new boolean[] {true, false, true, false},
+                filmStorage.addLikes(filmId, new long[] {1, 2, 3, 3}));
+        assertEquals(3, getFilm(filmId).getUserLikes().size());
+        assertArrayEquals(new boolean[] {true, false},
+                filmStorage.deleteLikes(filmId, new long[] {1, 1}));
+        assertEquals(2, filmStorage.getPopular(1).get(0).getUserLikes().size());
+    }
+
+    @Test
+    public void getFilms_returnsFoundInOrderAndMissingIds() throws Exception {
+        createUsers(2);
+        for (int i = 0; i < 3; i++) {
+            filmStorage.addFilm(newDefaultFilm());
+        }
+        filmStorage.addLikes(2L, new long[] {1, 2});
+        getFilm(2L);
+
+        Lookup<Film> lookup = filmStorage.getFilms(List.of(2L, 100L, 3L, 1L));
+
+        assertEquals(List.of(2L, 3L, 1L), lookup.getFound().stream()
+                .map(Film::getId).collect(Collectors.toList()));
+        assertEquals(List.of(100L), lookup.getMissing());
+        assertEquals(Set.of(1L, 2L), lookup.getFound().get(0).getUserLikes());
+        assertTrue(lookup.getFound().get(1).getUserLikes().isEmpty());
+    }
+
+    @Test
+    public void counts_followLikeChanges() throws Exception {
+        createUsers(3);
+        assertEquals(0, filmStorage.getFilmsCount());
+        for (int i = 0; i < 2; i++) {
+            filmStorage.addFilm(newDefaultFilm());
+        }
+        filmStorage.addLikes(1L, new long[] {1, 2, 3});
+        filmStorage.addLike(2L, 1L);
+        filmStorage.addLike(2L, 1L);
+        filmStorage.deleteLike(1L, 3L);
+
+        assertEquals(2, filmStorage.getFilmsCount());
+        assertEquals(3, filmStorage.getLikesCount());
+    }
+
+    private Film newFilm(String name, LocalDate releaseDate, int duration) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(releaseDate);
+        film.setDuration(duration);
+        return film;
+    }
+
+    private List<Long> search(FilmSearch search) {
+        return filmStorage.searchFilms(search).stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void searchFilms_filtersByNameDatesAndDuration() throws Exception {
+        filmStorage.addFilm(newFilm("The Matrix", LocalDate.of(1999, 3, 31), 136));
+        filmStorage.addFilm(newFilm("Matrix Reloaded", LocalDate.of(2003, 5, 15), 138));
+        filmStorage.addFilm(newFilm("Inception", LocalDate.of(2010, 7, 16), 148));
+        filmStorage.addFilm(newFilm("Up", LocalDate.of(2009, 5, 29), 96));
+
+        FilmSearch byName = new FilmSearch();
+        byName.setName("MATRIX");
+        assertEquals(List.of(1L, 2L), search(byName));
+
+        FilmSearch byPrefix = new FilmSearch();
+        byPrefix.setNamePrefix("matrix");
+        assertEquals(List.of(2L), search(byPrefix));
+
+        FilmSearch shortName = new FilmSearch();
+        shortName.setName("up");
+        assertEquals(List.of(4L), search(shortName));
+
+        FilmSearch byDates = new FilmSearch();
+        byDates.setReleasedFrom(LocalDate.of(2003, 5, 15));
+        byDates.setReleasedTo(LocalDate.of(2009, 12, 31));
+        assertEquals(List.of(2L, 4L), search(byDates));
+
+        FilmSearch combined = new FilmSearch();
+        combined.setMinDuration(137);
+        combined.setName("a");
+        combined.setReleasedTo(LocalDate.of(2005, 1, 1));
+        assertEquals(List.of(2L), search(combined));
+
+        Film renamed = newFilm("Matrix Revolutions", LocalDate.of(2003, 11, 5), 129);
+        renamed.setId(3L);
+        filmStorage.updateFilm(renamed);
+        assertEquals(List.of(1L, 2L, 3L), search(byName));
+        assertEquals(List.of(2L, 3L), search(byPrefix));
+        assertEquals(List.of(2L, 3L, 4L), search(byDates));
+    }
+
+    @Test
+    public void searchFilms_ordersByPopularityWithOffsetAndLimit() throws Exception {
+        createUsers(3);
+        for (int i = 1; i <= 5; i++) {
+            filmStorage.addFilm(newFilm("Film " + i, LocalDate.of(2000 + i, 1, 1), 100));
+        }
+        filmStorage.addLikes(4L, new long[] {1, 2, 3});
+        filmStorage.addLikes(2L, new long[] {1, 2});
+        filmStorage.addLike(5L, 1L);
+
+        FilmSearch search = new FilmSearch();
+        search.setOrder(FilmSearch.Order.POPULARITY);
+        search.setLimit(2);
+        assertEquals(List.of(4L, 2L), search(search));
+        search.setOffset(2);
+        assertEquals(List.of(5L, 1L), search(search));
+
+        search.setReleasedFrom(LocalDate.of(2003, 1, 1));
+        search.setOffset(1);
+        assertEquals(List.of(5L, 3L), search(search));
+        assertEquals(Set.of(1L), filmStorage.searchFilms(search).get(0).getUserLikes());
+    }
+
+    // Результаты поиска совпадают с фильтрацией полного списка, в т.ч. после изменения фильмов
+    @Test
+    public void searchFilms_matchesFullScan() throws Exception {
+        Random random = new Random(7);
+        String[] words = {"star", "wars", "war", "peace", "stars", "trek", "a", "of"};
+        for (int i = 0; i < 200; i++) {
+            filmStorage.addFilm(newFilm(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    LocalDate.of(1950 + random.nextInt(70), 1, 1).plusDays(random.nextInt(365)),
+                    60 + random.nextInt(120)));
+        }
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 100; i++) {
+                FilmSearch search = new FilmSearch();
+                search.setLimit(1000);
+                if (random.nextBoolean()) {
+                    search.setName(words[random.nextInt(words.length)]);
+                }
+                if (random.nextInt(4) == 0) {
+                    String word = words[random.nextInt(words.length)];
+                    search.setNamePrefix(word.substring(0, Math.min(2, word.length())));
+                }
+                if (random.nextBoolean()) {
+                    LocalDate from = LocalDate.of(1950 + random.nextInt(70), 1, 1);
+                    search.setReleasedFrom(from);
+                    search.setReleasedTo(from.plusYears(random.nextInt(20)));
+                }
+                if (random.nextBoolean()) {
+                    search.setMinDuration(60 + random.nextInt(120));
+                }
+                List<Long> expected = filmStorage.getFilmsList().stream()
+                        .filter(film -> matches(film, search))
+                        .map(Film::getId)
+                        .collect(Collectors.toList());
+                assertEquals(expected, search(search), search.toString());
+            }
+            for (long id = 1; id <= 200; id += 3) {
+                Film film = newFilm(words[random.nextInt(words.length)], LocalDate.of(1950 + random.nextInt(70), 6, 1),
+                        60 + random.nextInt(120));
+                film.setId(id);
+                filmStorage.updateFilm(film);
+            }
+        }
+    }
+
+    private static boolean matches(Film film, FilmSearch search) {
+        String name = film.getName().toLowerCase(Locale.ROOT);
+        return (search.getName() == null || name.contains(search.getName()))
+                && (search.getNamePrefix() == null || name.startsWith(search.getNamePrefix()))
+                && (search.getReleasedFrom() == null || !film.getReleaseDate().isBefore(search.getReleasedFrom()))
+                && (search.getReleasedTo() == null || !film.getReleaseDate().isAfter(search.getReleasedTo()))
+                && (search.getMinDuration() == null || film.getDuration() >= search.getMinDuration());
+    }
+
 }
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendGraphTest {
+
+    private final FriendGraph graph = new FriendGraph();
+
+    @Test
+    public void addAndRemove_reportChanges() {
+        assertTrue(graph.add(1, 5));
+        assertTrue(graph.add(1, 3));
+        assertFalse(graph.add(1, 5));
+        assertArrayEquals(new long[] {3, 5}, graph.friends(1));
+        assertEquals(2, graph.degree(1));
+        assertEquals(2, graph.edges());
+
+        assertTrue(graph.remove(1, 3));
+        assertFalse(graph.remove(1, 3));
+        assertFalse(graph.remove(2, 3));
+        assertArrayEquals(new long[] {5}, graph.friends(1));
+        assertArrayEquals(new long[0], graph.friends(2));
+        assertEquals(0, graph.degree(2));
+        assertEquals(1, graph.edges());
+    }
+
+    // Прочитанный массив — снимок: последующие изменения его не затрагивают
+    @Test
+    public void friends_returnsUnchangedSnapshot() {
+        graph.load(1, new long[] {2, 4, 6});
+        long[] before = graph.friends(1);
+        assertSame(before, graph.friends(1));
+
+        graph.add(1, 3);
+        graph.remove(1, 4);
+        assertArrayEquals(new long[] {2, 4, 6}, before);
+        assertArrayEquals(new long[] {2, 3, 6}, graph.friends(1));
+    }
+
+    @Test
+    public void load_replacesListAndCountsEdges() {
+        graph.add(1, 9);
+        graph.load(1, new long[] {2, 3});
+        graph.load(2, new long[0]);
+        assertArrayEquals(new long[] {2, 3}, graph.friends(1));
+        assertEquals(2, graph.edges());
+
+        assertTrue(graph.add(1, 1));
+        assertFalse(graph.add(1, 2));
+        assertTrue(graph.remove(1, 3));
+        assertArrayEquals(new long[] {1, 2}, graph.friends(1));
+        assertEquals(2, graph.edges());
+    }
+
+    // Случайные изменения вперемешку с чтениями дают тот же результат, что и TreeSet
+    @Test
+    public void randomChanges_matchTreeSet() {
+        Random random = new Random(3);
+        Map<Long, TreeSet<Long>> expected = new HashMap<>();
+        long edges = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // У пользователя 1 тысячи друзей: буфер добавлений заполняется и сливается с массивом
+            long userId = random.nextInt(4) == 0 ? 1 + random.nextInt(10) : 1;
+            long friendId = 1 + random.nextInt(5000);
+            TreeSet<Long> friends = expected.computeIfAbsent(userId, id -> new TreeSet<>());
+            if (random.nextInt(3) == 0) {
+                boolean removed = friends.remove(friendId);
+                assertEquals(removed, graph.remove(userId, friendId));
+                edges -= removed ? 1 : 0;
+            } else {
+                boolean added = friends.add(friendId);
+                assertEquals(added, graph.add(userId, friendId));
+                edges += added ? 1 : 0;
+            }
+            assertEquals(friends.size(), graph.degree(userId));
+            if (random.nextInt(100) == 0) {
+                assertArrayEquals(friends.stream().mapToLong(Long::longValue).toArray(), graph.friends(userId));
+            }
+        }
+        for (Map.Entry<Long, TreeSet<Long>> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue().stream().mapToLong(Long::longValue).toArray(),
+                    graph.friends(entry.getKey()));
+        }
+        assertEquals(edges, graph.edges());
+    }
+
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.user.IdIntersection;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdIntersectionTest {
+
+    private final Random random = new Random(7);
+
+    private long[] randomIds(int size, int bound) {
+        return random.longs(size, 1, bound).distinct().sorted().toArray();
+    }
+
+    private long[] naive(long[] a, long[] b) {
+        return LongStream.of(a).filter(x -> Arrays.binarySearch(b, x) >= 0).toArray();
+    }
+
+    @Test
+    public void intersect_sameSizes() {
+        for (int i = 0; i < 100; i++) {
+            long[] a = randomIds(random.nextInt(500), 2000);
+            long[] b = randomIds(random.nextInt(500), 2000);
+            assertArrayEquals(naive(a, b), IdIntersection.intersect(a, b));
+        }
+    }
+
+    @Test
+    public void intersect_skewedSizes() {
+        for (int i = 0; i < 100; i++) {
+            long[] small = randomIds(1 + random.nextInt(20), 100_000);
+            long[] large = randomIds(20_000, 100_000);
+            assertArrayEquals(naive(small, large), IdIntersection.intersect(small, large));
+            assertArrayEquals(naive(small, large), IdIntersection.intersect(large, small));
+        }
+    }
+
+    @Test
+    public void intersect_edgeCases() {
+        long[] ids = {1, 5, 9};
+        assertArrayEquals(new long[0], IdIntersection.intersect(new long[0], ids));
+        assertArrayEquals(ids, IdIntersection.intersect(ids, ids));
+        assertArrayEquals(new long[] {9}, IdIntersection.intersect(new long[] {9}, LongStream.rangeClosed(1, 100).toArray()));
+        assertArrayEquals(new long[0], IdIntersection.intersect(new long[] {101}, LongStream.rangeClosed(1, 100).toArray()));
+    }
+
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+public class InMemoryFilmStorageTests extends FilmStorageTests {
+
+    @Override
+    protected FilmStorage createStorage() {
+        return new InMemoryFilmStorage();
+    }
+
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+public class InMemoryUserStorageTest extends UsersManagersTest {
+
+    @Override
+    protected UserStorage createStorage() {
+        return new InMemoryUserStorage();
+    }
+
+}
@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.journal.JournalManager;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private JournalManager journal;
+
+    // Новый "запуск приложения": пустые хранилища, восстановленные из журнала
+    private void restart() throws IOException {
+        if (journal != null) {
+            journal.stop();
+        }
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        journal = new JournalManager(filmStorage, userStorage, dir.toString(), 5, Long.MAX_VALUE);
+        journal.start();
+    }
+
+    private Film newFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2001, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User newUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2001, 1, 1));
+        return user;
+    }
+
+    private void fillStorages() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            userStorage.addUser(newUser("user" + i));
+            filmStorage.addFilm(newFilm("Film " + i));
+        }
+        userStorage.addFriend(1L, 2L);
+        userStorage.addFriend(1L, 3L);
+        userStorage.deleteFriend(1L, 3L);
+        filmStorage.addLike(1L, 1L);
+        filmStorage.addLike(1L, 2L);
+        filmStorage.addLike(2L, 3L);
+        Film film = newFilm("Film 2 (новое название)");
+        film.setId(2L);
+        filmStorage.updateFilm(film);
+    }
+
+    private void checkFilledState() {
+        assertEquals(3, filmStorage.getFilmsList().size());
+        assertEquals(3, userStorage.getUsersList().size());
+        // Повторное восстановление измененной записи не увеличивает счетчики метрик
+        assertEquals(3, filmStorage.getFilmsCount());
+        assertEquals(3, userStorage.getUsersCount());
+        assertEquals("Film 2 (новое название)", filmStorage.getFilm(2L).getName());
+        assertEquals(Set.of(1L, 2L), filmStorage.getFilm(1L).getUserLikes());
+        assertEquals(Set.of(3L), filmStorage.getFilm(2L).getUserLikes());
+        assertEquals(Set.of(2L), userStorage.getUser(1L).getFriends());
+        assertEquals(Set.of(1L), userStorage.getUser(2L).getFriends());
+        assertEquals(List.of(1L, 2L, 3L), filmStorage.getPopular(3).stream()
+                .map(Film::getId).collect(Collectors.toList()));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void restart_restoresState() throws Exception {
+        restart();
+        fillStorages();
+        restart();
+
+        checkFilledState();
+        // Новые ID продолжают последовательность
+        assertEquals(4L, filmStorage.addFilm(newFilm("Film 4")).getId());
+        journal.stop();
+    }
+
+    @Test
+    public void restart_dropsRecordTruncatedMidway() throws Exception {
+        restart();
+        fillStorages();
+        restart();
+        filmStorage.addLike(3L, 3L);
+        journal.stop();
+        journal = null;
+
+        // Имитируем аварию во время записи последней записи (лайк занимает 25 байт)
+        Path last = segments().get(segments().size() - 1);
+        long size = Files.size(last);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 10);
+        }
+
+        restart();
+        checkFilledState();
+        assertTrue(filmStorage.getFilm(3L).getUserLikes().isEmpty());
+        assertEquals(size - 25, Files.size(last));
+
+        // После восстановления журнал продолжает писаться с последней целой записи
+        filmStorage.addLike(3L, 1L);
+        restart();
+        checkFilledState();
+        assertEquals(Set.of(1L), filmStorage.getFilm(3L).getUserLikes());
+        journal.stop();
+    }
+
+    @Test
+    public void snapshot_truncatesLogAndRestoresState() throws Exception {
+        restart();
+        fillStorages();
+        journal.snapshot();
+        filmStorage.addLike(3L, 1L);
+        userStorage.addFriend(2L, 3L);
+
+        assertEquals(1, segments().size());
+        restart();
+
+        assertEquals(Set.of(1L), filmStorage.getFilm(3L).getUserLikes());
+        assertEquals(Set.of(1L, 3L), userStorage.getUser(2L).getFriends());
+        assertEquals(Set.of(2L), userStorage.getUser(1L).getFriends());
+        assertEquals(3, filmStorage.getFilmsList().size());
+        journal.stop();
+    }
+
+    @Test
+    public void snapshot_restoredEntitiesAcceptChanges() throws Exception {
+        restart();
+        fillStorages();
+        Film film = newFilm("Фильм без описания");
+        film.setDescription(null);
+        filmStorage.addFilm(film);
+        journal.snapshot();
+        restart();
+
+        assertEquals(4, filmStorage.getFilmsList().size());
+        assertEquals("Film 2 (новое название)", filmStorage.getFilm(2L).getName());
+        assertEquals(Set.of(2L), userStorage.getUser(1L).getFriends());
+        assertEquals("user1@mail.ru", userStorage.getUser(1L).getEmail());
+        Film restored = filmStorage.getFilm(4L);
+        assertEquals("Фильм без описания", restored.getName());
+        assertNull(restored.getDescription());
+        assertEquals(film, restored);
+
+        // Связи, загруженные из снимка, изменяются так же, как созданные через хранилище
+        assertTrue(filmStorage.addLike(1L, 3L));
+        assertFalse(filmStorage.addLike(1L, 1L));
+        assertTrue(userStorage.deleteFriend(1L, 2L));
+        restart();
+
+        assertEquals(Set.of(1L, 2L, 3L), filmStorage.getFilm(1L).getUserLikes());
+        assertTrue(userStorage.getUser(2L).getFriends().isEmpty());
+        assertEquals(List.of(1L, 2L), filmStorage.getPopular(2).stream()
+                .map(Film::getId).collect(Collectors.toList()));
+        journal.stop();
+    }
+
+}
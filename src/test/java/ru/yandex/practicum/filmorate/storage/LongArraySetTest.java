@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongArraySetTest {
+
+    @Test
+    public void of_emptyAndNull() {
+        assertTrue(LongArraySet.of(null).isEmpty());
+        assertSame(LongArraySet.of(null), LongArraySet.of(new long[0]));
+        assertEquals(Set.of(), LongArraySet.of(new long[0]));
+        assertFalse(LongArraySet.of(new long[0]).iterator().hasNext());
+    }
+
+    @Test
+    public void contains_sizeAndGet() {
+        LongArraySet set = LongArraySet.of(new long[] {2, 7, 11});
+        assertEquals(3, set.size());
+        assertTrue(set.contains(7L));
+        assertFalse(set.contains(8L));
+        assertFalse(set.contains(7));
+        assertFalse(set.contains(null));
+        assertEquals(2, set.get(0));
+        assertEquals(11, set.get(2));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> set.get(3));
+    }
+
+    // Обход по возрастанию; равенство и хеш — как у любого Set<Long>
+    @Test
+    public void iterator_ascendingAndEqualsOtherSets() {
+        LongArraySet set = LongArraySet.of(new long[] {2, 7, 11});
+        List<Long> ids = new ArrayList<>();
+        Iterator<Long> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next());
+        }
+        assertEquals(List.of(2L, 7L, 11L), ids);
+        assertThrows(NoSuchElementException.class, iterator::next);
+
+        assertEquals(Set.of(11L, 2L, 7L), set);
+        assertEquals(set, Set.of(11L, 2L, 7L));
+        assertEquals(Set.of(11L, 2L, 7L).hashCode(), set.hashCode());
+        assertThrows(UnsupportedOperationException.class, () -> set.add(1L));
+        assertThrows(UnsupportedOperationException.class, () -> set.remove(2L));
+    }
+
+}
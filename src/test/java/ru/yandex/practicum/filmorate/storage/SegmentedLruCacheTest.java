@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.cache.CacheStats;
+import ru.yandex.practicum.filmorate.storage.cache.SegmentedLruCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentedLruCacheTest {
+
+    @Test
+    public void put_boundedByEntriesAndBytes() {
+        SegmentedLruCache<String> byEntries = new SegmentedLruCache<>(160, Long.MAX_VALUE, value -> 1);
+        SegmentedLruCache<String> byBytes = new SegmentedLruCache<>(Long.MAX_VALUE, 16 * 1000, String::length);
+        for (long key = 0; key < 10_000; key++) {
+            byEntries.put(key, "value");
+            byBytes.put(key, "x".repeat(100));
+        }
+        assertTrue(byEntries.stats().getEntries() <= 160);
+        assertTrue(byBytes.stats().getBytes() <= 16 * 1000);
+        assertEquals(10_000 - byEntries.stats().getEntries(), byEntries.stats().getEvictions());
+    }
+
+    @Test
+    public void get_keepsHotEntriesDuringScan() {
+        SegmentedLruCache<Long> cache = new SegmentedLruCache<>(1600, Long.MAX_VALUE, value -> 1);
+        for (long key = 0; key < 500; key++) {
+            cache.put(key, key);
+            cache.get(key);
+        }
+        // Однократное чтение большого диапазона не вытесняет записи, к которым обращались повторно
+        for (long key = 1_000_000; key < 1_100_000; key++) {
+            cache.put(key, key);
+        }
+        int kept = 0;
+        for (long key = 0; key < 500; key++) {
+            if (cache.get(key) != null) {
+                kept++;
+            }
+        }
+        assertEquals(500, kept);
+    }
+
+    @Test
+    public void putIfFresh_skipsValueReadBeforeChange() {
+        SegmentedLruCache<String> cache = new SegmentedLruCache<>(100, Long.MAX_VALUE, value -> 1);
+        long stamp = cache.stamp(1);
+        cache.invalidate(1);
+        cache.putIfFresh(1, "old", stamp);
+        assertNull(cache.get(1));
+
+        stamp = cache.stamp(1);
+        cache.put(1, "new");
+        cache.putIfFresh(1, "old", stamp);
+        assertEquals("new", cache.get(1));
+
+        stamp = cache.stamp(2);
+        cache.putIfFresh(2, "loaded", stamp);
+        assertEquals("loaded", cache.get(2));
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    public void putWithStamp_dropsKeyChangedDuringWrite() {
+        SegmentedLruCache<String> cache = new SegmentedLruCache<>(100, Long.MAX_VALUE, value -> 1);
+        long stamp = cache.stamp(1);
+        cache.put(1, "written", stamp);
+        assertEquals("written", cache.get(1));
+
+        stamp = cache.stamp(1);
+        cache.invalidate(1);
+        cache.put(1, "stale", stamp);
+        assertNull(cache.get(1));
+
+        long[] stamps = cache.stamps();
+        cache.put(2, "new", stamps);
+        assertEquals("new", cache.get(2));
+    }
+
+    @Test
+    public void get_returnsCopies() {
+        SegmentedLruCache<StringBuilder> cache = new SegmentedLruCache<>(100, Long.MAX_VALUE, value -> 1,
+                StringBuilder::new);
+        StringBuilder value = new StringBuilder("value");
+        cache.put(1, value);
+        value.append(" changed by writer");
+        cache.get(1).append(" changed by reader");
+        assertEquals("value", cache.get(1).toString());
+    }
+
+}
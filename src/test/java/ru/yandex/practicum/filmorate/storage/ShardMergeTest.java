@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardMergeTest {
+
+    // Источник, считающий прочитанные из него элементы
+    private static final class CountingIterator implements Iterator<Integer> {
+        private final Iterator<Integer> it;
+        private final AtomicInteger reads;
+
+        private CountingIterator(List<Integer> values, AtomicInteger reads) {
+            this.it = values.iterator();
+            this.reads = reads;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            reads.incrementAndGet();
+            return it.next();
+        }
+    }
+
+    @Test
+    public void merge_returnsPageOfMergedOrder() {
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            List<List<Integer>> lists = new ArrayList<>();
+            List<Integer> all = new ArrayList<>();
+            for (int s = random.nextInt(5); s > 0; s--) {
+                List<Integer> list = random.ints(random.nextInt(20), 0, 50).sorted().boxed()
+                        .collect(Collectors.toList());
+                lists.add(list);
+                all.addAll(list);
+            }
+            all.sort(null);
+            int offset = random.nextInt(all.size() + 3);
+            int limit = random.nextInt(all.size() + 3);
+            List<Iterator<Integer>> sources = lists.stream().map(List::iterator).collect(Collectors.toList());
+
+            assertEquals(all.subList(Math.min(offset, all.size()), Math.min(offset + limit, all.size())),
+                    ShardMerge.merge(sources, Comparator.naturalOrder(), offset, limit));
+        }
+    }
+
+    // Источники читаются не дальше offset + limit элементов в сумме (плюс по одному текущему элементу)
+    @Test
+    public void merge_readsSourcesLazily() {
+        AtomicInteger reads = new AtomicInteger();
+        List<Iterator<Integer>> sources = new ArrayList<>();
+        for (int s = 0; s < 4; s++) {
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                list.add(i * 4 + s);
+            }
+            sources.add(new CountingIterator(list, reads));
+        }
+        AtomicInteger mapped = new AtomicInteger();
+
+        List<String> page = ShardMerge.merge(sources, Comparator.naturalOrder(), 5, 3, value -> {
+            mapped.incrementAndGet();
+            return "#" + value;
+        });
+
+        assertEquals(List.of("#5", "#6", "#7"), page);
+        assertEquals(3, mapped.get());
+        assertTrue(reads.get() <= 5 + 3 + sources.size(), "прочитано " + reads.get());
+    }
+
+    // Равные элементы разных источников выдаются все, в порядке, заданном order
+    @Test
+    public void merge_keepsEqualElementsOfDifferentSources() {
+        Comparator<int[]> byFirst = Comparator.comparingInt(a -> a[0]);
+        List<Iterator<int[]>> sources = List.of(
+                List.of(new int[] {1, 0}, new int[] {2, 0}).iterator(),
+                List.<int[]>of().iterator(),
+                List.of(new int[] {1, 2}, new int[] {3, 2}).iterator());
+
+        List<Integer> merged = ShardMerge.merge(sources, byFirst, 0, 10, a -> a[0]);
+
+        assertEquals(List.of(1, 1, 2, 3), merged);
+        assertEquals(List.of(), ShardMerge.merge(List.<Iterator<Integer>>of(), Comparator.naturalOrder(), 0, 10));
+    }
+
+}
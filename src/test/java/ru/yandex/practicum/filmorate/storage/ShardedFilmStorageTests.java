@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.ShardedFilmStorage;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedFilmStorageTests extends FilmStorageTests {
+
+    @Override
+    protected FilmStorage createStorage() {
+        return new ShardedFilmStorage(3);
+    }
+
+    // Фильмы 1..count; подряд добавленные фильмы попадают в разные шарды
+    private void addFilms(int count) throws Exception {
+        for (int i = 1; i <= count; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2001, 1, 1));
+            film.setDuration(120);
+            filmStorage.addFilm(film);
+        }
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    // Фильмы разных шардов с одинаковым количеством лайков упорядочены по ID
+    @Test
+    public void getPopular_ordersTiesAcrossShardsById() throws Exception {
+        addFilms(9);
+        for (long filmId : new long[] {9, 4, 2}) {
+            filmStorage.addLike(filmId, 1L);
+            filmStorage.addLike(filmId, 2L);
+        }
+        filmStorage.addLike(6L, 1L);
+        filmStorage.addLike(1L, 1L);
+
+        assertEquals(List.of(2L, 4L, 9L, 1L, 6L), ids(filmStorage.getPopular(5)));
+        assertEquals(List.of(2L, 4L, 9L), ids(filmStorage.getPopular(3)));
+        assertEquals(List.of(2L, 4L, 9L, 1L, 6L, 3L, 5L, 7L, 8L), ids(filmStorage.getPopular(100)));
+    }
+
+    // Небольшой список (ленивое слияние индексов) и большой (параллельный запрос к шардам) совпадают с сортировкой
+    @Test
+    public void getPopular_smallAndLargeCountMatchFullSort() throws Exception {
+        addFilms(60);
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            filmStorage.addLike(1L + random.nextInt(60), 1L + random.nextInt(8));
+        }
+        List<Long> expected = filmStorage.getFilmsList().stream()
+                .sorted(Comparator.comparingInt((Film film) -> film.getUserLikes().size()).reversed()
+                        .thenComparingLong(Film::getId))
+                .map(Film::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(expected.subList(0, 10), ids(filmStorage.getPopular(10)));
+        assertEquals(expected, ids(filmStorage.getPopular(10_000)));
+    }
+
+    @Test
+    public void getFilmsPage_mergesShardsById() throws Exception {
+        addFilms(10);
+        filmStorage.addLike(5L, 1L);
+
+        List<Film> page = filmStorage.getFilmsPage(3, 4);
+        assertEquals(List.of(4L, 5L, 6L, 7L), ids(page));
+        assertEquals(Set.of(1L), page.get(1).getUserLikes());
+        assertEquals(List.of(9L, 10L), ids(filmStorage.getFilmsPage(8, 5)));
+        assertEquals(List.of(), ids(filmStorage.getFilmsPage(10, 5)));
+    }
+
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.ShardedUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedUserStorageTest extends UsersManagersTest {
+
+    @Override
+    protected UserStorage createStorage() {
+        return new ShardedUserStorage(3);
+    }
+
+    // Дружба пользователей разных шардов хранится в обоих шардах; при одновременных добавлениях и удалениях
+    // одних и тех же пар стороны дружбы остаются согласованными
+    @Test
+    public void changeFriends_concurrently_keepsBothSidesConsistent() throws Exception {
+        int users = 12;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(2001, 1, 1));
+            ids.add(userStorage.addUser(user).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 5000; i++) {
+                        long userId = ids.get(random.nextInt(users));
+                        long friendId = ids.get(random.nextInt(users));
+                        if (userId != friendId) {
+                            if (random.nextBoolean()) {
+                                userStorage.addFriend(userId, friendId);
+                            } else {
+                                userStorage.deleteFriend(friendId, userId);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Object> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<Long, long[]> friends = userStorage.getFriendIds(ids);
+        long edges = 0;
+        for (Map.Entry<Long, long[]> entry : friends.entrySet()) {
+            for (long friendId : entry.getValue()) {
+                assertTrue(Arrays.binarySearch(friends.get(friendId), entry.getKey()) >= 0,
+                        entry.getKey() + " -> " + friendId);
+                edges++;
+            }
+        }
+        assertEquals(edges / 2, userStorage.getFriendshipsCount());
+    }
+
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Очистка БД тестов хранилищ (см. DbStorageTest): тесты рассчитывают на пустую БД и ID с единицы
+final class TestDatabase {
+
+    private TestDatabase() {
+    }
+
+    static void clear(JdbcTemplate jdbc) {
+        jdbc.execute("DELETE FROM friends");
+        jdbc.execute("DELETE FROM user_film");
+        jdbc.execute("DELETE FROM film");
+        jdbc.execute("DELETE FROM users");
+        jdbc.execute("ALTER TABLE film ALTER COLUMN id RESTART WITH 1");
+        jdbc.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
+    }
+
+}
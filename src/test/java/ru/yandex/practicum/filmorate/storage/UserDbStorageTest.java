@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DbStorageTest
+public class UserDbStorageTest extends UsersManagersTest {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private UserDbStorage dbUserStorage;
+
+    @Override
+    protected UserStorage createStorage() {
+        TestDatabase.clear(jdbc);
+        return dbUserStorage;
+    }
+
+    // Встречные добавления и удаления дружбы одних и тех же пар: строки пользователей блокируются в порядке ID,
+    // поэтому запросы не блокируют друг друга, а обе стороны дружбы остаются согласованными
+    @Test
+    public void changeFriends_concurrently_keepsBothSidesConsistent() throws Exception {
+        assertTrue(AopUtils.isAopProxy(dbUserStorage));
+        int users = 6;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(2001, 1, 1));
+            ids.add(userStorage.addUser(user).getId());
+        }
+
+        AtomicInteger friendships = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 200; i++) {
+                        long userId = ids.get(random.nextInt(users));
+                        long friendId = ids.get(random.nextInt(users));
+                        if (userId == friendId) {
+                            continue;
+                        }
+                        if (random.nextBoolean()) {
+                            friendships.addAndGet(userStorage.addFriend(userId, friendId) ? 1 : 0);
+                        } else {
+                            friendships.addAndGet(userStorage.deleteFriend(friendId, userId) ? -1 : 0);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Object> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM friends AS f WHERE NOT EXISTS "
+                + "(SELECT 1 FROM friends AS r WHERE r.user_id = f.friend_id AND r.friend_id = f.user_id)",
+                Integer.class));
+        assertEquals(friendships.get(), userStorage.getFriendshipsCount());
+        long edges = 0;
+        for (Long id : ids) {
+            edges += userStorage.getUser(id).getFriends().size();
+        }
+        assertEquals(2L * friendships.get(), edges);
+    }
+
+}
@@ -1,22 +1,32 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
-import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-public class UsersManagersTest {
+// Общие тесты для всех реализаций UserStorage
+public abstract class UsersManagersTest {
 
-    private final InMemoryUserStorage userStorage;
+    protected UserStorage userStorage;
 
-    public UsersManagersTest() {
-        userStorage = new InMemoryUserStorage();
+    // Хранилище создается перед каждым тестом (см. FilmStorageTests)
+    @BeforeEach
+    public void setUpStorage() {
+        userStorage = createStorage();
     }
 
+    protected abstract UserStorage createStorage();
+
     private User newDefaultUser() {
         User user = new User();
         user.setEmail("user@mail.ru");
@@ -58,7 +68,7 @@ public class UsersManagersTest {
     }
 
     @Test
-    public void updateUser_updateList() throws NotFoundException {
+    public void updateUser_updateList() throws Exception {
         Long userId;
         userId = userStorage.addUser(newDefaultUser()).getId();
 
@@ -81,4 +91,115 @@ public class UsersManagersTest {
         checkEqualsUsers(user, savedUser);
     }
 
+    // Хранилище отдает копии: изменение полученного или переданного пользователя не меняет хранимого
+    @Test
+    public void getUser_returnsIndependentCopy() throws Exception {
+        User user = newDefaultUser();
+        Long userId = userStorage.addUser(user).getId();
+        Long friendId = userStorage.addUser(newDefaultUser()).getId();
+        user.setLogin("changed");
+
+        User first = getUser(userId);
+        first.setName("Изменен читателем");
+        userStorage.getUsersList().get(0).setEmail("changed@mail.ru");
+        userStorage.addFriend(userId, friendId);
+
+        User second = getUser(userId);
+        assertNotSame(first, second);
+        checkEqualsUsers(newDefaultUser(), second);
+        assertEquals(Set.of(), first.getFriends());
+        assertEquals(Set.of(friendId), second.getFriends());
+    }
+
+    @Test
+    public void getCommonFriends_returnsIntersection() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            userStorage.addUser(newDefaultUser());
+        }
+        userStorage.addFriend(1L, 3L);
+        userStorage.addFriend(1L, 4L);
+        userStorage.addFriend(2L, 4L);
+        userStorage.addFriend(2L, 5L);
+        userStorage.addFriend(2L, 3L);
+
+        assertEquals(List.of(3L, 4L), userStorage.getCommonFriends(1L, 2L).stream()
+                .map(User::getId).collect(Collectors.toList()));
+        assertEquals(List.of(1L, 2L), userStorage.getFriends(4L).stream()
+                .map(User::getId).collect(Collectors.toList()));
+        assertThrows(NotFoundException.class, () -> userStorage.getCommonFriends(1L, 100L));
+    }
+
+    @Test
+    public void containsUser_checksPresence() throws Exception {
+        userStorage.addUser(newDefaultUser());
+
+        assertTrue(userStorage.containsUser(1L));
+        assertFalse(userStorage.containsUser(100L));
+    }
+
+    @Test
+    public void addFriends_reportsEachChange() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            userStorage.addUser(newDefaultUser());
+        }
+        userStorage.addFriend(1L, 3L);
+
+        assertArrayEquals(new boolean[] {true, false, true},
+                userStorage.addFriends(1L, new long[] {2, 3, 4}));
+        assertEquals(3, getUser(1L).getFriends().size());
+        assertTrue(getUser(4L).getFriends().contains(1L));
+        assertArrayEquals(new boolean[] {true, false},
+                userStorage.deleteFriends(1L, new long[] {2, 2}));
+        assertFalse(getUser(2L).getFriends().contains(1L));
+        assertThrows(NotFoundException.class, () -> userStorage.addFriends(1L, new long[] {2, 100}));
+    }
+
+    @Test
+    public void getUsers_returnsFoundInOrderAndMissingIds() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            userStorage.addUser(newDefaultUser());
+        }
+        userStorage.addFriend(1L, 3L);
+        getUser(3L);
+
+        Lookup<User> lookup = userStorage.getUsers(List.of(3L, 100L, 1L, 2L, 101L));
+
+        assertEquals(List.of(3L, 1L, 2L), lookup.getFound().stream()
+                .map(User::getId).collect(Collectors.toList()));
+        assertEquals(List.of(100L, 101L), lookup.getMissing());
+        assertEquals(Set.of(1L), lookup.getFound().get(0).getFriends());
+        assertTrue(lookup.getFound().get(2).getFriends().isEmpty());
+        assertTrue(userStorage.getUsers(List.of()).isComplete());
+    }
+
+    @Test
+    public void counts_followFriendshipChanges() throws Exception {
+        assertEquals(0, userStorage.getUsersCount());
+        for (int i = 0; i < 3; i++) {
+            userStorage.addUser(newDefaultUser());
+        }
+        userStorage.addFriend(1L, 2L);
+        userStorage.addFriends(3L, new long[] {1, 2});
+        userStorage.addFriend(2L, 1L);
+        userStorage.deleteFriend(3L, 2L);
+
+        assertEquals(3, userStorage.getUsersCount());
+        assertEquals(2, userStorage.getFriendshipsCount());
+    }
+
+    @Test
+    public void getFriendIds_returnsSortedIdsOfUsersWithFriends() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            userStorage.addUser(newDefaultUser());
+        }
+        userStorage.addFriend(1L, 3L);
+        userStorage.addFriend(1L, 2L);
+
+        Map<Long, long[]> friendIds = userStorage.getFriendIds(List.of(1L, 2L, 4L, 100L));
+        assertEquals(Set.of(1L, 2L), friendIds.keySet());
+        assertArrayEquals(new long[] {2, 3}, friendIds.get(1L));
+        assertArrayEquals(new long[] {1}, friendIds.get(2L));
+        assertTrue(userStorage.getFriendIds(List.of()).isEmpty());
+    }
+
 }
@@ -0,0 +1,253 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileJournalTest {
+
+    // Фоновая запись не мешает тесту: журнал пишется только явными flush
+    private static final long NO_BACKGROUND_FLUSH = 3_600_000;
+
+    @TempDir
+    Path dir;
+
+    private FailingChannel channel;
+
+    private FileJournal open() throws IOException {
+        return FileJournal.open(dir, NO_BACKGROUND_FLUSH, new Likes(), path -> {
+            channel = new FailingChannel(FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+            return channel;
+        });
+    }
+
+    private List<String> restoredLikes() throws IOException {
+        Likes likes = new Likes();
+        FileJournal.open(dir, NO_BACKGROUND_FLUSH, likes).close();
+        return likes.records;
+    }
+
+    // Пакет, запись которого оборвалась на середине, пишется повторно целиком и раньше следующих изменений
+    @Test
+    public void flush_retriesBatchAfterWriteError() throws Exception {
+        FileJournal journal = open();
+        journal.likeChanged(1, 1, true);
+        journal.likeChanged(1, 2, true);
+        journal.flush();
+        long flushed = channel.size();
+
+        journal.likeChanged(2, 1, true);
+        journal.likeChanged(2, 2, true);
+        channel.failWrites = true;
+        assertThrows(IOException.class, journal::flush);
+        assertEquals(flushed, channel.size());
+
+        journal.likeChanged(1, 2, false);
+        channel.failWrites = false;
+        journal.flush();
+        journal.close();
+
+        assertEquals(List.of("1:1+", "1:2+", "2:1+", "2:2+", "1:2-"), restoredLikes());
+    }
+
+    // Если после ошибки сегмент не удалось обрезать, журнал не принимает изменения
+    @Test
+    public void flush_failsJournalWhenSegmentCannotBeRestored() throws Exception {
+        FileJournal journal = open();
+        journal.likeChanged(1, 1, true);
+        journal.flush();
+
+        journal.likeChanged(1, 2, true);
+        channel.failWrites = true;
+        channel.failTruncate = true;
+        assertThrows(IOException.class, journal::flush);
+
+        assertThrows(UncheckedIOException.class, () -> journal.likeChanged(1, 3, true));
+        assertThrows(IOException.class, journal::flush);
+        assertThrows(IOException.class, journal::close);
+    }
+
+    // Поврежденная запись не в последнем сегменте — ошибка: обрезка потеряла бы следующие сегменты
+    @Test
+    public void open_failsOnCorruptionBeforeLastSegment() throws Exception {
+        writeSegment(1, 3);
+        writeSegment(2, 2);
+        Path first = dir.resolve("journal-0000000001.log");
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[30] ^= 1;
+        Files.write(first, bytes);
+
+        assertThrows(IOException.class, () -> FileJournal.open(dir, NO_BACKGROUND_FLUSH, new Likes()));
+        assertEquals(bytes.length, Files.size(first));
+        assertEquals(2 * 25, Files.size(dir.resolve("journal-0000000002.log")));
+
+        // Неполная запись в конце последнего сегмента — "хвост" после аварии: отбрасывается
+        writeSegment(1, 3);
+        Path last = dir.resolve("journal-0000000002.log");
+        Files.write(last, new byte[] {0, 0, 0, 16, 3}, StandardOpenOption.APPEND);
+        assertEquals(List.of("1:1+", "1:2+", "1:3+", "2:1+", "2:2+"), restoredLikes());
+        assertEquals(2 * 25, Files.size(last));
+    }
+
+    private void writeSegment(long number, int likes) throws IOException {
+        RecordBuffer buffer = new RecordBuffer();
+        for (int i = 1; i <= likes; i++) {
+            buffer.pair(RecordBuffer.LIKE_ADDED, number, i);
+        }
+        try (FileChannel segment = FileChannel.open(dir.resolve(String.format("journal-%010d.log", number)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.writeTo(segment);
+        }
+    }
+
+    private static final class Likes implements JournalReader.Handler {
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void snapshot(ColumnarSnapshot snapshot) {
+        }
+
+        @Override
+        public void film(Film film) {
+        }
+
+        @Override
+        public void user(User user) {
+        }
+
+        @Override
+        public void like(long filmId, long userId, boolean added) {
+            records.add(filmId + ":" + userId + (added ? "+" : "-"));
+        }
+
+        @Override
+        public void friend(long userId, long friendId, boolean added) {
+        }
+    }
+
+    // Сегмент с ошибками по требованию: запись пишет половину данных и завершается ошибкой
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private volatile boolean failWrites;
+        private volatile boolean failTruncate;
+
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failWrites) {
+                ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                src.position(src.position() + delegate.write(half));
+                throw new IOException("Нет места на устройстве");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("Ошибка ввода-вывода");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+
+}